@@ -0,0 +1,108 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.AnnotationType;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static com.github.kristofa.brave.internal.Util.UTF_8;
+
+/**
+ * Like {@code ITAnnotationSubmitterConcurrency}, several threads annotate the same span at once,
+ * as happens in asynchronous server handlers. The "synchronized" benchmarks lock on the span
+ * around each add, as brave used to, for comparison with the lock-free path.
+ *
+ * <p>Vary contention with the threads option: {@code java -jar benchmarks.jar
+ * AnnotationSubmitterConcurrencyBenchmarks -t 8}
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AnnotationSubmitterConcurrencyBenchmarks {
+  /** The shared span is replaced after this many annotations, so that memory stays bounded. */
+  static final int ANNOTATIONS_PER_SPAN = 1024;
+  static final Endpoint ENDPOINT = Endpoint.create("benchmark", 127 << 24 | 1);
+  static final byte[] VALUE = "value".getBytes(UTF_8);
+
+  final AtomicReference<Span> current = new AtomicReference<Span>(newSpan());
+
+  final AnnotationSubmitter submitter = AnnotationSubmitter.create(new SpanAndEndpoint() {
+    @Override public Span span() {
+      return current.get();
+    }
+
+    @Override public Endpoint endpoint() {
+      return ENDPOINT;
+    }
+  });
+
+  @Benchmark
+  public void submitAnnotation() {
+    submitter.submitAnnotation("foo", 1L);
+    maybeReplace(current.get());
+  }
+
+  @Benchmark
+  public void submitAnnotation_synchronized() {
+    Span span = current.get();
+    synchronized (span) {
+      span.addToAnnotations(1L, "foo", ENDPOINT);
+    }
+    maybeReplace(span);
+  }
+
+  @Benchmark
+  public void submitBinaryAnnotation() {
+    Span span = current.get();
+    span.addToBinary_annotations("key", VALUE, AnnotationType.STRING, ENDPOINT);
+    maybeReplace(span);
+  }
+
+  @Benchmark
+  public void submitBinaryAnnotation_synchronized() {
+    Span span = current.get();
+    synchronized (span) {
+      span.addToBinary_annotations("key", VALUE, AnnotationType.STRING, ENDPOINT);
+    }
+    maybeReplace(span);
+  }
+
+  void maybeReplace(Span span) {
+    if (span.record().annotationCount() >= ANNOTATIONS_PER_SPAN
+        || span.record().binaryAnnotationCount() >= ANNOTATIONS_PER_SPAN) {
+      current.compareAndSet(span, newSpan());
+    }
+  }
+
+  static Span newSpan() {
+    return new Span().setTrace_id(1L).setId(1L).setName("");
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + AnnotationSubmitterConcurrencyBenchmarks.class.getSimpleName() + ".*")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,63 @@
+package com.github.kristofa.brave;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the cost of reading a timestamp for each annotation. The anchored clock derives
+ * microseconds from {@link System#nanoTime()}, instead of reading the wall clock.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@State(Scope.Benchmark)
+public class ClockBenchmarks {
+  final AnnotationSubmitter.Clock anchored = AnchoredClock.create();
+  final AnnotationSubmitter.Clock anchoredNoResync = AnchoredClock.create(0, TimeUnit.SECONDS);
+  final AnnotationSubmitter.Clock millis = AnnotationSubmitter.DefaultClock.INSTANCE;
+
+  @Benchmark
+  public long anchoredClock() {
+    return anchored.currentTimeMicroseconds();
+  }
+
+  @Benchmark
+  public long anchoredClock_noResync() {
+    return anchoredNoResync.currentTimeMicroseconds();
+  }
+
+  @Benchmark
+  public long currentTimeMillisClock() {
+    return millis.currentTimeMicroseconds();
+  }
+
+  @Benchmark
+  public long nanoTime() {
+    return System.nanoTime();
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + ClockBenchmarks.class.getSimpleName() + ".*")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,137 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Measures the per-task overhead of {@link BraveExecutorService}, with and without a span in scope.
+ * Tasks are wrapped either way. Without a span, the wrapper only holds the task, and running it
+ * reads the spans of the thread once. With one, spans are captured and bound around the task.
+ *
+ * <p>Tasks run on the calling thread, so that the results show the cost of capturing and binding
+ * spans as opposed to handing tasks to another thread.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@State(Scope.Thread)
+public class ExecutorServiceBenchmarks {
+  static final Endpoint ENDPOINT = Endpoint.create("benchmark", 127 << 24 | 1);
+  static final SpanId PARENT = SpanId.builder().traceId(1L).spanId(2L)
+      .flags(SpanId.FLAG_SAMPLED | SpanId.FLAG_SAMPLING_SET).build();
+
+  @Param({"false", "true"})
+  boolean spanInScope;
+
+  Brave brave = new Brave.Builder(ENDPOINT).reporter(Reporter.NOOP).build();
+  ExecutorService unwrapped = new DirectExecutorService();
+  ExecutorService wrapped = BraveExecutorService.wrap(unwrapped, brave);
+  List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+  int count;
+
+  final Runnable runnable = new Runnable() {
+    @Override public void run() {
+      count++;
+    }
+  };
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < 10; i++) {
+      tasks.add(new Callable<Integer>() {
+        @Override public Integer call() {
+          return count++;
+        }
+      });
+    }
+    if (spanInScope) brave.serverTracer().setStateCurrentTrace(PARENT, "get");
+  }
+
+  @TearDown
+  public void tearDown() {
+    brave.serverTracer().clearCurrentSpan();
+  }
+
+  @Benchmark
+  public int execute_unwrapped() {
+    unwrapped.execute(runnable);
+    return count;
+  }
+
+  @Benchmark
+  public int execute_braveExecutorService() {
+    wrapped.execute(runnable);
+    return count;
+  }
+
+  @Benchmark
+  public int invokeAll10_unwrapped() throws InterruptedException {
+    return unwrapped.invokeAll(tasks).size();
+  }
+
+  @Benchmark
+  public int invokeAll10_braveExecutorService() throws InterruptedException {
+    return wrapped.invokeAll(tasks).size();
+  }
+
+  /** Runs tasks on the calling thread. */
+  static final class DirectExecutorService extends AbstractExecutorService {
+    @Override public void execute(Runnable command) {
+      command.run();
+    }
+
+    @Override public void shutdown() {
+    }
+
+    @Override public List<Runnable> shutdownNow() {
+      return new ArrayList<Runnable>();
+    }
+
+    @Override public boolean isShutdown() {
+      return false;
+    }
+
+    @Override public boolean isTerminated() {
+      return false;
+    }
+
+    @Override public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return false;
+    }
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + ExecutorServiceBenchmarks.class.getSimpleName() + ".*")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
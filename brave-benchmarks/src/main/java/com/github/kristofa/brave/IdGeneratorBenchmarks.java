@@ -0,0 +1,60 @@
+package com.github.kristofa.brave;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares ID generation when all cores are generating IDs. A shared {@link Random} is a CAS loop
+ * on one seed, so it slows down as threads are added, while per-thread generators don't.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmarks {
+  final IdGenerator sharedRandom = IdGenerator.create(new Random());
+  final IdGenerator threadLocal = IdGenerator.create();
+
+  @Benchmark
+  public long sharedRandom() {
+    return sharedRandom.nextId();
+  }
+
+  @Benchmark
+  public long threadLocal() {
+    return threadLocal.nextId();
+  }
+
+  /** For reference: Java 7+ per-thread random, which brave-core can't use on Java 6. */
+  @Benchmark
+  public long threadLocalRandom() {
+    return ThreadLocalRandom.current().nextLong();
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + IdGeneratorBenchmarks.class.getSimpleName() + ".*")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -1,5 +1,6 @@
 package com.github.kristofa.brave;
 
+import java.util.BitSet;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -87,6 +88,63 @@ public class SamplerBenchmarks {
 
   static final Sampler TRACE_ID_SAMPLER_COUNTING = CountingSampler.create(SAMPLE_RATE);
 
+  /**
+   * Root requests on different threads sample concurrently. This shows the cost of contention on
+   * the counting sampler's counter.
+   */
+  @Benchmark @Threads(8)
+  public boolean sampler_counting_8threads(Args args) {
+    return TRACE_ID_SAMPLER_COUNTING.isSampled(args.traceId);
+  }
+
+  /** The boundary sampler has no shared state, so is a baseline for concurrent sampling. */
+  @Benchmark @Threads(8)
+  public boolean sampler_boundary_8threads(Args args) {
+    return TRACE_ID_SAMPLER_BOUNDARY.isSampled(args.traceId);
+  }
+
+  /**
+   * This measures the rate-limiting sampler provided with brave-core. The limit is quickly
+   * reached, so this mostly measures the decision to drop a trace.
+   */
+  @Benchmark
+  public boolean sampler_rateLimiting(Args args) {
+    return TRACE_ID_SAMPLER_RATE_LIMITING.isSampled(args.traceId);
+  }
+
+  @Benchmark @Threads(8)
+  public boolean sampler_rateLimiting_8threads(Args args) {
+    return TRACE_ID_SAMPLER_RATE_LIMITING.isSampled(args.traceId);
+  }
+
+  static final Sampler TRACE_ID_SAMPLER_RATE_LIMITING = RateLimitingSampler.create(100);
+
+  /**
+   * The counting sampler used to guard its counter with a monitor. This shows the difference
+   * to the atomic counter when threads contend.
+   */
+  @Benchmark @Threads(8)
+  public boolean compare_counting_synchronized_8threads(Args args) {
+    return SYNCHRONIZED_COUNTING.isSampled(args.traceId);
+  }
+
+  @Benchmark
+  public boolean compare_counting_synchronized(Args args) {
+    return SYNCHRONIZED_COUNTING.isSampled(args.traceId);
+  }
+
+  static final Sampler SYNCHRONIZED_COUNTING = new Sampler() {
+    final BitSet sampleDecisions =
+        CountingSampler.randomBitSet(100, (int) (SAMPLE_RATE * 100.0f), new Random());
+    int i; // guarded by this
+
+    @Override public synchronized boolean isSampled(long traceIdIgnored) {
+      boolean result = sampleDecisions.get(i++);
+      if (i == 100) i = 0;
+      return result;
+    }
+  };
+
   /**
    * Finagle's scala sampler samples using modulo 10000 arithmetic, which allows a minimum sample
    * rate of 0.01%.
@@ -0,0 +1,82 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.DefaultSpanCodec;
+import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.Codec;
+import zipkin.Constants;
+
+/**
+ * Compares encoding brave spans directly against converting them to zipkin spans first. Run with
+ * the gc profiler to compare allocation: {@code java -jar benchmarks.jar SpanCodecBenchmarks -prof
+ * gc}
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+@State(Scope.Thread)
+public class SpanCodecBenchmarks {
+  static final Endpoint WEB = Endpoint.create("web", 124 << 24 | 13 << 16 | 90 << 8 | 3, 80);
+  static final Endpoint BROWSER = Endpoint.create("browser-client", 1 << 24 | 2 << 16 | 3);
+
+  final Span span = new Span()
+      .setTrace_id(-692101025335252320L)
+      .setName("get")
+      .setId(-692101025335252320L)
+      .setTimestamp(1444438900939000L)
+      .setDuration(376000L)
+      .addToAnnotations(Annotation.create(1444438900939000L, Constants.SERVER_RECV, WEB))
+      .addToAnnotations(Annotation.create(1444438901315000L, Constants.SERVER_SEND, WEB))
+      .addToBinary_annotations(BinaryAnnotation.address(Constants.CLIENT_ADDR, BROWSER))
+      .addToBinary_annotations(BinaryAnnotation.create("http.url", "/api/v1/users", WEB));
+
+  @Benchmark
+  public byte[] writeJson_direct() {
+    return DefaultSpanCodec.JSON.writeSpan(span);
+  }
+
+  @Benchmark
+  public byte[] writeJson_viaZipkin() {
+    return Codec.JSON.writeSpan(span.toZipkin());
+  }
+
+  @Benchmark
+  public byte[] writeThrift_direct() {
+    return DefaultSpanCodec.THRIFT.writeSpan(span);
+  }
+
+  @Benchmark
+  public byte[] writeThrift_viaZipkin() {
+    return Codec.THRIFT.writeSpan(span.toZipkin());
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + SpanCodecBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
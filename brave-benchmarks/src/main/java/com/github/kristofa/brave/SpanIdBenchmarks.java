@@ -2,6 +2,7 @@ package com.github.kristofa.brave;
 
 import com.twitter.finagle.tracing.TraceId;
 import com.twitter.finagle.tracing.TraceId$;
+import java.nio.ByteBuffer;
 import java.util.concurrent.TimeUnit;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -9,6 +10,8 @@ import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.runner.Runner;
@@ -22,10 +25,12 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 @BenchmarkMode(Mode.Throughput)
 @OutputTimeUnit(TimeUnit.MICROSECONDS)
 @Threads(1)
+@State(Scope.Thread)
 public class SpanIdBenchmarks {
   static final SpanId sampledRootSpan =
       new SpanId(1L, 1L, 1L, SpanId.FLAG_SAMPLED | SpanId.FLAG_SAMPLING_SET);
   static final byte[] sampledRootSpanBytes = sampledRootSpan.bytes();
+  static final ByteBuffer sampledRootSpanBuffer = ByteBuffer.wrap(sampledRootSpanBytes);
   static final TraceId sampledRootSpanFinagle =
       TraceId$.MODULE$.deserialize(sampledRootSpanBytes).get();
 
@@ -59,6 +64,87 @@ public class SpanIdBenchmarks {
     return sampledRootSpanFinagle.toString();
   }
 
+  static final SpanId childSpan =
+      SpanId.builder().traceId(1L).parentId(1L).spanId(2L).sampled(true).build();
+  static final ByteBuffer childSpanCompact = ByteBuffer.allocate(childSpan.compactSizeInBytes());
+
+  static {
+    childSpan.writeCompactTo(childSpanCompact);
+  }
+
+  final ByteBuffer buffer = ByteBuffer.allocate(40);
+
+  @Benchmark
+  public ByteBuffer writeTo() {
+    buffer.clear();
+    sampledRootSpan.writeTo(buffer);
+    return buffer;
+  }
+
+  @Benchmark
+  public SpanId readFrom() {
+    return SpanId.readFrom(sampledRootSpanBuffer, 0);
+  }
+
+  @Benchmark
+  public ByteBuffer writeCompactTo() {
+    buffer.clear();
+    childSpan.writeCompactTo(buffer);
+    return buffer;
+  }
+
+  @Benchmark
+  public SpanId readCompactFrom() {
+    return SpanId.readCompactFrom(childSpanCompact, 0);
+  }
+
+  static final long ID = 0x48485a3953bb6124L;
+  static final String ID_HEX = "48485a3953bb6124";
+  static final String TRACE_ID_128_HEX = "463ac35c9f6413ad48485a3953bb6124";
+  final char[] hexBuffer = new char[16];
+
+  @Benchmark
+  public String convertToString() {
+    return IdConversion.convertToString(ID);
+  }
+
+  @Benchmark
+  public String toLowerHex() {
+    return IdConversion.toLowerHex(ID);
+  }
+
+  @Benchmark
+  public char[] writeLowerHex() {
+    IdConversion.writeLowerHex(ID, hexBuffer, 0);
+    return hexBuffer;
+  }
+
+  /** Headers are encoded from a new span ID per request, so the string isn't cached yet. */
+  @Benchmark
+  public String spanIdString_uncached() {
+    return SpanId.builder().traceId(ID).spanId(ID).build().spanIdString();
+  }
+
+  @Benchmark
+  public String spanIdString_cached() {
+    return sampledRootSpan.spanIdString();
+  }
+
+  @Benchmark
+  public long convertToLong() {
+    return IdConversion.convertToLong(ID_HEX);
+  }
+
+  @Benchmark
+  public long convertToLong_range() {
+    return IdConversion.convertToLong(ID_HEX, 0, 16);
+  }
+
+  @Benchmark
+  public long convertToLong_128_high() {
+    return IdConversion.convertToLong(TRACE_ID_128_HEX, 0, 16);
+  }
+
   // Convenience main entry-point
   public static void main(String[] args) throws RunnerException {
     Options opt = new OptionsBuilder()
@@ -0,0 +1,135 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Compares {@link ThreadLocalServerClientAndLocalSpanState}, which holds a thread's spans in one
+ * ThreadLocal, with the prior approach of a ThreadLocal per span.
+ *
+ * <p>Each benchmark starts and finishes a child span of a sampled server request.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@State(Scope.Thread)
+public class SpanStateBenchmarks {
+  static final Endpoint ENDPOINT = Endpoint.create("benchmark", 127 << 24 | 1);
+  static final SpanId PARENT = SpanId.builder().traceId(1L).spanId(2L)
+      .flags(SpanId.FLAG_SAMPLED | SpanId.FLAG_SAMPLING_SET).build();
+
+  @Param({"oneThreadLocal", "threadLocalPerSpan"})
+  String state;
+
+  Brave brave;
+
+  @Setup
+  public void setup() {
+    ServerClientAndLocalSpanState state = this.state.equals("oneThreadLocal")
+        ? new ThreadLocalServerClientAndLocalSpanState(ENDPOINT)
+        : new ThreadLocalPerSpanState(ENDPOINT);
+    brave = new Brave.Builder(state).reporter(Reporter.NOOP).build();
+    brave.serverTracer().setStateCurrentTrace(PARENT, "get");
+  }
+
+  @TearDown
+  public void tearDown() {
+    brave.serverTracer().clearCurrentSpan();
+  }
+
+  @Benchmark
+  public void clientSpan() {
+    ClientTracer clientTracer = brave.clientTracer();
+    clientTracer.startNewSpan("get");
+    clientTracer.setClientSent();
+    clientTracer.setClientReceived();
+  }
+
+  @Benchmark
+  public void localSpan() {
+    LocalTracer localTracer = brave.localTracer();
+    localTracer.startNewSpan("codec", "encode");
+    localTracer.finishSpan();
+  }
+
+  /** The layout of {@link ThreadLocalServerClientAndLocalSpanState} before it was consolidated. */
+  static final class ThreadLocalPerSpanState implements ServerClientAndLocalSpanState {
+    static final ThreadLocal<ServerSpan> currentServerSpan = new ThreadLocal<ServerSpan>();
+    static final ThreadLocal<Span> currentClientSpan = new ThreadLocal<Span>();
+    static final ThreadLocal<Span> currentLocalSpan = new ThreadLocal<Span>();
+
+    final Endpoint endpoint;
+
+    ThreadLocalPerSpanState(Endpoint endpoint) {
+      this.endpoint = endpoint;
+    }
+
+    @Override public ServerSpan getCurrentServerSpan() {
+      ServerSpan span = currentServerSpan.get();
+      return span != null ? span : ServerSpan.EMPTY;
+    }
+
+    @Override public void setCurrentServerSpan(ServerSpan span) {
+      currentServerSpan.set(span);
+    }
+
+    @Override public Endpoint endpoint() {
+      return endpoint;
+    }
+
+    @Override public Span getCurrentClientSpan() {
+      return currentClientSpan.get();
+    }
+
+    @Override public void setCurrentClientSpan(Span span) {
+      currentClientSpan.set(span);
+    }
+
+    @Override public Boolean sample() {
+      return getCurrentServerSpan().getSample();
+    }
+
+    @Override public Span getCurrentLocalSpan() {
+      return currentLocalSpan.get();
+    }
+
+    @Override public void setCurrentLocalSpan(Span span) {
+      if (span == null) {
+        currentLocalSpan.remove();
+      } else {
+        currentLocalSpan.set(span);
+      }
+    }
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + SpanStateBenchmarks.class.getSimpleName() + ".*")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
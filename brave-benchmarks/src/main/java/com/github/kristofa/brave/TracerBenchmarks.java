@@ -0,0 +1,85 @@
+package com.github.kristofa.brave;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Measures the cost of tracing a request end-to-end, with a reporter that drops spans.
+ *
+ * <p>Allocation is the interesting number here. Run with the gc profiler to see bytes allocated
+ * per traced request: {@code java -jar benchmarks.jar TracerBenchmarks -prof gc}
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@State(Scope.Benchmark)
+public class TracerBenchmarks {
+  static final SpanId PARENT = SpanId.builder().traceId(1L).spanId(2L)
+      .flags(SpanId.FLAG_SAMPLED | SpanId.FLAG_SAMPLING_SET).build();
+
+  final Brave brave = new Brave.Builder("benchmark").reporter(Reporter.NOOP).build();
+
+  final ServerRequestAdapter serverRequest = new ServerRequestAdapter() {
+    @Override public TraceData getTraceData() {
+      return TraceData.create(PARENT);
+    }
+
+    @Override public String getSpanName() {
+      return "get";
+    }
+
+    @Override public Collection<KeyValueAnnotation> requestAnnotations() {
+      return Collections.singletonList(KeyValueAnnotation.create("http.url", "/api"));
+    }
+  };
+
+  final ServerResponseAdapter serverResponse = new ServerResponseAdapter() {
+    @Override public Collection<KeyValueAnnotation> responseAnnotations() {
+      return Collections.singletonList(KeyValueAnnotation.create("http.status_code", "200"));
+    }
+  };
+
+  @Benchmark
+  public void serverSpan() {
+    brave.serverRequestInterceptor().handle(serverRequest);
+    brave.serverResponseInterceptor().handle(serverResponse);
+  }
+
+  @Benchmark
+  public void serverSpan_withLocalSpan() {
+    brave.serverRequestInterceptor().handle(serverRequest);
+    brave.localTracer().startNewSpan("codec", "encode");
+    brave.localTracer().submitAnnotation("flushed");
+    brave.localTracer().finishSpan();
+    brave.serverResponseInterceptor().handle(serverResponse);
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + TracerBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,141 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.http.BraveHttpHeaders;
+import com.github.kristofa.brave.http.DefaultSpanNameProvider;
+import com.github.kristofa.brave.http.HttpResponse;
+import com.github.kristofa.brave.http.HttpServerRequest;
+import com.github.kristofa.brave.http.HttpServerRequestAdapter;
+import com.github.kristofa.brave.http.HttpServerResponseAdapter;
+import com.github.kristofa.brave.http.SpanNameProvider;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import zipkin.reporter.Reporter;
+
+/**
+ * Measures an http server round trip which isn't sampled, as most requests aren't. Adapters are
+ * created per request, like in the integrations.
+ *
+ * <p>This should allocate close to nothing. {@link #main(String[])} runs with the gc profiler and
+ * fails if any benchmark allocates more than {@link #MAX_BYTES_PER_OP}. UnsampledServerAllocationTest
+ * in brave-core checks the same bound as part of the build.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+// The JIT sometimes compiles handle on its own first. It then doesn't inline it into roundTrip, as
+// the result is too big, and the request adapter allocated here escapes. Forcing the inlining
+// measures what brave allocates, rather than the order in which methods were compiled.
+@Fork(value = 3, jvmArgsAppend = {
+    "-XX:CompileCommand=quiet",
+    "-XX:CompileCommand=inline,com/github/kristofa/brave/ServerRequestInterceptor.handle"
+})
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@State(Scope.Benchmark)
+public class UnsampledServerBenchmarks {
+  /** Allows for measurement noise, but not a single object allocated per request. */
+  static final double MAX_BYTES_PER_OP = 8;
+
+  static final URI URI = java.net.URI.create("/api");
+
+  final Brave brave = new Brave.Builder("benchmark")
+      .reporter(Reporter.NOOP)
+      .traceSampler(Sampler.NEVER_SAMPLE)
+      .build();
+  final ServerRequestInterceptor requestInterceptor = brave.serverRequestInterceptor();
+  final ServerResponseInterceptor responseInterceptor = brave.serverResponseInterceptor();
+  final SpanNameProvider spanNameProvider = new DefaultSpanNameProvider();
+
+  /** Has no trace headers, so the local sampler decides. */
+  final HttpServerRequest uninstrumentedCaller = new FakeRequest(null);
+
+  /** An upstream service decided not to sample. */
+  final HttpServerRequest notSampledCaller = new FakeRequest("0");
+
+  final HttpResponse response = new HttpResponse() {
+    @Override public int getHttpStatusCode() {
+      return 200;
+    }
+  };
+
+  /**
+   * In an application, sampled requests load {@link SpanId}. Until it is loaded, the JIT won't
+   * inline methods whose signature uses it, such as {@code ServerTracer.nextSampledSpanId}, so the
+   * adapter passed to the sampler escapes and is allocated.
+   */
+  @Setup
+  public void loadSpanId() {
+    SpanId.builder().spanId(1L).build();
+  }
+
+  @Benchmark
+  public void uninstrumentedCaller() {
+    roundTrip(uninstrumentedCaller);
+  }
+
+  @Benchmark
+  public void notSampledCaller() {
+    roundTrip(notSampledCaller);
+  }
+
+  void roundTrip(HttpServerRequest request) {
+    requestInterceptor.handle(new HttpServerRequestAdapter(request, spanNameProvider));
+    responseInterceptor.handle(new HttpServerResponseAdapter(response));
+  }
+
+  static final class FakeRequest implements HttpServerRequest {
+    final String sampled;
+
+    FakeRequest(String sampled) {
+      this.sampled = sampled;
+    }
+
+    @Override public String getHttpHeaderValue(String headerName) {
+      if (BraveHttpHeaders.Sampled.getName().equals(headerName)) return sampled;
+      return null;
+    }
+
+    @Override public URI getUri() {
+      return URI;
+    }
+
+    @Override public String getHttpMethod() {
+      return "GET";
+    }
+  }
+
+  // Convenience main entry-point
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + UnsampledServerBenchmarks.class.getSimpleName() + ".*")
+        .addProfiler("gc")
+        .build();
+
+    for (RunResult runResult : new Runner(opt).run()) {
+      for (Result result : runResult.getSecondaryResults().values()) {
+        if (!result.getLabel().endsWith("gc.alloc.rate.norm")) continue;
+        if (result.getScore() > MAX_BYTES_PER_OP) {
+          throw new AssertionError(runResult.getParams().getBenchmark()
+              + " allocated " + result.getScore() + " B/op");
+        }
+      }
+    }
+  }
+}
@@ -27,6 +27,10 @@ public abstract class AbstractSpanCollector extends FlushingSpanCollector {
   @Override
   protected void reportSpans(List<Span> drained) throws IOException {
     byte[] encoded = codec.writeSpans(drained);
+    // encoded bytes don't reference the spans, so their records can go back to the pool
+    for (int i = 0, length = drained.size(); i < length; i++) {
+      drained.get(i).recycle();
+    }
     sendSpans(encoded);
   }
 
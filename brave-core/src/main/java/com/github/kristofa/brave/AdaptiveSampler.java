@@ -0,0 +1,228 @@
+package com.github.kristofa.brave;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import zipkin.reporter.ReporterMetrics;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static zipkin.internal.Util.checkArgument;
+
+/**
+ * This sampler adjusts its rate so that the spans accepted by the reporter approach a target per
+ * second, and backs off when the reporter can't keep up. This avoids building spans that would only
+ * be dropped, for example when the collector tier is slow.
+ *
+ * <p>Feedback is received as a {@link ReporterFeedback}. To wire it, wrap the metrics of your
+ * reporter with {@link #reporterMetrics(ReporterMetrics)}, or of your span collector with {@link
+ * #collectorMetrics(SpanCollectorMetricsHandler)}.
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>Like {@link BoundarySampler}, this compares a salted trace id against a boundary, using
+ * modulo 10000 arithmetic. Once a second, the next decision adjusts the boundary:
+ * <ul>
+ *   <li>If spans were dropped, or the queue grew past the target, the boundary is halved</li>
+ *   <li>Otherwise, it is scaled by the ratio of target to accepted spans, at most doubling</li>
+ * </ul>
+ * The boundary never goes above the maximum rate, nor below 0.01%.
+ */
+public final class AdaptiveSampler extends Sampler implements ReporterFeedback {
+  static final long SALT = new Random().nextLong();
+  static final long NANOS_PER_SECOND = 1000000000L;
+
+  /**
+   * Starts sampling all traces, adapting to keep about the target count of spans reported per
+   * second.
+   *
+   * @param targetSpansPerSecond the count of spans per second the reporter should accept.
+   */
+  public static AdaptiveSampler create(int targetSpansPerSecond) {
+    return create(targetSpansPerSecond, 1.0f);
+  }
+
+  /**
+   * Like {@link #create(int)}, except never sampling more than the given rate, which is also the
+   * initial rate.
+   *
+   * @param maxRate between 0.0001 (0.01%) and 1 (100%) of traces
+   */
+  public static AdaptiveSampler create(int targetSpansPerSecond, float maxRate) {
+    checkArgument(targetSpansPerSecond > 0, "targetSpansPerSecond <= 0: %s", targetSpansPerSecond);
+    checkArgument(maxRate >= 0.0001f && maxRate <= 1, "maxRate should be between 0.0001 and 1: was %s",
+        maxRate);
+    return new AdaptiveSampler(targetSpansPerSecond, Math.round(maxRate * 10000), System.nanoTime());
+  }
+
+  final int targetSpansPerSecond;
+  final int maxBoundary;
+  final AtomicInteger accepted = new AtomicInteger();
+  final AtomicInteger dropped = new AtomicInteger();
+  final AtomicLong nextUpdate;
+  volatile int queued;
+  // written only by the thread which advanced nextUpdate
+  volatile int lastQueued;
+  volatile long lastUpdate;
+  volatile int boundary;
+
+  AdaptiveSampler(int targetSpansPerSecond, int maxBoundary, long now) {
+    this.targetSpansPerSecond = targetSpansPerSecond;
+    this.maxBoundary = maxBoundary;
+    this.boundary = maxBoundary;
+    this.lastUpdate = now;
+    this.nextUpdate = new AtomicLong(now + NANOS_PER_SECOND);
+  }
+
+  /** Returns true when {@code abs(traceId) < boundary}, adjusting the boundary once a second. */
+  @Override
+  public boolean isSampled(long traceId) {
+    maybeUpdate(System.nanoTime());
+    long t = Math.abs(traceId ^ SALT);
+    return t % 10000 < boundary;
+  }
+
+  /** Returns the current sample rate, between 0.0001 and the maximum rate */
+  public float rate() {
+    return boundary / 10000.0f;
+  }
+
+  @Override public void spansAccepted(int quantity) {
+    accepted.addAndGet(quantity);
+  }
+
+  @Override public void spansDropped(int quantity) {
+    dropped.addAndGet(quantity);
+  }
+
+  @Override public void spansQueued(int quantity) {
+    queued = quantity;
+  }
+
+  void maybeUpdate(long now) {
+    long nextUpdate = this.nextUpdate.get();
+    if (now - nextUpdate < 0) return;
+    // only one thread updates per second
+    if (!this.nextUpdate.compareAndSet(nextUpdate, now + NANOS_PER_SECOND)) return;
+
+    long elapsed = now - lastUpdate;
+    lastUpdate = now;
+    int accepted = this.accepted.getAndSet(0);
+    int dropped = this.dropped.getAndSet(0);
+    int queued = this.queued;
+    // a growing backlog of over a second's worth of spans means the reporter is falling behind
+    boolean queueGrew = queued > lastQueued && queued > targetSpansPerSecond;
+    lastQueued = queued;
+
+    int boundary = this.boundary, next;
+    if (dropped > 0 || queueGrew) {
+      next = boundary / 2;
+    } else {
+      double acceptedPerSecond = accepted * (double) NANOS_PER_SECOND / elapsed;
+      double scale = acceptedPerSecond > 0 ? targetSpansPerSecond / acceptedPerSecond : 2.0;
+      next = (int) Math.min(boundary * Math.min(scale, 2.0), Integer.MAX_VALUE);
+      if (next == boundary && scale > 1) next++; // a small boundary can still grow
+    }
+    this.boundary = Math.max(1, Math.min(next, maxBoundary));
+  }
+
+  /**
+   * Returns reporter metrics which forward to the input and feed back to this sampler. Pass the
+   * result to {@code AsyncReporter.Builder.metrics}.
+   */
+  public ReporterMetrics reporterMetrics(final ReporterMetrics delegate) {
+    checkNotNull(delegate, "delegate");
+    return new ReporterMetrics() {
+      @Override public void incrementMessages() {
+        delegate.incrementMessages();
+      }
+
+      @Override public void incrementMessagesDropped(Throwable cause) {
+        delegate.incrementMessagesDropped(cause);
+      }
+
+      @Override public void incrementSpans(int quantity) {
+        spansAccepted(quantity);
+        delegate.incrementSpans(quantity);
+      }
+
+      @Override public void incrementSpanBytes(int quantity) {
+        delegate.incrementSpanBytes(quantity);
+      }
+
+      @Override public void incrementMessageBytes(int quantity) {
+        delegate.incrementMessageBytes(quantity);
+      }
+
+      @Override public void incrementSpansDropped(int quantity) {
+        spansDropped(quantity);
+        delegate.incrementSpansDropped(quantity);
+      }
+
+      @Override public void updateQueuedSpans(int update) {
+        spansQueued(update);
+        delegate.updateQueuedSpans(update);
+      }
+
+      @Override public void updateQueuedBytes(int update) {
+        delegate.updateQueuedBytes(update);
+      }
+    };
+  }
+
+  /**
+   * Returns a span collector metrics handler which forwards to the input and feeds back to this
+   * sampler.
+   */
+  public SpanCollectorMetricsHandler collectorMetrics(SpanCollectorMetricsHandler delegate) {
+    return new FeedbackMetricsHandler(checkNotNull(delegate, "delegate"), this);
+  }
+
+  @Override
+  public String toString() {
+    return "AdaptiveSampler(targetSpansPerSecond=" + targetSpansPerSecond + ", rate=" + rate() + ")";
+  }
+
+  static final class FeedbackMetricsHandler implements SpanLimitsMetricsHandler, ReporterFeedback {
+    final SpanCollectorMetricsHandler delegate;
+    final ReporterFeedback feedback;
+
+    FeedbackMetricsHandler(SpanCollectorMetricsHandler delegate, ReporterFeedback feedback) {
+      this.delegate = delegate;
+      this.feedback = feedback;
+    }
+
+    @Override public void incrementAcceptedSpans(int quantity) {
+      feedback.spansAccepted(quantity);
+      delegate.incrementAcceptedSpans(quantity);
+    }
+
+    @Override public void incrementDroppedSpans(int quantity) {
+      feedback.spansDropped(quantity);
+      delegate.incrementDroppedSpans(quantity);
+    }
+
+    @Override public void incrementTruncatedSpans(int quantity) {
+      if (delegate instanceof SpanLimitsMetricsHandler) {
+        ((SpanLimitsMetricsHandler) delegate).incrementTruncatedSpans(quantity);
+      }
+    }
+
+    @Override public void incrementOverLimitSpans(int quantity) {
+      if (delegate instanceof SpanLimitsMetricsHandler) {
+        ((SpanLimitsMetricsHandler) delegate).incrementOverLimitSpans(quantity);
+      }
+    }
+
+    @Override public void spansAccepted(int quantity) {
+      feedback.spansAccepted(quantity);
+    }
+
+    @Override public void spansDropped(int quantity) {
+      feedback.spansDropped(quantity);
+    }
+
+    @Override public void spansQueued(int quantity) {
+      feedback.spansQueued(quantity);
+    }
+  }
+}
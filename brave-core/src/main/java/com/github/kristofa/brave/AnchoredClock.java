@@ -0,0 +1,123 @@
+package com.github.kristofa.brave;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * A microsecond-precision clock which reads the wall clock once, then derives timestamps by
+ * adding {@link System#nanoTime()} offsets to that anchor. Annotations in the same span are
+ * consistent with each other, and durations are precise, without a wall clock read per annotation.
+ *
+ * <h3>Drift correction</h3>
+ * The wall clock and the tick source drift apart over time, for example when NTP adjusts the
+ * wall clock. So that long-lived JVMs don't accumulate error, the anchor is compared with the wall
+ * clock on the first read after each resync interval:
+ * <ul>
+ *   <li>Differences within {@link #TOLERANCE_MICROS} are ignored, as the wall clock only has
+ *   millisecond precision.</li>
+ *   <li>Differences up to {@link #STEP_THRESHOLD_MICROS} are slewed: the clock runs up to
+ *   {@link #MAX_SLEW_PPM} parts-per-million faster or slower until caught up. Timestamps never go
+ *   backwards, and spans in progress keep durations accurate to within that rate.</li>
+ *   <li>Larger differences, such as the wall clock being set manually, are stepped immediately.
+ *   </li>
+ * </ul>
+ *
+ * <p>An interval of zero disables drift correction, so the epoch is read once per instance.
+ */
+public final class AnchoredClock implements AnnotationSubmitter.Clock {
+    /** Differences smaller than this are attributed to the wall clock's millisecond precision. */
+    static final long TOLERANCE_MICROS = 2000L;
+    /** Differences larger than this are applied at once, instead of slewing. */
+    static final long STEP_THRESHOLD_MICROS = 1000000L;
+    /** The fastest rate the clock is adjusted at, in microseconds per second. */
+    static final long MAX_SLEW_PPM = 500L;
+
+    /** Shared by tracers that don't {@link Brave.Builder#clock(AnnotationSubmitter.Clock) override the clock}. */
+    static final AnchoredClock DEFAULT = create();
+
+    /** Anchors once and checks for drift every minute. */
+    public static AnchoredClock create() {
+        return create(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @param resyncInterval how often to compare against the wall clock, or zero to never.
+     */
+    public static AnchoredClock create(long resyncInterval, TimeUnit unit) {
+        checkNotNull(unit, "Null unit");
+        if (resyncInterval < 0) throw new IllegalArgumentException("resyncInterval < 0");
+        return new AnchoredClock(unit.toNanos(resyncInterval));
+    }
+
+    final long resyncNanos;
+    final AtomicReference<Anchor> anchor;
+
+    AnchoredClock(long resyncNanos) {
+        this.resyncNanos = resyncNanos;
+        long tick = System.nanoTime();
+        this.anchor = new AtomicReference<Anchor>(
+            new Anchor(System.currentTimeMillis() * 1000, tick, 0L, 0L, tick + resyncNanos));
+    }
+
+    @Override
+    public long currentTimeMicroseconds() {
+        long tick = System.nanoTime();
+        Anchor current = anchor.get();
+        if (resyncNanos != 0 && tick - current.resyncTick >= 0) current = resync(current, tick);
+        return current.microsAt(tick);
+    }
+
+    /** Compares the anchor with the wall clock. When threads race, the first update wins. */
+    Anchor resync(Anchor current, long tick) {
+        long derived = current.microsAt(tick);
+        long offset = System.currentTimeMillis() * 1000 - derived;
+        long magnitude = Math.abs(offset);
+
+        Anchor next;
+        if (magnitude <= TOLERANCE_MICROS) { // keep any slew in progress
+            next = new Anchor(current.epochMicros, current.tick, current.slewMicros,
+                current.slewPeriodMicros, tick + resyncNanos);
+        } else if (magnitude > STEP_THRESHOLD_MICROS) {
+            next = new Anchor(derived + offset, tick, 0L, 0L, tick + resyncNanos);
+        } else {
+            next = new Anchor(derived, tick, offset, magnitude * 1000000L / MAX_SLEW_PPM,
+                tick + resyncNanos);
+        }
+        return anchor.compareAndSet(current, next) ? next : anchor.get();
+    }
+
+    static final class Anchor {
+        /** Epoch microseconds at {@link #tick}. */
+        final long epochMicros;
+        final long tick;
+        /** Correction to apply linearly over {@link #slewPeriodMicros}, starting at {@link #tick}. */
+        final long slewMicros;
+        final long slewPeriodMicros;
+        /** The value of {@link System#nanoTime()} after which to compare with the wall clock. */
+        final long resyncTick;
+
+        Anchor(long epochMicros, long tick, long slewMicros, long slewPeriodMicros, long resyncTick) {
+            this.epochMicros = epochMicros;
+            this.tick = tick;
+            this.slewMicros = slewMicros;
+            this.slewPeriodMicros = slewPeriodMicros;
+            this.resyncTick = resyncTick;
+        }
+
+        long microsAt(long tick) {
+            long elapsedMicros = (tick - this.tick) / 1000;
+            if (slewMicros == 0L) return epochMicros + elapsedMicros;
+            long slewed = elapsedMicros >= slewPeriodMicros
+                ? slewMicros
+                : slewMicros * elapsedMicros / slewPeriodMicros;
+            return epochMicros + elapsedMicros + slewed;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AnchoredClock(resyncInterval=" + resyncNanos + "ns)";
+    }
+}
@@ -1,13 +1,13 @@
 package com.github.kristofa.brave;
 
 import com.github.kristofa.brave.internal.Nullable;
-import com.twitter.zipkin.gen.Annotation;
-import com.twitter.zipkin.gen.BinaryAnnotation;
+import com.twitter.zipkin.gen.AnnotationType;
 import com.twitter.zipkin.gen.Endpoint;
 import com.twitter.zipkin.gen.Span;
 import zipkin.reporter.Reporter;
 
 import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static com.github.kristofa.brave.internal.Util.decimalString;
 
 /**
  * Used to submit application specific annotations.
@@ -16,17 +16,23 @@ import static com.github.kristofa.brave.internal.Util.checkNotNull;
  */
 public abstract class AnnotationSubmitter {
 
+    /** Value of the {@link AnnotationType#BOOL} address annotations. Never modified. */
+    static final byte[] ADDRESS_VALUE = {1};
+
     /**
      * This interface is used to make the implementation to AnnotationSubmitter.currentTimeMicroseconds() contextual.
      * The clock is defined by the subclass's implementation of the `clock()` method.
-     * A DefaultClock implementation is provided that simply returns `System.currentTimeMillis() * 1000`.
+     * By default, an {@link AnchoredClock} is used, which has microsecond precision.
+     *
+     * <p>Only timestamps are read from a custom clock: durations are measured with {@link
+     * System#nanoTime()}, unless the span started at a user-supplied timestamp.
      */
     public interface Clock {
         /**
          * Epoch microseconds used for {@link zipkin.Span#timestamp} and {@link zipkin.Annotation#timestamp}.
          *
-         * <p>This should use the most precise value possible. For example, {@code gettimeofday} or multiplying
-         * {@link System#currentTimeMillis} by 1000.
+         * <p>This should use the most precise value possible. For example, {@code gettimeofday} or an
+         * epoch offset by {@link System#nanoTime}, as {@link AnchoredClock} does.
          *
          * <p>See <a href="http://zipkin.io/pages/instrumenting.html">Instrumenting a service</a> for more.
          */
@@ -34,7 +40,7 @@ public abstract class AnnotationSubmitter {
     }
 
     static AnnotationSubmitter create(SpanAndEndpoint spanAndEndpoint) {
-        return new AnnotationSubmitterImpl(spanAndEndpoint, DefaultClock.INSTANCE);
+        return new AnnotationSubmitterImpl(spanAndEndpoint, AnchoredClock.DEFAULT);
     }
 
     public static AnnotationSubmitter create(SpanAndEndpoint spanAndEndpoint, Clock clock) {
@@ -44,8 +50,7 @@ public abstract class AnnotationSubmitter {
     abstract SpanAndEndpoint spanAndEndpoint();
 
     /** The implementation of Clock to use.
-     * See {@link com.github.kristofa.brave.AnnotationSubmitter#currentTimeMicroseconds}
-     * and {@link com.github.kristofa.brave.AnnotationSubmitter.Clock}
+     * See {@link com.github.kristofa.brave.AnnotationSubmitter.Clock}
      **/
     abstract Clock clock();
 
@@ -57,18 +62,8 @@ public abstract class AnnotationSubmitter {
     public void submitAnnotation(String value) {
         Span span = spanAndEndpoint().span();
         if (span != null) {
-            Long startTimestamp;
-            Long startTick;
-            synchronized (span) {
-                startTimestamp = span.getTimestamp();
-                startTick = span.startTick;
-            }
-            Annotation annotation = Annotation.create(
-                currentTimeMicroseconds(startTimestamp, startTick),
-                value,
-                spanAndEndpoint().endpoint()
-            );
-            addAnnotation(span, annotation);
+            long timestamp = currentTimeMicroseconds(span.getTimestamp(), span.startTick);
+            span.addToAnnotations(timestamp, value, spanAndEndpoint().endpoint());
         }
     }
 
@@ -84,12 +79,7 @@ public abstract class AnnotationSubmitter {
     public void submitAnnotation(String value, long timestamp) {
         Span span = spanAndEndpoint().span();
         if (span != null) {
-            Annotation annotation = Annotation.create(
-                timestamp,
-                value,
-                spanAndEndpoint().endpoint()
-            );
-            addAnnotation(span, annotation);
+            span.addToAnnotations(timestamp, value, spanAndEndpoint().endpoint());
         }
     }
 
@@ -97,14 +87,11 @@ public abstract class AnnotationSubmitter {
     void submitStartAnnotation(String annotationName) {
         Span span = spanAndEndpoint().span();
         if (span != null) {
-            Annotation annotation = Annotation.create(
-                clock().currentTimeMicroseconds(),
-                annotationName,
-                spanAndEndpoint().endpoint()
-            );
-            synchronized (span) {
-                span.setTimestamp(annotation.timestamp);
-                span.addToAnnotations(annotation);
+            long timestamp = clock().currentTimeMicroseconds();
+            Endpoint endpoint = spanAndEndpoint().endpoint();
+            span.setTimestamp(timestamp);
+            span.addToAnnotations(timestamp, annotationName, endpoint);
+            if (usesTicks(clock())) {
                 span.startTick = System.nanoTime(); // embezzle start tick into an internal field.
             }
         }
@@ -112,7 +99,7 @@ public abstract class AnnotationSubmitter {
 
     /**
      * This adds an annotation that corresponds with {@link Span#getDuration()}, and sends the span
-     * for collection.
+     * for collection. When threads race to finish the same span, only one of them sends it.
      *
      * @return true if a span was sent for collection.
      */
@@ -122,27 +109,32 @@ public abstract class AnnotationSubmitter {
           return false;
         }
 
-        Long startTimestamp;
-        Long startTick;
-        synchronized (span) {
-            startTimestamp = span.getTimestamp();
-            startTick = span.startTick;
+        Long startTimestamp = span.getTimestamp();
+        long endTimestamp = currentTimeMicroseconds(startTimestamp, span.startTick);
+
+        span.addToAnnotations(endTimestamp, annotationName, spanAndEndpoint().endpoint());
+        if (startTimestamp != null) {
+            span.setDuration(Math.max(1L, endTimestamp - startTimestamp));
         }
-        long endTimestamp = currentTimeMicroseconds(startTimestamp, startTick);
+        if (!span.finish()) {
+            return false;
+        }
+        report(span, reporter);
+        return true;
+    }
 
-        Annotation annotation = Annotation.create(
-            endTimestamp,
-            annotationName,
-            spanAndEndpoint().endpoint()
-        );
-        synchronized (span) {
-            span.addToAnnotations(annotation);
-            if (startTimestamp != null) {
-                span.setDuration(Math.max(1L, endTimestamp - startTimestamp));
-            }
+    /**
+     * Hands a finished span to the reporter. When the reporter wraps a {@link SpanCollector}, the
+     * brave span is passed as-is, so that encoding happens later on the collector's flush thread.
+     * Otherwise, the span is converted and its {@link Span#recycle() record recycled}.
+     */
+    static void report(Span span, Reporter<zipkin.Span> reporter) {
+        if (reporter instanceof SpanCollectorReporterAdapter) {
+            ((SpanCollectorReporterAdapter) reporter).collect(span);
+            return;
         }
         reporter.report(span.toZipkin());
-        return true;
+        span.recycle();
     }
 
     /**
@@ -155,8 +147,7 @@ public abstract class AnnotationSubmitter {
             if (endpoint.service_name == null) {
                 endpoint = endpoint.toBuilder().serviceName("unknown").build();
             }
-            BinaryAnnotation ba = BinaryAnnotation.address(key, endpoint);
-            addBinaryAnnotation(span, ba);
+            span.addToBinary_annotations(key, ADDRESS_VALUE, AnnotationType.BOOL, endpoint);
         }
     }
 
@@ -170,20 +161,77 @@ public abstract class AnnotationSubmitter {
     public void submitBinaryAnnotation(String key, String value) {
         Span span = spanAndEndpoint().span();
         if (span != null) {
-            BinaryAnnotation ba = BinaryAnnotation.create(key, value, spanAndEndpoint().endpoint());
-            addBinaryAnnotation(span, ba);
+            // encoding is deferred until the span is reported
+            span.addToBinary_annotations(key, value, spanAndEndpoint().endpoint());
+        }
+    }
+
+    /**
+     * Adds all tags of the source to the current span, which is looked up once.
+     *
+     * @see TagSource
+     */
+    public void submitBinaryAnnotations(TagSource tags) {
+        Span span = spanAndEndpoint().span();
+        if (span != null) {
+            tags.forEachTag(new SpanTagger(span, spanAndEndpoint().endpoint()));
         }
     }
 
     /**
      * Submits a binary (key/value) annotation with int value.
      *
+     * <p>The value is recorded as a {@link AnnotationType#STRING}, as Zipkin v1 UI and query only
+     * support String annotations. Small non-negative values, such as status codes, don't allocate.
+     *
      * @param key Key, should not be blank.
      * @param value Integer value.
      */
     public void submitBinaryAnnotation(String key, int value) {
-        // Zipkin v1 UI and query only support String annotations.
-        submitBinaryAnnotation(key, String.valueOf(value));
+        submitBinaryAnnotation(key, decimalString(value));
+    }
+
+    /**
+     * Submits a binary annotation of type {@link AnnotationType#I64}. The value is encoded when the
+     * span is reported, so this doesn't allocate.
+     *
+     * <p>Unlike {@link #submitBinaryAnnotation(String, int)}, the tag isn't a string, so can't be
+     * looked up in Zipkin v1 query.
+     *
+     * @param key Key, should not be blank.
+     */
+    public void submitBinaryAnnotation(String key, long value) {
+        Span span = spanAndEndpoint().span();
+        if (span != null) {
+            span.addToBinary_annotations(key, value, AnnotationType.I64, spanAndEndpoint().endpoint());
+        }
+    }
+
+    /**
+     * Submits a binary annotation of type {@link AnnotationType#DOUBLE}, without allocating.
+     *
+     * @param key Key, should not be blank.
+     * @see #submitBinaryAnnotation(String, long)
+     */
+    public void submitBinaryAnnotation(String key, double value) {
+        Span span = spanAndEndpoint().span();
+        if (span != null) {
+            span.addToBinary_annotations(key, value, spanAndEndpoint().endpoint());
+        }
+    }
+
+    /**
+     * Submits a binary annotation of type {@link AnnotationType#BOOL}, without allocating.
+     *
+     * @param key Key, should not be blank.
+     * @see #submitBinaryAnnotation(String, long)
+     */
+    public void submitBinaryAnnotation(String key, boolean value) {
+        Span span = spanAndEndpoint().span();
+        if (span != null) {
+            span.addToBinary_annotations(key, value ? 1L : 0L, AnnotationType.BOOL,
+                spanAndEndpoint().endpoint());
+        }
     }
 
     long currentTimeMicroseconds(@Nullable Long startTimestamp, @Nullable Long startTick) {
@@ -192,19 +240,31 @@ public abstract class AnnotationSubmitter {
             : clock().currentTimeMicroseconds();
     }
 
-    private void addAnnotation(Span span, Annotation annotation) {
-        synchronized (span) {
-            span.addToAnnotations(annotation);
-        }
+    /**
+     * True if durations should come from {@link System#nanoTime()}, as opposed to the clock. An
+     * {@link AnchoredClock} is already based on it, but a custom clock may not be monotonic.
+     */
+    static boolean usesTicks(Clock clock) {
+        return !(clock instanceof AnchoredClock);
     }
 
-    private void addBinaryAnnotation(Span span, BinaryAnnotation ba) {
-        synchronized (span) {
-            span.addToBinary_annotations(ba);
-        }
+    AnnotationSubmitter() {
     }
 
-    AnnotationSubmitter() {
+    /** Adds tags to a span that was already looked up. */
+    static final class SpanTagger implements TagSource.Consumer {
+        final Span span;
+        final Endpoint endpoint;
+
+        SpanTagger(Span span, Endpoint endpoint) {
+            this.span = span;
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void accept(String key, String value) {
+            span.addToBinary_annotations(key, value, endpoint);
+        }
     }
 
     private static final class AnnotationSubmitterImpl extends AnnotationSubmitter {
@@ -229,6 +289,7 @@ public abstract class AnnotationSubmitter {
 
     }
 
+    /** Millisecond precision clock, which reads the wall clock each time. */
     static final class DefaultClock implements Clock {
         static final Clock INSTANCE = new DefaultClock();
         private DefaultClock() {}
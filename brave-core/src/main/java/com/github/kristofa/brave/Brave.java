@@ -4,7 +4,6 @@ import com.github.kristofa.brave.internal.Util;
 import com.twitter.zipkin.gen.Endpoint;
 import java.net.UnknownHostException;
 import java.util.List;
-import java.util.Random;
 import zipkin.reporter.AsyncReporter;
 import zipkin.reporter.Reporter;
 import zipkin.reporter.Sender;
@@ -40,12 +39,13 @@ public class Brave {
 
         private final ServerClientAndLocalSpanState state;
         private Reporter reporter = new LoggingReporter();
-        private Random random = new Random();
+        private IdGenerator idGenerator = IdGenerator.create();
         // default added so callers don't need to check null.
         private Sampler sampler = Sampler.create(1.0f);
         private boolean allowNestedLocalSpans = false;
-        private AnnotationSubmitter.Clock clock = AnnotationSubmitter.DefaultClock.INSTANCE;
+        private AnnotationSubmitter.Clock clock = AnchoredClock.DEFAULT;
         private boolean traceId128Bit = false;
+        private SpanLimits spanLimits = SpanLimits.DEFAULT;
 
         /**
          * Builder which initializes with serviceName = "unknown".
@@ -102,8 +102,9 @@ public class Brave {
         public Builder(ServerClientAndLocalSpanState state) {
             this.state = Util.checkNotNull(state, "state must be specified.");
 
-            // the legacy span state doesn't support nested spans per (#166). Only permit nesting on the span
-            // state that has instructions on how to use it properly
+            // a nested local span becomes the parent of later spans on its thread until it finishes. If
+            // one is left unfinished, it leaks into unrelated spans. Only permit nesting by default on
+            // the span state that has instructions on how to use it properly
             this.allowNestedLocalSpans = state instanceof InheritableServerClientAndLocalSpanState;
         }
 
@@ -120,6 +121,15 @@ public class Brave {
             return this;
         }
 
+        /**
+         * Generates trace and span IDs. Defaults to {@link IdGenerator#create()}, which doesn't
+         * contend across threads.
+         */
+        public Builder idGenerator(IdGenerator idGenerator) {
+            this.idGenerator = Util.checkNotNull(idGenerator, "idGenerator");
+            return this;
+        }
+
         /**
          * Controls how spans are reported. Defaults to logging, but often an {@link AsyncReporter}
          * which batches spans before sending to Zipkin.
@@ -152,17 +162,51 @@ public class Brave {
             return this;
         }
 
+        /**
+         * Source of timestamps and durations. Defaults to a shared {@link AnchoredClock}, which has
+         * microsecond precision. Durations of spans timed with a custom clock are measured with
+         * {@link System#nanoTime()} instead.
+         */
         public Builder clock(AnnotationSubmitter.Clock clock) {
             this.clock = clock;
             return this;
         }
 
-        /** When true, new root spans will have 128-bit trace IDs. Defaults to false (64-bit) */
+        /**
+         * When true, new root spans will have 128-bit trace IDs. Defaults to false (64-bit)
+         *
+         * <p>The high bits come from {@link IdGenerator#nextTraceIdHigh()}. Use {@link
+         * IdGenerator#timePrefixed(IdGenerator)} to prefix them with the epoch seconds.
+         */
         public Builder traceId128Bit(boolean traceId128Bit) {
             this.traceId128Bit = traceId128Bit;
             return this;
         }
 
+        /**
+         * When true, a local span started while another is current is its child. Otherwise, its
+         * parent is the server span. Defaults to true for {@link
+         * InheritableServerClientAndLocalSpanState}, and false for others.
+         *
+         * <p>Only enable this for a span state which restores the previous local span when the
+         * current one is {@link LocalSpanState#setCurrentLocalSpan set} to null, and when each
+         * local span is finished. Otherwise, a span left unfinished becomes the parent of unrelated
+         * spans started later on the same thread.
+         */
+        public Builder allowNestedLocalSpans(boolean allowNestedLocalSpans) {
+            this.allowNestedLocalSpans = allowNestedLocalSpans;
+            return this;
+        }
+
+        /**
+         * Bounds the annotations and binary annotations each span can hold. Defaults to {@link
+         * SpanLimits#DEFAULT}, which is unlimited.
+         */
+        public Builder spanLimits(SpanLimits spanLimits) {
+            this.spanLimits = checkNotNull(spanLimits, "spanLimits");
+            return this;
+        }
+
         public Brave build() {
             return new Brave(this);
         }
@@ -262,31 +306,34 @@ public class Brave {
 
     private Brave(Builder builder) {
         serverTracer = ServerTracer.builder()
-                .randomGenerator(builder.random)
+                .idGenerator(builder.idGenerator)
                 .reporter(builder.reporter)
                 .state(builder.state)
                 .traceSampler(builder.sampler)
                 .clock(builder.clock)
                 .traceId128Bit(builder.traceId128Bit)
+                .spanLimits(builder.spanLimits)
                 .build();
 
         clientTracer = ClientTracer.builder()
-                .randomGenerator(builder.random)
+                .idGenerator(builder.idGenerator)
                 .reporter(builder.reporter)
                 .state(builder.state)
                 .traceSampler(builder.sampler)
                 .clock(builder.clock)
                 .traceId128Bit(builder.traceId128Bit)
+                .spanLimits(builder.spanLimits)
                 .build();
 
         localTracer = LocalTracer.builder()
-                .randomGenerator(builder.random)
+                .idGenerator(builder.idGenerator)
                 .reporter(builder.reporter)
                 .allowNestedLocalSpans(builder.allowNestedLocalSpans)
                 .spanAndEndpoint(SpanAndEndpoint.LocalSpanAndEndpoint.create(builder.state))
                 .traceSampler(builder.sampler)
                 .clock(builder.clock)
                 .traceId128Bit(builder.traceId128Bit)
+                .spanLimits(builder.spanLimits)
                 .build();
 
         serverRequestInterceptor = new ServerRequestInterceptor(serverTracer);
@@ -35,20 +35,6 @@ public abstract class BraveCallable<T> implements Callable<T> {
         );
     }
 
-    static <T> BraveCallable<T> wrap( // hidden for package-scoped use
-        Callable<T> callable,
-        LocalSpanThreadBinder localSpanThreadBinder,
-        ServerSpanThreadBinder serverSpanThreadBinder
-    ) {
-        return new AutoValue_BraveCallable(
-            callable,
-            localSpanThreadBinder,
-            localSpanThreadBinder.getCurrentLocalSpan(),
-            serverSpanThreadBinder,
-            serverSpanThreadBinder.getCurrentServerSpan()
-        );
-    }
-
     /**
      * @deprecated use {@link #wrap(Callable, Brave)} because this constructor loses thread
      * state for local span parents.
@@ -85,13 +71,16 @@ public abstract class BraveCallable<T> implements Callable<T> {
         }
         ServerSpan previousServerSpan = serverSpanThreadBinder().getCurrentServerSpan();
         Span previousLocalSpan = localSpanThreadBinder().getCurrentLocalSpan();
+        // binding a server span clears local spans. The same instance is in scope if the caller runs
+        // this itself, or if another task of the request does, so keep their local spans.
+        boolean bindServerSpan = previousServerSpan != currentServerSpan();
         try {
-            serverSpanThreadBinder().setCurrentSpan(currentServerSpan());
+            if (bindServerSpan) serverSpanThreadBinder().setCurrentSpan(currentServerSpan());
             localSpanThreadBinder().setCurrentSpan(currentLocalSpan());
             return wrappedCallable().call();
         } finally {
-            serverSpanThreadBinder().setCurrentSpan(previousServerSpan);
-            localSpanThreadBinder().setCurrentSpan(previousLocalSpan);
+            if (bindServerSpan) serverSpanThreadBinder().setCurrentSpan(previousServerSpan);
+            localSpanThreadBinder().restoreCurrentSpan(currentLocalSpan(), previousLocalSpan);
         }
     }
 
@@ -1,8 +1,6 @@
 package com.github.kristofa.brave;
 
-import com.github.kristofa.brave.internal.Nullable;
 import java.io.Closeable;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -19,6 +17,7 @@ import static com.github.kristofa.brave.internal.Util.checkNotNull;
  * in the same Span/Trace context as the the thread that invoked execution of the threads.
  * <p/>
  * It uses {@link ServerTracer} and {@link ServerSpanThreadBinder} to accomplish this in a transparent way for the user.
+ * Tasks submitted while no span is in scope run without spans, even if another task left some on the executor thread.
  * <p/>
  * It also implements {@link Closeable}, calling {@link BraveExecutorService#shutdown()}, so the executor service is
  * shut down properly when for example using Spring.
@@ -26,6 +25,7 @@ import static com.github.kristofa.brave.internal.Util.checkNotNull;
  * @author kristof
  * @see BraveCallable
  * @see BraveRunnable
+ * @see BraveScheduledExecutorService
  */
 public class BraveExecutorService implements ExecutorService, Closeable {
 
@@ -37,16 +37,11 @@ public class BraveExecutorService implements ExecutorService, Closeable {
     }
 
     private final ExecutorService wrappedExecutor;
-    private final ServerSpanThreadBinder serverSpanThreadBinder;
-
-    @Nullable // when using deprecated constructor
-    private final LocalSpanThreadBinder localSpanThreadBinder;
+    final TaskWrapper taskWrapper;
 
     BraveExecutorService(ExecutorService wrappedExecutor, Brave brave) { // intentionally hidden
         this.wrappedExecutor = checkNotNull(wrappedExecutor, "wrappedExecutor");
-        checkNotNull(brave, "brave");
-        this.localSpanThreadBinder = brave.localSpanThreadBinder();
-        this.serverSpanThreadBinder = brave.serverSpanThreadBinder();
+        this.taskWrapper = TaskWrapper.create(brave);
     }
 
     /**
@@ -56,8 +51,8 @@ public class BraveExecutorService implements ExecutorService, Closeable {
     @Deprecated
     public BraveExecutorService(final ExecutorService wrappedExecutor, final ServerSpanThreadBinder serverSpanThreadBinder) {
         this.wrappedExecutor = checkNotNull(wrappedExecutor, "Null wrappedExecutor");
-        this.localSpanThreadBinder = null;
-        this.serverSpanThreadBinder = checkNotNull(serverSpanThreadBinder, "Null serverSpanThreadBinder");
+        this.taskWrapper = new TaskWrapper(
+            checkNotNull(serverSpanThreadBinder, "Null serverSpanThreadBinder"), null);
     }
 
     /**
@@ -166,15 +161,6 @@ public class BraveExecutorService implements ExecutorService, Closeable {
         return wrappedExecutor.submit(wrap(arg0), arg1);
     }
 
-    private <T> Collection<? extends Callable<T>> wrap(
-        final Collection<? extends Callable<T>> originalCollection) {
-        final Collection<Callable<T>> collection = new ArrayList<Callable<T>>();
-        for (final Callable<T> t : originalCollection) {
-            collection.add(wrap(t));
-        }
-        return collection;
-    }
-
     /**
      * Convenience for try-with-resources, or frameworks such as Spring that automatically process this.
      **/
@@ -183,17 +169,16 @@ public class BraveExecutorService implements ExecutorService, Closeable {
         shutdown();
     }
 
-    // avoids deprecated BraveRunnable factory when we weren't called with a deprecated constructor
-    BraveRunnable wrap(Runnable arg0) {
-        return localSpanThreadBinder == null
-            ? BraveRunnable.create(arg0, serverSpanThreadBinder)
-            : BraveRunnable.wrap(arg0, localSpanThreadBinder, serverSpanThreadBinder);
+    Runnable wrap(Runnable arg0) {
+        return taskWrapper.wrap(arg0);
+    }
+
+    <T> Callable<T> wrap(Callable<T> arg0) {
+        return taskWrapper.wrap(arg0);
     }
 
-    // avoids deprecated BraveCallable factory when we weren't called with a deprecated constructor
-    <T> BraveCallable<T> wrap(Callable<T> arg0) {
-        return localSpanThreadBinder == null
-            ? BraveCallable.create(arg0, serverSpanThreadBinder)
-            : BraveCallable.wrap(arg0, localSpanThreadBinder, serverSpanThreadBinder);
+    // binds tasks as they are iterated, as opposed to copying the collection
+    <T> Collection<? extends Callable<T>> wrap(Collection<? extends Callable<T>> arg0) {
+        return taskWrapper.wrap(arg0);
     }
 }
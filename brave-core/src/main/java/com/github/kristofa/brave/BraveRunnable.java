@@ -32,20 +32,6 @@ public abstract class BraveRunnable implements Runnable {
         );
     }
 
-    static BraveRunnable wrap( // hidden for package-scoped use
-        Runnable runnable,
-        LocalSpanThreadBinder localSpanThreadBinder,
-        ServerSpanThreadBinder serverSpanThreadBinder
-    ) {
-        return new AutoValue_BraveRunnable(
-            runnable,
-            localSpanThreadBinder,
-            localSpanThreadBinder.getCurrentLocalSpan(),
-            serverSpanThreadBinder,
-            serverSpanThreadBinder.getCurrentServerSpan()
-        );
-    }
-
     /**
      * @deprecated use {@link #wrap(Runnable, Brave)} because this constructor loses thread
      * state for local span parents.
@@ -84,13 +70,16 @@ public abstract class BraveRunnable implements Runnable {
 
       ServerSpan previousServerSpan = serverSpanThreadBinder().getCurrentServerSpan();
       Span previousLocalSpan = localSpanThreadBinder().getCurrentLocalSpan();
+      // binding a server span clears local spans. The same instance is in scope if the caller runs
+      // this itself, or if another task of the request does, so keep their local spans.
+      boolean bindServerSpan = previousServerSpan != currentServerSpan();
       try {
-        serverSpanThreadBinder().setCurrentSpan(currentServerSpan());
+        if (bindServerSpan) serverSpanThreadBinder().setCurrentSpan(currentServerSpan());
         localSpanThreadBinder().setCurrentSpan(currentLocalSpan());
         wrappedRunnable().run();
       } finally {
-        serverSpanThreadBinder().setCurrentSpan(previousServerSpan);
-        localSpanThreadBinder().setCurrentSpan(previousLocalSpan);
+        if (bindServerSpan) serverSpanThreadBinder().setCurrentSpan(previousServerSpan);
+        localSpanThreadBinder().restoreCurrentSpan(currentLocalSpan(), previousLocalSpan);
       }
     }
 }
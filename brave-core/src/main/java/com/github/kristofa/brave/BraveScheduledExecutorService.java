@@ -0,0 +1,64 @@
+package com.github.kristofa.brave;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ScheduledExecutorService} that wraps around an existing {@link ScheduledExecutorService}
+ * and runs tasks in the same Span/Trace context as the thread that scheduled them.
+ * <p/>
+ * Periodic tasks run in the context they were scheduled in each time.
+ *
+ * @see BraveExecutorService
+ */
+public class BraveScheduledExecutorService extends BraveExecutorService
+    implements ScheduledExecutorService {
+
+    public static BraveScheduledExecutorService wrap(ScheduledExecutorService wrappedExecutor,
+        Brave brave) {
+        return new BraveScheduledExecutorService(wrappedExecutor, brave);
+    }
+
+    private final ScheduledExecutorService wrappedExecutor;
+
+    BraveScheduledExecutorService(ScheduledExecutorService wrappedExecutor, Brave brave) { // intentionally hidden
+        super(wrappedExecutor, brave);
+        this.wrappedExecutor = wrappedExecutor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return wrappedExecutor.schedule(wrap(command), delay, unit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return wrappedExecutor.schedule(wrap(callable), delay, unit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period,
+        TimeUnit unit) {
+        return wrappedExecutor.scheduleAtFixedRate(wrap(command), initialDelay, period, unit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay,
+        long delay, TimeUnit unit) {
+        return wrappedExecutor.scheduleWithFixedDelay(wrap(command), initialDelay, delay, unit);
+    }
+}
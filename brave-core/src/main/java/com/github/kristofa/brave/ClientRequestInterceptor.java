@@ -1,5 +1,6 @@
 package com.github.kristofa.brave;
 
+import com.github.kristofa.brave.internal.Nullable;
 import com.twitter.zipkin.gen.Endpoint;
 
 import static com.github.kristofa.brave.internal.Util.checkNotNull;
@@ -33,19 +34,61 @@ public class ClientRequestInterceptor {
      */
     public void handle(ClientRequestAdapter adapter) {
 
-        SpanId spanId = clientTracer.startNewSpan(adapter.getSpanName());
+        SpanId spanId = adapter instanceof SamplingRequest
+            ? clientTracer.startNewSpan(adapter.getSpanName(), (SamplingRequest) adapter)
+            : clientTracer.startNewSpan(adapter.getSpanName());
         if (spanId == null) {
             // We will not trace this request.
             adapter.addSpanIdToRequest(null);
         } else {
-            adapter.addSpanIdToRequest(spanId);
-            for (KeyValueAnnotation annotation : adapter.requestAnnotations()) {
-                clientTracer.submitBinaryAnnotation(annotation.getKey(), annotation.getValue());
+            adapter.addSpanIdToRequest(propagated(spanId));
+            if (adapter instanceof TagSource) {
+                clientTracer.submitBinaryAnnotations((TagSource) adapter);
+            } else {
+                for (KeyValueAnnotation annotation : adapter.requestAnnotations()) {
+                    clientTracer.submitBinaryAnnotation(annotation.getKey(), annotation.getValue());
+                }
             }
             recordClientSentAnnotations(adapter.serverAddress());
         }
     }
 
+    /**
+     * Like {@link #handle(ClientRequestAdapter)}, except the span is returned instead of bound to
+     * the current thread. Pass it to {@link ClientResponseInterceptor#handle(ClientResponseAdapter,
+     * SpanHandle)} when the response arrives, which can be on a different thread.
+     *
+     * @param adapter The adapter deals with implementation specific details.
+     * @return the started span, or a {@link SpanHandle#isNoop() no-op} if it isn't sampled.
+     */
+    public SpanHandle startSpan(ClientRequestAdapter adapter) {
+        SpanHandle span = clientTracer.newSpan(adapter.getSpanName(),
+            adapter instanceof SamplingRequest ? (SamplingRequest) adapter : null);
+        adapter.addSpanIdToRequest(propagated(span.spanId()));
+        if (span.isNoop()) return span;
+
+        if (adapter instanceof TagSource) {
+            span.tags((TagSource) adapter);
+        } else {
+            for (KeyValueAnnotation annotation : adapter.requestAnnotations()) {
+                span.tag(annotation.getKey(), annotation.getValue());
+            }
+        }
+        Endpoint serverAddress = adapter.serverAddress();
+        if (serverAddress != null) span.remoteEndpoint(serverAddress);
+        return span.start();
+    }
+
+    /**
+     * Returns null when the trace isn't sampled remotely, as is the case for traces only recorded
+     * by {@link TailSamplingReporter}, so that the adapter propagates it as unsampled.
+     */
+    @Nullable
+    static SpanId propagated(@Nullable SpanId spanId) {
+        if (spanId == null || Boolean.FALSE.equals(spanId.sampled())) return null;
+        return spanId;
+    }
+
     private void recordClientSentAnnotations(Endpoint serverAddress) {
         if (serverAddress == null) {
             clientTracer.setClientSent();
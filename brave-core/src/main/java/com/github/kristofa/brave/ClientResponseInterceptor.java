@@ -28,8 +28,12 @@ public class ClientResponseInterceptor {
      */
     public void handle(ClientResponseAdapter adapter) {
         try {
-            for (KeyValueAnnotation annotation : adapter.responseAnnotations()) {
-                clientTracer.submitBinaryAnnotation(annotation.getKey(), annotation.getValue());
+            if (adapter instanceof TagSource) {
+                clientTracer.submitBinaryAnnotations((TagSource) adapter);
+            } else {
+                for (KeyValueAnnotation annotation : adapter.responseAnnotations()) {
+                    clientTracer.submitBinaryAnnotation(annotation.getKey(), annotation.getValue());
+                }
             }
         }
         finally
@@ -37,4 +41,29 @@ public class ClientResponseInterceptor {
             clientTracer.setClientReceived();
         }
     }
+
+    /**
+     * Like {@link #handle(ClientResponseAdapter)}, except for a span returned by {@link
+     * ClientRequestInterceptor#startSpan(ClientRequestAdapter)}. The current thread's state isn't
+     * used.
+     *
+     * @param adapter Adapter that hides implementation details.
+     * @param span the span of the request this is a response to.
+     */
+    public void handle(ClientResponseAdapter adapter, SpanHandle span) {
+        if (span.isNoop()) return;
+        try {
+            if (adapter instanceof TagSource) {
+                span.tags((TagSource) adapter);
+            } else {
+                for (KeyValueAnnotation annotation : adapter.responseAnnotations()) {
+                    span.tag(annotation.getKey(), annotation.getValue());
+                }
+            }
+        }
+        finally
+        {
+            span.finish();
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.github.kristofa.brave;
 
 import com.github.kristofa.brave.SpanAndEndpoint.ClientSpanAndEndpoint;
+import com.github.kristofa.brave.ThreadLocalServerClientAndLocalSpanState.CurrentSpans;
 import com.github.kristofa.brave.internal.Nullable;
 import com.google.auto.value.AutoValue;
 import com.twitter.zipkin.gen.Endpoint;
@@ -28,17 +29,20 @@ import zipkin.reporter.Reporter;
 public abstract class ClientTracer extends AnnotationSubmitter {
 
     public static Builder builder() {
-        return new AutoValue_ClientTracer.Builder();
+        return new AutoValue_ClientTracer.Builder()
+            .idGenerator(IdGenerator.create())
+            .spanLimits(SpanLimits.DEFAULT);
     }
 
     @Override
     abstract ClientSpanAndEndpoint spanAndEndpoint();
-    abstract Random randomGenerator();
+    abstract IdGenerator idGenerator();
     abstract Reporter<zipkin.Span> reporter();
     abstract Sampler traceSampler();
     @Override
     abstract AnnotationSubmitter.Clock clock();
     abstract boolean traceId128Bit();
+    abstract SpanLimits spanLimits();
 
     @AutoValue.Builder
     public abstract static class Builder {
@@ -50,9 +54,17 @@ public abstract class ClientTracer extends AnnotationSubmitter {
         abstract Builder spanAndEndpoint(ClientSpanAndEndpoint spanAndEndpoint);
 
         /**
-         * Used to generate new trace/span ids.
+         * Used to generate new trace/span ids. Defaults to {@link IdGenerator#create()}.
          */
-        public abstract Builder randomGenerator(Random randomGenerator);
+        public abstract Builder idGenerator(IdGenerator idGenerator);
+
+        /**
+         * @deprecated use {@link #idGenerator(IdGenerator)}, as threads contend on a shared random.
+         */
+        @Deprecated
+        public final Builder randomGenerator(Random randomGenerator) {
+            return idGenerator(IdGenerator.create(randomGenerator));
+        }
 
         public abstract Builder reporter(Reporter<zipkin.Span> reporter);
 
@@ -67,6 +79,7 @@ public abstract class ClientTracer extends AnnotationSubmitter {
         public abstract Builder traceSampler(Sampler sampler);
         public abstract Builder clock(AnnotationSubmitter.Clock clock);
         abstract Builder traceId128Bit(boolean traceId128Bit);
+        abstract Builder spanLimits(SpanLimits spanLimits);
 
         public abstract ClientTracer build();
     }
@@ -123,41 +136,104 @@ public abstract class ClientTracer extends AnnotationSubmitter {
      * @return Span id for new request or <code>null</code> in case we should not trace this new client request.
      */
     public SpanId startNewSpan(String requestName) {
+        return startNewSpan(requestName, null);
+    }
 
-        Boolean sample = spanAndEndpoint().state().sample();
-        if (Boolean.FALSE.equals(sample)) {
-            spanAndEndpoint().state().setCurrentClientSpan(null);
-            return null;
+    /**
+     * Like {@link #startNewSpan(String)}, except a new trace is sampled with {@link
+     * Sampler#isSampled(long, SamplingRequest)} when the request is present.
+     *
+     * @param request describes the outgoing request to the sampler, or null to sample on trace ID.
+     */
+    public SpanId startNewSpan(String requestName, @Nullable SamplingRequest request) {
+        ServerClientAndLocalSpanState state = spanAndEndpoint().state();
+        Object[] current = ThreadLocalServerClientAndLocalSpanState.currentSpans(state);
+        SpanId newSpanId = nextSampledSpanId(state, current, request);
+        Span newSpan = null;
+        if (newSpanId != null) {
+            newSpan = Span.pooledFromSpanId(newSpanId, spanLimits());
+            newSpan.setName(requestName);
+        } // otherwise, we will not trace this request.
+
+        if (current != null) {
+            CurrentSpans.setClientSpan(current, newSpan);
+        } else {
+            state.setCurrentClientSpan(newSpan);
         }
+        return newSpanId;
+    }
 
-        SpanId newSpanId = getNewSpanId();
-        if (sample == null) {
-            // No sample indication is present.
-            if (!traceSampler().isSampled(newSpanId.traceId)) {
-                spanAndEndpoint().state().setCurrentClientSpan(null);
-                return null;
-            }
-        }
+    /**
+     * Like {@link #startNewSpan(String)}, except the span is returned instead of bound to the
+     * current thread. This suits asynchronous requests, which complete on a different thread.
+     *
+     * <p>The span's parent is resolved from the current thread, but nothing else is. Call {@link
+     * SpanHandle#start()} when the request is sent, and {@link SpanHandle#finish()} when the
+     * response is received.
+     *
+     * @param requestName Request name. Should be lowercase and not <code>null</code> or empty.
+     * @return a handle which is a {@link SpanHandle#isNoop() no-op} if the request isn't sampled.
+     */
+    public SpanHandle newSpan(String requestName) {
+        return newSpan(requestName, null);
+    }
 
-        Span newSpan = Span.fromSpanId(newSpanId);
+    /**
+     * Like {@link #newSpan(String)}, except a new trace is sampled with {@link
+     * Sampler#isSampled(long, SamplingRequest)} when the request is present.
+     *
+     * @param request describes the outgoing request to the sampler, or null to sample on trace ID.
+     */
+    public SpanHandle newSpan(String requestName, @Nullable SamplingRequest request) {
+        ServerClientAndLocalSpanState state = spanAndEndpoint().state();
+        Object[] current = ThreadLocalServerClientAndLocalSpanState.currentSpans(state);
+        SpanId newSpanId = nextSampledSpanId(state, current, request);
+        if (newSpanId == null) return SpanHandle.NOOP;
+
+        Span newSpan = Span.pooledFromSpanId(newSpanId, spanLimits());
         newSpan.setName(requestName);
-        spanAndEndpoint().state().setCurrentClientSpan(newSpan);
-        return newSpanId;
+        return SpanHandle.client(newSpan, newSpanId, state, clock(), reporter());
     }
 
-    private SpanId getNewSpanId() {
-        Span parentSpan = spanAndEndpoint().state().getCurrentLocalSpan();
+    /**
+     * Returns the id of a new span, or null if the sampling decision is not to trace it.
+     *
+     * @param current when present, the spans of the state, already resolved for this thread.
+     */
+    @Nullable
+    private SpanId nextSampledSpanId(ServerClientAndLocalSpanState state,
+        @Nullable Object[] current, @Nullable SamplingRequest request) {
+        ServerSpan serverSpan = current != null ? CurrentSpans.serverSpan(current) : null;
+        Boolean sample = serverSpan != null ? serverSpan.getSample() : state.sample();
+        if (Boolean.FALSE.equals(sample)) return null;
+
+        Span parentSpan =
+            current != null ? CurrentSpans.localSpan(current) : state.getCurrentLocalSpan();
         if (parentSpan == null) {
-            ServerSpan serverSpan = spanAndEndpoint().state().getCurrentServerSpan();
-            if (serverSpan != null) {
-                parentSpan = serverSpan.getSpan();
-            }
+            if (serverSpan == null) serverSpan = state.getCurrentServerSpan();
+            if (serverSpan != null) parentSpan = serverSpan.getSpan();
         }
 
-        long newSpanId = randomGenerator().nextLong();
+        SpanId newSpanId = getNewSpanId(parentSpan);
+        if (sample == null) {
+            // No sample indication is present.
+            boolean sampled = request != null
+                ? traceSampler().isSampled(newSpanId.traceId, request)
+                : traceSampler().isSampled(newSpanId.traceId);
+            if (!sampled) return null;
+        }
+        if (traceSampler().isLocalOnly(newSpanId.traceId)) {
+            // recorded, but propagated as unsampled
+            return newSpanId.toBuilder().sampled(false).build();
+        }
+        return newSpanId;
+    }
+
+    private SpanId getNewSpanId(@Nullable Span parentSpan) {
+        long newSpanId = idGenerator().nextId();
         SpanId.Builder builder = SpanId.builder().spanId(newSpanId);
         if (parentSpan == null) { // new trace
-            if (traceId128Bit()) builder.traceIdHigh(randomGenerator().nextLong());
+            if (traceId128Bit()) builder.traceIdHigh(idGenerator().nextTraceIdHigh());
             return builder.build();
         }
         return builder.traceIdHigh(parentSpan.getTrace_id_high())
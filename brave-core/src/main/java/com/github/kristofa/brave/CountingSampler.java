@@ -2,6 +2,7 @@ package com.github.kristofa.brave;
 
 import java.util.BitSet;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static zipkin.internal.Util.checkArgument;
 
@@ -12,38 +13,48 @@ import static zipkin.internal.Util.checkArgument;
  *
  * <h3>Implementation</h3>
  *
- * <p>This initializes a random bitset of size 100 (corresponding to 1% granularity). This means
- * that it is accurate in units of 100 traces. At runtime, this loops through the bitset, returning
- * the value according to a counter.
+ * <p>This initializes a random bitset of size 100, 1000 or 10000, whichever is the smallest that
+ * can represent the rate (corresponding to 1%, 0.1% or 0.01% granularity). This means that a rate
+ * of 0.05 is accurate in units of 100 traces, and a rate of 0.0005 in units of 10000. At runtime,
+ * this loops through the bitset, returning the value according to a counter.
+ *
+ * <p>The counter is atomic, so concurrent requests don't block each other. It isn't striped, as
+ * that would lose the accuracy above.
  */
 public final class CountingSampler extends Sampler {
 
   /**
-   * @param rate 0 means never sample, 1 means always sample. Otherwise minimum sample rate is 0.01,
-   * or 1% of traces
+   * @param rate 0 means never sample, 1 means always sample. Otherwise minimum sample rate is
+   * 0.0001, or 0.01% of traces. Rates are rounded to the nearest 0.01%.
    */
   public static Sampler create(final float rate) {
     if (rate == 0) return NEVER_SAMPLE;
     if (rate == 1.0) return ALWAYS_SAMPLE;
-    checkArgument(rate >= 0.01f && rate < 1, "rate should be between 0.01 and 1: was %s", rate);
+    checkArgument(rate >= 0.0001f && rate < 1, "rate should be between 0.0001 and 1: was %s", rate);
     return new CountingSampler(rate);
   }
 
-  private int i; // guarded by this
+  private final AtomicLong counter = new AtomicLong();
+  private final int size;
   private final BitSet sampleDecisions;
 
   /** Fills a bitset with decisions according to the supplied rate. */
   CountingSampler(float rate) {
-    int outOf100 = (int) (rate * 100.0f);
-    this.sampleDecisions = randomBitSet(100, outOf100, new Random());
+    int outOf10000 = Math.round(rate * 10000.0f);
+    int size = 10000, cardinality = outOf10000;
+    while (size > 100 && cardinality % 10 == 0) {
+      size /= 10;
+      cardinality /= 10;
+    }
+    this.size = size;
+    this.sampleDecisions = randomBitSet(size, cardinality, new Random());
   }
 
   /** loops over the pre-canned decisions, resetting to zero when it gets to the end. */
   @Override
-  public synchronized boolean isSampled(long traceIdIgnored) {
-    boolean result = sampleDecisions.get(i++);
-    if (i == 100) i = 0;
-    return result;
+  public boolean isSampled(long traceIdIgnored) {
+    // a 64-bit counter won't overflow, so each pass over the decisions is complete
+    return sampleDecisions.get((int) (counter.getAndIncrement() % size));
   }
 
   @Override
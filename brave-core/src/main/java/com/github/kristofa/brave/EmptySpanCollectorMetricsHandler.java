@@ -4,7 +4,7 @@ package com.github.kristofa.brave;
 /**
  * Empty implementation ignoring all events.
  */
-public class EmptySpanCollectorMetricsHandler implements SpanCollectorMetricsHandler {
+public class EmptySpanCollectorMetricsHandler implements SpanLimitsMetricsHandler {
 
     @Override
     public void incrementAcceptedSpans(int quantity) {
@@ -15,4 +15,14 @@ public class EmptySpanCollectorMetricsHandler implements SpanCollectorMetricsHan
     public void incrementDroppedSpans(int quantity) {
 
     }
+
+    @Override
+    public void incrementTruncatedSpans(int quantity) {
+
+    }
+
+    @Override
+    public void incrementOverLimitSpans(int quantity) {
+
+    }
 }
@@ -1,6 +1,7 @@
 package com.github.kristofa.brave;
 
 import com.github.kristofa.brave.internal.Nullable;
+import com.github.kristofa.brave.internal.SpanRecord;
 import com.twitter.zipkin.gen.Span;
 import java.io.Closeable;
 import java.io.Flushable;
@@ -46,8 +47,16 @@ public abstract class FlushingSpanCollector implements SpanCollector, Flushable,
   @Override
   public void collect(Span span) {
     metrics.incrementAcceptedSpans(1);
+    SpanRecord record = span.record();
+    if (record != null && metrics instanceof SpanLimitsMetricsHandler) {
+      SpanLimitsMetricsHandler limitsMetrics = (SpanLimitsMetricsHandler) metrics;
+      if (record.isTruncated()) limitsMetrics.incrementTruncatedSpans(1);
+      if (record.isOverLimit()) limitsMetrics.incrementOverLimitSpans(1);
+    }
     if (!pending.offer(span)) {
       metrics.incrementDroppedSpans(1);
+    } else if (metrics instanceof ReporterFeedback) {
+      ((ReporterFeedback) metrics).spansQueued(pending.size());
     }
   }
 
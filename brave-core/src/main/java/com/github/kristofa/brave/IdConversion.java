@@ -23,6 +23,9 @@ public class IdConversion {
   /**
    * Converts long trace or span id to String.
    *
+   * <p>The result is variable length. Prefer {@link #toLowerHex(long)} or the id strings of
+   * {@link SpanId}, which are fixed length as recommended by B3.
+   *
    * @param id trace, span or parent span id.
    * @return String representation.
    */
@@ -30,6 +33,45 @@ public class IdConversion {
     return Long.toHexString(id);
   }
 
+  /** Returns the 16 character lower-hex form of the id, left-padded with zeros. */
+  public static String toLowerHex(long id) {
+    char[] result = new char[16];
+    writeLowerHex(id, result, 0);
+    return new String(result);
+  }
+
+  /** Returns the 32 character lower-hex form of a 128-bit trace id. */
+  public static String toLowerHex(long high, long low) {
+    char[] result = new char[32];
+    writeLowerHex(low, result, writeLowerHex(high, result, 0));
+    return new String(result);
+  }
+
+  /**
+   * Writes the 16 character lower-hex form of the id, left-padded with zeros, without allocating.
+   *
+   * @return the index after the last character written
+   */
+  public static int writeLowerHex(long id, char[] dest, int offset) {
+    for (int shift = 60; shift >= 0; shift -= 4) {
+      dest[offset++] = HEX_DIGITS[(int) ((id >>> shift) & 0xf)];
+    }
+    return offset;
+  }
+
+  /**
+   * Like {@link #writeLowerHex(long, char[], int)}, except writes ASCII bytes, for example to a
+   * header buffer.
+   *
+   * @return the index after the last byte written
+   */
+  public static int writeLowerHex(long id, byte[] dest, int offset) {
+    for (int shift = 60; shift >= 0; shift -= 4) {
+      dest[offset++] = (byte) HEX_DIGITS[(int) ((id >>> shift) & 0xf)];
+    }
+    return offset;
+  }
+
   /**
    * Parses a 1 to 32 character lower-hex string with no prefix into an unsigned long, tossing any
    * bits higher than 64.
@@ -64,8 +106,47 @@ public class IdConversion {
     return result;
   }
 
+  /**
+   * Parses 1 to 16 lower-hex characters between the indexes into an unsigned long, without
+   * allocating. For example, this can parse the high and low halves of a 128-bit trace id header,
+   * or an id inside a larger header value.
+   *
+   * @param beginIndex index of the first character, inclusive
+   * @param endIndex index after the last character, exclusive
+   */
+  public static long convertToLong(CharSequence lowerHex, int beginIndex, int endIndex) {
+    int length = endIndex - beginIndex;
+    if (length < 1 || length > 16 || beginIndex < 0 || endIndex > lowerHex.length()) {
+      throw isntLowerHexLong(lowerHex, beginIndex, endIndex);
+    }
+    long result = 0;
+    for (int i = beginIndex; i < endIndex; i++) {
+      char c = lowerHex.charAt(i);
+      result <<= 4;
+      if (c >= '0' && c <= '9') {
+        result |= c - '0';
+      } else if (c >= 'a' && c <= 'f') {
+        result |= c - 'a' + 10;
+      } else {
+        throw isntLowerHexLong(lowerHex, beginIndex, endIndex);
+      }
+    }
+    return result;
+  }
+
+  static final char[] HEX_DIGITS =
+      {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
   static NumberFormatException isntLowerHexLong(String lowerHex) {
     throw new NumberFormatException(
         lowerHex + " should be a 1 to 32 character lower-hex string with no prefix");
   }
+
+  static NumberFormatException isntLowerHexLong(CharSequence input, int beginIndex, int endIndex) {
+    String range = beginIndex >= 0 && beginIndex <= endIndex && endIndex <= input.length()
+        ? input.subSequence(beginIndex, endIndex).toString()
+        : "[" + beginIndex + ", " + endIndex + ") of " + input;
+    throw new NumberFormatException(
+        range + " should be a 1 to 16 character lower-hex string with no prefix");
+  }
 }
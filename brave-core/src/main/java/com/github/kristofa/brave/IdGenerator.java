@@ -0,0 +1,131 @@
+package com.github.kristofa.brave;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * Generates trace and span IDs, which are 64-bit random numbers.
+ *
+ * <p>{@link #create()}, the default, keeps a generator per thread, so tracing threads don't contend
+ * on a shared seed. This is the same technique as {@code ThreadLocalRandom}, which isn't available
+ * on Java 6.
+ */
+// abstract for factory-method support on Java language level 7
+public abstract class IdGenerator {
+
+  /**
+   * Returns a generator which uses a separate sequence per thread and never returns zero, which
+   * isn't a valid ID.
+   */
+  public static IdGenerator create() {
+    return ThreadLocalIdGenerator.INSTANCE;
+  }
+
+  /**
+   * Returns a generator which calls {@link Random#nextLong()} on the input. When the input is
+   * shared by many threads, as {@link Random} is thread-safe, they contend on its seed.
+   *
+   * <p>Unlike {@link #create()}, the values of the input are returned as-is, including zero.
+   */
+  public static IdGenerator create(final Random random) {
+    checkNotNull(random, "random");
+    return new IdGenerator() {
+      @Override public long nextId() {
+        return random.nextLong();
+      }
+
+      @Override public String toString() {
+        return "RandomIdGenerator(" + random + ")";
+      }
+    };
+  }
+
+  /**
+   * Returns a generator whose {@link #nextTraceIdHigh()} holds the current epoch seconds in its top
+   * 32 bits, followed by 32 random bits from the input. Other IDs are delegated as-is.
+   *
+   * <p>When {@link Brave.Builder#traceId128Bit(boolean) 128-bit trace IDs} are enabled, this
+   * lets storage partition or prune trace lookups by time without a secondary index. Samplers
+   * only consider the low 64 bits, which remain fully random.
+   */
+  public static IdGenerator timePrefixed(IdGenerator delegate) {
+    checkNotNull(delegate, "delegate");
+    return new TimePrefixedIdGenerator(delegate);
+  }
+
+  /** Returns a random 64-bit identifier. */
+  public abstract long nextId();
+
+  /**
+   * Returns the high 64 bits of a new 128-bit trace ID. Defaults to {@link #nextId()}.
+   *
+   * @see #timePrefixed(IdGenerator)
+   */
+  public long nextTraceIdHigh() {
+    return nextId();
+  }
+
+  static final class TimePrefixedIdGenerator extends IdGenerator {
+    final IdGenerator delegate;
+
+    TimePrefixedIdGenerator(IdGenerator delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override public long nextId() {
+      return delegate.nextId();
+    }
+
+    @Override public long nextTraceIdHigh() {
+      long epochSeconds = System.currentTimeMillis() / 1000;
+      return (epochSeconds << 32) | (delegate.nextId() & 0xffffffffL);
+    }
+
+    @Override public String toString() {
+      return "TimePrefixedIdGenerator(" + delegate + ")";
+    }
+  }
+
+  /**
+   * Per-thread SplitMix64, the algorithm of {@code SplittableRandom} and Java 8 {@code
+   * ThreadLocalRandom}. Only the initial seed of each thread is drawn from shared state.
+   */
+  static final class ThreadLocalIdGenerator extends IdGenerator {
+    static final ThreadLocalIdGenerator INSTANCE = new ThreadLocalIdGenerator();
+
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /** Spaces out the initial seeds of threads, so their sequences don't overlap. */
+    static final AtomicLong SEEDER =
+        new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+    /** A {@code long[]} holds the seed, so that the thread doesn't reference a brave type. */
+    static final ThreadLocal<long[]> SEED = new ThreadLocal<long[]>() {
+      @Override protected long[] initialValue() {
+        return new long[] {mix64(SEEDER.getAndAdd(GOLDEN_GAMMA << 1))};
+      }
+    };
+
+    @Override public long nextId() {
+      long[] seed = SEED.get();
+      long id;
+      do {
+        id = mix64(seed[0] += GOLDEN_GAMMA);
+      } while (id == 0L);
+      return id;
+    }
+
+    /** David Stafford's variant 13 of the MurmurHash3 finalizer, as used in SplitMix64. */
+    static long mix64(long z) {
+      z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+      z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+      return z ^ (z >>> 31);
+    }
+
+    @Override public String toString() {
+      return "ThreadLocalIdGenerator";
+    }
+  }
+}
@@ -1,8 +1,5 @@
 package com.github.kristofa.brave;
 
-import java.util.Deque;
-import java.util.concurrent.LinkedBlockingDeque;
-
 import com.github.kristofa.brave.internal.Util;
 import com.twitter.zipkin.gen.Endpoint;
 import com.twitter.zipkin.gen.Span;
@@ -15,6 +12,10 @@ import com.twitter.zipkin.gen.Span;
  * {@link LocalTracer#finishSpan() finish spans} or clear the local span at
  * completion of the local trace span to avoid linking spans with incorrect
  * parents and avoid leaking spans and associated memory.
+ * <p>
+ * A child thread starts with a copy of its parent's local spans, so spans it starts and finishes
+ * don't change the current local span of its parent. Setting or clearing the server span clears
+ * the local spans of the current thread.
  */
 public final class InheritableServerClientAndLocalSpanState implements ServerClientAndLocalSpanState {
 
@@ -28,11 +29,16 @@ public final class InheritableServerClientAndLocalSpanState implements ServerCli
 
     private final InheritableThreadLocal<Span> currentClientSpan = new InheritableThreadLocal<Span>();
 
-    private final InheritableThreadLocal<Deque<Span>> currentLocalSpan =
-            new InheritableThreadLocal<Deque<Span>>() {
+    private final InheritableThreadLocal<SpanStack> currentLocalSpan =
+            new InheritableThreadLocal<SpanStack>() {
+                @Override
+                protected SpanStack initialValue() {
+                    return new SpanStack();
+                }
+
                 @Override
-                protected Deque<Span> initialValue() {
-                    return new LinkedBlockingDeque<Span>();
+                protected SpanStack childValue(SpanStack parentValue) {
+                    return parentValue.copy();
                 }
             };
 
@@ -52,6 +58,7 @@ public final class InheritableServerClientAndLocalSpanState implements ServerCli
 
     @Override
     public void setCurrentServerSpan(final ServerSpan span) {
+        currentLocalSpan.remove(); // local spans don't outlive the request
         if (span == null) {
             currentServerSpan.remove();
         } else {
@@ -81,7 +88,7 @@ public final class InheritableServerClientAndLocalSpanState implements ServerCli
 
     @Override
     public Span getCurrentLocalSpan() {
-        return currentLocalSpan.get().peekFirst();
+        return currentLocalSpan.get().peek();
     }
 
     /**
@@ -92,13 +99,7 @@ public final class InheritableServerClientAndLocalSpanState implements ServerCli
      */
     @Override
     public void setCurrentLocalSpan(Span span) {
-        Deque<Span> deque = currentLocalSpan.get();
-        if (span == null) {
-            // pop to remove
-            deque.pollFirst();
-        } else {
-            deque.addFirst(span);
-        }
+        currentLocalSpan.get().set(span);
     }
 
     @Override
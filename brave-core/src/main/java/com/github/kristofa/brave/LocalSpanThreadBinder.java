@@ -1,5 +1,6 @@
 package com.github.kristofa.brave;
 
+import com.github.kristofa.brave.internal.Nullable;
 import com.twitter.zipkin.gen.Span;
 
 import static com.github.kristofa.brave.internal.Util.checkNotNull;
@@ -47,4 +48,13 @@ public final class LocalSpanThreadBinder {
   public void setCurrentSpan(Span span) {
     state.setCurrentLocalSpan(span);
   }
+
+  /**
+   * Undoes {@link #setCurrentSpan(Span) binding} the span, making the previous span current again.
+   * Span states which keep a stack pop the span, instead of pushing the previous span over it.
+   */
+  void restoreCurrentSpan(@Nullable Span span, @Nullable Span previous) {
+    if (span != null && state.getCurrentLocalSpan() == span) state.setCurrentLocalSpan(null);
+    if (state.getCurrentLocalSpan() != previous) state.setCurrentLocalSpan(previous);
+  }
 }
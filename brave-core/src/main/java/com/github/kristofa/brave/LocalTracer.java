@@ -1,9 +1,9 @@
 package com.github.kristofa.brave;
 
 import com.github.kristofa.brave.SpanAndEndpoint.LocalSpanAndEndpoint;
+import com.github.kristofa.brave.ThreadLocalServerClientAndLocalSpanState.CurrentSpans;
 import com.github.kristofa.brave.internal.Nullable;
 import com.google.auto.value.AutoValue;
-import com.twitter.zipkin.gen.BinaryAnnotation;
 import com.twitter.zipkin.gen.Span;
 import zipkin.Constants;
 
@@ -38,7 +38,9 @@ import static zipkin.Constants.LOCAL_COMPONENT;
 public abstract class LocalTracer extends AnnotationSubmitter {
 
     static Builder builder() {
-        return new AutoValue_LocalTracer.Builder();
+        return new AutoValue_LocalTracer.Builder()
+            .idGenerator(IdGenerator.create())
+            .spanLimits(SpanLimits.DEFAULT);
     }
 
     // visible for testing
@@ -49,7 +51,7 @@ public abstract class LocalTracer extends AnnotationSubmitter {
     @Override
     abstract LocalSpanAndEndpoint spanAndEndpoint();
 
-    abstract Random randomGenerator();
+    abstract IdGenerator idGenerator();
 
     abstract Reporter<zipkin.Span> reporter();
 
@@ -62,12 +64,18 @@ public abstract class LocalTracer extends AnnotationSubmitter {
 
     abstract boolean traceId128Bit();
 
+    abstract SpanLimits spanLimits();
+
     @AutoValue.Builder
     abstract static class Builder {
 
         abstract Builder spanAndEndpoint(LocalSpanAndEndpoint spanAndEndpoint);
 
-        abstract Builder randomGenerator(Random randomGenerator);
+        abstract Builder idGenerator(IdGenerator idGenerator);
+
+        final Builder randomGenerator(Random randomGenerator) {
+            return idGenerator(IdGenerator.create(randomGenerator));
+        }
 
         abstract Builder reporter(Reporter<zipkin.Span> reporter);
 
@@ -79,6 +87,8 @@ public abstract class LocalTracer extends AnnotationSubmitter {
 
         abstract Builder traceId128Bit(boolean traceId128Bit);
 
+        abstract Builder spanLimits(SpanLimits spanLimits);
+
         abstract LocalTracer build();
 
     }
@@ -93,20 +103,17 @@ public abstract class LocalTracer extends AnnotationSubmitter {
      */
     public SpanId startNewSpan(String component, String operation) {
         SpanId spanId = startNewSpan(component, operation, clock().currentTimeMicroseconds());
-        if (spanId == null) return null;
+        if (spanId == null || !usesTicks(clock())) return spanId;
         Span span = spanAndEndpoint().span();
-        synchronized (span) {
-            span.startTick = System.nanoTime(); // embezzle start tick into an internal field.
-        }
+        span.startTick = System.nanoTime(); // embezzle start tick into an internal field.
         return spanId;
     }
 
-    private SpanId getNewSpanId() {
-        Span parentSpan = getNewSpanParent();
-        long newSpanId = randomGenerator().nextLong();
+    private SpanId getNewSpanId(@Nullable Span parentSpan) {
+        long newSpanId = idGenerator().nextId();
         SpanId.Builder builder = SpanId.builder().spanId(newSpanId);
         if (parentSpan == null) { // new trace
-            if (traceId128Bit()) builder.traceIdHigh(randomGenerator().nextLong());
+            if (traceId128Bit()) builder.traceIdHigh(idGenerator().nextTraceIdHigh());
             return builder.traceId(newSpanId).build();
         }
         return builder.traceIdHigh(parentSpan.getTrace_id_high())
@@ -153,31 +160,77 @@ public abstract class LocalTracer extends AnnotationSubmitter {
      * @see Constants#LOCAL_COMPONENT
      */
     public SpanId startNewSpan(String component, String operation, long timestamp) {
+        ServerClientAndLocalSpanState state = spanAndEndpoint().state();
+        Object[] current = ThreadLocalServerClientAndLocalSpanState.currentSpans(state);
+        SpanId newSpanId = nextSampledSpanId(state, current);
+        if (newSpanId == null) return null; // leave the current local span as is
 
-        Boolean sample = spanAndEndpoint().state().sample();
-        if (Boolean.FALSE.equals(sample)) {
-            spanAndEndpoint().state().setCurrentLocalSpan(null);
-            return null;
+        Span newSpan = newSpan(newSpanId, component, operation);
+        newSpan.setTimestamp(timestamp);
+        if (current != null) {
+            CurrentSpans.setLocalSpan(current, newSpan);
+        } else {
+            state.setCurrentLocalSpan(newSpan);
         }
+        return newSpanId;
+    }
 
-        SpanId newSpanId = getNewSpanId();
-        if (sample == null) {
-            // No sample indication is present.
-            if (!traceSampler().isSampled(newSpanId.traceId)) {
-                spanAndEndpoint().state().setCurrentLocalSpan(null);
-                return null;
-            }
+    /**
+     * Like {@link #startNewSpan(String, String)}, except the span is returned instead of bound to
+     * the current thread, and doesn't start until {@link SpanHandle#start()}. This suits operations
+     * which complete on a different thread.
+     *
+     * @param component {@link Constants#LOCAL_COMPONENT component} responsible for the operation
+     * @param operation name of the operation that's begun
+     * @return a handle which is a {@link SpanHandle#isNoop() no-op} if the span isn't sampled.
+     */
+    public SpanHandle newSpan(String component, String operation) {
+        ServerClientAndLocalSpanState state = spanAndEndpoint().state();
+        SpanId newSpanId = nextSampledSpanId(state,
+            ThreadLocalServerClientAndLocalSpanState.currentSpans(state));
+        if (newSpanId == null) return SpanHandle.NOOP;
+
+        return SpanHandle.local(newSpan(newSpanId, component, operation), newSpanId,
+            state, clock(), reporter());
+    }
+
+    /**
+     * Returns the id of a new span, or null if the sampling decision is not to trace it.
+     *
+     * @param current when present, the spans of the state, already resolved for this thread.
+     */
+    @Nullable
+    private SpanId nextSampledSpanId(ServerClientAndLocalSpanState state,
+        @Nullable Object[] current) {
+        Boolean sample;
+        Span parentSpan;
+        if (current != null) {
+            ServerSpan serverSpan = CurrentSpans.serverSpan(current);
+            sample = serverSpan.getSample();
+            if (Boolean.FALSE.equals(sample)) return null;
+            parentSpan = allowNestedLocalSpans() ? CurrentSpans.localSpan(current) : null;
+            if (parentSpan == null) parentSpan = serverSpan.getSpan();
+        } else {
+            sample = state.sample();
+            if (Boolean.FALSE.equals(sample)) return null;
+            parentSpan = getNewSpanParent();
         }
 
-        Span newSpan = Span.fromSpanId(newSpanId);
-        newSpan.setName(operation);
-        newSpan.setTimestamp(timestamp);
-        newSpan.addToBinary_annotations(
-            BinaryAnnotation.create(LOCAL_COMPONENT, component, spanAndEndpoint().endpoint()));
-        spanAndEndpoint().state().setCurrentLocalSpan(newSpan);
+        SpanId newSpanId = getNewSpanId(parentSpan);
+        if (sample == null && parentSpan == null) {
+            // No sample indication is present. A parent span is only recorded if sampled.
+            if (!traceSampler().isSampled(newSpanId.traceId)) return null;
+        }
         return newSpanId;
     }
 
+    private Span newSpan(SpanId newSpanId, String component, String operation) {
+        Span newSpan = Span.pooledFromSpanId(newSpanId, spanLimits());
+        newSpan.setName(operation);
+        newSpan.addToBinary_annotations(LOCAL_COMPONENT, component, spanAndEndpoint().endpoint());
+        return newSpan;
+    }
+
     /**
      * Completes the span, assigning the most precise duration possible.
      */
@@ -187,10 +240,7 @@ public abstract class LocalTracer extends AnnotationSubmitter {
         Span span = spanAndEndpoint().span();
         if (span == null) return;
 
-        Long startTick;
-        synchronized (span) {
-            startTick = span.startTick;
-        }
+        Long startTick = span.startTick;
         final long duration;
         if (startTick != null) {
             duration = Math.max(1L, (endTick - startTick) / 1000L);
@@ -211,10 +261,9 @@ public abstract class LocalTracer extends AnnotationSubmitter {
     }
 
     private void internalFinishSpan(Span span, long duration) {
-        synchronized (span) {
-            span.setDuration(duration);
-        }
-        reporter().report(span.toZipkin());
+        span.setDuration(duration);
+        span.finish(); // stops accepting annotations, but reports on each call as it always has
+        report(span, reporter());
         spanAndEndpoint().state().setCurrentLocalSpan(null);
     }
 
@@ -0,0 +1,103 @@
+package com.github.kristofa.brave;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static zipkin.internal.Util.checkArgument;
+
+/**
+ * This sampler is appropriate for services whose traffic varies, but whose tracing backend needs a
+ * predictable volume. It keeps at most a number of new traces per second, regardless of how many
+ * requests there are. Like {@link CountingSampler}, the decision isn't consistent based on trace
+ * id, so it is only appropriate at the root of a trace.
+ *
+ * <p>Traces forced with {@link SpanId#FLAG_DEBUG} can be limited separately with {@link
+ * #create(int, int)}. Otherwise, they are always kept.
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>This is a token bucket which holds a second's worth of traces, so can absorb a burst of that
+ * size. Rather than refilling tokens on a timer, it tracks the time the bucket would be empty at,
+ * which is advanced by compare-and-set for each trace kept. When the bucket is empty, the decision
+ * is a read of that time and {@link System#nanoTime()}, so it remains cheap during traffic spikes.
+ */
+public final class RateLimitingSampler extends Sampler {
+
+  /**
+   * @param tracesPerSecond 0 means never sample. Otherwise, the maximum count of new traces kept
+   * each second.
+   */
+  public static Sampler create(int tracesPerSecond) {
+    checkArgument(tracesPerSecond >= 0, "tracesPerSecond < 0: %s", tracesPerSecond);
+    if (tracesPerSecond == 0) return NEVER_SAMPLE;
+    return new RateLimitingSampler(new TokenBucket(tracesPerSecond), null);
+  }
+
+  /**
+   * @param tracesPerSecond 0 means never sample. Otherwise, the maximum count of new traces kept
+   * each second.
+   * @param debugTracesPerSecond the maximum count of debug traces kept each second. Debug traces
+   * over this limit are treated as if the debug flag wasn't set.
+   */
+  public static Sampler create(int tracesPerSecond, int debugTracesPerSecond) {
+    checkArgument(tracesPerSecond >= 0, "tracesPerSecond < 0: %s", tracesPerSecond);
+    checkArgument(debugTracesPerSecond >= 0, "debugTracesPerSecond < 0: %s",
+        debugTracesPerSecond);
+    return new RateLimitingSampler(
+        tracesPerSecond != 0 ? new TokenBucket(tracesPerSecond) : null,
+        new TokenBucket(debugTracesPerSecond)
+    );
+  }
+
+  final TokenBucket traces; // null means never sample
+  final TokenBucket debugTraces; // null means unlimited
+
+  RateLimitingSampler(TokenBucket traces, TokenBucket debugTraces) {
+    this.traces = traces;
+    this.debugTraces = debugTraces;
+  }
+
+  @Override
+  public boolean isSampled(long traceIdIgnored) {
+    return traces != null && traces.tryAcquire(System.nanoTime());
+  }
+
+  @Override
+  public boolean allowsDebug(long traceIdIgnored) {
+    return debugTraces == null || debugTraces.tryAcquire(System.nanoTime());
+  }
+
+  @Override
+  public String toString() {
+    return "RateLimitingSampler(tracesPerSecond=" + (traces != null ? traces.perSecond : 0)
+        + (debugTraces != null ? ", debugTracesPerSecond=" + debugTraces.perSecond : "")
+        + ")";
+  }
+
+  static final class TokenBucket {
+    static final long NANOS_PER_SECOND = 1000000000L;
+
+    final int perSecond;
+    final long nanosPerToken;
+    /** The time the bucket is empty at. When it's in the past, the bucket is full. */
+    final AtomicLong emptyAt;
+
+    TokenBucket(int perSecond) {
+      this.perSecond = perSecond;
+      this.nanosPerToken = perSecond != 0 ? NANOS_PER_SECOND / perSecond : Long.MAX_VALUE;
+      this.emptyAt = new AtomicLong(System.nanoTime() - NANOS_PER_SECOND);
+    }
+
+    /** Takes a token unless the bucket is empty as of the time in nanoseconds. */
+    boolean tryAcquire(long now) {
+      if (perSecond == 0) return false;
+      while (true) {
+        long emptyAt = this.emptyAt.get();
+        // a full bucket holds a second's worth of tokens. Compare by subtraction, as nanoTime
+        // can be negative.
+        long nextEmptyAt = (emptyAt - now < 0 ? now : emptyAt) + nanosPerToken;
+        if (nextEmptyAt - now > NANOS_PER_SECOND) return false;
+        if (this.emptyAt.compareAndSet(emptyAt, nextEmptyAt)) return true;
+      }
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.github.kristofa.brave;
+
+/**
+ * Receives feedback about how well spans are being exported, so that what's sampled can adapt.
+ *
+ * <p>Collectors and reporters call this as they accept, queue and drop spans. For example, {@link
+ * FlushingSpanCollector} reports its queue depth when its metrics handler implements this type.
+ *
+ * @see AdaptiveSampler
+ */
+public interface ReporterFeedback {
+
+  /**
+   * Called when spans are accepted for export.
+   *
+   * @param quantity the number of spans accepted.
+   */
+  void spansAccepted(int quantity);
+
+  /**
+   * Called when spans are lost for any reason, such as a full queue or a transport failure.
+   *
+   * @param quantity the number of spans dropped.
+   */
+  void spansDropped(int quantity);
+
+  /**
+   * Called with the count of spans waiting to be exported.
+   *
+   * @param quantity the number of spans queued.
+   */
+  void spansQueued(int quantity);
+}
@@ -0,0 +1,203 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * This sampler chooses a rate by the route of a request, such as its http method and path, or its
+ * gRPC method. For example, this drops health checks and static assets, and keeps all checkouts:
+ *
+ * <pre>{@code
+ * Sampler sampler = RouteSampler.builder()
+ *     .addRule("GET", "/health", 0.0f)
+ *     .addRule(null, "/static/", 0.0f)
+ *     .addRule("POST", "/checkout", 1.0f)
+ *     .addRule(null, "helloworld.Greeter/", 0.5f)
+ *     .build(Sampler.create(0.1f));
+ * }</pre>
+ *
+ * <p>A rule matches when the request's path starts with its path prefix and, if the rule has a
+ * method, the request's method is the same. The rule with the longest matching prefix wins, and of
+ * those, one with a method wins over one without. When no rule matches, or the request isn't known,
+ * the default sampler decides.
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>Rules are compiled into a trie keyed on the characters of their path prefix. Matching walks
+ * the path once, so costs the same regardless of how many rules there are.
+ */
+public final class RouteSampler extends Sampler {
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+    final List<String> methods = new ArrayList<String>(); // null for any
+    final List<String> pathPrefixes = new ArrayList<String>();
+    final List<Sampler> samplers = new ArrayList<Sampler>();
+
+    /**
+     * Samples requests that match at the given rate, using {@link Sampler#create(float)}.
+     *
+     * @param method the http method, like "GET", or null to match any method.
+     * @param pathPrefix the start of the path, like "/api/" or "helloworld.Greeter/". Empty matches
+     * any path.
+     */
+    public Builder addRule(@Nullable String method, String pathPrefix, float rate) {
+      return addRule(method, pathPrefix, Sampler.create(rate));
+    }
+
+    /**
+     * Like {@link #addRule(String, String, float)}, except requests that match use the given
+     * sampler, such as a {@link RateLimitingSampler}. A later rule for the same method and prefix
+     * replaces an earlier one.
+     */
+    public Builder addRule(@Nullable String method, String pathPrefix, Sampler sampler) {
+      checkNotNull(pathPrefix, "pathPrefix");
+      checkNotNull(sampler, "sampler");
+      methods.add(method);
+      pathPrefixes.add(pathPrefix);
+      samplers.add(sampler);
+      return this;
+    }
+
+    /** @param defaultSampler decides requests which match no rule. */
+    public RouteSampler build(Sampler defaultSampler) {
+      checkNotNull(defaultSampler, "defaultSampler");
+      Node root = new Node();
+      for (int i = 0; i < pathPrefixes.size(); i++) {
+        root.insert(pathPrefixes.get(i), methods.get(i), samplers.get(i));
+      }
+      return new RouteSampler(root, defaultSampler);
+    }
+
+    Builder() {
+    }
+  }
+
+  final Node root;
+  final Sampler defaultSampler;
+
+  RouteSampler(Node root, Sampler defaultSampler) {
+    this.root = root;
+    this.defaultSampler = defaultSampler;
+  }
+
+  /** Requests without a route use the default sampler. */
+  @Override
+  public boolean isSampled(long traceId) {
+    return defaultSampler.isSampled(traceId);
+  }
+
+  @Override
+  public boolean isSampled(long traceId, SamplingRequest request) {
+    return samplerFor(request.method(), request.path()).isSampled(traceId);
+  }
+
+  @Override
+  public boolean allowsDebug(long traceId) {
+    return defaultSampler.allowsDebug(traceId);
+  }
+
+  /** Returns the sampler of the rule which best matches the route, or the default sampler. */
+  Sampler samplerFor(@Nullable String method, @Nullable String path) {
+    Sampler result = root.match(method);
+    if (path != null) {
+      Node node = root;
+      for (int i = 0, length = path.length(); i < length; i++) {
+        node = node.child(path.charAt(i));
+        if (node == null) break;
+        Sampler match = node.match(method);
+        if (match != null) result = match;
+      }
+    }
+    return result != null ? result : defaultSampler;
+  }
+
+  @Override
+  public String toString() {
+    return "RouteSampler(" + defaultSampler + ")";
+  }
+
+  /**
+   * A node in the trie of path prefixes. It isn't modified after build, and is published safely by
+   * the final field of {@link RouteSampler}.
+   */
+  static final class Node {
+    char[] labels = new char[0];
+    Node[] children = new Node[0];
+    // rules that end at this node
+    String[] methods = new String[0];
+    Sampler[] methodSamplers = new Sampler[0];
+    Sampler anyMethodSampler;
+
+    void insert(String pathPrefix, @Nullable String method, Sampler sampler) {
+      Node node = this;
+      for (int i = 0, length = pathPrefix.length(); i < length; i++) {
+        char c = pathPrefix.charAt(i);
+        Node child = node.child(c);
+        if (child == null) child = node.addChild(c);
+        node = child;
+      }
+      node.setSampler(method, sampler);
+    }
+
+    @Nullable Node child(char c) {
+      char[] labels = this.labels;
+      for (int i = 0; i < labels.length; i++) {
+        if (labels[i] == c) return children[i];
+      }
+      return null;
+    }
+
+    /** Returns the sampler for the method, falling back to the one for any method. */
+    @Nullable Sampler match(@Nullable String method) {
+      if (method != null) {
+        for (int i = 0; i < methods.length; i++) {
+          if (methods[i].equals(method)) return methodSamplers[i];
+        }
+      }
+      return anyMethodSampler;
+    }
+
+    Node addChild(char c) {
+      int length = labels.length;
+      char[] labels = new char[length + 1];
+      Node[] children = new Node[length + 1];
+      System.arraycopy(this.labels, 0, labels, 0, length);
+      System.arraycopy(this.children, 0, children, 0, length);
+      Node child = new Node();
+      labels[length] = c;
+      children[length] = child;
+      this.labels = labels;
+      this.children = children;
+      return child;
+    }
+
+    void setSampler(@Nullable String method, Sampler sampler) {
+      if (method == null) {
+        anyMethodSampler = sampler;
+        return;
+      }
+      for (int i = 0; i < methods.length; i++) {
+        if (methods[i].equals(method)) {
+          methodSamplers[i] = sampler;
+          return;
+        }
+      }
+      int length = methods.length;
+      String[] methods = new String[length + 1];
+      Sampler[] methodSamplers = new Sampler[length + 1];
+      System.arraycopy(this.methods, 0, methods, 0, length);
+      System.arraycopy(this.methodSamplers, 0, methodSamplers, 0, length);
+      methods[length] = method;
+      methodSamplers[length] = sampler;
+      this.methods = methods;
+      this.methodSamplers = methodSamplers;
+    }
+  }
+}
@@ -37,13 +37,43 @@ public abstract class Sampler {
   /** Returns true if the trace ID should be measured. */
   public abstract boolean isSampled(long traceId);
 
+  /**
+   * Like {@link #isSampled(long)}, except the request can be considered, such as its http path.
+   * Defaults to ignore the request.
+   *
+   * <p>Interceptors call this when their adapter implements {@link SamplingRequest}.
+   *
+   * @see RouteSampler
+   */
+  public boolean isSampled(long traceId, SamplingRequest request) {
+    return isSampled(traceId);
+  }
+
+  /**
+   * Returns false if a trace forced with {@link SpanId#FLAG_DEBUG} should be treated as if the
+   * debug flag wasn't set. Defaults to true, as debug traces bypass sampling.
+   *
+   * @see RateLimitingSampler#create(int, int)
+   */
+  public boolean allowsDebug(long traceId) {
+    return true;
+  }
+
+  /**
+   * Returns true if a trace this sampled is only recorded locally, so that remote services are
+   * told it isn't sampled. This is the case for traces {@link TailSamplingReporter} buffers.
+   */
+  boolean isLocalOnly(long traceId) {
+    return false;
+  }
+
   /**
    * Returns a sampler, given a rate expressed as a percentage.
    *
    * <p>The sampler returned is good for low volumes of traffic (<100K requests), as it is precise.
    * If you have high volumes of traffic, consider {@link BoundarySampler}.
    *
-   * @param rate minimum sample rate is 0.01, or 1% of traces
+   * @param rate minimum sample rate is 0.0001, or 0.01% of traces
    */
   public static Sampler create(float rate) {
     return CountingSampler.create(rate);
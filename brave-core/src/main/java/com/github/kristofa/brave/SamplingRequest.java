@@ -0,0 +1,21 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+
+/**
+ * Implemented by request adapters which describe their request to {@link
+ * Sampler#isSampled(long, SamplingRequest)}, such that sampling can differ by route.
+ *
+ * @see RouteSampler
+ */
+public interface SamplingRequest {
+
+  /** The http method, like "GET", or null if not applicable, such as in gRPC. */
+  @Nullable String method();
+
+  /**
+   * The http path without the query, like "/api/users", or the gRPC full method name, like
+   * "helloworld.Greeter/SayHello".
+   */
+  String path();
+}
@@ -40,49 +40,62 @@ public class ServerRequestInterceptor {
             return;
         }
         SpanId spanId = traceData.getSpanId();
+        SamplingRequest request =
+            adapter instanceof SamplingRequest ? (SamplingRequest) adapter : null;
         if (spanId == null) {
             LOGGER.fine("Received no span state.");
-            serverTracer.setStateUnknown(adapter.getSpanName());
+            SpanId newSpanId = serverTracer.nextSampledSpanId(request);
+            if (newSpanId == null) {
+                serverTracer.setStateNoTracing();
+                return;
+            }
+            serverTracer.setStateCurrentTrace(newSpanId, adapter.getSpanName());
             startServerSpan(adapter);
             return;
         }
 
+        // Debug traces bypass sampling, unless the sampler limits them
+        if (spanId.debug() && !serverTracer.traceSampler().allowsDebug(spanId.traceId)) {
+            LOGGER.fine("Received debug flag, but the sampler didn't allow it.");
+            spanId = spanId.toBuilder().debug(false).build();
+        }
+
         // If the sampled flag was left unset, we need to make the decision here
-        if (spanId.sampled() == null) {
-            spanId = spanId.toBuilder()
-                .sampled(serverTracer.traceSampler().isSampled(spanId.traceId))
-                .shared(false)
-                .build();
-        } else if (spanId.sampled()) {
-            // We know an instrumented caller initiated the trace if they sampled it
-            spanId = spanId.toBuilder().shared(true).build();
+        Boolean sampled = spanId.sampled();
+        if (sampled == null) {
+            sampled = serverTracer.isSampled(spanId.traceId, request);
         }
 
-        // At this point, we have inherited a sampling decision or made one explicitly
-        if (!spanId.sampled()) {
+        // At this point, we have inherited a sampling decision or made one explicitly. When it is
+        // not to sample, return before the span name or tags are read from the adapter.
+        if (!sampled) {
             LOGGER.fine("Received span information as part of request, but didn't sample.");
             serverTracer.setStateNoTracing();
-        } else {
-            LOGGER.fine("Received span information as part of request.");
-            serverTracer.setStateCurrentTrace(traceData.getSpanId(), adapter.getSpanName());
+            return;
         }
+        LOGGER.fine("Received span information as part of request.");
+        serverTracer.setStateCurrentTrace(spanId, adapter.getSpanName());
         startServerSpan(adapter);
 
         // In the RPC span model, the client owns the timestamp and duration of the span. If we
         // were propagated an id, we can assume that we shouldn't report timestamp or duration,
         // rather let the client do that. Worst case we were propagated an unreported ID and
         // Zipkin backfills timestamp and duration.
-        if (spanId.shared) {
+        //
+        // We know an instrumented caller initiated the trace if they sampled it.
+        if (spanId.sampled() != null) {
             Span span = serverTracer.spanAndEndpoint().span();
-            synchronized (span) {
-                span.setTimestamp(null);
-                span.startTick = null;
-            }
+            span.setTimestamp(null);
         }
     }
 
+    /** Only called when the request is sampled, so tags aren't read from the adapter otherwise. */
     void startServerSpan(ServerRequestAdapter adapter) {
         serverTracer.setServerReceived();
+        if (adapter instanceof TagSource) {
+            serverTracer.submitBinaryAnnotations((TagSource) adapter);
+            return;
+        }
         for(KeyValueAnnotation annotation : adapter.requestAnnotations())
         {
             serverTracer.submitBinaryAnnotation(annotation.getKey(), annotation.getValue());
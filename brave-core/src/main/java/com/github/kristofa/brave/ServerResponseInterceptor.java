@@ -26,9 +26,14 @@ public class ServerResponseInterceptor {
         // we should not trace this request nothing will happen.
         LOGGER.fine("Sending server send.");
         try {
-            for(KeyValueAnnotation annotation : adapter.responseAnnotations())
-            {
-                serverTracer.submitBinaryAnnotation(annotation.getKey(), annotation.getValue());
+            // Tags are only read from the adapter when there's a span to add them to.
+            if (adapter instanceof TagSource) {
+                serverTracer.submitBinaryAnnotations((TagSource) adapter);
+            } else if (serverTracer.spanAndEndpoint().span() != null) {
+                for(KeyValueAnnotation annotation : adapter.responseAnnotations())
+                {
+                    serverTracer.submitBinaryAnnotation(annotation.getKey(), annotation.getValue());
+                }
             }
             serverTracer.setServerSend();
         } finally {
@@ -38,9 +38,14 @@ public abstract class ServerSpan {
     public abstract Boolean getSample();
 
     static ServerSpan create(SpanId spanId, String name) {
+        return create(spanId, name, SpanLimits.DEFAULT);
+    }
+
+    static ServerSpan create(SpanId spanId, String name, SpanLimits limits) {
         if (spanId == null) throw new NullPointerException("spanId == null");
         if (name == null) throw new NullPointerException("name == null");
-        return new AutoValue_ServerSpan(spanId, Span.fromSpanId(spanId).setName(name), true);
+        Span span = Span.pooledFromSpanId(spanId, limits).setName(name);
+        return new AutoValue_ServerSpan(spanId, span, true);
     }
 
     ServerSpan(){
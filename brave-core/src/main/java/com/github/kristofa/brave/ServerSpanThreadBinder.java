@@ -50,4 +50,8 @@ public class ServerSpanThreadBinder {
     public void setCurrentSpan(final ServerSpan span) {
         state.setCurrentServerSpan(span);
     }
+
+    ServerSpanState state() {
+        return state;
+    }
 }
@@ -29,17 +29,20 @@ import static com.github.kristofa.brave.internal.Util.checkNotBlank;
 public abstract class ServerTracer extends AnnotationSubmitter {
 
     public static Builder builder() {
-        return new AutoValue_ServerTracer.Builder();
+        return new AutoValue_ServerTracer.Builder()
+            .idGenerator(IdGenerator.create())
+            .spanLimits(SpanLimits.DEFAULT);
     }
 
     @Override
     abstract ServerSpanAndEndpoint spanAndEndpoint();
-    abstract Random randomGenerator();
+    abstract IdGenerator idGenerator();
     abstract Reporter<zipkin.Span> reporter();
     abstract Sampler traceSampler();
     @Override
     abstract AnnotationSubmitter.Clock clock();
     abstract boolean traceId128Bit();
+    abstract SpanLimits spanLimits();
 
     @AutoValue.Builder
     public abstract static class Builder {
@@ -51,9 +54,17 @@ public abstract class ServerTracer extends AnnotationSubmitter {
         abstract Builder spanAndEndpoint(ServerSpanAndEndpoint spanAndEndpoint);
 
         /**
-         * Used to generate new trace/span ids.
+         * Used to generate new trace/span ids. Defaults to {@link IdGenerator#create()}.
          */
-        public abstract Builder randomGenerator(Random randomGenerator);
+        public abstract Builder idGenerator(IdGenerator idGenerator);
+
+        /**
+         * @deprecated use {@link #idGenerator(IdGenerator)}, as threads contend on a shared random.
+         */
+        @Deprecated
+        public final Builder randomGenerator(Random randomGenerator) {
+            return idGenerator(IdGenerator.create(randomGenerator));
+        }
 
         public abstract Builder reporter(Reporter<zipkin.Span> reporter);
 
@@ -71,6 +82,8 @@ public abstract class ServerTracer extends AnnotationSubmitter {
 
         abstract Builder traceId128Bit(boolean traceId128Bit);
 
+        abstract Builder spanLimits(SpanLimits spanLimits);
+
         public abstract ServerTracer build();
     }
 
@@ -100,7 +113,7 @@ public abstract class ServerTracer extends AnnotationSubmitter {
      */
     public void setStateCurrentTrace(SpanId spanId, String spanName) {
         checkNotBlank(spanName, "Null or blank span name");
-        ServerSpan span = ServerSpan.create(spanId, spanName);
+        ServerSpan span = ServerSpan.create(spanId, spanName, spanLimits());
         spanAndEndpoint().state().setCurrentServerSpan(span);
     }
 
@@ -124,17 +137,34 @@ public abstract class ServerTracer extends AnnotationSubmitter {
      */
     public void setStateUnknown(String spanName) {
         checkNotBlank(spanName, "Null or blank span name");
-        long newTraceId = randomGenerator().nextLong();
-        if (!traceSampler().isSampled(newTraceId)) {
-            spanAndEndpoint().state().setCurrentServerSpan(ServerSpan.NOT_SAMPLED);
+        SpanId spanId = nextSampledSpanId(null);
+        if (spanId == null) {
+            setStateNoTracing();
             return;
         }
-        SpanId spanId = SpanId.builder()
-            .traceIdHigh(traceId128Bit() ? randomGenerator().nextLong() : 0L)
+        setStateCurrentTrace(spanId, spanName);
+    }
+
+    /**
+     * Returns the ID of a new root span, or null if the trace sampler dropped it.
+     *
+     * @param request when present, passed to {@link Sampler#isSampled(long, SamplingRequest)}
+     */
+    @Nullable
+    SpanId nextSampledSpanId(@Nullable SamplingRequest request) {
+        long newTraceId = idGenerator().nextId();
+        if (!isSampled(newTraceId, request)) return null;
+        return SpanId.builder()
+            .traceIdHigh(traceId128Bit() ? idGenerator().nextTraceIdHigh() : 0L)
             .traceId(newTraceId)
             .spanId(newTraceId)
             .build();
-        setStateCurrentTrace(spanId, spanName);
+    }
+
+    boolean isSampled(long traceId, @Nullable SamplingRequest request) {
+        return request != null
+            ? traceSampler().isSampled(traceId, request)
+            : traceSampler().isSampled(traceId);
     }
 
     /**
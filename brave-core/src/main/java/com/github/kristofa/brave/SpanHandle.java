@@ -0,0 +1,208 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+import com.twitter.zipkin.gen.AnnotationType;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import zipkin.Constants;
+import zipkin.reporter.Reporter;
+
+import static com.github.kristofa.brave.internal.Util.decimalString;
+
+/**
+ * A span recorded by calling methods on it directly. Unlike {@link ClientTracer} and {@link
+ * LocalTracer}, which look up the current span on each call, a handle doesn't read thread state
+ * after it is made.
+ *
+ * <p>Since it isn't tied to a thread, a handle can be finished on a different thread than it was
+ * started on, such as in a callback, without saving and restoring the current span. For example:
+ * <pre>{@code
+ * SpanHandle span = clientTracer.newSpan("get");
+ * adapter.addSpanIdToRequest(span.spanId()); // null when not sampled
+ * span.tag(TraceKeys.HTTP_URL, url).start();
+ *
+ * // later, possibly on another thread
+ * span.tag(TraceKeys.HTTP_STATUS_CODE, code).finish();
+ * }</pre>
+ *
+ * <p>Call {@link #bind()} when code on the current thread, such as instrumentation that uses the
+ * tracers, should see this span as current.
+ *
+ * <p>When the span isn't sampled, {@link #isNoop()} is true and other methods do nothing.
+ */
+public final class SpanHandle {
+
+  /** Returned when a new span wasn't sampled. */
+  static final SpanHandle NOOP = new SpanHandle(null, null, false, null, null, null);
+
+  static SpanHandle client(Span span, SpanId spanId, ServerClientAndLocalSpanState state,
+      AnnotationSubmitter.Clock clock, Reporter<zipkin.Span> reporter) {
+    return new SpanHandle(span, spanId, true, state, clock, reporter);
+  }
+
+  static SpanHandle local(Span span, SpanId spanId, ServerClientAndLocalSpanState state,
+      AnnotationSubmitter.Clock clock, Reporter<zipkin.Span> reporter) {
+    return new SpanHandle(span, spanId, false, state, clock, reporter);
+  }
+
+  @Nullable final Span span;
+  @Nullable final SpanId spanId;
+  final boolean client;
+  final ServerClientAndLocalSpanState state;
+  final Endpoint endpoint;
+  final AnnotationSubmitter.Clock clock;
+  final Reporter<zipkin.Span> reporter;
+  volatile boolean bound;
+
+  SpanHandle(@Nullable Span span, @Nullable SpanId spanId, boolean client,
+      ServerClientAndLocalSpanState state, AnnotationSubmitter.Clock clock,
+      Reporter<zipkin.Span> reporter) {
+    this.span = span;
+    this.spanId = spanId;
+    this.client = client;
+    this.state = state;
+    this.endpoint = state != null ? state.endpoint() : null;
+    this.clock = clock;
+    this.reporter = reporter;
+  }
+
+  /** True if the span wasn't sampled, so nothing will be recorded. */
+  public boolean isNoop() {
+    return span == null;
+  }
+
+  /** Identifies the span for propagation, or null if it wasn't sampled. */
+  @Nullable public SpanId spanId() {
+    return spanId;
+  }
+
+  /**
+   * Records the start of the span now. For client spans, this is the {@link
+   * Constants#CLIENT_SEND} annotation.
+   */
+  public SpanHandle start() {
+    if (span == null) return this;
+    return start(clock.currentTimeMicroseconds());
+  }
+
+  /** Like {@link #start()}, except with a timestamp in epoch microseconds. */
+  public SpanHandle start(long timestamp) {
+    if (span == null) return this;
+    span.setTimestamp(timestamp);
+    if (client) span.addToAnnotations(timestamp, Constants.CLIENT_SEND, endpoint);
+    return this;
+  }
+
+  /**
+   * Records the network context of the peer. For client spans, this is the server being called,
+   * logged as {@link Constants#SERVER_ADDR}. Ignored for local spans.
+   *
+   * @param remote represents the peer. Set {@link Endpoint#service_name} to "unknown" if unknown.
+   */
+  public SpanHandle remoteEndpoint(Endpoint remote) {
+    if (span == null || !client) return this;
+    if (remote.service_name == null) {
+      remote = remote.toBuilder().serviceName("unknown").build();
+    }
+    span.addToBinary_annotations(Constants.SERVER_ADDR, AnnotationSubmitter.ADDRESS_VALUE,
+        AnnotationType.BOOL, remote);
+    return this;
+  }
+
+  /** Like {@link AnnotationSubmitter#submitAnnotation(String)}. */
+  public SpanHandle annotate(String value) {
+    if (span == null) return this;
+    return annotate(value, clock.currentTimeMicroseconds());
+  }
+
+  /** Like {@link AnnotationSubmitter#submitAnnotation(String, long)}. */
+  public SpanHandle annotate(String value, long timestamp) {
+    if (span != null) span.addToAnnotations(timestamp, value, endpoint);
+    return this;
+  }
+
+  /** Like {@link AnnotationSubmitter#submitBinaryAnnotation(String, String)}. */
+  public SpanHandle tag(String key, String value) {
+    if (span != null) span.addToBinary_annotations(key, value, endpoint);
+    return this;
+  }
+
+  /** Adds all tags of the source. */
+  SpanHandle tags(TagSource tags) {
+    if (span != null) tags.forEachTag(new AnnotationSubmitter.SpanTagger(span, endpoint));
+    return this;
+  }
+
+  /** Like {@link AnnotationSubmitter#submitBinaryAnnotation(String, int)}. */
+  public SpanHandle tag(String key, int value) {
+    if (span != null) span.addToBinary_annotations(key, decimalString(value), endpoint);
+    return this;
+  }
+
+  /** Like {@link AnnotationSubmitter#submitBinaryAnnotation(String, long)}. */
+  public SpanHandle tag(String key, long value) {
+    if (span != null) span.addToBinary_annotations(key, value, AnnotationType.I64, endpoint);
+    return this;
+  }
+
+  /** Like {@link AnnotationSubmitter#submitBinaryAnnotation(String, double)}. */
+  public SpanHandle tag(String key, double value) {
+    if (span != null) span.addToBinary_annotations(key, value, endpoint);
+    return this;
+  }
+
+  /** Like {@link AnnotationSubmitter#submitBinaryAnnotation(String, boolean)}. */
+  public SpanHandle tag(String key, boolean value) {
+    if (span != null) {
+      span.addToBinary_annotations(key, value ? 1L : 0L, AnnotationType.BOOL, endpoint);
+    }
+    return this;
+  }
+
+  /**
+   * Makes this the current client or local span of this thread, so that the tracers see it. For
+   * example, a nested local span started on this thread will be a child of this one.
+   *
+   * <p>{@link #finish()} unbinds the span when called on the same thread. Otherwise, call {@link
+   * #unbind()} on the thread this was bound to.
+   */
+  public SpanHandle bind() {
+    if (span == null) return this;
+    bound = true;
+    if (client) {
+      state.setCurrentClientSpan(span);
+    } else {
+      state.setCurrentLocalSpan(span);
+    }
+    return this;
+  }
+
+  /** Undoes {@link #bind()}, if this is still the current span of this thread. */
+  public void unbind() {
+    if (span == null || !bound) return;
+    if (client) {
+      if (state.getCurrentClientSpan() == span) state.setCurrentClientSpan(null);
+    } else {
+      if (state.getCurrentLocalSpan() == span) state.setCurrentLocalSpan(null);
+    }
+  }
+
+  /**
+   * Records the end of the span now and reports it. For client spans, this is the {@link
+   * Constants#CLIENT_RECV} annotation. When threads race to finish the span, only one reports it.
+   */
+  public void finish() {
+    if (span == null) return;
+    long endTimestamp = clock.currentTimeMicroseconds();
+    if (client) span.addToAnnotations(endTimestamp, Constants.CLIENT_RECV, endpoint);
+    Long startTimestamp = span.getTimestamp();
+    if (startTimestamp != null) span.setDuration(Math.max(1L, endTimestamp - startTimestamp));
+    if (!span.finish()) return;
+    AnnotationSubmitter.report(span, reporter);
+    unbind();
+  }
+
+  @Override public String toString() {
+    return span == null ? "SpanHandle(noop)" : "SpanHandle(" + spanId + ")";
+  }
+}
@@ -2,8 +2,11 @@ package com.github.kristofa.brave;
 
 import com.github.kristofa.brave.internal.Nullable;
 import com.twitter.zipkin.gen.Span;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
+import static com.github.kristofa.brave.IdConversion.writeLowerHex;
 import static com.github.kristofa.brave.internal.Util.checkNotNull;
 
 /**
@@ -55,6 +58,9 @@ public final class SpanId {
         .flags(flags));
   }
 
+  // Encoded lazily, as most are never propagated. Racing threads encode the same value.
+  private String traceIdString, spanIdString, parentIdString;
+
   SpanId(Builder builder) {
     checkNotNull(builder.spanId, "spanId");
     this.traceIdHigh = builder.traceIdHigh;
@@ -68,25 +74,70 @@ public final class SpanId {
   /** Deserializes this from a big-endian byte array */
   public static SpanId fromBytes(byte[] bytes) {
     checkNotNull(bytes, "bytes");
-    if (bytes.length != 32 && bytes.length != 40) {
-      throw new IllegalArgumentException("bytes.length " + bytes.length + " != 32 or 40");
+    return readFrom(ByteBuffer.wrap(bytes), 0);
+  }
+
+  /**
+   * Deserializes the format of {@link #bytes()} from the buffer, starting at the offset and ending
+   * at its limit. The buffer's position isn't changed.
+   *
+   * @throws IllegalArgumentException if there are not exactly 32 or 40 bytes to read
+   * @see #writeTo(ByteBuffer)
+   */
+  public static SpanId readFrom(ByteBuffer buffer, int offset) {
+    checkNotNull(buffer, "buffer");
+    int length = buffer.limit() - offset;
+    if (length != 32 && length != 40) {
+      throw new IllegalArgumentException("length " + length + " != 32 or 40");
     }
 
-    ByteBuffer buffer = ByteBuffer.wrap(bytes);
     Builder builder = new Builder();
-    builder.spanId(buffer.getLong(0));
-    builder.parentId(buffer.getLong(8));
-    if (bytes.length == 32) {
-      builder.traceId(buffer.getLong(16));
-      builder.flags(buffer.getLong(24));
+    builder.spanId(getLong(buffer, offset));
+    builder.parentId(getLong(buffer, offset + 8));
+    if (length == 32) {
+      builder.traceId(getLong(buffer, offset + 16));
+      builder.flags(getLong(buffer, offset + 24));
     } else {
-      builder.traceIdHigh(buffer.getLong(16));
-      builder.traceId(buffer.getLong(24));
-      builder.flags(buffer.getLong(32));
+      builder.traceIdHigh(getLong(buffer, offset + 16));
+      builder.traceId(getLong(buffer, offset + 24));
+      builder.flags(getLong(buffer, offset + 32));
     }
     return new SpanId(builder);
   }
 
+  /**
+   * Deserializes the format of {@link #writeCompactTo(ByteBuffer)} from the buffer, starting at
+   * the offset. The buffer's position isn't changed, so use {@link #compactSizeInBytes()} on the
+   * result to skip past it.
+   *
+   * @throws IllegalArgumentException if the header byte isn't valid
+   * @throws IndexOutOfBoundsException if the buffer ends before the encoded IDs
+   */
+  public static SpanId readCompactFrom(ByteBuffer buffer, int offset) {
+    checkNotNull(buffer, "buffer");
+    int header = buffer.get(offset++) & 0xff;
+    if ((header & ~COMPACT_HEADER_MASK) != 0) {
+      throw new IllegalArgumentException("invalid header " + Integer.toHexString(header));
+    }
+
+    Builder builder = new Builder();
+    builder.flags(header & COMPACT_FLAGS_MASK);
+    if ((header & COMPACT_TRACE_ID_HIGH) != 0) {
+      builder.traceIdHigh(getLong(buffer, offset));
+      offset += 8;
+    }
+    Long traceId = null;
+    if ((header & COMPACT_TRACE_ID_IS_SPAN_ID) == 0) {
+      traceId = getLong(buffer, offset);
+      offset += 8;
+    }
+    long spanId = getLong(buffer, offset);
+    offset += 8;
+    builder.spanId(spanId).traceId(traceId != null ? traceId : spanId);
+    if ((header & COMPACT_PARENT_ID_IS_TRACE_ID) == 0) builder.parentId(getLong(buffer, offset));
+    return new SpanId(builder);
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -195,22 +246,85 @@ public final class SpanId {
 
   /** Serializes this into a big-endian byte array */
   public byte[] bytes() {
-    boolean traceHi = traceIdHigh != 0;
-    byte[] result = new byte[traceHi ? 40 : 32];
-    ByteBuffer buffer = ByteBuffer.wrap(result);
-    buffer.putLong(0, spanId);
-    buffer.putLong(8, parentId);
-    if (traceHi) {
-      buffer.putLong(16, traceIdHigh);
-      buffer.putLong(24, traceId);
-      buffer.putLong(32, flags);
-    } else {
-      buffer.putLong(16, traceId);
-      buffer.putLong(24, flags);
-    }
+    byte[] result = new byte[sizeInBytes()];
+    writeTo(ByteBuffer.wrap(result));
+    return result;
+  }
+
+  /** Returns the length of {@link #bytes()}: 40 when {@link #traceIdHigh} is set, otherwise 32. */
+  public int sizeInBytes() {
+    return traceIdHigh != 0 ? 40 : 32;
+  }
+
+  /**
+   * Writes {@link #bytes()} into the buffer at its position, which is advanced. Unlike {@link
+   * #bytes()}, this doesn't allocate. IDs are big-endian regardless of the buffer's byte order.
+   *
+   * @throws java.nio.BufferOverflowException if there are fewer than {@link #sizeInBytes()} bytes
+   * remaining
+   * @see #readFrom(ByteBuffer, int)
+   */
+  public void writeTo(ByteBuffer buffer) {
+    if (buffer.remaining() < sizeInBytes()) throw new BufferOverflowException();
+    putLong(buffer, spanId);
+    putLong(buffer, parentId);
+    if (traceIdHigh != 0) putLong(buffer, traceIdHigh);
+    putLong(buffer, traceId);
+    putLong(buffer, flags);
+  }
+
+  /** Returns the length written by {@link #writeCompactTo(ByteBuffer)}: between 9 and 33 bytes. */
+  public int compactSizeInBytes() {
+    int result = 9; // header and span ID
+    if (traceIdHigh != 0) result += 8;
+    if (traceId != spanId) result += 8;
+    if (parentId != traceId) result += 8;
     return result;
   }
 
+  /**
+   * Writes a compact form of {@link #bytes()} into the buffer at its position, which is advanced.
+   *
+   * <p>A header byte holds the {@link #flags} and which IDs were omitted. A trace ID equal to the
+   * span ID is omitted, as is a parent ID equal to the trace ID, so a 64-bit root span is 9 bytes
+   * instead of 32. IDs are big-endian regardless of the buffer's byte order.
+   *
+   * <p>Only the flags defined in this type are written. Like {@link #bytes()}, this doesn't
+   * include {@link #shared}, which is local state.
+   *
+   * @throws java.nio.BufferOverflowException if there are fewer than {@link #compactSizeInBytes()}
+   * bytes remaining
+   * @see #readCompactFrom(ByteBuffer, int)
+   */
+  public void writeCompactTo(ByteBuffer buffer) {
+    if (buffer.remaining() < compactSizeInBytes()) throw new BufferOverflowException();
+    int header = (int) flags & COMPACT_FLAGS_MASK;
+    if (traceIdHigh != 0) header |= COMPACT_TRACE_ID_HIGH;
+    if (traceId == spanId) header |= COMPACT_TRACE_ID_IS_SPAN_ID;
+    if (parentId == traceId) header |= COMPACT_PARENT_ID_IS_TRACE_ID;
+    buffer.put((byte) header);
+    if (traceIdHigh != 0) putLong(buffer, traceIdHigh);
+    if (traceId != spanId) putLong(buffer, traceId);
+    putLong(buffer, spanId);
+    if (parentId != traceId) putLong(buffer, parentId);
+  }
+
+  // The low bits of the compact header are the flags: FLAG_DEBUG through FLAG_IS_ROOT
+  static final int COMPACT_FLAGS_MASK = 0x0f;
+  static final int COMPACT_TRACE_ID_HIGH = 1 << 4;
+  static final int COMPACT_TRACE_ID_IS_SPAN_ID = 1 << 5;
+  static final int COMPACT_PARENT_ID_IS_TRACE_ID = 1 << 6;
+  static final int COMPACT_HEADER_MASK = 0x7f;
+
+  static void putLong(ByteBuffer buffer, long value) {
+    buffer.putLong(buffer.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value));
+  }
+
+  static long getLong(ByteBuffer buffer, int index) {
+    long value = buffer.getLong(index);
+    return buffer.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+  }
+
   public Builder toBuilder() {
     return new Builder(this);
   }
@@ -221,18 +335,13 @@ public final class SpanId {
     boolean traceHi = traceIdHigh != 0;
     char[] result = new char[((traceHi ? 4 : 3) * 16) + 3]; // 3 ids and the constant delimiters
     int pos = 0;
-    if (traceHi) {
-      writeHexLong(result, pos, traceIdHigh);
-      pos += 16;
-    }
-    writeHexLong(result, pos, traceId);
-    pos += 16;
+    if (traceHi) pos = writeLowerHex(traceIdHigh, result, pos);
+    pos = writeLowerHex(traceId, result, pos);
     result[pos++] = '.';
-    writeHexLong(result, pos, spanId);
-    pos += 16;
+    pos = writeLowerHex(spanId, result, pos);
     result[pos++] = '<';
     result[pos++] = ':';
-    writeHexLong(result, pos, parentId);
+    writeLowerHex(parentId, result, pos);
     return new String(result);
   }
 
@@ -263,20 +372,37 @@ public final class SpanId {
   }
 
   /**
-   * Returns the hex representation of the span's trace ID
+   * Returns the hex representation of the span's trace ID: 32 characters when {@link
+   * #traceIdHigh} is set, otherwise 16. The result is cached.
    *
    * @since 3.15
    */
   public String traceIdString() {
-    if (traceIdHigh != 0) {
-      char[] result = new char[32];
-      writeHexLong(result, 0, traceIdHigh);
-      writeHexLong(result, 16, traceId);
-      return new String(result);
+    String result = traceIdString;
+    if (result == null) {
+      result = traceIdString = traceIdHigh != 0
+          ? IdConversion.toLowerHex(traceIdHigh, traceId)
+          : IdConversion.toLowerHex(traceId);
     }
-    char[] result = new char[16];
-    writeHexLong(result, 0, traceId);
-    return new String(result);
+    return result;
+  }
+
+  /** Returns the 16 character hex representation of {@link #spanId}. The result is cached. */
+  public String spanIdString() {
+    String result = spanIdString;
+    if (result == null) result = spanIdString = IdConversion.toLowerHex(spanId);
+    return result;
+  }
+
+  /**
+   * Returns the 16 character hex representation of the parent ID, or null if this is a root span.
+   * The result is cached.
+   */
+  @Nullable public String parentIdString() {
+    if (root()) return null;
+    String result = parentIdString;
+    if (result == null) result = parentIdString = IdConversion.toLowerHex(parentId);
+    return result;
   }
 
   /**
@@ -389,24 +515,4 @@ public final class SpanId {
     Builder() {
     }
   }
-
-  /** Inspired by {@code okio.Buffer.writeLong} */
-  static void writeHexLong(char[] data, int pos, long v) {
-    writeHexByte(data, pos + 0,  (byte) ((v >>> 56L) & 0xff));
-    writeHexByte(data, pos + 2,  (byte) ((v >>> 48L) & 0xff));
-    writeHexByte(data, pos + 4,  (byte) ((v >>> 40L) & 0xff));
-    writeHexByte(data, pos + 6,  (byte) ((v >>> 32L) & 0xff));
-    writeHexByte(data, pos + 8,  (byte) ((v >>> 24L) & 0xff));
-    writeHexByte(data, pos + 10, (byte) ((v >>> 16L) & 0xff));
-    writeHexByte(data, pos + 12, (byte) ((v >>> 8L) & 0xff));
-    writeHexByte(data, pos + 14, (byte)  (v & 0xff));
-  }
-
-  static final char[] HEX_DIGITS =
-      {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
-
-  static void writeHexByte(char[] data, int pos, byte b) {
-    data[pos + 0] = HEX_DIGITS[(b >> 4) & 0xf];
-    data[pos + 1] = HEX_DIGITS[b & 0xf];
-  }
 }
@@ -0,0 +1,85 @@
+package com.github.kristofa.brave;
+
+import com.google.auto.value.AutoValue;
+import java.io.Serializable;
+
+/**
+ * Bounds how much data a span can hold. Limits apply when annotations are recorded, so that a
+ * span with, for example, a very large {@code sql.query} doesn't bloat the heap or exceed the
+ * message size of the transport.
+ *
+ * <p>Spans that hit a limit are counted by {@link SpanLimitsMetricsHandler#incrementTruncatedSpans(int)}
+ * or {@link SpanLimitsMetricsHandler#incrementOverLimitSpans(int)} when collected, if the
+ * collector's metrics handler implements {@link SpanLimitsMetricsHandler}.
+ */
+@AutoValue
+public abstract class SpanLimits implements Serializable {
+  static final long serialVersionUID = 1L;
+
+  /** No limits, except the capacity of the span itself. */
+  public static final SpanLimits DEFAULT = builder().build();
+
+  public static Builder builder() {
+    return new AutoValue_SpanLimits.Builder()
+        .maxAnnotations(Integer.MAX_VALUE)
+        .maxBinaryAnnotations(Integer.MAX_VALUE)
+        .maxTagValueBytes(Integer.MAX_VALUE)
+        .maxSpanBytes(Integer.MAX_VALUE);
+  }
+
+  /** Annotations added past this count are dropped. */
+  public abstract int maxAnnotations();
+
+  /** Binary annotations added past this count are dropped. */
+  public abstract int maxBinaryAnnotations();
+
+  /**
+   * String and bytes values of binary annotations are truncated to this many bytes. Strings are
+   * cut at a character boundary of their UTF-8 encoding.
+   */
+  public abstract int maxTagValueBytes();
+
+  /**
+   * Annotations and binary annotations that would grow the span past this size are dropped.
+   *
+   * <p>The size is an estimate: one byte per character of keys and values, the length of byte
+   * values, and eight bytes per timestamp. Endpoints aren't counted, as they are usually shared.
+   */
+  public abstract int maxSpanBytes();
+
+  public abstract Builder toBuilder();
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+    /** Default unlimited. */
+    public abstract Builder maxAnnotations(int maxAnnotations);
+
+    /** Default unlimited. */
+    public abstract Builder maxBinaryAnnotations(int maxBinaryAnnotations);
+
+    /** Default unlimited. */
+    public abstract Builder maxTagValueBytes(int maxTagValueBytes);
+
+    /** Default unlimited. */
+    public abstract Builder maxSpanBytes(int maxSpanBytes);
+
+    abstract SpanLimits autoBuild();
+
+    public SpanLimits build() {
+      SpanLimits result = autoBuild();
+      if (result.maxAnnotations() < 0) throw new IllegalArgumentException("maxAnnotations < 0");
+      if (result.maxBinaryAnnotations() < 0) {
+        throw new IllegalArgumentException("maxBinaryAnnotations < 0");
+      }
+      if (result.maxTagValueBytes() < 0) throw new IllegalArgumentException("maxTagValueBytes < 0");
+      if (result.maxSpanBytes() < 0) throw new IllegalArgumentException("maxSpanBytes < 0");
+      return result;
+    }
+
+    Builder() {
+    }
+  }
+
+  SpanLimits() {
+  }
+}
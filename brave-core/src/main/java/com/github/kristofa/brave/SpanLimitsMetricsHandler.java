@@ -0,0 +1,27 @@
+package com.github.kristofa.brave;
+
+/**
+ * A {@linkplain SpanCollectorMetricsHandler} that also counts spans which hit their {@link
+ * SpanLimits}. Span collectors call these methods only when their metrics handler implements this
+ * type, so existing handlers needn't change.
+ *
+ * @see EmptySpanCollectorMetricsHandler
+ */
+public interface SpanLimitsMetricsHandler extends SpanCollectorMetricsHandler {
+
+    /**
+     * Called when spans are accepted with values truncated, or annotations dropped, to fit
+     * {@link SpanLimits}.
+     *
+     * @param quantity the number of truncated spans.
+     */
+    void incrementTruncatedSpans(int quantity);
+
+    /**
+     * Called when spans are accepted with annotations dropped, as they would have exceeded
+     * {@link SpanLimits#maxSpanBytes()}.
+     *
+     * @param quantity the number of spans that reached their size limit.
+     */
+    void incrementOverLimitSpans(int quantity);
+}
@@ -0,0 +1,86 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+import com.twitter.zipkin.gen.Span;
+
+/**
+ * The local spans of a thread, most recent on top. When a span is popped, its parent becomes
+ * current again.
+ *
+ * <p>This is only read and written by its thread, so it doesn't lock. The array grows on demand
+ * and is reused, so pushing a span doesn't allocate once the thread has reached its usual depth.
+ */
+final class SpanStack {
+    static final int INITIAL_CAPACITY = 4;
+
+    private Span[] spans;
+    private int size;
+
+    SpanStack() {
+        this(new Span[INITIAL_CAPACITY], 0);
+    }
+
+    private SpanStack(Span[] spans, int size) {
+        this.spans = spans;
+        this.size = size;
+    }
+
+    /** Returns the current span, or null if the stack is empty. */
+    @Nullable
+    Span peek() {
+        return size == 0 ? null : spans[size - 1];
+    }
+
+    void push(Span span) {
+        if (size == spans.length) {
+            Span[] grown = new Span[size * 2];
+            System.arraycopy(spans, 0, grown, 0, size);
+            spans = grown;
+        }
+        spans[size++] = span;
+    }
+
+    /** Removes and returns the current span, or returns null if the stack is empty. */
+    @Nullable
+    Span pop() {
+        if (size == 0) return null;
+        Span span = spans[--size];
+        spans[size] = null; // don't retain finished spans
+        return span;
+    }
+
+    /** Removes all spans, such as those left unfinished by a previous request. */
+    void clear() {
+        while (size > 0) spans[--size] = null;
+    }
+
+    /** Pushes the span, or pops the current one if it is null. */
+    void set(@Nullable Span span) {
+        if (span == null) {
+            pop();
+        } else {
+            push(span);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Returns an independent stack with the same spans, such as for a child thread. */
+    SpanStack copy() {
+        Span[] copy = new Span[Math.max(INITIAL_CAPACITY, size)];
+        System.arraycopy(spans, 0, copy, 0, size);
+        return new SpanStack(copy, size);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("SpanStack[");
+        for (int i = size - 1; i >= 0; i--) {
+            result.append(spans[i]);
+            if (i > 0) result.append(", ");
+        }
+        return result.append(']').toString();
+    }
+}
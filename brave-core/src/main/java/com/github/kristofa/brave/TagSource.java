@@ -0,0 +1,20 @@
+package com.github.kristofa.brave;
+
+/**
+ * Implemented by request and response adapters which can pass their tags to a consumer, instead
+ * of allocating a collection of {@link KeyValueAnnotation}.
+ *
+ * <p>When an adapter implements this, interceptors call {@link #forEachTag(Consumer)} instead of
+ * {@code requestAnnotations()} or {@code responseAnnotations()}. The current span is looked up
+ * once, and each tag is added to it as it is visited.
+ */
+public interface TagSource {
+
+  /** Passes each tag to the consumer, in order. */
+  void forEachTag(Consumer consumer);
+
+  interface Consumer {
+    /** Adds a {@link com.twitter.zipkin.gen.AnnotationType#STRING} binary annotation. */
+    void accept(String key, String value);
+  }
+}
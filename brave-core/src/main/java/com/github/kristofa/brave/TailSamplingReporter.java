@@ -0,0 +1,405 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.internal.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import zipkin.Constants;
+import zipkin.reporter.Reporter;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static zipkin.internal.Util.checkArgument;
+
+/**
+ * This reporter decides whether to keep a trace after its local root span finishes, so that slow
+ * or failed requests are kept even when the head sampling rate is low.
+ *
+ * <p>Traces the head sampler keeps are reported as usual. Traces it drops are still recorded, but
+ * their spans are buffered by trace ID. When the local root span of a buffered trace finishes, all
+ * of its spans are reported if it took at least the latency threshold, or if any of them has an
+ * {@link Constants#ERROR error} tag. Otherwise, they are discarded. Wire the sampler and the
+ * reporter together:
+ *
+ * <pre>{@code
+ * tail = TailSamplingReporter.builder(reporter)
+ *     .headSampler(Sampler.create(0.01f))
+ *     .latencyThreshold(500, TimeUnit.MILLISECONDS)
+ *     .build();
+ * brave = new Brave.Builder("frontend").traceSampler(tail.sampler()).reporter(tail).build();
+ * }</pre>
+ *
+ * <p>The local root is the span which began the trace, or the span which received a request. A
+ * buffered trace whose local root hasn't finished when the window elapses is slow, so its spans
+ * are reported then. Buffered traces are evicted when the buffer is full, oldest first. These are
+ * counted, as {@link #tracesEvicted()} and {@link #spansEvicted()}.
+ *
+ * <p>Note that every request is recorded, so instrumentation costs apply to all of them. The head
+ * decision is what's propagated: requests made by {@link ClientRequestInterceptor} in a buffered
+ * trace tell downstream services it isn't sampled. A trace kept here holds this service's spans.
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>Spans are buffered as reported, so that discarding them costs no encoding. The buffer is split
+ * into stripes by trace ID, each guarded by its own lock, holding traces in the order they began or
+ * were decided. Each stripe expires its traces when it is next used. After a decision is made, a
+ * trace without spans stays for another window, so that spans which finish after their local root
+ * follow the same decision.
+ */
+public final class TailSamplingReporter implements Reporter<zipkin.Span> {
+  static final int STRIPES = 16;
+
+  public static Builder builder(Reporter<zipkin.Span> delegate) {
+    return new Builder(delegate);
+  }
+
+  public static final class Builder {
+    final Reporter<zipkin.Span> delegate;
+    Sampler headSampler = Sampler.NEVER_SAMPLE;
+    long latencyThresholdMicros = TimeUnit.SECONDS.toMicros(1);
+    long windowNanos = TimeUnit.SECONDS.toNanos(30);
+    int maxSpans = 10000;
+
+    Builder(Reporter<zipkin.Span> delegate) {
+      this.delegate = checkNotNull(delegate, "delegate");
+    }
+
+    /**
+     * Traces this keeps are reported without buffering. Defaults to {@link Sampler#NEVER_SAMPLE},
+     * which only keeps slow or failed traces.
+     */
+    public Builder headSampler(Sampler headSampler) {
+      this.headSampler = checkNotNull(headSampler, "headSampler");
+      return this;
+    }
+
+    /** Buffered traces whose local root took at least this long are reported. Defaults to 1 second. */
+    public Builder latencyThreshold(long latencyThreshold, TimeUnit unit) {
+      checkArgument(latencyThreshold >= 0, "latencyThreshold < 0: %s", latencyThreshold);
+      this.latencyThresholdMicros = unit.toMicros(latencyThreshold);
+      return this;
+    }
+
+    /**
+     * How long to buffer a trace for its local root to finish, and to remember the decision after.
+     * A trace still buffering when this elapses is reported, so it can't be less than the latency
+     * threshold. Defaults to 30 seconds.
+     */
+    public Builder window(long window, TimeUnit unit) {
+      checkArgument(window > 0, "window <= 0: %s", window);
+      this.windowNanos = unit.toNanos(window);
+      return this;
+    }
+
+    /**
+     * The maximum count of spans to buffer, which also bounds the count of traces remembered.
+     * Defaults to 10000.
+     */
+    public Builder maxSpans(int maxSpans) {
+      checkArgument(maxSpans >= STRIPES, "maxSpans < %s: %s", STRIPES, maxSpans);
+      this.maxSpans = maxSpans;
+      return this;
+    }
+
+    public TailSamplingReporter build() {
+      checkArgument(windowNanos >= TimeUnit.MICROSECONDS.toNanos(latencyThresholdMicros),
+          "window < latencyThreshold");
+      return new TailSamplingReporter(this);
+    }
+  }
+
+  final Reporter<zipkin.Span> delegate;
+  final Sampler headSampler;
+  final Sampler sampler = new RecordingSampler();
+  final long latencyThresholdMicros;
+  final long windowNanos;
+  final int maxSpansPerStripe;
+  final Stripe[] stripes = new Stripe[STRIPES];
+  final AtomicLong tracesReported = new AtomicLong();
+  final AtomicLong tracesDiscarded = new AtomicLong();
+  final AtomicLong tracesEvicted = new AtomicLong();
+  final AtomicLong spansEvicted = new AtomicLong();
+
+  TailSamplingReporter(Builder builder) {
+    this.delegate = builder.delegate;
+    this.headSampler = builder.headSampler;
+    this.latencyThresholdMicros = builder.latencyThresholdMicros;
+    this.windowNanos = builder.windowNanos;
+    this.maxSpansPerStripe = builder.maxSpans / STRIPES;
+    for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+  }
+
+  /**
+   * Returns the sampler to pass to {@link Brave.Builder#traceSampler(Sampler)}. It records all
+   * traces, buffering those the head sampler didn't keep. Those are still propagated as unsampled.
+   */
+  public Sampler sampler() {
+    return sampler;
+  }
+
+  /** Buffers the span if its trace wasn't kept by the head sampler. Otherwise, reports it. */
+  @Override public void report(zipkin.Span span) {
+    report(span, System.nanoTime());
+  }
+
+  /** Count of buffered traces reported, as they were slow or failed. */
+  public long tracesReported() {
+    return tracesReported.get();
+  }
+
+  /** Count of buffered traces discarded when their local root finished. */
+  public long tracesDiscarded() {
+    return tracesDiscarded.get();
+  }
+
+  /** Count of buffered traces discarded before their local root finished. */
+  public long tracesEvicted() {
+    return tracesEvicted.get();
+  }
+
+  /** Count of spans discarded along with {@link #tracesEvicted() evicted traces}. */
+  public long spansEvicted() {
+    return spansEvicted.get();
+  }
+
+  /** Count of spans currently buffered. */
+  public int spansBuffered() {
+    int result = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        result += stripe.spanCount;
+      }
+    }
+    return result;
+  }
+
+  void report(zipkin.Span span, long now) {
+    List<zipkin.Span> toReport;
+    boolean buffered = true;
+    Stripe stripe = stripe(span.traceId);
+    synchronized (stripe) {
+      toReport = expire(stripe, now);
+      Trace trace = stripe.traces.get(span.traceId);
+      if (trace == null || trace.state == Trace.REPORTING) {
+        buffered = false;
+      } else if (trace.state == Trace.BUFFERING) {
+        List<zipkin.Span> decided = add(stripe, trace, span, now);
+        if (decided != null) {
+          if (toReport == null) {
+            toReport = decided;
+          } else {
+            toReport.addAll(decided);
+          }
+        }
+      } // otherwise, the trace was discarded
+    }
+    if (toReport != null) {
+      for (int i = 0, length = toReport.size(); i < length; i++) {
+        delegate.report(toReport.get(i));
+      }
+    }
+    if (!buffered) delegate.report(span);
+  }
+
+  /**
+   * Buffers the span. If it is the local root, this decides the trace, returning its spans when
+   * they should be reported.
+   */
+  @Nullable List<zipkin.Span> add(Stripe stripe, Trace trace, zipkin.Span span, long now) {
+    trace.spans.add(span);
+    stripe.spanCount++;
+    if (hasError(span)) trace.error = true;
+    if (!isLocalRoot(span)) {
+      evictOverCapacity(stripe);
+      return null;
+    }
+
+    boolean keep = trace.error || duration(span) >= latencyThresholdMicros;
+    List<zipkin.Span> spans = decide(stripe, trace, keep);
+    stripe.traces.remove(trace.traceId);
+    remember(stripe, trace, now);
+    return spans;
+  }
+
+  /** Starts buffering a trace the head sampler didn't keep. */
+  void begin(long traceId, long now) {
+    List<zipkin.Span> toReport;
+    Stripe stripe = stripe(traceId);
+    synchronized (stripe) {
+      toReport = expire(stripe, now);
+      if (!stripe.traces.containsKey(traceId)) {
+        stripe.traces.put(traceId, new Trace(traceId, now));
+        evictOverCapacity(stripe);
+      }
+    }
+    if (toReport == null) return;
+    for (int i = 0, length = toReport.size(); i < length; i++) {
+      delegate.report(toReport.get(i));
+    }
+  }
+
+  /** True if the trace is buffered, or was decided after buffering. */
+  boolean isBuffered(long traceId) {
+    Stripe stripe = stripe(traceId);
+    synchronized (stripe) {
+      return stripe.traces.containsKey(traceId);
+    }
+  }
+
+  Stripe stripe(long traceId) {
+    return stripes[(int) (traceId ^ (traceId >>> 32)) & (STRIPES - 1)];
+  }
+
+  /**
+   * Removes traces whose window elapsed, oldest first. A trace still buffering is slow, as its
+   * local root hasn't finished, so its spans are returned to report. It is remembered for another
+   * window, so that its remaining spans are reported too.
+   */
+  @Nullable List<zipkin.Span> expire(Stripe stripe, long now) {
+    List<zipkin.Span> result = null;
+    List<Trace> decided = null;
+    for (Iterator<Trace> i = stripe.traces.values().iterator(); i.hasNext(); ) {
+      Trace trace = i.next();
+      if (now - trace.sinceNanos < windowNanos) break;
+      i.remove();
+      if (trace.state != Trace.BUFFERING) continue;
+      if (result == null) {
+        result = decide(stripe, trace, true);
+        decided = new ArrayList<Trace>();
+      } else {
+        result.addAll(decide(stripe, trace, true));
+      }
+      decided.add(trace);
+    }
+    if (decided != null) {
+      for (int i = 0, length = decided.size(); i < length; i++) {
+        remember(stripe, decided.get(i), now);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Evicts the oldest traces until their spans are within capacity. These are kept without spans,
+   * so that their remaining spans are discarded, until there are too many traces.
+   */
+  void evictOverCapacity(Stripe stripe) {
+    for (Iterator<Trace> i = stripe.traces.values().iterator();
+        stripe.spanCount > maxSpansPerStripe && i.hasNext(); ) {
+      evict(stripe, i.next());
+    }
+    for (Iterator<Trace> i = stripe.traces.values().iterator();
+        stripe.traces.size() > maxSpansPerStripe && i.hasNext(); ) {
+      evict(stripe, i.next());
+      i.remove();
+    }
+  }
+
+  /** Discards the spans of a trace that is still buffering. */
+  void evict(Stripe stripe, Trace trace) {
+    if (trace.state != Trace.BUFFERING) return;
+    int spanCount = trace.spans.size();
+    decide(stripe, trace, false);
+    tracesEvicted.incrementAndGet();
+    spansEvicted.addAndGet(spanCount);
+  }
+
+  /** Takes the spans of a buffering trace, returning them if it should be reported. */
+  @Nullable List<zipkin.Span> decide(Stripe stripe, Trace trace, boolean keep) {
+    List<zipkin.Span> spans = trace.spans;
+    trace.spans = null;
+    stripe.spanCount -= spans.size();
+    trace.state = keep ? Trace.REPORTING : Trace.DISCARDING;
+    return keep ? spans : null;
+  }
+
+  /** Keeps a decided trace for another window. Traces stay in the order they are decided. */
+  void remember(Stripe stripe, Trace trace, long now) {
+    if (trace.state == Trace.REPORTING) {
+      tracesReported.incrementAndGet();
+    } else {
+      tracesDiscarded.incrementAndGet();
+    }
+    trace.sinceNanos = now;
+    stripe.traces.put(trace.traceId, trace);
+  }
+
+  /** True if the span began the trace, or received a request for it. */
+  static boolean isLocalRoot(zipkin.Span span) {
+    if (span.id == span.traceId && span.parentId == null) return true;
+    for (int i = 0, length = span.annotations.size(); i < length; i++) {
+      if (Constants.SERVER_RECV.equals(span.annotations.get(i).value)) return true;
+    }
+    return false;
+  }
+
+  static boolean hasError(zipkin.Span span) {
+    for (int i = 0, length = span.binaryAnnotations.size(); i < length; i++) {
+      if (Constants.ERROR.equals(span.binaryAnnotations.get(i).key)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the duration of the span in microseconds. When a server span shares its ID with the
+   * client, the duration is left to the client, so it is read from the annotations.
+   */
+  static long duration(zipkin.Span span) {
+    if (span.duration != null) return span.duration;
+    int count = span.annotations.size();
+    if (count < 2) return 0L;
+    return span.annotations.get(count - 1).timestamp - span.annotations.get(0).timestamp;
+  }
+
+  @Override
+  public String toString() {
+    return "TailSamplingReporter(" + delegate + ")";
+  }
+
+  static final class Stripe {
+    // insertion order is the order traces began or were decided, as the window is the same for all
+    final LinkedHashMap<Long, Trace> traces = new LinkedHashMap<Long, Trace>();
+    int spanCount;
+  }
+
+  static final class Trace {
+    static final int BUFFERING = 0, REPORTING = 1, DISCARDING = 2;
+
+    final long traceId;
+    long sinceNanos;
+    int state = BUFFERING;
+    boolean error;
+    List<zipkin.Span> spans = new ArrayList<zipkin.Span>();
+
+    Trace(long traceId, long sinceNanos) {
+      this.traceId = traceId;
+      this.sinceNanos = sinceNanos;
+    }
+  }
+
+  final class RecordingSampler extends Sampler {
+    @Override public boolean isSampled(long traceId) {
+      if (!headSampler.isSampled(traceId)) begin(traceId, System.nanoTime());
+      return true;
+    }
+
+    @Override public boolean isSampled(long traceId, SamplingRequest request) {
+      if (!headSampler.isSampled(traceId, request)) begin(traceId, System.nanoTime());
+      return true;
+    }
+
+    @Override public boolean allowsDebug(long traceId) {
+      return headSampler.allowsDebug(traceId);
+    }
+
+    @Override boolean isLocalOnly(long traceId) {
+      return isBuffered(traceId);
+    }
+
+    @Override public String toString() {
+      return "RecordingSampler(" + headSampler + ")";
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.ThreadLocalServerClientAndLocalSpanState.CurrentSpans;
+import com.github.kristofa.brave.internal.Nullable;
+import com.twitter.zipkin.gen.Span;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * Binds tasks to the spans in scope when they were submitted. This is shared by the executor
+ * wrappers, such as {@link BraveExecutorService}.
+ *
+ * <p>Tasks are wrapped even if no span is in scope, so that they don't run with spans left on the
+ * executor thread, such as by a task which didn't finish its local span. With {@link
+ * ThreadLocalServerClientAndLocalSpanState}, such tasks get a wrapper which only holds the task:
+ * when run, it reads the spans of the executor thread once, and only sets them aside if there are
+ * any.
+ */
+final class TaskWrapper {
+
+    static TaskWrapper create(Brave brave) {
+        checkNotNull(brave, "brave");
+        return new TaskWrapper(brave.serverSpanThreadBinder(), brave.localSpanThreadBinder());
+    }
+
+    final ServerSpanThreadBinder serverSpanThreadBinder;
+    @Nullable // when using deprecated constructors
+    final LocalSpanThreadBinder localSpanThreadBinder;
+
+    TaskWrapper(ServerSpanThreadBinder serverSpanThreadBinder,
+        @Nullable LocalSpanThreadBinder localSpanThreadBinder) {
+        this.serverSpanThreadBinder = checkNotNull(serverSpanThreadBinder, "serverSpanThreadBinder");
+        this.localSpanThreadBinder = localSpanThreadBinder;
+    }
+
+    Runnable wrap(Runnable runnable) {
+        checkNotNull(runnable, "runnable");
+        Object[] current = currentSpans();
+        if (isEmpty(current)) return new ClearingRunnable(runnable);
+        ServerSpan serverSpan = currentServerSpan(current);
+        Span localSpan = currentLocalSpan(current);
+        return new AutoValue_BraveRunnable(runnable, localSpanThreadBinder, localSpan,
+            serverSpanThreadBinder, serverSpan);
+    }
+
+    <T> Callable<T> wrap(Callable<T> callable) {
+        checkNotNull(callable, "callable");
+        Object[] current = currentSpans();
+        if (isEmpty(current)) return new ClearingCallable<T>(callable);
+        ServerSpan serverSpan = currentServerSpan(current);
+        Span localSpan = currentLocalSpan(current);
+        return new AutoValue_BraveCallable<T>(callable, localSpanThreadBinder, localSpan,
+            serverSpanThreadBinder, serverSpan);
+    }
+
+    /**
+     * Returns a view which binds each task to the spans in scope now. The view wraps tasks as they
+     * are iterated, so it doesn't copy the collection.
+     */
+    <T> Collection<? extends Callable<T>> wrap(final Collection<? extends Callable<T>> tasks) {
+        checkNotNull(tasks, "tasks");
+        Object[] current = currentSpans();
+        final boolean clear = isEmpty(current);
+        final ServerSpan serverSpan = clear ? null : currentServerSpan(current);
+        final Span localSpan = clear ? null : currentLocalSpan(current);
+        return new AbstractCollection<Callable<T>>() {
+            @Override public Iterator<Callable<T>> iterator() {
+                final Iterator<? extends Callable<T>> delegate = tasks.iterator();
+                return new Iterator<Callable<T>>() {
+                    @Override public boolean hasNext() {
+                        return delegate.hasNext();
+                    }
+
+                    @Override public Callable<T> next() {
+                        Callable<T> next = delegate.next();
+                        if (clear) return new ClearingCallable<T>(next);
+                        return new AutoValue_BraveCallable<T>(next, localSpanThreadBinder,
+                            localSpan, serverSpanThreadBinder, serverSpan);
+                    }
+
+                    @Override public void remove() {
+                        delegate.remove();
+                    }
+                };
+            }
+
+            @Override public int size() {
+                return tasks.size();
+            }
+        };
+    }
+
+    /** Resolves the spans with one lookup when the state is {@link ThreadLocalServerClientAndLocalSpanState}. */
+    @Nullable
+    private Object[] currentSpans() {
+        return ThreadLocalServerClientAndLocalSpanState.currentSpans(serverSpanThreadBinder.state());
+    }
+
+    /** True if the spans were resolved with one lookup and none is in scope. */
+    private static boolean isEmpty(@Nullable Object[] current) {
+        return current != null && CurrentSpans.isEmpty(current);
+    }
+
+    @Nullable
+    private ServerSpan currentServerSpan(@Nullable Object[] current) {
+        return current != null
+            ? CurrentSpans.serverSpan(current)
+            : serverSpanThreadBinder.getCurrentServerSpan();
+    }
+
+    @Nullable
+    private Span currentLocalSpan(@Nullable Object[] current) {
+        if (localSpanThreadBinder == null) return null;
+        return current != null
+            ? CurrentSpans.localSpan(current)
+            : localSpanThreadBinder.getCurrentLocalSpan();
+    }
+
+    /** Runs a task submitted while no span was in scope, hiding spans left on the thread. */
+    static final class ClearingRunnable implements Runnable {
+        final Runnable delegate;
+
+        ClearingRunnable(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override public void run() {
+            Object[] leftover = ThreadLocalServerClientAndLocalSpanState.clearCurrentSpans();
+            try {
+                delegate.run();
+            } finally {
+                ThreadLocalServerClientAndLocalSpanState.restoreCurrentSpans(leftover);
+            }
+        }
+
+        @Override public String toString() {
+            return "ClearingRunnable{delegate=" + delegate + "}";
+        }
+    }
+
+    /** Calls a task submitted while no span was in scope, hiding spans left on the thread. */
+    static final class ClearingCallable<T> implements Callable<T> {
+        final Callable<T> delegate;
+
+        ClearingCallable(Callable<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override public T call() throws Exception {
+            Object[] leftover = ThreadLocalServerClientAndLocalSpanState.clearCurrentSpans();
+            try {
+                return delegate.call();
+            } finally {
+                ThreadLocalServerClientAndLocalSpanState.restoreCurrentSpans(leftover);
+            }
+        }
+
+        @Override public String toString() {
+            return "ClearingCallable{delegate=" + delegate + "}";
+        }
+    }
+}
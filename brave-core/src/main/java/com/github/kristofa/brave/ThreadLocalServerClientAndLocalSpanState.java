@@ -1,5 +1,6 @@
 package com.github.kristofa.brave;
 
+import com.github.kristofa.brave.internal.Nullable;
 import com.github.kristofa.brave.internal.Util;
 import com.twitter.zipkin.gen.Endpoint;
 import com.twitter.zipkin.gen.Span;
@@ -8,21 +9,127 @@ import java.net.InetAddress;
 
 /**
  * {@link ServerClientAndLocalSpanState} implementation that keeps trace state using a ThreadLocal variable.
+ *
+ * <p>The server, client and local spans of a thread are held in one array, so that tracers can
+ * resolve all of them with a single ThreadLocal lookup. Local spans are kept on a stack, so
+ * finishing a nested local span makes its parent current again. Setting or clearing the server
+ * span clears the stack, so local spans left unfinished by one request don't leak into the next.
  * 
  * @author kristof
  */
 public final class ThreadLocalServerClientAndLocalSpanState implements ServerClientAndLocalSpanState {
 
-    private final static ThreadLocal<ServerSpan> currentServerSpan = new ThreadLocal<ServerSpan>() {
-
+    /**
+     * The spans of each thread, in an {@code Object[]} so that the thread doesn't reference a brave
+     * type once they are cleared, and so doesn't keep this class loader reachable after a redeploy.
+     * Slots are nulled instead of the entry being removed, so that requests don't allocate.
+     */
+    private final static ThreadLocal<Object[]> currentSpans = new ThreadLocal<Object[]>() {
         @Override
-        protected ServerSpan initialValue() {
-            return ServerSpan.EMPTY;
+        protected Object[] initialValue() {
+            return new Object[CurrentSpans.LOCAL + CurrentSpans.INITIAL_LOCAL_CAPACITY];
         }
     };
-    private final static ThreadLocal<Span> currentClientSpan = new ThreadLocal<Span>();
 
-    private final static ThreadLocal<Span> currentLocalSpan = new ThreadLocal<Span>();
+    /**
+     * Reads and writes the spans of a thread, as returned by {@link #currentSpans}. The server span
+     * is followed by the client span, then local spans, most recent last and followed by null.
+     */
+    static final class CurrentSpans {
+        static final int SERVER = 0;
+        static final int CLIENT = 1;
+        static final int LOCAL = 2;
+        static final int INITIAL_LOCAL_CAPACITY = 4;
+
+        static ServerSpan serverSpan(Object[] spans) {
+            ServerSpan span = (ServerSpan) spans[SERVER];
+            return span != null ? span : ServerSpan.EMPTY;
+        }
+
+        /** Also clears local spans, so that those left unfinished don't outlive the request. */
+        static void setServerSpan(Object[] spans, @Nullable ServerSpan span) {
+            for (int i = LOCAL; i < spans.length && spans[i] != null; i++) {
+                spans[i] = null;
+            }
+            // null instead of EMPTY, which is a brave type
+            spans[SERVER] = span == null || ServerSpan.EMPTY.equals(span) ? null : span;
+        }
+
+        @Nullable
+        static Span clientSpan(Object[] spans) {
+            return (Span) spans[CLIENT];
+        }
+
+        static void setClientSpan(Object[] spans, @Nullable Span span) {
+            spans[CLIENT] = span;
+        }
+
+        @Nullable
+        static Span localSpan(Object[] spans) {
+            int top = top(spans);
+            return top < LOCAL ? null : (Span) spans[top];
+        }
+
+        /** Pushes the local span, or pops the current one if it is null. */
+        static void setLocalSpan(Object[] spans, @Nullable Span span) {
+            int top = top(spans);
+            if (span == null) {
+                if (top >= LOCAL) spans[top] = null;
+                return;
+            }
+            if (top == spans.length - 1) { // full
+                Object[] grown = new Object[LOCAL + (spans.length - LOCAL) * 2];
+                System.arraycopy(spans, 0, grown, 0, spans.length);
+                spans = grown;
+                currentSpans.set(grown);
+            }
+            spans[top + 1] = span;
+        }
+
+        /** True if no span is in scope. */
+        static boolean isEmpty(Object[] spans) {
+            return spans[SERVER] == null && spans[CLIENT] == null && spans[LOCAL] == null;
+        }
+
+        /** Returns the index of the current local span, or {@code LOCAL - 1} if there is none. */
+        private static int top(Object[] spans) {
+            int i = LOCAL;
+            while (i < spans.length && spans[i] != null) i++;
+            return i - 1;
+        }
+
+        private CurrentSpans() {
+        }
+    }
+
+    /**
+     * Returns the spans of the current thread if the state is an instance of this type, otherwise
+     * null. Tracers use this to read and write several spans with one lookup.
+     *
+     * @see CurrentSpans
+     */
+    @Nullable
+    static Object[] currentSpans(CommonSpanState state) {
+        return state instanceof ThreadLocalServerClientAndLocalSpanState ? currentSpans.get() : null;
+    }
+
+    /**
+     * Hides the spans of the current thread, such as those left by a task which didn't finish its
+     * local span, until they are {@link #restoreCurrentSpans restored}. Returns null, without
+     * allocating, if no span is in scope.
+     */
+    @Nullable
+    static Object[] clearCurrentSpans() {
+        Object[] spans = currentSpans.get();
+        if (CurrentSpans.isEmpty(spans)) return null;
+        currentSpans.set(new Object[CurrentSpans.LOCAL + CurrentSpans.INITIAL_LOCAL_CAPACITY]);
+        return spans;
+    }
+
+    /** Undoes {@link #clearCurrentSpans()}, given what it returned. */
+    static void restoreCurrentSpans(@Nullable Object[] spans) {
+        if (spans != null) currentSpans.set(spans);
+    }
 
     private final Endpoint endpoint;
 
@@ -65,7 +172,7 @@ public final class ThreadLocalServerClientAndLocalSpanState implements ServerCli
      */
     @Override
     public ServerSpan getCurrentServerSpan() {
-        return currentServerSpan.get();
+        return CurrentSpans.serverSpan(currentSpans.get());
     }
 
     /**
@@ -73,11 +180,7 @@ public final class ThreadLocalServerClientAndLocalSpanState implements ServerCli
      */
     @Override
     public void setCurrentServerSpan(final ServerSpan span) {
-        if (span == null) {
-            currentServerSpan.remove();
-        } else {
-            currentServerSpan.set(span);
-        }
+        CurrentSpans.setServerSpan(currentSpans.get(), span);
     }
 
     /**
@@ -93,7 +196,7 @@ public final class ThreadLocalServerClientAndLocalSpanState implements ServerCli
      */
     @Override
     public Span getCurrentClientSpan() {
-        return currentClientSpan.get();
+        return CurrentSpans.clientSpan(currentSpans.get());
     }
 
     /**
@@ -101,25 +204,27 @@ public final class ThreadLocalServerClientAndLocalSpanState implements ServerCli
      */
     @Override
     public void setCurrentClientSpan(final Span span) {
-        currentClientSpan.set(span);
+        CurrentSpans.setClientSpan(currentSpans.get(), span);
     }
 
     @Override
     public Boolean sample() {
-        return currentServerSpan.get().getSample();
+        return getCurrentServerSpan().getSample();
     }
 
     @Override
     public Span getCurrentLocalSpan() {
-        return currentLocalSpan.get();
+        return CurrentSpans.localSpan(currentSpans.get());
     }
 
+    /**
+     * Sets the specified local span as the active span at the top of the
+     * stack, or if the specified span is null, the top of the stack is popped.
+     *
+     * @param span Local span.
+     */
     @Override
     public void setCurrentLocalSpan(Span span) {
-        if (span == null) {
-            currentLocalSpan.remove();
-        } else {
-            currentLocalSpan.set(span);
-        }
+        CurrentSpans.setLocalSpan(currentSpans.get(), span);
     }
 }
@@ -0,0 +1,435 @@
+package com.github.kristofa.brave.internal;
+
+import java.util.Arrays;
+
+/**
+ * Writes into a byte array sized up front, so that encoding allocates only the result. Callers
+ * compute the size with the static {@code sizeInBytes} methods before writing.
+ */
+final class Buffer {
+  static final byte[] HEX_DIGITS = {
+      '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+  };
+  static final byte[] BASE64 = {
+      'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P',
+      'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', 'a', 'b', 'c', 'd', 'e', 'f',
+      'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v',
+      'w', 'x', 'y', 'z', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '+', '/'
+  };
+
+  private final byte[] buf;
+  private int pos;
+
+  Buffer(int size) {
+    buf = new byte[size];
+  }
+
+  byte[] toByteArray() {
+    return pos == buf.length ? buf : Arrays.copyOf(buf, pos);
+  }
+
+  Buffer writeByte(int v) {
+    buf[pos++] = (byte) v;
+    return this;
+  }
+
+  Buffer write(byte[] v) {
+    System.arraycopy(v, 0, buf, pos, v.length);
+    pos += v.length;
+    return this;
+  }
+
+  /** Writes a string known to be ascii, such as a json field name. */
+  Buffer writeAscii(String v) {
+    for (int i = 0, length = v.length(); i < length; i++) {
+      buf[pos++] = (byte) v.charAt(i);
+    }
+    return this;
+  }
+
+  /** Big-endian, as used in thrift */
+  Buffer writeShort(int v) {
+    buf[pos++] = (byte) ((v >>> 8) & 0xff);
+    buf[pos++] = (byte) (v & 0xff);
+    return this;
+  }
+
+  /** Big-endian, as used in thrift */
+  Buffer writeInt(int v) {
+    buf[pos++] = (byte) ((v >>> 24) & 0xff);
+    buf[pos++] = (byte) ((v >>> 16) & 0xff);
+    buf[pos++] = (byte) ((v >>> 8) & 0xff);
+    buf[pos++] = (byte) (v & 0xff);
+    return this;
+  }
+
+  /** Big-endian, as used in thrift */
+  Buffer writeLong(long v) {
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      buf[pos++] = (byte) ((v >>> shift) & 0xff);
+    }
+    return this;
+  }
+
+  /** Writes 16 lower-hex characters, as used for json trace identifiers. */
+  Buffer writeLowerHex(long v) {
+    for (int shift = 60; shift >= 0; shift -= 4) {
+      buf[pos++] = HEX_DIGITS[(int) ((v >>> shift) & 0xf)];
+    }
+    return this;
+  }
+
+  static int asciiSizeInBytes(long v) {
+    if (v == 0) return 1;
+    if (v == Long.MIN_VALUE) return 20;
+    int sizeInBytes = 0;
+    if (v < 0) {
+      sizeInBytes++; // minus sign
+      v = -v;
+    }
+    for (; v != 0; v /= 10) sizeInBytes++;
+    return sizeInBytes;
+  }
+
+  /** Writes a decimal number, as used for json timestamps. */
+  Buffer writeAscii(long v) {
+    if (v == Long.MIN_VALUE) return writeAscii("-9223372036854775808");
+    if (v == 0) return writeByte('0');
+    int size = asciiSizeInBytes(v);
+    if (v < 0) {
+      buf[pos] = '-';
+      v = -v;
+    }
+    int i = pos + size;
+    for (; v != 0; v /= 10) {
+      buf[--i] = (byte) ('0' + (v % 10));
+    }
+    pos += size;
+    return this;
+  }
+
+  static int utf8SizeInBytes(String v) {
+    int sizeInBytes = 0;
+    for (int i = 0, length = v.length(); i < length; i++) {
+      char c = v.charAt(i);
+      if (c < 0x80) {
+        sizeInBytes++;
+      } else if (c < 0x800) {
+        sizeInBytes += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(v.charAt(i + 1))) {
+        sizeInBytes += 4;
+        i++;
+      } else if (isSurrogate(c)) {
+        sizeInBytes++; // malformed: replaced with '?'
+      } else {
+        sizeInBytes += 3;
+      }
+    }
+    return sizeInBytes;
+  }
+
+  /**
+   * Returns the longest prefix of the string whose UTF-8 encoding fits in {@code maxBytes}, without
+   * splitting a surrogate pair.
+   */
+  static String truncateUtf8(String v, int maxBytes) {
+    int sizeInBytes = 0;
+    for (int i = 0, length = v.length(); i < length; i++) {
+      char c = v.charAt(i);
+      int charSize = 3;
+      boolean pair = false;
+      if (c < 0x80) {
+        charSize = 1;
+      } else if (c < 0x800) {
+        charSize = 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(v.charAt(i + 1))) {
+        charSize = 4;
+        pair = true;
+      } else if (isSurrogate(c)) {
+        charSize = 1;
+      }
+      if (sizeInBytes + charSize > maxBytes) return v.substring(0, i);
+      sizeInBytes += charSize;
+      if (pair) i++;
+    }
+    return v;
+  }
+
+  /** Encodes the string as UTF-8 without allocating an intermediate byte array. */
+  Buffer writeUtf8(String v) {
+    for (int i = 0, length = v.length(); i < length; i++) {
+      char c = v.charAt(i);
+      if (c < 0x80) {
+        buf[pos++] = (byte) c;
+      } else {
+        i = writeUtf8(v, i, c);
+      }
+    }
+    return this;
+  }
+
+  /** Writes the non-ascii character at index {@code i}, returning the last index consumed. */
+  int writeUtf8(String v, int i, char c) {
+    if (c < 0x800) {
+      buf[pos++] = (byte) (0xc0 | (c >> 6));
+      buf[pos++] = (byte) (0x80 | (c & 0x3f));
+    } else if (Character.isHighSurrogate(c) && i + 1 < v.length()
+        && Character.isLowSurrogate(v.charAt(i + 1))) {
+      int codePoint = Character.toCodePoint(c, v.charAt(++i));
+      buf[pos++] = (byte) (0xf0 | (codePoint >> 18));
+      buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+      buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+      buf[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+    } else if (isSurrogate(c)) {
+      buf[pos++] = '?';
+    } else {
+      buf[pos++] = (byte) (0xe0 | (c >> 12));
+      buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+      buf[pos++] = (byte) (0x80 | (c & 0x3f));
+    }
+    return i;
+  }
+
+  /** Malformed surrogates are replaced with '?', as done by {@link String#getBytes}. */
+  static boolean isSurrogate(char c) {
+    return c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE;
+  }
+
+  static int jsonEscapedSizeInBytes(String v) {
+    int sizeInBytes = 0;
+    for (int i = 0, length = v.length(); i < length; i++) {
+      char c = v.charAt(i);
+      if (c < 0x80) {
+        sizeInBytes += jsonEscapedSizeInBytes(c);
+      } else if (c == '\u2028' || c == '\u2029') {
+        sizeInBytes += 6;
+      } else if (c < 0x800) {
+        sizeInBytes += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(v.charAt(i + 1))) {
+        sizeInBytes += 4;
+        i++;
+      } else if (isSurrogate(c)) {
+        sizeInBytes++;
+      } else {
+        sizeInBytes += 3;
+      }
+    }
+    return sizeInBytes;
+  }
+
+  /** Writes the string as UTF-8, escaping characters that aren't allowed in a json string. */
+  Buffer writeJsonEscaped(String v) {
+    for (int i = 0, length = v.length(); i < length; i++) {
+      char c = v.charAt(i);
+      if (c < 0x80) {
+        if (jsonEscapedSizeInBytes(c) == 1) {
+          buf[pos++] = (byte) c;
+        } else {
+          writeJsonEscaped(c);
+        }
+      } else if (c == '\u2028' || c == '\u2029') {
+        writeJsonEscaped(c);
+      } else {
+        i = writeUtf8(v, i, c);
+      }
+    }
+    return this;
+  }
+
+  /** Like {@link #jsonEscapedSizeInBytes(String)}, except the input is already UTF-8 encoded. */
+  static int jsonEscapedSizeInBytes(byte[] utf8) {
+    int sizeInBytes = 0;
+    for (int i = 0, length = utf8.length; i < length; i++) {
+      int b = utf8[i] & 0xff;
+      if (b < 0x80) {
+        sizeInBytes += jsonEscapedSizeInBytes((char) b);
+      } else if (isLineOrParagraphSeparator(utf8, i)) {
+        sizeInBytes += 6;
+        i += 2;
+      } else {
+        sizeInBytes++;
+      }
+    }
+    return sizeInBytes;
+  }
+
+  /** Like {@link #writeJsonEscaped(String)}, except the input is already UTF-8 encoded. */
+  Buffer writeJsonEscaped(byte[] utf8) {
+    for (int i = 0, length = utf8.length; i < length; i++) {
+      int b = utf8[i] & 0xff;
+      if (b < 0x80) {
+        if (jsonEscapedSizeInBytes((char) b) == 1) {
+          buf[pos++] = (byte) b;
+        } else {
+          writeJsonEscaped((char) b);
+        }
+      } else if (isLineOrParagraphSeparator(utf8, i)) {
+        writeJsonEscaped(utf8[i + 2] == (byte) 0xa8 ? '\u2028' : '\u2029');
+        i += 2;
+      } else {
+        buf[pos++] = (byte) b;
+      }
+    }
+    return this;
+  }
+
+  static boolean isLineOrParagraphSeparator(byte[] utf8, int i) {
+    return i + 2 < utf8.length
+        && utf8[i] == (byte) 0xe2
+        && utf8[i + 1] == (byte) 0x80
+        && (utf8[i + 2] == (byte) 0xa8 || utf8[i + 2] == (byte) 0xa9);
+  }
+
+  static int jsonEscapedSizeInBytes(char c) {
+    switch (c) {
+      case '"':
+      case '\\':
+      case '\b':
+      case '\f':
+      case '\n':
+      case '\r':
+      case '\t':
+        return 2;
+      default:
+        return c < 0x20 ? 6 : 1;
+    }
+  }
+
+  void writeJsonEscaped(char c) {
+    switch (c) {
+      case '"':
+        writeByte('\\').writeByte('"');
+        return;
+      case '\\':
+        writeByte('\\').writeByte('\\');
+        return;
+      case '\b':
+        writeByte('\\').writeByte('b');
+        return;
+      case '\f':
+        writeByte('\\').writeByte('f');
+        return;
+      case '\n':
+        writeByte('\\').writeByte('n');
+        return;
+      case '\r':
+        writeByte('\\').writeByte('r');
+        return;
+      case '\t':
+        writeByte('\\').writeByte('t');
+        return;
+      default:
+        writeByte('\\').writeByte('u');
+        writeByte(HEX_DIGITS[(c >>> 12) & 0xf]);
+        writeByte(HEX_DIGITS[(c >>> 8) & 0xf]);
+        writeByte(HEX_DIGITS[(c >>> 4) & 0xf]);
+        writeByte(HEX_DIGITS[c & 0xf]);
+    }
+  }
+
+  static int base64SizeInBytes(byte[] v) {
+    return (v.length + 2) / 3 * 4;
+  }
+
+  Buffer writeBase64(byte[] v) {
+    int i = 0;
+    for (int end = v.length - v.length % 3; i < end; i += 3) {
+      int b = (v[i] & 0xff) << 16 | (v[i + 1] & 0xff) << 8 | (v[i + 2] & 0xff);
+      buf[pos++] = BASE64[b >>> 18];
+      buf[pos++] = BASE64[(b >>> 12) & 0x3f];
+      buf[pos++] = BASE64[(b >>> 6) & 0x3f];
+      buf[pos++] = BASE64[b & 0x3f];
+    }
+    switch (v.length - i) {
+      case 1: {
+        int b = (v[i] & 0xff) << 16;
+        buf[pos++] = BASE64[b >>> 18];
+        buf[pos++] = BASE64[(b >>> 12) & 0x3f];
+        buf[pos++] = '=';
+        buf[pos++] = '=';
+        break;
+      }
+      case 2: {
+        int b = (v[i] & 0xff) << 16 | (v[i + 1] & 0xff) << 8;
+        buf[pos++] = BASE64[b >>> 18];
+        buf[pos++] = BASE64[(b >>> 12) & 0x3f];
+        buf[pos++] = BASE64[(b >>> 6) & 0x3f];
+        buf[pos++] = '=';
+        break;
+      }
+      default:
+    }
+    return this;
+  }
+
+  static int ipv4SizeInBytes(int ipv4) {
+    return asciiSizeInBytes(ipv4 >> 24 & 0xff)
+        + asciiSizeInBytes(ipv4 >> 16 & 0xff)
+        + asciiSizeInBytes(ipv4 >> 8 & 0xff)
+        + asciiSizeInBytes(ipv4 & 0xff)
+        + 3; // dots
+  }
+
+  Buffer writeIpV4(int ipv4) {
+    writeAscii(ipv4 >> 24 & 0xff).writeByte('.');
+    writeAscii(ipv4 >> 16 & 0xff).writeByte('.');
+    writeAscii(ipv4 >> 8 & 0xff).writeByte('.');
+    return writeAscii(ipv4 & 0xff);
+  }
+
+  static int ipv6SizeInBytes(byte[] ipv6) {
+    return writeIpV6(ipv6, null);
+  }
+
+  Buffer writeIpV6(byte[] ipv6) {
+    writeIpV6(ipv6, this);
+    return this;
+  }
+
+  /**
+   * Writes the address in lower-hex groups, eliding the longest run of zero groups with "::".
+   * When the buffer is null, this only counts the bytes that would be written.
+   */
+  static int writeIpV6(byte[] ipv6, @Nullable Buffer buffer) {
+    int zeroStart = -1, zeroLength = 0;
+    for (int group = 0; group < 8; ) {
+      if (ipv6[group * 2] != 0 || ipv6[group * 2 + 1] != 0) {
+        group++;
+        continue;
+      }
+      int start = group;
+      while (group < 8 && ipv6[group * 2] == 0 && ipv6[group * 2 + 1] == 0) group++;
+      if (group - start > zeroLength) {
+        zeroStart = start;
+        zeroLength = group - start;
+      }
+    }
+
+    int sizeInBytes = 0;
+    for (int group = 0; group < 8; group++) {
+      if (group == zeroStart) {
+        sizeInBytes += 2;
+        if (buffer != null) buffer.writeByte(':').writeByte(':');
+        group += zeroLength - 1;
+        continue;
+      }
+      if (group != 0 && group != zeroStart + zeroLength) {
+        sizeInBytes++;
+        if (buffer != null) buffer.writeByte(':');
+      }
+      int value = (ipv6[group * 2] & 0xff) << 8 | (ipv6[group * 2 + 1] & 0xff);
+      boolean leadingZero = true;
+      for (int shift = 12; shift >= 0; shift -= 4) {
+        int digit = (value >>> shift) & 0xf;
+        if (leadingZero && digit == 0 && shift != 0) continue;
+        leadingZero = false;
+        sizeInBytes++;
+        if (buffer != null) buffer.writeByte(HEX_DIGITS[digit]);
+      }
+    }
+    return sizeInBytes;
+  }
+}
@@ -6,32 +6,57 @@ import com.twitter.zipkin.gen.BinaryAnnotation;
 import com.twitter.zipkin.gen.Endpoint;
 import com.twitter.zipkin.gen.Span;
 import com.twitter.zipkin.gen.SpanCodec;
-import java.util.ArrayList;
 import java.util.List;
 import zipkin.Codec;
 
+/**
+ * Encodes brave spans directly into the same bytes {@link Codec} would produce, without converting
+ * to {@link zipkin.Span} first. Each write sizes the output up-front, so the only allocation is the
+ * resulting array.
+ */
 public final class DefaultSpanCodec implements SpanCodec {
-  public static final SpanCodec JSON = new DefaultSpanCodec(Codec.JSON);
-  public static final SpanCodec THRIFT = new DefaultSpanCodec(Codec.THRIFT);
+  public static final SpanCodec JSON = new DefaultSpanCodec(Codec.JSON, JsonSpanWriter.INSTANCE);
+  public static final SpanCodec THRIFT =
+      new DefaultSpanCodec(Codec.THRIFT, ThriftSpanWriter.INSTANCE);
 
   private final Codec codec;
+  private final SpanWriter writer;
 
-  private DefaultSpanCodec(Codec codec) {
+  private DefaultSpanCodec(Codec codec, SpanWriter writer) {
     this.codec = codec;
+    this.writer = writer;
   }
 
   @Override
   public byte[] writeSpan(Span span) {
-    return codec.writeSpan(span.toZipkin());
+    SpanRecord record = span.record();
+    // read the counts once, as annotations added meanwhile would overflow the buffer
+    int annotationCount = record != null ? record.annotationCount() : 0;
+    int binaryAnnotationCount = record != null ? record.binaryAnnotationCount() : 0;
+    Buffer buffer =
+        new Buffer(writer.sizeInBytes(span, annotationCount, binaryAnnotationCount));
+    writer.write(span, annotationCount, binaryAnnotationCount, buffer);
+    return buffer.toByteArray();
   }
 
   @Override
   public byte[] writeSpans(List<Span> spans) {
-    List<zipkin.Span> out = new ArrayList<zipkin.Span>(spans.size());
-    for (Span span : spans) {
-      out.add(span.toZipkin());
+    int[] counts = counts(spans);
+    Buffer buffer = new Buffer(writer.sizeInBytes(spans, counts));
+    writer.write(spans, counts, buffer);
+    return buffer.toByteArray();
+  }
+
+  /** Returns the annotation and binary annotation count of each span, in pairs. */
+  static int[] counts(List<Span> spans) {
+    int[] result = new int[spans.size() * 2];
+    for (int i = 0, length = spans.size(); i < length; i++) {
+      SpanRecord record = spans.get(i).record();
+      if (record == null) continue;
+      result[i * 2] = record.annotationCount();
+      result[i * 2 + 1] = record.binaryAnnotationCount();
     }
-    return codec.writeSpans(out);
+    return result;
   }
 
   @Override
@@ -0,0 +1,306 @@
+package com.github.kristofa.brave.internal;
+
+import com.twitter.zipkin.gen.AnnotationType;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.List;
+
+import static com.github.kristofa.brave.internal.Buffer.asciiSizeInBytes;
+import static com.github.kristofa.brave.internal.Buffer.base64SizeInBytes;
+import static com.github.kristofa.brave.internal.Buffer.ipv4SizeInBytes;
+import static com.github.kristofa.brave.internal.Buffer.ipv6SizeInBytes;
+import static com.github.kristofa.brave.internal.Buffer.jsonEscapedSizeInBytes;
+
+/** Writes the same json as {@link zipkin.Codec#JSON}, reading brave's span model directly. */
+final class JsonSpanWriter implements SpanWriter {
+  static final SpanWriter INSTANCE = new JsonSpanWriter();
+
+  /** Larger I64 values are quoted, as javascript can't represent them precisely. */
+  static final long MAX_SAFE_INTEGER = 9007199254740991L; // 53 bits
+
+  @Override
+  public int sizeInBytes(Span span, int annotationCount, int binaryAnnotationCount) {
+    int sizeInBytes = "{\"traceId\":\"".length();
+    sizeInBytes += span.getTrace_id_high() != 0 ? 32 : 16;
+    sizeInBytes += "\",\"id\":\"".length() + 16;
+    sizeInBytes += "\",\"name\":\"".length() + jsonEscapedSizeInBytes(name(span)) + 1;
+    if (span.getParent_id() != null) sizeInBytes += ",\"parentId\":\"".length() + 16 + 1;
+    Long timestamp = span.getTimestamp();
+    if (timestamp != null && timestamp != 0L) {
+      sizeInBytes += ",\"timestamp\":".length() + asciiSizeInBytes(timestamp);
+    }
+    Long duration = span.getDuration();
+    if (duration != null && duration != 0L) {
+      sizeInBytes += ",\"duration\":".length() + asciiSizeInBytes(duration);
+    }
+    SpanRecord record = span.record();
+    if (annotationCount > 0) {
+      sizeInBytes += ",\"annotations\":[".length() + annotationCount; // commas and close bracket
+      for (int i = 0; i < annotationCount; i++) {
+        sizeInBytes += annotationSizeInBytes(record, i);
+      }
+    }
+    if (binaryAnnotationCount > 0) {
+      sizeInBytes += ",\"binaryAnnotations\":[".length() + binaryAnnotationCount;
+      for (int i = 0; i < binaryAnnotationCount; i++) {
+        sizeInBytes += binaryAnnotationSizeInBytes(record, i);
+      }
+    }
+    if (Boolean.TRUE.equals(span.isDebug())) sizeInBytes += ",\"debug\":true".length();
+    return sizeInBytes + 1; // }
+  }
+
+  @Override
+  public void write(Span span, int annotationCount, int binaryAnnotationCount, Buffer b) {
+    b.writeAscii("{\"traceId\":\"");
+    if (span.getTrace_id_high() != 0) b.writeLowerHex(span.getTrace_id_high());
+    b.writeLowerHex(span.getTrace_id());
+    b.writeAscii("\",\"id\":\"").writeLowerHex(span.getId());
+    b.writeAscii("\",\"name\":\"").writeJsonEscaped(name(span)).writeByte('"');
+    Long parentId = span.getParent_id();
+    if (parentId != null) {
+      b.writeAscii(",\"parentId\":\"").writeLowerHex(parentId).writeByte('"');
+    }
+    Long timestamp = span.getTimestamp();
+    if (timestamp != null && timestamp != 0L) {
+      b.writeAscii(",\"timestamp\":").writeAscii(timestamp);
+    }
+    Long duration = span.getDuration();
+    if (duration != null && duration != 0L) {
+      b.writeAscii(",\"duration\":").writeAscii(duration);
+    }
+    SpanRecord record = span.record();
+    if (annotationCount > 0) {
+      b.writeAscii(",\"annotations\":[");
+      for (int i = 0; i < annotationCount; i++) {
+        if (i > 0) b.writeByte(',');
+        writeAnnotation(record, i, b);
+      }
+      b.writeByte(']');
+    }
+    if (binaryAnnotationCount > 0) {
+      b.writeAscii(",\"binaryAnnotations\":[");
+      for (int i = 0; i < binaryAnnotationCount; i++) {
+        if (i > 0) b.writeByte(',');
+        writeBinaryAnnotation(record, i, b);
+      }
+      b.writeByte(']');
+    }
+    if (Boolean.TRUE.equals(span.isDebug())) b.writeAscii(",\"debug\":true");
+    b.writeByte('}');
+  }
+
+  @Override public int sizeInBytes(List<Span> spans, int[] counts) {
+    int sizeInBytes = 2; // brackets
+    for (int i = 0, length = spans.size(); i < length; i++) {
+      if (i > 0) sizeInBytes++; // comma
+      sizeInBytes += sizeInBytes(spans.get(i), counts[i * 2], counts[i * 2 + 1]);
+    }
+    return sizeInBytes;
+  }
+
+  @Override public void write(List<Span> spans, int[] counts, Buffer b) {
+    b.writeByte('[');
+    for (int i = 0, length = spans.size(); i < length; i++) {
+      if (i > 0) b.writeByte(',');
+      write(spans.get(i), counts[i * 2], counts[i * 2 + 1], b);
+    }
+    b.writeByte(']');
+  }
+
+  static int annotationSizeInBytes(SpanRecord record, int i) {
+    int sizeInBytes = "{\"timestamp\":".length() + asciiSizeInBytes(record.annotationTimestamp(i));
+    sizeInBytes += ",\"value\":\"".length();
+    sizeInBytes += jsonEscapedSizeInBytes(record.annotationValue(i)) + 1;
+    Endpoint host = record.annotationHost(i);
+    if (host != null) sizeInBytes += ",\"endpoint\":".length() + endpointSizeInBytes(host);
+    return sizeInBytes + 1;
+  }
+
+  static void writeAnnotation(SpanRecord record, int i, Buffer b) {
+    b.writeAscii("{\"timestamp\":").writeAscii(record.annotationTimestamp(i));
+    b.writeAscii(",\"value\":\"").writeJsonEscaped(record.annotationValue(i)).writeByte('"');
+    Endpoint host = record.annotationHost(i);
+    if (host != null) writeEndpoint(host, b.writeAscii(",\"endpoint\":"));
+    b.writeByte('}');
+  }
+
+  static int binaryAnnotationSizeInBytes(SpanRecord record, int i) {
+    int sizeInBytes = "{\"key\":\"".length();
+    sizeInBytes += jsonEscapedSizeInBytes(record.binaryAnnotationKey(i));
+    sizeInBytes += "\",\"value\":".length();
+    AnnotationType type = record.binaryAnnotationType(i);
+    if (type == AnnotationType.STRING) {
+      String string = record.binaryAnnotationString(i);
+      sizeInBytes += 2; // quotes
+      sizeInBytes += string != null // not yet encoded
+          ? jsonEscapedSizeInBytes(string)
+          : jsonEscapedSizeInBytes(record.binaryAnnotationValue(i));
+    } else if (record.isBinaryAnnotationNumber(i)) {
+      sizeInBytes += numberSizeInBytes(type, record.binaryAnnotationNumber(i));
+    } else {
+      sizeInBytes += valueSizeInBytes(type, record.binaryAnnotationValue(i));
+    }
+    Endpoint host = record.binaryAnnotationHost(i);
+    if (host != null) sizeInBytes += ",\"endpoint\":".length() + endpointSizeInBytes(host);
+    return sizeInBytes + 1;
+  }
+
+  /** Size of a non-string value, including its type field where applicable. */
+  static int valueSizeInBytes(AnnotationType type, byte[] value) {
+    if (type != AnnotationType.BYTES) return numberSizeInBytes(type, readNumber(type, value));
+    return base64SizeInBytes(value) + 2 // quotes
+        + ",\"type\":\"".length() + type.name().length() + 1;
+  }
+
+  /** Like {@link #valueSizeInBytes(AnnotationType, byte[])}, for a primitive value. */
+  static int numberSizeInBytes(AnnotationType type, long value) {
+    int sizeInBytes;
+    switch (type) {
+      case BOOL:
+        return value != 0 ? 4 : 5;
+      case I16:
+      case I32:
+        sizeInBytes = asciiSizeInBytes(value);
+        break;
+      case I64:
+        sizeInBytes = asciiSizeInBytes(value);
+        if (value > MAX_SAFE_INTEGER) sizeInBytes += 2; // quotes
+        break;
+      case DOUBLE:
+        sizeInBytes = Double.toString(Double.longBitsToDouble(value)).length();
+        break;
+      default:
+        throw new AssertionError("unknown type " + type);
+    }
+    return sizeInBytes + ",\"type\":\"".length() + type.name().length() + 1;
+  }
+
+  static void writeBinaryAnnotation(SpanRecord record, int i, Buffer b) {
+    b.writeAscii("{\"key\":\"").writeJsonEscaped(record.binaryAnnotationKey(i));
+    b.writeAscii("\",\"value\":");
+    AnnotationType type = record.binaryAnnotationType(i);
+    if (type == AnnotationType.STRING) {
+      String string = record.binaryAnnotationString(i);
+      if (string != null) { // encode straight into the buffer
+        b.writeByte('"').writeJsonEscaped(string).writeByte('"');
+      } else {
+        b.writeByte('"').writeJsonEscaped(record.binaryAnnotationValue(i)).writeByte('"');
+      }
+    } else if (record.isBinaryAnnotationNumber(i)) {
+      writeNumber(type, record.binaryAnnotationNumber(i), b);
+    } else {
+      writeValue(type, record.binaryAnnotationValue(i), b);
+    }
+    Endpoint host = record.binaryAnnotationHost(i);
+    if (host != null) writeEndpoint(host, b.writeAscii(",\"endpoint\":"));
+    b.writeByte('}');
+  }
+
+  /** Writes a non-string value, followed by its type field where applicable. */
+  static void writeValue(AnnotationType type, byte[] value, Buffer b) {
+    if (type != AnnotationType.BYTES) {
+      writeNumber(type, readNumber(type, value), b);
+      return;
+    }
+    b.writeByte('"').writeBase64(value).writeByte('"');
+    b.writeAscii(",\"type\":\"").writeAscii(type.name()).writeByte('"');
+  }
+
+  /** Like {@link #writeValue(AnnotationType, byte[], Buffer)}, for a primitive value. */
+  static void writeNumber(AnnotationType type, long value, Buffer b) {
+    switch (type) {
+      case BOOL:
+        b.writeAscii(value != 0 ? "true" : "false");
+        return;
+      case I16:
+      case I32:
+        b.writeAscii(value);
+        break;
+      case I64:
+        if (value > MAX_SAFE_INTEGER) {
+          b.writeByte('"').writeAscii(value).writeByte('"');
+        } else {
+          b.writeAscii(value);
+        }
+        break;
+      case DOUBLE:
+        b.writeAscii(Double.toString(Double.longBitsToDouble(value)));
+        break;
+      default:
+        throw new AssertionError("unknown type " + type);
+    }
+    b.writeAscii(",\"type\":\"").writeAscii(type.name()).writeByte('"');
+  }
+
+  static int endpointSizeInBytes(Endpoint host) {
+    int sizeInBytes = "{\"serviceName\":\"".length();
+    sizeInBytes += jsonEscapedSizeInBytes(host.service_name) + 1;
+    if (host.ipv4 != 0) sizeInBytes += ",\"ipv4\":\"".length() + ipv4SizeInBytes(host.ipv4) + 1;
+    int port = port(host);
+    if (port != 0) sizeInBytes += ",\"port\":".length() + asciiSizeInBytes(port);
+    if (host.ipv6 != null) {
+      sizeInBytes += ",\"ipv6\":\"".length() + ipv6SizeInBytes(host.ipv6) + 1;
+    }
+    return sizeInBytes + 1;
+  }
+
+  static void writeEndpoint(Endpoint host, Buffer b) {
+    b.writeAscii("{\"serviceName\":\"").writeJsonEscaped(host.service_name).writeByte('"');
+    if (host.ipv4 != 0) b.writeAscii(",\"ipv4\":\"").writeIpV4(host.ipv4).writeByte('"');
+    int port = port(host);
+    if (port != 0) b.writeAscii(",\"port\":").writeAscii(port);
+    if (host.ipv6 != null) b.writeAscii(",\"ipv6\":\"").writeIpV6(host.ipv6).writeByte('"');
+    b.writeByte('}');
+  }
+
+  /** Ports are unsigned, but stored in a signed short. */
+  static int port(Endpoint host) {
+    return host.port != null ? host.port & 0xffff : 0;
+  }
+
+  static String name(Span span) {
+    String name = span.getName();
+    return name != null ? name : "";
+  }
+
+  /** Decodes a thrift-encoded primitive, in the form {@link SpanRecord#binaryAnnotationNumber} uses. */
+  static long readNumber(AnnotationType type, byte[] value) {
+    switch (type) {
+      case BOOL:
+        return isTrue(value) ? 1 : 0;
+      case I16:
+        return readShort(value);
+      case I32:
+        return readInt(value);
+      case I64:
+      case DOUBLE:
+        return readLong(value);
+      default:
+        throw new AssertionError("unknown type " + type);
+    }
+  }
+
+  static boolean isTrue(byte[] value) {
+    return value.length > 0 && value[0] == 1;
+  }
+
+  static short readShort(byte[] v) {
+    return (short) ((v[0] & 0xff) << 8 | (v[1] & 0xff));
+  }
+
+  static int readInt(byte[] v) {
+    return (v[0] & 0xff) << 24 | (v[1] & 0xff) << 16 | (v[2] & 0xff) << 8 | (v[3] & 0xff);
+  }
+
+  static long readLong(byte[] v) {
+    long result = 0;
+    for (int i = 0; i < 8; i++) {
+      result = result << 8 | (v[i] & 0xff);
+    }
+    return result;
+  }
+
+  JsonSpanWriter() {
+  }
+}
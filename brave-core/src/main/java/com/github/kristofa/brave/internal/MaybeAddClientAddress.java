@@ -78,10 +78,7 @@ public abstract class MaybeAddClientAddress<T> {
     }
     Endpoint ca = builder.build();
 
-    // Internally, ServerTracer locks on span when adding an address. let's do that, too
-    synchronized (span) {
-      span.addToBinary_annotations(BinaryAnnotation.address(CLIENT_ADDR, ca));
-    }
+    span.addToBinary_annotations(BinaryAnnotation.address(CLIENT_ADDR, ca));
   }
 
   /**
@@ -0,0 +1,711 @@
+package com.github.kristofa.brave.internal;
+
+import com.github.kristofa.brave.SpanLimits;
+import com.twitter.zipkin.gen.AnnotationType;
+import com.twitter.zipkin.gen.Endpoint;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import static com.github.kristofa.brave.internal.Util.UTF_8;
+
+/**
+ * Holds the annotations and binary annotations of a {@link com.twitter.zipkin.gen.Span span} in
+ * parallel arrays, so that recording an event doesn't allocate an object per event.
+ *
+ * <p>String binary annotation values are held as strings, and only encoded as UTF-8 when read.
+ * Encoding happens on the reporting thread, and not at all for spans that are dropped.
+ *
+ * <p>Adds are subject to the {@link SpanLimits} the record was acquired with. Values over the size
+ * limit are truncated, and events over the count or total size limits are dropped. Either case
+ * is flagged, so that collectors can count affected spans.
+ *
+ * <p>Records made with {@link #acquire()} are borrowed from a per-thread pool, and go back to it
+ * on {@link #release()}. Release may happen on a different thread than acquire, for example a
+ * reporting thread: in that case the record is handed back to the thread that borrowed it.
+ *
+ * <h3>Concurrency</h3>
+ *
+ * <p>Any number of threads can add to a record at the same time, without locking or waiting. A
+ * writer claims a slot by incrementing a count in a control word with compare-and-set, fills the
+ * slot, then sets the slot's written bit. Any writer then advances the published count past the
+ * written slots that follow it, so slots publish in claim order without a writer waiting on
+ * another: readers see everything below the published count. A writer that stalls or fails after
+ * claiming holds back the slots after its own, but doesn't block anyone. Storage grows in
+ * fixed-size blocks, so writers never copy arrays another writer could be filling.
+ *
+ * <p>The control word also holds a closed bit and a generation. {@link #close(int)} sets the
+ * closed bit, after which claims fail. Release bumps the generation, so a writer that lost a race
+ * with a finishing span can't write into the next span that borrows this record. A record
+ * released while a claimed slot is unwritten isn't pooled, as its writer could still fill it.
+ *
+ * <p>Clearing and releasing aren't safe to run concurrently with writers.
+ */
+public final class SpanRecord implements Serializable {
+  static final long serialVersionUID = 1L;
+
+  /** A typical span has two annotations and a few binary annotations. */
+  static final int BLOCK_SIZE = 8;
+  /** How many idle records a thread keeps around. */
+  static final int MAX_POOL_SIZE = 16;
+
+  // Layout of the control word: generation(32) | closed(1) | tag count(15) | annotation count(16)
+  static final long ANNOTATION_COUNT_MASK = 0xffffL;
+  static final int TAG_COUNT_SHIFT = 16;
+  static final long TAG_COUNT_MASK = 0x7fffL << TAG_COUNT_SHIFT;
+  static final long CLOSED = 1L << 31;
+  static final int GENERATION_SHIFT = 32;
+  /** Adds past this many annotations or binary annotations are dropped. */
+  static final int MAX_COUNT = 0x7fff;
+
+  // Flags explaining why a span is incomplete
+  static final int TRUNCATED = 1;
+  static final int OVER_LIMIT = 2;
+  static final AtomicIntegerFieldUpdater<SpanRecord> FLAGS =
+      AtomicIntegerFieldUpdater.newUpdater(SpanRecord.class, "flags");
+  static final AtomicIntegerFieldUpdater<SpanRecord> SIZE_IN_BYTES =
+      AtomicIntegerFieldUpdater.newUpdater(SpanRecord.class, "sizeInBytes");
+  // Layout of the published word: generation(32) | tag count(16) | annotation count(16)
+  static final AtomicLongFieldUpdater<SpanRecord> PUBLISHED =
+      AtomicLongFieldUpdater.newUpdater(SpanRecord.class, "published");
+  static final int PUBLISHED_TAG_COUNT_SHIFT = 16;
+  static final long PUBLISHED_COUNT_MASK = 0xffffL;
+  /** Estimated size of a timestamp */
+  static final int TIMESTAMP_SIZE = 8;
+
+  static final ThreadLocal<Pool> POOL = new ThreadLocal<Pool>() {
+    @Override protected Pool initialValue() {
+      return new Pool();
+    }
+  };
+
+  /** Returns a new record which isn't associated with any pool. */
+  public static SpanRecord create() {
+    return new SpanRecord(null);
+  }
+
+  /** Borrows a record from the current thread's pool, allocating one if the pool is empty. */
+  public static SpanRecord acquire() {
+    Pool pool = POOL.get();
+    SpanRecord result = pool.poll();
+    return result != null ? result : new SpanRecord(pool);
+  }
+
+  /** Like {@link #acquire()}, except adds are subject to the given limits. */
+  public static SpanRecord acquire(SpanLimits limits) {
+    SpanRecord result = acquire();
+    result.limits = Util.checkNotNull(limits, "limits");
+    return result;
+  }
+
+  final Block head = new Block();
+  final AtomicLong ctl = new AtomicLong();
+  /** Counts of slots readers can see, stamped with the generation that wrote them. */
+  volatile long published;
+  volatile int flags;
+  /** Estimated size, only tracked when {@link SpanLimits#maxSpanBytes()} is set. */
+  volatile int sizeInBytes;
+  /**
+   * Set before the span holding this record is shared, so published along with it. Reset on
+   * release.
+   */
+  SpanLimits limits = SpanLimits.DEFAULT;
+
+  /** The pool this record returns to, or null if it was made with {@link #create()}. */
+  final transient Pool pool;
+  /** Link in {@link Pool#returned} */
+  transient SpanRecord next;
+
+  SpanRecord(Pool pool) {
+    this.pool = pool;
+  }
+
+  /** True if this record was {@link #acquire() acquired} from a pool. */
+  public boolean isPooled() {
+    return pool != null;
+  }
+
+  /** Identifies the current borrower of this record. Pass this to methods that add or close. */
+  public int generation() {
+    return (int) (ctl.get() >>> GENERATION_SHIFT);
+  }
+
+  /** True once {@link #close(int)} was called in the current generation. */
+  public boolean isClosed() {
+    return (ctl.get() & CLOSED) != 0;
+  }
+
+  /**
+   * True if a value was truncated or an event dropped due to {@link SpanLimits}, other than the
+   * {@link SpanLimits#maxSpanBytes() span size}.
+   */
+  public boolean isTruncated() {
+    return (flags & TRUNCATED) != 0;
+  }
+
+  /** True if an event was dropped as it would have exceeded {@link SpanLimits#maxSpanBytes()}. */
+  public boolean isOverLimit() {
+    return (flags & OVER_LIMIT) != 0;
+  }
+
+  /** The count of annotations visible to this thread. */
+  public int annotationCount() {
+    return (int) (published & PUBLISHED_COUNT_MASK);
+  }
+
+  public long annotationTimestamp(int i) {
+    return block(i).annotationTimestamps[i % BLOCK_SIZE];
+  }
+
+  public String annotationValue(int i) {
+    return block(i).annotationValues[i % BLOCK_SIZE];
+  }
+
+  @Nullable public Endpoint annotationHost(int i) {
+    return block(i).annotationHosts[i % BLOCK_SIZE];
+  }
+
+  /**
+   * Adds an annotation unless this record is closed or was released since {@code generation}.
+   *
+   * @return false if the annotation was dropped
+   */
+  public boolean addAnnotation(int generation, long timestamp, String value,
+      @Nullable Endpoint host) {
+    int sizeInBytes = TIMESTAMP_SIZE + value.length();
+    if (!reserve(sizeInBytes)) return false;
+    int i = claimAnnotation(generation);
+    if (i == -1) {
+      unreserve(sizeInBytes);
+      return false;
+    }
+    Block block = blockForWrite(i);
+    int j = i % BLOCK_SIZE;
+    block.annotationTimestamps[j] = timestamp;
+    block.annotationValues[j] = value;
+    block.annotationHosts[j] = host;
+    block.markWritten(j);
+    publish(generation, 0);
+    return true;
+  }
+
+  /** Like {@link #addAnnotation(int, long, String, Endpoint)}, in the current generation. */
+  public boolean addAnnotation(long timestamp, String value, @Nullable Endpoint host) {
+    return addAnnotation(generation(), timestamp, value, host);
+  }
+
+  /** Removes all annotations. Not safe to call while other threads are adding. */
+  public void clearAnnotations() {
+    int count = annotationCount();
+    long c;
+    do {
+      c = ctl.get();
+    } while (!ctl.compareAndSet(c, c & ~ANNOTATION_COUNT_MASK));
+    long p;
+    do {
+      p = published;
+    } while (!PUBLISHED.compareAndSet(this, p, p & ~PUBLISHED_COUNT_MASK));
+    for (Block block = head; count > 0; block = block.next, count -= BLOCK_SIZE) {
+      block.clearWritten(0);
+      if (isSizeLimited()) {
+        for (int j = 0; j < BLOCK_SIZE && j < count; j++) {
+          String value = block.annotationValues[j];
+          if (value != null) unreserve(TIMESTAMP_SIZE + value.length());
+        }
+      }
+      Arrays.fill(block.annotationValues, null);
+      Arrays.fill(block.annotationHosts, null);
+    }
+  }
+
+  /** The count of binary annotations visible to this thread. */
+  public int binaryAnnotationCount() {
+    return (int) ((published >>> PUBLISHED_TAG_COUNT_SHIFT) & PUBLISHED_COUNT_MASK);
+  }
+
+  public String binaryAnnotationKey(int i) {
+    return block(i).tagKeys[i % BLOCK_SIZE];
+  }
+
+  /**
+   * Returns the encoded value of a binary annotation. Values added as strings or primitives are
+   * encoded on each call: serializers should prefer {@link #binaryAnnotationString(int)} and
+   * {@link #binaryAnnotationNumber(int)}.
+   */
+  public byte[] binaryAnnotationValue(int i) {
+    Block block = block(i);
+    int j = i % BLOCK_SIZE;
+    byte[] value = block.tagValues[j];
+    if (value != null) return value;
+    String string = block.tagStrings[j];
+    if (string != null) return string.getBytes(UTF_8);
+    AnnotationType type = block.tagTypes[j];
+    return type != null ? encodeNumber(type, block.tagNumbers[j]) : null;
+  }
+
+  /**
+   * True if the binary annotation was added as a primitive, so {@link
+   * #binaryAnnotationNumber(int)} holds its value.
+   */
+  public boolean isBinaryAnnotationNumber(int i) {
+    Block block = block(i);
+    int j = i % BLOCK_SIZE;
+    return block.tagValues[j] == null && block.tagStrings[j] == null;
+  }
+
+  /**
+   * Returns the value of a binary annotation added as a primitive. Booleans are zero or one, and
+   * doubles are {@link Double#doubleToRawLongBits(double) raw bits}.
+   */
+  public long binaryAnnotationNumber(int i) {
+    return block(i).tagNumbers[i % BLOCK_SIZE];
+  }
+
+  /**
+   * Returns the value of a {@link AnnotationType#STRING} binary annotation which hasn't been
+   * encoded yet, or null if it was added as bytes.
+   */
+  @Nullable public String binaryAnnotationString(int i) {
+    return block(i).tagStrings[i % BLOCK_SIZE];
+  }
+
+  public AnnotationType binaryAnnotationType(int i) {
+    return block(i).tagTypes[i % BLOCK_SIZE];
+  }
+
+  @Nullable public Endpoint binaryAnnotationHost(int i) {
+    return block(i).tagHosts[i % BLOCK_SIZE];
+  }
+
+  /**
+   * Adds a binary annotation unless this record is closed or was released since {@code
+   * generation}.
+   *
+   * @return false if the binary annotation was dropped
+   */
+  public boolean addBinaryAnnotation(int generation, String key, byte[] value,
+      AnnotationType type, @Nullable Endpoint host) {
+    int maxBytes = limits.maxTagValueBytes();
+    boolean truncated = false;
+    if (value.length > maxBytes
+        && (type == AnnotationType.STRING || type == AnnotationType.BYTES)) {
+      value = truncate(value, maxBytes, type == AnnotationType.STRING);
+      truncated = true;
+    }
+    int sizeInBytes = key.length() + value.length;
+    if (!reserve(sizeInBytes)) return false;
+    int i = claimTag(generation);
+    if (i == -1) {
+      unreserve(sizeInBytes);
+      return false;
+    }
+    Block block = blockForWrite(i);
+    int j = i % BLOCK_SIZE;
+    block.tagKeys[j] = key;
+    block.tagValues[j] = value;
+    block.tagTypes[j] = type;
+    block.tagHosts[j] = host;
+    block.markWritten(BLOCK_SIZE + j);
+    publish(generation, PUBLISHED_TAG_COUNT_SHIFT);
+    if (truncated) mark(TRUNCATED);
+    return true;
+  }
+
+  /**
+   * Like {@link #addBinaryAnnotation(int, String, byte[], AnnotationType, Endpoint)}, in the
+   * current generation.
+   */
+  public boolean addBinaryAnnotation(String key, byte[] value, AnnotationType type,
+      @Nullable Endpoint host) {
+    return addBinaryAnnotation(generation(), key, value, type, host);
+  }
+
+  /**
+   * Adds a {@link AnnotationType#STRING} binary annotation unless this record is closed or was
+   * released since {@code generation}. The value is encoded later, when read.
+   *
+   * @return false if the binary annotation was dropped
+   */
+  public boolean addBinaryAnnotation(int generation, String key, String value,
+      @Nullable Endpoint host) {
+    int maxBytes = limits.maxTagValueBytes();
+    boolean truncated = false;
+    if (value.length() > maxBytes / 3) { // a character encodes to at most three bytes
+      String prefix = Buffer.truncateUtf8(value, maxBytes);
+      truncated = prefix.length() != value.length();
+      value = prefix;
+    }
+    int sizeInBytes = key.length() + value.length();
+    if (!reserve(sizeInBytes)) return false;
+    int i = claimTag(generation);
+    if (i == -1) {
+      unreserve(sizeInBytes);
+      return false;
+    }
+    Block block = blockForWrite(i);
+    int j = i % BLOCK_SIZE;
+    block.tagKeys[j] = key;
+    block.tagStrings[j] = value;
+    block.tagTypes[j] = AnnotationType.STRING;
+    block.tagHosts[j] = host;
+    block.markWritten(BLOCK_SIZE + j);
+    publish(generation, PUBLISHED_TAG_COUNT_SHIFT);
+    if (truncated) mark(TRUNCATED);
+    return true;
+  }
+
+  /** Like {@link #addBinaryAnnotation(int, String, String, Endpoint)}, in the current generation. */
+  public boolean addBinaryAnnotation(String key, String value, @Nullable Endpoint host) {
+    return addBinaryAnnotation(generation(), key, value, host);
+  }
+
+  /**
+   * Adds a {@link AnnotationType#BOOL}, {@link AnnotationType#I16}, {@link AnnotationType#I32},
+   * {@link AnnotationType#I64} or {@link AnnotationType#DOUBLE} binary annotation unless this
+   * record is closed or was released since {@code generation}. The value is kept as a primitive,
+   * and encoded when read. Booleans are zero or one, and doubles are {@link
+   * Double#doubleToRawLongBits(double) raw bits}.
+   *
+   * @return false if the binary annotation was dropped
+   */
+  public boolean addBinaryAnnotation(int generation, String key, long value, AnnotationType type,
+      @Nullable Endpoint host) {
+    int sizeInBytes = key.length() + numberSizeInBytes(type);
+    if (!reserve(sizeInBytes)) return false;
+    int i = claimTag(generation);
+    if (i == -1) {
+      unreserve(sizeInBytes);
+      return false;
+    }
+    Block block = blockForWrite(i);
+    int j = i % BLOCK_SIZE;
+    block.tagKeys[j] = key;
+    block.tagNumbers[j] = value;
+    block.tagTypes[j] = type;
+    block.tagHosts[j] = host;
+    block.markWritten(BLOCK_SIZE + j);
+    publish(generation, PUBLISHED_TAG_COUNT_SHIFT);
+    return true;
+  }
+
+  /**
+   * Like {@link #addBinaryAnnotation(int, String, long, AnnotationType, Endpoint)}, in the current
+   * generation.
+   */
+  public boolean addBinaryAnnotation(String key, long value, AnnotationType type,
+      @Nullable Endpoint host) {
+    return addBinaryAnnotation(generation(), key, value, type, host);
+  }
+
+  /** Removes all binary annotations. Not safe to call while other threads are adding. */
+  public void clearBinaryAnnotations() {
+    int count = binaryAnnotationCount();
+    long c;
+    do {
+      c = ctl.get();
+    } while (!ctl.compareAndSet(c, c & ~TAG_COUNT_MASK));
+    long p;
+    do {
+      p = published;
+    } while (!PUBLISHED.compareAndSet(this, p,
+        p & ~(PUBLISHED_COUNT_MASK << PUBLISHED_TAG_COUNT_SHIFT)));
+    for (Block block = head; count > 0; block = block.next, count -= BLOCK_SIZE) {
+      block.clearWritten(BLOCK_SIZE);
+      if (isSizeLimited()) {
+        for (int j = 0; j < BLOCK_SIZE && j < count; j++) {
+          String string = block.tagStrings[j];
+          byte[] value = block.tagValues[j];
+          unreserve(block.tagKeys[j].length() + (string != null ? string.length()
+              : value != null ? value.length : numberSizeInBytes(block.tagTypes[j])));
+        }
+      }
+      Arrays.fill(block.tagKeys, null);
+      Arrays.fill(block.tagValues, null);
+      Arrays.fill(block.tagStrings, null);
+      Arrays.fill(block.tagTypes, null);
+      Arrays.fill(block.tagHosts, null);
+    }
+  }
+
+  /**
+   * Stops accepting adds. Adds already in progress don't block this: they become visible when
+   * their writers finish.
+   *
+   * @return false if this record was already closed or released since {@code generation}. Only
+   * one caller per generation sees true.
+   */
+  public boolean close(int generation) {
+    long c;
+    do {
+      c = ctl.get();
+      if ((int) (c >>> GENERATION_SHIFT) != generation || (c & CLOSED) != 0) return false;
+    } while (!ctl.compareAndSet(c, c | CLOSED));
+    return true;
+  }
+
+  /**
+   * Clears this record, starts a new generation and, if it was {@link #acquire() acquired},
+   * returns it to its pool. The caller must not use this record afterwards.
+   *
+   * <p>If an add is still in progress, the record is dropped instead of pooled, as its writer
+   * could otherwise fill a slot of the next span that borrows it.
+   */
+  public void release() {
+    long c;
+    do {
+      c = ctl.get();
+    } while (!ctl.compareAndSet(c, ((c >>> GENERATION_SHIFT) + 1) << GENERATION_SHIFT));
+    long p = published;
+    if ((int) (p >>> GENERATION_SHIFT) != (int) (c >>> GENERATION_SHIFT) // dropped before
+        || (p & PUBLISHED_COUNT_MASK) != (c & ANNOTATION_COUNT_MASK)
+        || ((p >>> PUBLISHED_TAG_COUNT_SHIFT) & PUBLISHED_COUNT_MASK)
+        != (c & TAG_COUNT_MASK) >>> TAG_COUNT_SHIFT) {
+      return; // a writer hasn't finished
+    }
+    clearAnnotations();
+    clearBinaryAnnotations();
+    head.next = null; // only pool the first block
+    flags = 0;
+    sizeInBytes = 0;
+    limits = SpanLimits.DEFAULT;
+    published = ((c >>> GENERATION_SHIFT) + 1) << GENERATION_SHIFT;
+    if (pool != null) pool.offer(this);
+  }
+
+  /**
+   * Advances a published count, at {@code shift} in the published word, past written slots. Each
+   * writer calls this after marking its slot, so whichever writer fills the lowest unpublished
+   * slot publishes the ones after it. Writers of a previous generation fail the compare-and-set.
+   */
+  void publish(int generation, int shift) {
+    int offset = shift == 0 ? 0 : BLOCK_SIZE;
+    long p;
+    while ((int) ((p = published) >>> GENERATION_SHIFT) == generation) {
+      int i = (int) ((p >>> shift) & PUBLISHED_COUNT_MASK);
+      if (!block(i).isWritten(offset + i % BLOCK_SIZE)) return;
+      PUBLISHED.compareAndSet(this, p, p + (1L << shift));
+    }
+  }
+
+  /** Returns the slot index of a new annotation or -1 if it should be dropped */
+  int claimAnnotation(int generation) {
+    long c;
+    do {
+      c = ctl.get();
+      if ((int) (c >>> GENERATION_SHIFT) != generation || (c & CLOSED) != 0) return -1;
+      if ((c & ANNOTATION_COUNT_MASK) >= Math.min(MAX_COUNT, limits.maxAnnotations())) {
+        mark(TRUNCATED);
+        return -1;
+      }
+    } while (!ctl.compareAndSet(c, c + 1));
+    return (int) (c & ANNOTATION_COUNT_MASK);
+  }
+
+  /** Returns the slot index of a new binary annotation or -1 if it should be dropped */
+  int claimTag(int generation) {
+    long c;
+    do {
+      c = ctl.get();
+      if ((int) (c >>> GENERATION_SHIFT) != generation || (c & CLOSED) != 0) return -1;
+      if ((c & TAG_COUNT_MASK) >>> TAG_COUNT_SHIFT
+          >= Math.min(MAX_COUNT, limits.maxBinaryAnnotations())) {
+        mark(TRUNCATED);
+        return -1;
+      }
+    } while (!ctl.compareAndSet(c, c + (1L << TAG_COUNT_SHIFT)));
+    return (int) ((c & TAG_COUNT_MASK) >>> TAG_COUNT_SHIFT);
+  }
+
+  /** The length of the thrift encoding of a primitive binary annotation value. */
+  public static int numberSizeInBytes(AnnotationType type) {
+    switch (type) {
+      case BOOL:
+        return 1;
+      case I16:
+        return 2;
+      case I32:
+        return 4;
+      case I64:
+      case DOUBLE:
+        return 8;
+      default:
+        throw new IllegalArgumentException(type + " isn't a primitive type");
+    }
+  }
+
+  /** Big-endian, as in thrift. */
+  static byte[] encodeNumber(AnnotationType type, long value) {
+    byte[] result = new byte[numberSizeInBytes(type)];
+    for (int i = result.length - 1; i >= 0; i--, value >>>= 8) {
+      result[i] = (byte) (value & 0xff);
+    }
+    return result;
+  }
+
+  boolean isSizeLimited() {
+    return limits.maxSpanBytes() != Integer.MAX_VALUE;
+  }
+
+  /** Adds to the estimated size, or returns false if that would exceed the limit. */
+  boolean reserve(int bytes) {
+    if (!isSizeLimited()) return true;
+    int maxBytes = limits.maxSpanBytes();
+    int current;
+    do {
+      current = sizeInBytes;
+      if ((long) current + bytes > maxBytes) {
+        mark(OVER_LIMIT);
+        return false;
+      }
+    } while (!SIZE_IN_BYTES.compareAndSet(this, current, current + bytes));
+    return true;
+  }
+
+  void unreserve(int bytes) {
+    if (isSizeLimited()) SIZE_IN_BYTES.addAndGet(this, -bytes);
+  }
+
+  void mark(int flag) {
+    int current;
+    do {
+      current = flags;
+      if ((current & flag) != 0) return;
+    } while (!FLAGS.compareAndSet(this, current, current | flag));
+  }
+
+  /** Truncates the value, without splitting a UTF-8 character when it is a string. */
+  static byte[] truncate(byte[] value, int maxBytes, boolean utf8) {
+    int length = maxBytes;
+    if (utf8) { // back up to the lead byte of the character that doesn't fit
+      while (length > 0 && (value[length] & 0xc0) == 0x80) length--;
+    }
+    return Arrays.copyOf(value, length);
+  }
+
+  /**
+   * Returns the block holding a slot, or {@link Block#EMPTY} if it wasn't added yet. If this record was released during a read, this
+   * can return an empty block: readers racing with release check {@link #generation()} after.
+   */
+  Block block(int i) {
+    Block block = head;
+    for (int b = i / BLOCK_SIZE; b > 0; b--) {
+      block = block.next;
+      if (block == null) return Block.EMPTY;
+    }
+    return block;
+  }
+
+  /** Returns the block holding a claimed slot, adding blocks as needed. */
+  Block blockForWrite(int i) {
+    Block block = head;
+    for (int b = i / BLOCK_SIZE; b > 0; b--) {
+      Block next = block.next;
+      if (next == null) {
+        next = new Block();
+        if (!Block.NEXT.compareAndSet(block, null, next)) next = block.next;
+      }
+      block = next;
+    }
+    return block;
+  }
+
+  /** Fixed-size storage for slots, linked as the record grows. */
+  static final class Block implements Serializable {
+    static final long serialVersionUID = 1L;
+    static final AtomicReferenceFieldUpdater<Block, Block> NEXT =
+        AtomicReferenceFieldUpdater.newUpdater(Block.class, Block.class, "next");
+    static final AtomicIntegerFieldUpdater<Block> WRITTEN =
+        AtomicIntegerFieldUpdater.newUpdater(Block.class, "written");
+    /** Read in place of blocks dropped by a concurrent release. Never written. */
+    static final Block EMPTY = new Block();
+
+    final long[] annotationTimestamps = new long[BLOCK_SIZE];
+    final String[] annotationValues = new String[BLOCK_SIZE];
+    final Endpoint[] annotationHosts = new Endpoint[BLOCK_SIZE];
+
+    final String[] tagKeys = new String[BLOCK_SIZE];
+    final byte[][] tagValues = new byte[BLOCK_SIZE][];
+    /** Values of string binary annotations, pending encoding. Exclusive with {@link #tagValues}. */
+    final String[] tagStrings = new String[BLOCK_SIZE];
+    /** Values of primitive binary annotations, when both of the above are null. */
+    final long[] tagNumbers = new long[BLOCK_SIZE];
+    final AnnotationType[] tagTypes = new AnnotationType[BLOCK_SIZE];
+    final Endpoint[] tagHosts = new Endpoint[BLOCK_SIZE];
+
+    /** Bits of written slots: annotations in the low byte, binary annotations in the next. */
+    volatile int written;
+    volatile Block next;
+
+    boolean isWritten(int bit) {
+      return (written & (1 << bit)) != 0;
+    }
+
+    void markWritten(int bit) {
+      int current;
+      do {
+        current = written;
+      } while (!WRITTEN.compareAndSet(this, current, current | (1 << bit)));
+    }
+
+    /** Clears the bits of annotations when {@code offset} is zero, or else binary annotations. */
+    void clearWritten(int offset) {
+      int current;
+      do {
+        current = written;
+      } while (!WRITTEN.compareAndSet(this, current, current & ~(0xff << offset)));
+    }
+  }
+
+  /**
+   * Idle records of one thread. Only the owning thread touches {@link #idle}. Other threads hand
+   * records back via {@link #returned}, a lock-free stack linked through {@link SpanRecord#next}.
+   */
+  static final class Pool {
+    final SpanRecord[] idle = new SpanRecord[MAX_POOL_SIZE];
+    int idleCount;
+    final AtomicReference<SpanRecord> returned = new AtomicReference<SpanRecord>();
+    final AtomicInteger returnedCount = new AtomicInteger();
+
+    SpanRecord poll() {
+      if (idleCount == 0) drainReturned();
+      if (idleCount == 0) return null;
+      SpanRecord result = idle[--idleCount];
+      idle[idleCount] = null;
+      return result;
+    }
+
+    void offer(SpanRecord record) {
+      if (POOL.get() == this) {
+        if (idleCount < MAX_POOL_SIZE) idle[idleCount++] = record;
+        return;
+      }
+      if (returnedCount.incrementAndGet() > MAX_POOL_SIZE) {
+        returnedCount.decrementAndGet();
+        return;
+      }
+      SpanRecord head;
+      do {
+        head = returned.get();
+        record.next = head;
+      } while (!returned.compareAndSet(head, record));
+    }
+
+    void drainReturned() {
+      SpanRecord next = returned.getAndSet(null);
+      int drained = 0;
+      while (next != null) {
+        SpanRecord record = next;
+        next = record.next;
+        record.next = null;
+        if (idleCount < MAX_POOL_SIZE) idle[idleCount++] = record;
+        drained++;
+      }
+      if (drained > 0) returnedCount.addAndGet(-drained);
+    }
+  }
+}
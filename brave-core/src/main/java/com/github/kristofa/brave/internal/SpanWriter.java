@@ -0,0 +1,22 @@
+package com.github.kristofa.brave.internal;
+
+import com.twitter.zipkin.gen.Span;
+import java.util.List;
+
+/**
+ * Encodes brave-native spans in one pass, without converting them to {@link zipkin.Span}.
+ *
+ * <p>Other threads can add annotations while a span is encoded. Callers read the counts of a span
+ * once, and pass the same counts to sizing and writing, so that the output fits.
+ */
+interface SpanWriter {
+  int sizeInBytes(Span span, int annotationCount, int binaryAnnotationCount);
+
+  void write(Span span, int annotationCount, int binaryAnnotationCount, Buffer buffer);
+
+  /** @param counts annotation and binary annotation count of each span, in pairs */
+  int sizeInBytes(List<Span> spans, int[] counts);
+
+  /** @param counts annotation and binary annotation count of each span, in pairs */
+  void write(List<Span> spans, int[] counts, Buffer buffer);
+}
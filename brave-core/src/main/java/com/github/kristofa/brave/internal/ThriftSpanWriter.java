@@ -0,0 +1,197 @@
+package com.github.kristofa.brave.internal;
+
+import com.twitter.zipkin.gen.AnnotationType;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.List;
+
+import static com.github.kristofa.brave.internal.Buffer.utf8SizeInBytes;
+
+/**
+ * Writes the same TBinaryProtocol encoding as {@link zipkin.Codec#THRIFT}, reading brave's span
+ * model directly.
+ */
+final class ThriftSpanWriter implements SpanWriter {
+  static final SpanWriter INSTANCE = new ThriftSpanWriter();
+
+  // field types from TType
+  static final byte TYPE_STOP = 0;
+  static final byte TYPE_BOOL = 2;
+  static final byte TYPE_I16 = 6;
+  static final byte TYPE_I32 = 8;
+  static final byte TYPE_I64 = 10;
+  static final byte TYPE_STRING = 11;
+  static final byte TYPE_STRUCT = 12;
+  static final byte TYPE_LIST = 15;
+
+  /** type byte plus field id */
+  static final int FIELD_HEADER_SIZE = 3;
+  /** element type byte plus size */
+  static final int LIST_HEADER_SIZE = 5;
+
+  @Override
+  public int sizeInBytes(Span span, int annotationCount, int binaryAnnotationCount) {
+    int sizeInBytes = FIELD_HEADER_SIZE + 8; // trace_id
+    sizeInBytes += FIELD_HEADER_SIZE + 4 + utf8SizeInBytes(JsonSpanWriter.name(span));
+    sizeInBytes += FIELD_HEADER_SIZE + 8; // id
+    if (span.getParent_id() != null) sizeInBytes += FIELD_HEADER_SIZE + 8;
+    SpanRecord record = span.record();
+    sizeInBytes += FIELD_HEADER_SIZE + LIST_HEADER_SIZE;
+    for (int i = 0; i < annotationCount; i++) {
+      sizeInBytes += annotationSizeInBytes(record, i);
+    }
+    sizeInBytes += FIELD_HEADER_SIZE + LIST_HEADER_SIZE;
+    for (int i = 0; i < binaryAnnotationCount; i++) {
+      sizeInBytes += binaryAnnotationSizeInBytes(record, i);
+    }
+    if (Boolean.TRUE.equals(span.isDebug())) sizeInBytes += FIELD_HEADER_SIZE + 1;
+    Long timestamp = span.getTimestamp();
+    if (timestamp != null && timestamp != 0L) sizeInBytes += FIELD_HEADER_SIZE + 8;
+    Long duration = span.getDuration();
+    if (duration != null && duration != 0L) sizeInBytes += FIELD_HEADER_SIZE + 8;
+    if (span.getTrace_id_high() != 0) sizeInBytes += FIELD_HEADER_SIZE + 8;
+    return sizeInBytes + 1; // TYPE_STOP
+  }
+
+  @Override
+  public void write(Span span, int annotationCount, int binaryAnnotationCount, Buffer b) {
+    writeFieldBegin(b, TYPE_I64, 1).writeLong(span.getTrace_id());
+    writeString(writeFieldBegin(b, TYPE_STRING, 3), JsonSpanWriter.name(span));
+    writeFieldBegin(b, TYPE_I64, 4).writeLong(span.getId());
+    Long parentId = span.getParent_id();
+    if (parentId != null) writeFieldBegin(b, TYPE_I64, 5).writeLong(parentId);
+
+    SpanRecord record = span.record();
+    writeListBegin(writeFieldBegin(b, TYPE_LIST, 6), annotationCount);
+    for (int i = 0; i < annotationCount; i++) {
+      writeAnnotation(record, i, b);
+    }
+    writeListBegin(writeFieldBegin(b, TYPE_LIST, 8), binaryAnnotationCount);
+    for (int i = 0; i < binaryAnnotationCount; i++) {
+      writeBinaryAnnotation(record, i, b);
+    }
+
+    if (Boolean.TRUE.equals(span.isDebug())) writeFieldBegin(b, TYPE_BOOL, 9).writeByte(1);
+    Long timestamp = span.getTimestamp();
+    if (timestamp != null && timestamp != 0L) writeFieldBegin(b, TYPE_I64, 10).writeLong(timestamp);
+    Long duration = span.getDuration();
+    if (duration != null && duration != 0L) writeFieldBegin(b, TYPE_I64, 11).writeLong(duration);
+    if (span.getTrace_id_high() != 0) {
+      writeFieldBegin(b, TYPE_I64, 12).writeLong(span.getTrace_id_high());
+    }
+    b.writeByte(TYPE_STOP);
+  }
+
+  @Override public int sizeInBytes(List<Span> spans, int[] counts) {
+    int sizeInBytes = LIST_HEADER_SIZE;
+    for (int i = 0, length = spans.size(); i < length; i++) {
+      sizeInBytes += sizeInBytes(spans.get(i), counts[i * 2], counts[i * 2 + 1]);
+    }
+    return sizeInBytes;
+  }
+
+  @Override public void write(List<Span> spans, int[] counts, Buffer b) {
+    int length = spans.size();
+    writeListBegin(b, length);
+    for (int i = 0; i < length; i++) {
+      write(spans.get(i), counts[i * 2], counts[i * 2 + 1], b);
+    }
+  }
+
+  static int annotationSizeInBytes(SpanRecord record, int i) {
+    int sizeInBytes = FIELD_HEADER_SIZE + 8; // timestamp
+    sizeInBytes += FIELD_HEADER_SIZE + 4 + utf8SizeInBytes(record.annotationValue(i));
+    Endpoint host = record.annotationHost(i);
+    if (host != null) sizeInBytes += FIELD_HEADER_SIZE + endpointSizeInBytes(host);
+    return sizeInBytes + 1; // TYPE_STOP
+  }
+
+  static void writeAnnotation(SpanRecord record, int i, Buffer b) {
+    writeFieldBegin(b, TYPE_I64, 1).writeLong(record.annotationTimestamp(i));
+    writeString(writeFieldBegin(b, TYPE_STRING, 2), record.annotationValue(i));
+    Endpoint host = record.annotationHost(i);
+    if (host != null) writeEndpoint(host, writeFieldBegin(b, TYPE_STRUCT, 3));
+    b.writeByte(TYPE_STOP);
+  }
+
+  static int binaryAnnotationSizeInBytes(SpanRecord record, int i) {
+    int sizeInBytes = FIELD_HEADER_SIZE + 4 + utf8SizeInBytes(record.binaryAnnotationKey(i));
+    String string = record.binaryAnnotationString(i);
+    sizeInBytes += FIELD_HEADER_SIZE + 4 + (string != null // not yet encoded
+        ? utf8SizeInBytes(string)
+        : record.isBinaryAnnotationNumber(i)
+            ? SpanRecord.numberSizeInBytes(record.binaryAnnotationType(i))
+            : record.binaryAnnotationValue(i).length);
+    sizeInBytes += FIELD_HEADER_SIZE + 4; // type
+    Endpoint host = record.binaryAnnotationHost(i);
+    if (host != null) sizeInBytes += FIELD_HEADER_SIZE + endpointSizeInBytes(host);
+    return sizeInBytes + 1; // TYPE_STOP
+  }
+
+  static void writeBinaryAnnotation(SpanRecord record, int i, Buffer b) {
+    writeString(writeFieldBegin(b, TYPE_STRING, 1), record.binaryAnnotationKey(i));
+    String string = record.binaryAnnotationString(i);
+    if (string != null) { // encode straight into the buffer
+      writeString(writeFieldBegin(b, TYPE_STRING, 2), string);
+    } else if (record.isBinaryAnnotationNumber(i)) {
+      writeNumber(record.binaryAnnotationType(i), record.binaryAnnotationNumber(i),
+          writeFieldBegin(b, TYPE_STRING, 2));
+    } else {
+      byte[] value = record.binaryAnnotationValue(i);
+      writeFieldBegin(b, TYPE_STRING, 2).writeInt(value.length).write(value);
+    }
+    writeFieldBegin(b, TYPE_I32, 3).writeInt(record.binaryAnnotationType(i).getValue());
+    Endpoint host = record.binaryAnnotationHost(i);
+    if (host != null) writeEndpoint(host, writeFieldBegin(b, TYPE_STRUCT, 4));
+    b.writeByte(TYPE_STOP);
+  }
+
+  /** Writes a primitive as the length-prefixed bytes thrift expects for binary annotations. */
+  static void writeNumber(AnnotationType type, long value, Buffer b) {
+    b.writeInt(SpanRecord.numberSizeInBytes(type));
+    switch (type) {
+      case BOOL:
+        b.writeByte(value != 0 ? 1 : 0);
+        break;
+      case I16:
+        b.writeShort((int) value);
+        break;
+      case I32:
+        b.writeInt((int) value);
+        break;
+      default:
+        b.writeLong(value);
+    }
+  }
+
+  static int endpointSizeInBytes(Endpoint host) {
+    int sizeInBytes = FIELD_HEADER_SIZE + 4; // ipv4
+    sizeInBytes += FIELD_HEADER_SIZE + 2; // port
+    sizeInBytes += FIELD_HEADER_SIZE + 4 + utf8SizeInBytes(host.service_name);
+    if (host.ipv6 != null) sizeInBytes += FIELD_HEADER_SIZE + 4 + 16;
+    return sizeInBytes + 1; // TYPE_STOP
+  }
+
+  static void writeEndpoint(Endpoint host, Buffer b) {
+    writeFieldBegin(b, TYPE_I32, 1).writeInt(host.ipv4);
+    writeFieldBegin(b, TYPE_I16, 2).writeShort(host.port != null ? host.port : 0);
+    writeString(writeFieldBegin(b, TYPE_STRING, 3), host.service_name);
+    if (host.ipv6 != null) writeFieldBegin(b, TYPE_STRING, 4).writeInt(16).write(host.ipv6);
+    b.writeByte(TYPE_STOP);
+  }
+
+  static Buffer writeFieldBegin(Buffer b, byte type, int id) {
+    return b.writeByte(type).writeShort(id);
+  }
+
+  static Buffer writeListBegin(Buffer b, int size) {
+    return b.writeByte(TYPE_STRUCT).writeInt(size);
+  }
+
+  static void writeString(Buffer b, String v) {
+    b.writeInt(utf8SizeInBytes(v)).writeUtf8(v);
+  }
+
+  ThriftSpanWriter() {
+  }
+}
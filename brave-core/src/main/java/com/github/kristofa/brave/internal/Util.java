@@ -31,6 +31,22 @@ public final class Util {
     return string;
   }
 
+  /** Covers http status codes, and the error codes of common drivers. */
+  static final String[] DECIMAL_STRINGS = new String[2048];
+
+  /**
+   * Like {@link String#valueOf(int)}, except small non-negative values, such as status codes, are
+   * cached. Zipkin only queries string tags, so this avoids allocating per request without
+   * changing the tag type.
+   */
+  public static String decimalString(int value) {
+    if (value < 0 || value >= DECIMAL_STRINGS.length) return String.valueOf(value);
+    // racing threads may both allocate, which is harmless as strings are immutable
+    String result = DECIMAL_STRINGS[value];
+    if (result == null) DECIMAL_STRINGS[value] = result = String.valueOf(value);
+    return result;
+  }
+
   public static boolean equal(Object a, Object b) {
     return a == b || (a != null && a.equals(b));
   }
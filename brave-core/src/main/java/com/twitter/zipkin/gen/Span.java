@@ -1,12 +1,19 @@
 package com.twitter.zipkin.gen;
 
 import com.github.kristofa.brave.SpanId;
+import com.github.kristofa.brave.SpanLimits;
+import com.github.kristofa.brave.internal.Nullable;
+import com.github.kristofa.brave.internal.SpanRecord;
 import com.github.kristofa.brave.internal.Util;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
+import static com.github.kristofa.brave.internal.Util.checkNotBlank;
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
 import static com.github.kristofa.brave.internal.Util.equal;
 
 /**
@@ -15,13 +22,22 @@ import static com.github.kristofa.brave.internal.Util.equal;
  * The root span is where trace_id = id and parent_id = Nil. The root span is
  * usually the longest interval in the trace, starting with a SERVER_RECV
  * annotation and ending with a SERVER_SEND.
+ *
+ * <p>Annotations and binary annotations are stored in a {@link SpanRecord}, and materialized into
+ * objects only when read. Spans created by tracers borrow their record from a per-thread pool,
+ * which is {@link #recycle() recycled} once the span is reported. After that, the span no longer
+ * has annotations and ignores new ones.
+ *
+ * <p>Adding annotations, setting timestamp or duration and {@link #finish() finishing} are safe to
+ * call from multiple threads and don't lock.
  */
 public class Span implements Serializable {
 
   static final long serialVersionUID = 1L;
 
   /**
-   * Internal field, used for deriving duration with {@link System#nanoTime()}.
+   * Internal field, used for deriving duration with {@link System#nanoTime()} when the tracer's
+   * clock isn't an {@link com.github.kristofa.brave.AnchoredClock}.
    */
   public volatile Long startTick;
 
@@ -29,12 +45,23 @@ public class Span implements Serializable {
   private long trace_id_high; // optional (default to zero)
   private String name; // required
   private long id; // required
-  private Long parent_id; // optional
-  private List<Annotation> annotations = Collections.emptyList(); // required
-  private List<BinaryAnnotation> binary_annotations = Collections.emptyList(); // required
-  private Boolean debug; // optional
-  private Long timestamp; // optional
-  private Long duration; // optional
+  private volatile long parent_id; // optional
+  private volatile SpanRecord record; // null until an annotation is added, or after recycle
+  private int recordGeneration; // written before record is
+  private volatile boolean recycled;
+  private volatile Boolean debug; // optional
+  private volatile long timestamp; // optional
+  private volatile long duration; // optional
+  private volatile int isSet; // bit field which tracks presence of optional fields
+
+  static final AtomicReferenceFieldUpdater<Span, SpanRecord> RECORD =
+      AtomicReferenceFieldUpdater.newUpdater(Span.class, SpanRecord.class, "record");
+  static final AtomicIntegerFieldUpdater<Span> IS_SET =
+      AtomicIntegerFieldUpdater.newUpdater(Span.class, "isSet");
+
+  static final int PARENT_ID_SET = 1;
+  static final int TIMESTAMP_SET = 1 << 1;
+  static final int DURATION_SET = 1 << 2;
 
   public long getTrace_id() {
     return this.trace_id;
@@ -92,48 +119,192 @@ public class Span implements Serializable {
   }
 
   public Long getParent_id() {
-    return this.parent_id;
+    return (isSet & PARENT_ID_SET) != 0 ? parent_id : null;
   }
 
   public Span setParent_id(Long parent_id) {
-    this.parent_id = parent_id;
+    if (parent_id != null) {
+      this.parent_id = parent_id;
+      set(PARENT_ID_SET);
+    } else {
+      unset(PARENT_ID_SET);
+    }
     return this;
   }
 
   public Span addToAnnotations(Annotation elem) {
-    if (this.annotations == Collections.EMPTY_LIST) {
-      this.annotations = new ArrayList<Annotation>();
-    }
-    this.annotations.add(elem);
+    return addToAnnotations(elem.timestamp, elem.value, elem.host);
+  }
+
+  /** Like {@link #addToAnnotations(Annotation)}, except doesn't allocate an annotation. */
+  public Span addToAnnotations(long timestamp, String value, @Nullable Endpoint host) {
+    SpanRecord record = record();
+    if (record != null) record.addAnnotation(recordGeneration, timestamp, value, host);
     return this;
   }
 
+  /**
+   * Returns a read-only snapshot of this span's annotations, materialized on each call.
+   *
+   * <p>Before 3.17, this returned the span's own list, so annotations could be added through it.
+   * The returned list now throws {@link UnsupportedOperationException} on modification. Use
+   * {@link #addToAnnotations(Annotation)} or {@link #setAnnotations(List)} instead.
+   */
   public List<Annotation> getAnnotations() {
-    return this.annotations;
+    SpanRecord record = this.record;
+    int count = record != null ? record.annotationCount() : 0;
+    if (count == 0) return Collections.emptyList();
+    List<Annotation> result = new ArrayList<Annotation>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(Annotation.create(
+          record.annotationTimestamp(i),
+          record.annotationValue(i),
+          record.annotationHost(i)));
+    }
+    return Collections.unmodifiableList(result);
   }
 
   public Span setAnnotations(List<Annotation> annotations) {
-    this.annotations = annotations;
+    if (this.record != null) this.record.clearAnnotations();
+    if (annotations != null) {
+      for (Annotation a : annotations) addToAnnotations(a);
+    }
     return this;
   }
 
   public Span addToBinary_annotations(BinaryAnnotation elem) {
-    if (this.binary_annotations == Collections.EMPTY_LIST) {
-      this.binary_annotations = new ArrayList<BinaryAnnotation>();
+    return addToBinary_annotations(elem.key, elem.value, elem.type, elem.host);
+  }
+
+  /**
+   * Like {@link #addToBinary_annotations(BinaryAnnotation)}, except doesn't allocate a binary
+   * annotation.
+   */
+  public Span addToBinary_annotations(String key, byte[] value, AnnotationType type,
+      @Nullable Endpoint host) {
+    checkNotBlank(key, "Null or blank key");
+    checkNotNull(value, "Null value");
+    SpanRecord record = record();
+    if (record != null) record.addBinaryAnnotation(recordGeneration, key, value, type, host);
+    return this;
+  }
+
+  /**
+   * Adds a {@link AnnotationType#STRING} binary annotation. Unlike {@link
+   * BinaryAnnotation#create(String, String, Endpoint)}, the value isn't encoded until the span is
+   * reported, usually on another thread.
+   */
+  public Span addToBinary_annotations(String key, String value, @Nullable Endpoint host) {
+    checkNotBlank(key, "Null or blank key");
+    checkNotNull(value, "Null value");
+    SpanRecord record = record();
+    if (record != null) record.addBinaryAnnotation(recordGeneration, key, value, host);
+    return this;
+  }
+
+  /**
+   * Adds a {@link AnnotationType#BOOL}, {@link AnnotationType#I16}, {@link AnnotationType#I32} or
+   * {@link AnnotationType#I64} binary annotation without allocating its encoding. Booleans are
+   * zero or one.
+   *
+   * @throws IllegalArgumentException if the type isn't one of the above
+   */
+  public Span addToBinary_annotations(String key, long value, AnnotationType type,
+      @Nullable Endpoint host) {
+    checkNotBlank(key, "Null or blank key");
+    switch (type) {
+      case BOOL:
+      case I16:
+      case I32:
+      case I64:
+        break;
+      default:
+        throw new IllegalArgumentException(type + " isn't an integral type");
     }
-    this.binary_annotations.add(elem);
+    SpanRecord record = record();
+    if (record != null) record.addBinaryAnnotation(recordGeneration, key, value, type, host);
     return this;
   }
 
+  /** Adds a {@link AnnotationType#DOUBLE} binary annotation without allocating its encoding. */
+  public Span addToBinary_annotations(String key, double value, @Nullable Endpoint host) {
+    checkNotBlank(key, "Null or blank key");
+    SpanRecord record = record();
+    if (record != null) {
+      record.addBinaryAnnotation(recordGeneration, key, Double.doubleToRawLongBits(value),
+          AnnotationType.DOUBLE, host);
+    }
+    return this;
+  }
+
+  /**
+   * Returns a read-only snapshot of this span's binary annotations, materialized on each call.
+   *
+   * <p>Before 3.17, this returned the span's own list, so binary annotations could be added
+   * through it. The returned list now throws {@link UnsupportedOperationException} on
+   * modification. Use {@link #addToBinary_annotations(BinaryAnnotation)} or {@link
+   * #setBinaryAnnotations(List)} instead.
+   */
   public List<BinaryAnnotation> getBinary_annotations() {
-    return this.binary_annotations;
+    SpanRecord record = this.record;
+    int count = record != null ? record.binaryAnnotationCount() : 0;
+    if (count == 0) return Collections.emptyList();
+    List<BinaryAnnotation> result = new ArrayList<BinaryAnnotation>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(BinaryAnnotation.create(
+          record.binaryAnnotationKey(i),
+          record.binaryAnnotationValue(i),
+          record.binaryAnnotationType(i),
+          record.binaryAnnotationHost(i)));
+    }
+    return Collections.unmodifiableList(result);
   }
 
   public Span setBinaryAnnotations(List<BinaryAnnotation> binary_annotations) {
-    this.binary_annotations = binary_annotations;
+    if (this.record != null) this.record.clearBinaryAnnotations();
+    if (binary_annotations != null) {
+      for (BinaryAnnotation a : binary_annotations) addToBinary_annotations(a);
+    }
     return this;
   }
 
+  /**
+   * Internal: the record holding this span's annotations, or null if it was recycled.
+   * Instrumentation should use {@link #getAnnotations()} and {@link #getBinary_annotations()}.
+   */
+  @Nullable
+  public SpanRecord record() {
+    SpanRecord result = record;
+    if (result != null || recycled) return result;
+    RECORD.compareAndSet(this, null, SpanRecord.create());
+    return record; // null if recycled meanwhile
+  }
+
+  /**
+   * Internal: called by tracers when this span completes. Afterwards, new annotations are ignored.
+   *
+   * @return true if this call finished the span, false if it was already finished or recycled.
+   */
+  public boolean finish() {
+    SpanRecord record = record();
+    return record != null && record.close(recordGeneration);
+  }
+
+  /**
+   * Internal: called by tracers once this span has been reported. If this span was made with
+   * {@link #pooledFromSpanId(SpanId)}, this returns its record to the pool it was borrowed from.
+   *
+   * <p>Afterwards, this span has no annotations and new ones are ignored.
+   */
+  public void recycle() {
+    SpanRecord toRelease = record;
+    if (toRelease == null || !toRelease.isPooled()) return;
+    recycled = true; // written before record, so record() won't recreate it
+    if (!RECORD.compareAndSet(this, toRelease, null)) return;
+    toRelease.close(recordGeneration); // no-op unless finish() wasn't called
+    toRelease.release();
+  }
+
   public Boolean isDebug() {
     return this.debug;
   }
@@ -158,7 +329,7 @@ public class Span implements Serializable {
    * stores are expected to support this at time of introduction.
    */
   public Long getTimestamp() {
-    return this.timestamp;
+    return (isSet & TIMESTAMP_SET) != 0 ? timestamp : null;
   }
 
   /**
@@ -176,7 +347,12 @@ public class Span implements Serializable {
    * stores are expected to support this at time of introduction.
    */
   public Span setTimestamp(Long timestamp) {
-    this.timestamp = timestamp;
+    if (timestamp != null) {
+      this.timestamp = timestamp;
+      set(TIMESTAMP_SET);
+    } else {
+      unset(TIMESTAMP_SET);
+    }
     return this;
   }
 
@@ -198,7 +374,7 @@ public class Span implements Serializable {
    * This field is i64 vs i32 to support spans longer than 35 minutes.
    */
   public Long getDuration() {
-    return this.duration;
+    return (isSet & DURATION_SET) != 0 ? duration : null;
   }
 
   /**
@@ -219,7 +395,12 @@ public class Span implements Serializable {
    * This field is i64 vs i32 to support spans longer than 35 minutes.
    */
   public Span setDuration(Long duration) {
-    this.duration = duration;
+    if (duration != null) {
+      this.duration = duration;
+      set(DURATION_SET);
+    } else {
+      unset(DURATION_SET);
+    }
     return this;
   }
 
@@ -234,11 +415,11 @@ public class Span implements Serializable {
           && (this.trace_id == that.trace_id)
           && (this.name.equals(that.name))
           && (this.id == that.id)
-          && equal(this.parent_id, that.parent_id)
-          && equal(this.timestamp, that.timestamp)
-          && equal(this.duration, that.duration)
-          && equal(this.annotations, that.annotations)
-          && equal(this.binary_annotations, that.binary_annotations)
+          && equal(this.getParent_id(), that.getParent_id())
+          && equal(this.getTimestamp(), that.getTimestamp())
+          && equal(this.getDuration(), that.getDuration())
+          && equal(this.getAnnotations(), that.getAnnotations())
+          && equal(this.getBinary_annotations(), that.getBinary_annotations())
           && equal(this.debug, that.debug);
     }
     return false;
@@ -256,15 +437,15 @@ public class Span implements Serializable {
     h *= 1000003;
     h ^= (id >>> 32) ^ id;
     h *= 1000003;
-    h ^= (parent_id == null) ? 0 : parent_id.hashCode();
+    h ^= (isSet & PARENT_ID_SET) == 0 ? 0 : (parent_id >>> 32) ^ parent_id;
     h *= 1000003;
-    h ^= (timestamp == null) ? 0 : timestamp.hashCode();
+    h ^= (isSet & TIMESTAMP_SET) == 0 ? 0 : (timestamp >>> 32) ^ timestamp;
     h *= 1000003;
-    h ^= (duration == null) ? 0 : duration.hashCode();
+    h ^= (isSet & DURATION_SET) == 0 ? 0 : (duration >>> 32) ^ duration;
     h *= 1000003;
-    h ^= (annotations == null) ? 0 : annotations.hashCode();
+    h ^= getAnnotations().hashCode();
     h *= 1000003;
-    h ^= (binary_annotations == null) ? 0 : binary_annotations.hashCode();
+    h ^= getBinary_annotations().hashCode();
     h *= 1000003;
     h ^= (debug == null) ? 0 : debug.hashCode();
     return h;
@@ -279,13 +460,36 @@ public class Span implements Serializable {
     Span result = new Span();
     result.setTrace_id_high(spanId.traceIdHigh);
     result.setTrace_id(spanId.traceId);
-    result.setParent_id(spanId.nullableParentId());
+    if (!spanId.root()) {
+      result.parent_id = spanId.parentId;
+      result.set(PARENT_ID_SET);
+    }
     result.setId(spanId.spanId);
     result.setName(""); // avoid NPE on equals
     if (spanId.debug()) result.setDebug(true);
     return result;
   }
 
+  /**
+   * Internal: like {@link #fromSpanId(SpanId)}, except annotations are stored in a record borrowed
+   * from a per-thread pool. The caller must {@link #recycle()} the span after reporting it.
+   */
+  public static Span pooledFromSpanId(SpanId spanId) {
+    return pooledFromSpanId(spanId, SpanLimits.DEFAULT);
+  }
+
+  /**
+   * Internal: like {@link #pooledFromSpanId(SpanId)}, except annotations added beyond the limits
+   * are truncated or dropped.
+   */
+  public static Span pooledFromSpanId(SpanId spanId, SpanLimits limits) {
+    Span result = fromSpanId(spanId);
+    SpanRecord record = SpanRecord.acquire(limits);
+    result.recordGeneration = record.generation();
+    result.record = record;
+    return result;
+  }
+
   /** Changes this to a zipkin-native span object. */
   public zipkin.Span toZipkin() {
     zipkin.Span.Builder result = zipkin.Span.builder();
@@ -297,20 +501,62 @@ public class Span implements Serializable {
     result.timestamp(getTimestamp());
     result.duration(getDuration());
     result.debug(isDebug());
-    for (Annotation a : getAnnotations()) {
-      result.addAnnotation(zipkin.Annotation.create(a.timestamp, a.value, from(a.host)));
+    SpanRecord record = this.record;
+    if (record == null) return result.build();
+    // Hosts are usually the same instance for all events, so only convert when it changes
+    Endpoint lastHost = null;
+    zipkin.Endpoint lastZipkinHost = null;
+    for (int i = 0, length = record.annotationCount(); i < length; i++) {
+      String value = record.annotationValue(i);
+      if (value == null) continue; // recycled while reading
+      Endpoint host = record.annotationHost(i);
+      if (host != lastHost) {
+        lastHost = host;
+        lastZipkinHost = from(host);
+      }
+      result.addAnnotation(zipkin.Annotation.create(
+          record.annotationTimestamp(i), value, lastZipkinHost));
     }
-    for (BinaryAnnotation a : getBinary_annotations()) {
+    for (int i = 0, length = record.binaryAnnotationCount(); i < length; i++) {
+      String key = record.binaryAnnotationKey(i);
+      byte[] value = record.binaryAnnotationValue(i);
+      AnnotationType type = record.binaryAnnotationType(i);
+      if (key == null || value == null || type == null) continue; // recycled while reading
+      Endpoint host = record.binaryAnnotationHost(i);
+      if (host != lastHost) {
+        lastHost = host;
+        lastZipkinHost = from(host);
+      }
       result.addBinaryAnnotation(zipkin.BinaryAnnotation.builder()
-          .key(a.key)
-          .value(a.value)
-          .type(zipkin.BinaryAnnotation.Type.fromValue(a.type.getValue()))
-          .endpoint(from(a.host))
+          .key(key)
+          .value(value)
+          .type(zipkin.BinaryAnnotation.Type.fromValue(type.getValue()))
+          .endpoint(lastZipkinHost)
           .build());
     }
+    // Another thread can recycle this span while it is read, such as when it finished twice.
+    // Events read across a recycle could belong to the record's next span, so drop them.
+    if (record.generation() != recordGeneration) {
+      result.annotations(Collections.<zipkin.Annotation>emptyList());
+      result.binaryAnnotations(Collections.<zipkin.BinaryAnnotation>emptyList());
+    }
     return result.build();
   }
 
+  private void set(int flag) {
+    int current;
+    do {
+      current = isSet;
+    } while (!IS_SET.compareAndSet(this, current, current | flag));
+  }
+
+  private void unset(int flag) {
+    int current;
+    do {
+      current = isSet;
+    } while (!IS_SET.compareAndSet(this, current, current & ~flag));
+  }
+
   private static zipkin.Endpoint from(Endpoint host) {
     if (host == null) return null;
     return zipkin.Endpoint.builder()
@@ -0,0 +1,185 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Span;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import zipkin.reporter.InMemoryReporterMetrics;
+import zipkin.reporter.ReporterMetrics;
+
+import static com.github.kristofa.brave.AdaptiveSampler.NANOS_PER_SECOND;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class AdaptiveSamplerTest {
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  long now = 0L;
+  AdaptiveSampler sampler = new AdaptiveSampler(100, 10000, now);
+
+  @Test
+  public void startsAtMaxRate() {
+    assertThat(AdaptiveSampler.create(100).rate()).isEqualTo(1.0f);
+    assertThat(AdaptiveSampler.create(100, 0.5f).rate()).isEqualTo(0.5f);
+  }
+
+  @Test
+  public void targetMustBePositive() {
+    thrown.expect(IllegalArgumentException.class);
+
+    AdaptiveSampler.create(0);
+  }
+
+  @Test
+  public void maxRateCantBeOverOne() {
+    thrown.expect(IllegalArgumentException.class);
+
+    AdaptiveSampler.create(100, 1.1f);
+  }
+
+  @Test
+  public void doesntUpdateWithinASecond() {
+    sampler.spansDropped(1);
+
+    advance(NANOS_PER_SECOND - 1);
+
+    assertThat(sampler.rate()).isEqualTo(1.0f);
+  }
+
+  @Test
+  public void halvesOnDrops() {
+    sampler.spansAccepted(10);
+    sampler.spansDropped(1);
+
+    advance(NANOS_PER_SECOND);
+
+    assertThat(sampler.rate()).isEqualTo(0.5f);
+  }
+
+  @Test
+  public void halvesWhenBacklogGrows() {
+    sampler.spansAccepted(10);
+    sampler.spansQueued(200);
+
+    advance(NANOS_PER_SECOND);
+    assertThat(sampler.rate()).isEqualTo(0.5f);
+
+    // a steady backlog isn't growing
+    sampler.spansAccepted(25);
+    advance(NANOS_PER_SECOND);
+    assertThat(sampler.rate()).isEqualTo(1.0f);
+  }
+
+  @Test
+  public void ignoresSmallBacklog() {
+    sampler.spansAccepted(100);
+    sampler.spansQueued(50); // under a second's worth of the target
+
+    advance(NANOS_PER_SECOND);
+
+    assertThat(sampler.rate()).isEqualTo(1.0f);
+  }
+
+  @Test
+  public void scalesToTarget() {
+    sampler.spansAccepted(400);
+
+    advance(NANOS_PER_SECOND);
+
+    assertThat(sampler.rate()).isEqualTo(0.25f);
+  }
+
+  @Test
+  public void scalesPerSecond() {
+    sampler.spansAccepted(400);
+
+    advance(2 * NANOS_PER_SECOND); // 200 spans per second
+
+    assertThat(sampler.rate()).isEqualTo(0.5f);
+  }
+
+  @Test
+  public void recoversWhenCapacityReturns() {
+    sampler.spansDropped(1);
+    advance(NANOS_PER_SECOND);
+    sampler.spansDropped(1);
+    advance(NANOS_PER_SECOND);
+    assertThat(sampler.rate()).isEqualTo(0.25f);
+
+    // at most doubles each second
+    sampler.spansAccepted(1);
+    advance(NANOS_PER_SECOND);
+    assertThat(sampler.rate()).isEqualTo(0.5f);
+
+    advance(NANOS_PER_SECOND);
+    assertThat(sampler.rate()).isEqualTo(1.0f);
+  }
+
+  @Test
+  public void neverBelowMinimumRate() {
+    for (int i = 0; i < 20; i++) {
+      sampler.spansDropped(1);
+      advance(NANOS_PER_SECOND);
+    }
+    assertThat(sampler.rate()).isEqualTo(0.0001f);
+
+    // a small boundary can still grow, even though it can't double
+    sampler.spansAccepted(99);
+    advance(NANOS_PER_SECOND);
+    assertThat(sampler.rate()).isEqualTo(0.0002f);
+  }
+
+  @Test
+  public void reporterMetrics() {
+    InMemoryReporterMetrics delegate = new InMemoryReporterMetrics();
+    ReporterMetrics metrics = sampler.reporterMetrics(delegate);
+
+    metrics.incrementSpans(3);
+    metrics.incrementSpansDropped(2);
+    metrics.updateQueuedSpans(1);
+
+    assertThat(delegate.spans()).isEqualTo(3);
+    assertThat(delegate.spansDropped()).isEqualTo(2);
+    assertThat(delegate.queuedSpans()).isEqualTo(1);
+    assertThat(sampler.accepted.get()).isEqualTo(3);
+    assertThat(sampler.dropped.get()).isEqualTo(2);
+    assertThat(sampler.queued).isEqualTo(1);
+  }
+
+  @Test
+  public void collectorMetrics() {
+    SpanCollectorMetricsHandler delegate = mock(SpanCollectorMetricsHandler.class);
+    SpanCollectorMetricsHandler metrics = sampler.collectorMetrics(delegate);
+
+    metrics.incrementAcceptedSpans(3);
+    metrics.incrementDroppedSpans(2);
+
+    verify(delegate).incrementAcceptedSpans(3);
+    verify(delegate).incrementDroppedSpans(2);
+    assertThat(sampler.accepted.get()).isEqualTo(3);
+    assertThat(sampler.dropped.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void flushingSpanCollector_reportsQueueDepth() {
+    FlushingSpanCollector collector = new FlushingSpanCollector(
+        sampler.collectorMetrics(new EmptySpanCollectorMetricsHandler()), 0) {
+      @Override protected void reportSpans(List<Span> drained) {
+      }
+    };
+
+    collector.collect(new Span());
+    collector.collect(new Span());
+
+    assertThat(sampler.accepted.get()).isEqualTo(2);
+    assertThat(sampler.queued).isEqualTo(2);
+  }
+
+  void advance(long nanos) {
+    now += nanos;
+    sampler.maybeUpdate(now);
+  }
+}
@@ -0,0 +1,135 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.AnchoredClock.Anchor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class AnchoredClockTest {
+
+  @Test
+  public void currentTimeMicroseconds_closeToWallClock() {
+    AnchoredClock clock = AnchoredClock.create();
+
+    assertThat(clock.currentTimeMicroseconds())
+        .isCloseTo(System.currentTimeMillis() * 1000, within(50000L));
+  }
+
+  @Test
+  public void currentTimeMicroseconds_neverDecreases() {
+    AnchoredClock clock = AnchoredClock.create(0, TimeUnit.SECONDS);
+
+    long previous = clock.currentTimeMicroseconds();
+    for (int i = 0; i < 10000; i++) {
+      long next = clock.currentTimeMicroseconds();
+      assertThat(next).isGreaterThanOrEqualTo(previous);
+      previous = next;
+    }
+  }
+
+  @Test
+  public void noResyncInterval_keepsAnchor() {
+    AnchoredClock clock = AnchoredClock.create(0, TimeUnit.SECONDS);
+    Anchor anchor = clock.anchor.get();
+
+    clock.currentTimeMicroseconds();
+
+    assertThat(clock.anchor.get()).isSameAs(anchor);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void create_negativeInterval() {
+    AnchoredClock.create(-1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void microsAt_addsElapsedTicks() {
+    Anchor anchor = new Anchor(1000L, 0L, 0L, 0L, Long.MAX_VALUE);
+
+    assertThat(anchor.microsAt(1500000L)).isEqualTo(2500L);
+  }
+
+  @Test
+  public void microsAt_slewsLinearly() {
+    // catch up 1ms over 2s
+    Anchor anchor = new Anchor(1000L, 0L, 1000L, 2000000L, Long.MAX_VALUE);
+
+    assertThat(anchor.microsAt(1000000000L)) // 1s in
+        .isEqualTo(1000L + 1000000L + 500L);
+    assertThat(anchor.microsAt(4000000000L)) // after the slew period
+        .isEqualTo(1000L + 4000000L + 1000L);
+  }
+
+  @Test
+  public void microsAt_slowsWithoutGoingBackwards() {
+    Anchor anchor = new Anchor(1000L, 0L, -1000L, 2000000L, Long.MAX_VALUE);
+
+    long previous = anchor.microsAt(0L);
+    for (long tick = 1000L; tick < 3000000000L; tick += 1000000L) {
+      long next = anchor.microsAt(tick);
+      assertThat(next).isGreaterThanOrEqualTo(previous);
+      previous = next;
+    }
+  }
+
+  @Test
+  public void resync_ignoresSmallDrift() {
+    AnchoredClock clock = AnchoredClock.create();
+    long tick = System.nanoTime();
+    Anchor anchor = anchorWithOffset(tick, 500L);
+    clock.anchor.set(anchor);
+
+    Anchor resynced = clock.resync(anchor, tick);
+
+    assertThat(resynced.epochMicros).isEqualTo(anchor.epochMicros);
+    assertThat(resynced.slewMicros).isZero();
+    assertThat(resynced.resyncTick).isEqualTo(tick + clock.resyncNanos);
+  }
+
+  @Test
+  public void resync_slewsModerateDrift() {
+    AnchoredClock clock = AnchoredClock.create();
+    long tick = System.nanoTime();
+    Anchor anchor = anchorWithOffset(tick, -100000L); // 100ms behind the wall clock
+    clock.anchor.set(anchor);
+
+    Anchor resynced = clock.resync(anchor, tick);
+
+    // continues from the current reading, catching up at the maximum slew rate
+    assertThat(resynced.epochMicros).isEqualTo(anchor.microsAt(tick));
+    assertThat(resynced.slewMicros).isCloseTo(100000L, within(2000L));
+    assertThat(resynced.slewPeriodMicros)
+        .isEqualTo(Math.abs(resynced.slewMicros) * 1000000L / AnchoredClock.MAX_SLEW_PPM);
+  }
+
+  @Test
+  public void resync_stepsLargeDrift() {
+    AnchoredClock clock = AnchoredClock.create();
+    long tick = System.nanoTime();
+    Anchor anchor = anchorWithOffset(tick, 10000000L); // 10s ahead of the wall clock
+    clock.anchor.set(anchor);
+
+    Anchor resynced = clock.resync(anchor, tick);
+
+    assertThat(resynced.slewMicros).isZero();
+    assertThat(resynced.microsAt(tick))
+        .isCloseTo(System.currentTimeMillis() * 1000, within(50000L));
+  }
+
+  @Test
+  public void resync_losingRaceUsesWinner() {
+    AnchoredClock clock = AnchoredClock.create();
+    long tick = System.nanoTime();
+    Anchor stale = anchorWithOffset(tick, 10000000L);
+    Anchor winner = clock.anchor.get();
+
+    assertThat(clock.resync(stale, tick)).isSameAs(winner);
+  }
+
+  /** Returns an anchor whose reading at {@code tick} differs from the wall clock by the offset */
+  static Anchor anchorWithOffset(long tick, long offsetMicros) {
+    return new Anchor(System.currentTimeMillis() * 1000 + offsetMicros, tick, 0L, 0L, tick);
+  }
+}
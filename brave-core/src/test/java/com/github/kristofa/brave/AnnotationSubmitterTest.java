@@ -2,10 +2,12 @@ package com.github.kristofa.brave;
 
 import com.github.kristofa.brave.SpanAndEndpoint.StaticSpanAndEndpoint;
 import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.AnnotationType;
 import com.twitter.zipkin.gen.BinaryAnnotation;
 import com.twitter.zipkin.gen.Endpoint;
 import com.twitter.zipkin.gen.Span;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -30,7 +32,8 @@ public class AnnotationSubmitterTest {
         Endpoint.builder().serviceName("foobar").ipv4(127 << 24 | 1).port(9999).build();
     private Span span = new Span().setName("foo");
     private AnnotationSubmitter annotationSubmitter =
-        AnnotationSubmitter.create(StaticSpanAndEndpoint.create(span, endpoint));;
+        AnnotationSubmitter.create(StaticSpanAndEndpoint.create(span, endpoint),
+            AnnotationSubmitter.DefaultClock.INSTANCE);
 
     @Before
     public void setup() {
@@ -88,37 +91,48 @@ public class AnnotationSubmitterTest {
     }
 
     @Test
-    public void testCurrentTimeMicroSeconds_fromSystemCurrentMillis() {
-        assertThat(annotationSubmitter.clock().currentTimeMicroseconds())
-            .isEqualTo(CURRENT_TIME_MICROSECONDS);
+    public void testSubmitBinaryAnnotationLongValue() {
+        annotationSubmitter.submitBinaryAnnotation(KEY, 1L << 40);
+
+        assertThat(span.getBinary_annotations()).containsExactly(
+            BinaryAnnotation.create(
+                KEY,
+                ByteBuffer.allocate(8).putLong(1L << 40).array(),
+                AnnotationType.I64,
+                endpoint
+            )
+        );
     }
 
     @Test
-    public void testCurrentTimeMicroSeconds_fromRelativeNanoTick() {
-        PowerMockito.when(System.nanoTime()).thenReturn(1000L);
+    public void testSubmitBinaryAnnotationDoubleValue() {
+        annotationSubmitter.submitBinaryAnnotation(KEY, 0.25d);
 
-        assertThat(annotationSubmitter.currentTimeMicroseconds(CURRENT_TIME_MICROSECONDS, 0L))
-            .isEqualTo(CURRENT_TIME_MICROSECONDS + 1L);
+        assertThat(span.getBinary_annotations()).containsExactly(
+            BinaryAnnotation.create(
+                KEY,
+                ByteBuffer.allocate(8).putDouble(0.25d).array(),
+                AnnotationType.DOUBLE,
+                endpoint
+            )
+        );
     }
 
     @Test
-    public void annotationTimestampRelativeToStart() {
-        PowerMockito.when(System.nanoTime()).thenReturn(1000L);
+    public void testSubmitBinaryAnnotationBooleanValue() {
+        annotationSubmitter.submitBinaryAnnotation(KEY, true);
 
-        span.setTimestamp(CURRENT_TIME_MICROSECONDS);
-        span.startTick = 0L;
-
-        annotationSubmitter.submitAnnotation(ANNOTATION_NAME);
-
-        assertThat(span.getAnnotations()).containsExactly(
-            Annotation.create(
-                CURRENT_TIME_MICROSECONDS + 1,
-                ANNOTATION_NAME,
-                endpoint
-            )
+        assertThat(span.getBinary_annotations()).containsExactly(
+            BinaryAnnotation.create(KEY, new byte[] {1}, AnnotationType.BOOL, endpoint)
         );
     }
 
+    @Test
+    public void testCurrentTimeMicroSeconds_fromSystemCurrentMillis() {
+        assertThat(annotationSubmitter.clock().currentTimeMicroseconds())
+            .isEqualTo(CURRENT_TIME_MICROSECONDS);
+    }
+
     @Test
     public void doesntSetDurationWhenTimestampUnset() {
         annotationSubmitter.submitAnnotation("sr");
@@ -129,7 +143,7 @@ public class AnnotationSubmitterTest {
     }
 
     @Test
-    public void setsDurationWhenTimestampPresentButStartTickAbsent() {
+    public void setsDurationFromClock() {
         span.setTimestamp(CURRENT_TIME_MICROSECONDS - 1);
 
         annotationSubmitter.submitAnnotation("sr");
@@ -140,9 +154,6 @@ public class AnnotationSubmitterTest {
     @Test
     public void durationRoundedUpToOneMicro() {
         span.setTimestamp(CURRENT_TIME_MICROSECONDS);
-        span.startTick = 0L;
-
-        PowerMockito.when(System.nanoTime()).thenReturn(787L);
 
         annotationSubmitter.submitAnnotation("sr");
         annotationSubmitter.submitEndAnnotation("ss", span ->
@@ -2,6 +2,7 @@ package com.github.kristofa.brave;
 
 import com.github.kristofa.brave.example.TestServerClientAndLocalSpanStateCompilation;
 import com.twitter.zipkin.gen.Span;
+import java.util.Collection;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -158,6 +159,79 @@ public class BraveExecutorServiceTest {
     )));
   }
 
+  @Test
+  public void wrapsWhenNoSpanIsInScope() {
+    BraveExecutorService executor = BraveExecutorService.wrap(wrappedExecutor, brave);
+    Callable<Boolean> callable = () -> true;
+
+    assertThat(executor.wrap(() -> {
+    })).isInstanceOf(BraveRunnable.class);
+    assertThat(executor.wrap(callable)).isInstanceOf(BraveCallable.class);
+    assertThat(executor.wrap(asList(callable, callable)))
+        .hasOnlyElementsOfType(BraveCallable.class);
+  }
+
+  /** With the thread-local state, the idle path neither captures nor binds spans. */
+  @Test
+  public void wrapsOnlyTheTaskWhenNoSpanIsInScope_threadLocalState() {
+    Brave brave = new Brave.Builder("test").reporter(Reporter.NOOP).build();
+    BraveExecutorService executor = BraveExecutorService.wrap(wrappedExecutor, brave);
+    Callable<Boolean> callable = () -> true;
+
+    assertThat(executor.wrap(() -> {
+    })).isInstanceOf(TaskWrapper.ClearingRunnable.class);
+    assertThat(executor.wrap(callable)).isInstanceOf(TaskWrapper.ClearingCallable.class);
+    assertThat(executor.wrap(asList(callable, callable)))
+        .hasOnlyElementsOfType(TaskWrapper.ClearingCallable.class);
+  }
+
+  @Test
+  public void hidesSpanLeftOnExecutorThreadWhenNoSpanIsInScope() throws Exception {
+    // spans need to be per-thread for one to be left on the executor thread
+    Brave brave = new Brave.Builder("test").reporter(Reporter.NOOP)
+        .traceSampler(Sampler.ALWAYS_SAMPLE).build();
+    ExecutorService executor = BraveExecutorService.wrap(wrappedExecutor, brave);
+    Callable<Span> currentLocalSpan = brave.localSpanThreadBinder()::getCurrentLocalSpan;
+    Span leaked = wrappedExecutor.submit(() -> {
+      brave.localTracer().startNewSpan(getClass().getSimpleName(), "leaked");
+      return currentLocalSpan.call();
+    }).get();
+
+    assertThat(executor.submit(currentLocalSpan).get()).isNull();
+    // the span left on the executor thread is restored after the task
+    assertThat(wrappedExecutor.submit(currentLocalSpan).get()).isSameAs(leaked);
+  }
+
+  @Test
+  public void wrapsWhenNotSampled() {
+    BraveExecutorService executor = BraveExecutorService.wrap(wrappedExecutor, brave);
+    brave.serverTracer().setStateNoTracing();
+
+    assertThat(executor.wrap(() -> {
+    })).isInstanceOf(BraveRunnable.class);
+  }
+
+  @Test
+  public void deprecatedConstructorAlwaysWraps() {
+    BraveExecutorService executor =
+        new BraveExecutorService(wrappedExecutor, brave.serverSpanThreadBinder());
+
+    assertThat(executor.wrap(() -> {
+    })).isInstanceOf(BraveRunnable.class);
+  }
+
+  @Test
+  public void invokeAll_wrapsTasksAsIterated() {
+    BraveExecutorService executor = BraveExecutorService.wrap(wrappedExecutor, brave);
+    createServerSpan.get();
+    Callable<Boolean> callable = () -> true;
+
+    Collection<? extends Callable<Boolean>> wrapped = executor.wrap(asList(callable, callable));
+
+    assertThat(wrapped).hasSize(2);
+    assertThat(wrapped).hasOnlyElementsOfType(BraveCallable.class);
+  }
+
   @Test
   public void closeInvokesShutdown() {
     BraveExecutorService.wrap(wrappedExecutor, brave).close();
@@ -1,8 +1,12 @@
 package com.github.kristofa.brave;
 
 import com.github.kristofa.brave.example.TestServerClientAndLocalSpanStateCompilation;
+import com.twitter.zipkin.gen.Endpoint;
 import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Supplier;
+import org.junit.After;
 import org.junit.Test;
 import zipkin.reporter.Reporter;
 
@@ -27,6 +31,12 @@ public class BraveRunnableTest {
     return currentLocalSpan.get();
   };
 
+  /** Spans of the thread-local state would otherwise leak into the next test. */
+  @After
+  public void clearSpans() {
+    brave.serverTracer().clearCurrentSpan();
+  }
+
   @Test
   public void attachesSpanInRunnable_deprecatedFactory() throws Exception {
     Span span = createServerSpan.get();
@@ -61,6 +71,77 @@ public class BraveRunnableTest {
     assertThat(currentLocalSpan.get()).isEqualTo(span);
   }
 
+  /** A stack of local spans should pop the task's span, as opposed to push the previous one. */
+  @Test
+  public void restoresSpanAfterRunnable_localStack() throws Exception {
+    brave = new Brave.Builder(Endpoint.create("test", 127 << 24 | 1))
+        .reporter(Reporter.NOOP)
+        .traceSampler(Sampler.ALWAYS_SAMPLE).build();
+
+    Span span = createLocalSpan.get();
+    Runnable runnable = BraveRunnable.wrap(() -> {
+      assertThat(currentLocalSpan.get()).isEqualTo(span);
+    }, brave);
+    Span nextSpan = createLocalSpan.get();
+
+    runnable.run();
+    assertThat(currentLocalSpan.get()).isEqualTo(nextSpan);
+
+    brave.localTracer().finishSpan();
+    assertThat(currentLocalSpan.get()).isEqualTo(span);
+    brave.localTracer().finishSpan();
+    assertThat(currentLocalSpan.get()).isNull();
+  }
+
+  /** The server span isn't bound again when it is in scope, as that would clear local spans. */
+  @Test
+  public void keepsLocalSpansOfCallerWhichRunsIt() throws Exception {
+    brave = new Brave.Builder(Endpoint.create("test", 127 << 24 | 1))
+        .reporter(Reporter.NOOP)
+        .traceSampler(Sampler.ALWAYS_SAMPLE).build();
+
+    Span serverSpan = createServerSpan.get();
+    Span span = createLocalSpan.get();
+    Runnable runnable = BraveRunnable.wrap(() -> {
+      assertThat(currentServerSpan.get()).isEqualTo(serverSpan);
+      assertThat(currentLocalSpan.get()).isEqualTo(span);
+    }, brave);
+    Span nextSpan = createLocalSpan.get();
+
+    runnable.run();
+    assertThat(currentLocalSpan.get()).isEqualTo(nextSpan);
+
+    brave.localTracer().finishSpan();
+    assertThat(currentLocalSpan.get()).isEqualTo(span);
+  }
+
+  @Test
+  public void bindsServerSpanOnThreadOfAnotherRequest() throws Exception {
+    brave = new Brave.Builder(Endpoint.create("test", 127 << 24 | 1))
+        .reporter(Reporter.NOOP)
+        .traceSampler(Sampler.ALWAYS_SAMPLE).build();
+
+    Span serverSpan = createServerSpan.get();
+    Runnable runnable = BraveRunnable.wrap(() -> {
+      assertThat(currentServerSpan.get()).isEqualTo(serverSpan);
+      assertThat(currentLocalSpan.get()).isNull();
+    }, brave);
+
+    ExecutorService otherThread = Executors.newSingleThreadExecutor();
+    try {
+      Span otherServerSpan = otherThread.submit(() -> {
+        Span result = createServerSpan.get();
+        createLocalSpan.get();
+        runnable.run(); // runs assertions
+        return result;
+      }).get();
+
+      assertThat(otherThread.submit(currentServerSpan::get).get()).isEqualTo(otherServerSpan);
+    } finally {
+      otherThread.shutdownNow();
+    }
+  }
+
   Span attachesSpanInRunnable(Supplier<Span> createSpan, Supplier<Span> currentSpan)
       throws Exception {
     Span span = createSpan.get();
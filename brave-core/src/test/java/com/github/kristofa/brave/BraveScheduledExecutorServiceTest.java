@@ -0,0 +1,72 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import zipkin.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BraveScheduledExecutorServiceTest {
+  Brave brave = new Brave.Builder(Endpoint.create("test", 127 << 24 | 1))
+      .reporter(Reporter.NOOP)
+      .traceSampler(Sampler.ALWAYS_SAMPLE).build();
+  ScheduledExecutorService executor =
+      BraveScheduledExecutorService.wrap(Executors.newSingleThreadScheduledExecutor(), brave);
+  BlockingQueue<Span> spanQueue = new LinkedBlockingQueue<>();
+
+  @After
+  public void close() {
+    executor.shutdownNow();
+    brave.serverTracer().clearCurrentSpan();
+  }
+
+  @Test
+  public void schedule_usesSpanAtSchedulingTime() throws Exception {
+    Span parent = createServerSpan();
+    ScheduledFuture<Span> future = executor.schedule(this::currentServerSpan, 10, TimeUnit.MILLISECONDS);
+    createServerSpan(); // changing the span after the fact!
+
+    assertThat(future.get()).isEqualTo(parent);
+  }
+
+  @Test
+  public void scheduleAtFixedRate_usesSpanAtSchedulingTimeEachRun() throws Exception {
+    Span parent = createServerSpan();
+    executor.scheduleAtFixedRate(() -> spanQueue.add(currentServerSpan()), 0, 10,
+        TimeUnit.MILLISECONDS);
+    brave.serverTracer().clearCurrentSpan();
+
+    assertThat(spanQueue.take()).isEqualTo(parent);
+    assertThat(spanQueue.take()).isEqualTo(parent);
+  }
+
+  @Test
+  public void scheduleWithFixedDelay_restoresSpanOfExecutorThread() throws Exception {
+    createServerSpan();
+    executor.scheduleWithFixedDelay(() -> {
+    }, 0, 10, TimeUnit.MILLISECONDS);
+    brave.serverTracer().clearCurrentSpan();
+    Thread.sleep(50);
+
+    // tasks scheduled without a span in scope run without one, whatever the last task left
+    assertThat(executor.schedule(this::currentServerSpan, 0, TimeUnit.MILLISECONDS).get())
+        .isNull();
+  }
+
+  Span createServerSpan() {
+    brave.serverTracer().setStateUnknown("test");
+    return currentServerSpan();
+  }
+
+  Span currentServerSpan() {
+    return brave.serverSpanThreadBinder().getCurrentServerSpan().getSpan();
+  }
+}
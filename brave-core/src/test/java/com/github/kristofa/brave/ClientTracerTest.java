@@ -176,6 +176,7 @@ public class ClientTracerTest {
         );
 
         verify(mockSampler).isSampled(TRACE_ID);
+        verify(mockSampler).isLocalOnly(TRACE_ID);
 
         verifyNoMoreInteractions(mockCollector, mockSampler);
     }
@@ -197,6 +198,7 @@ public class ClientTracerTest {
                 state.getCurrentClientSpan()
         );
 
+        verify(mockSampler).isLocalOnly(TRACE_ID);
         verifyNoMoreInteractions(mockCollector, mockSampler);
     }
 
@@ -217,12 +219,23 @@ public class ClientTracerTest {
     }
 
     @Test
-    public void setClientReceived_usesPreciseDuration() {
-        Span finished = new Span().setName("foo").setTimestamp(1000L); // set in start span
-        finished.startTick = 500000L; // set in start span
-        state.setCurrentClientSpan(finished);
+    public void testSamplerConsidersRequest() {
+        state.setCurrentServerSpan(ServerSpan.EMPTY);
+        SamplingRequest request = RouteSamplerTest.request("GET", "/health");
+        when(mockSampler.isSampled(TRACE_ID, request)).thenReturn(false);
+        when(mockRandom.nextLong()).thenReturn(TRACE_ID);
+
+        assertNull(clientTracer.startNewSpan(REQUEST_NAME, request));
+
+        verify(mockSampler).isSampled(TRACE_ID, request);
+        verifyNoMoreInteractions(mockSampler, mockCollector);
+    }
 
-        PowerMockito.when(System.nanoTime()).thenReturn(1000000L);
+    @Test
+    public void setClientReceived_usesClockForDuration() {
+        Span finished = new Span().setName("foo")
+            .setTimestamp(CURRENT_TIME_MICROSECONDS - 500L); // set in start span
+        state.setCurrentClientSpan(finished);
 
         clientTracer.setClientReceived();
 
@@ -235,12 +248,10 @@ public class ClientTracerTest {
     /** Duration of less than one microsecond is confusing to plot and could coerce to null. */
     @Test
     public void setClientReceived_lessThanMicrosRoundUp() {
-        Span finished = new Span().setName("foo").setTimestamp(1000L); // set in start span
-        finished.startTick = 500L; // set in start span
+        Span finished = new Span().setName("foo")
+            .setTimestamp(CURRENT_TIME_MICROSECONDS); // set in start span
         state.setCurrentClientSpan(finished);
 
-        PowerMockito.when(System.nanoTime()).thenReturn(1000L);
-
         clientTracer.setClientReceived();
 
         verify(mockCollector).collect(finished);
@@ -2,8 +2,8 @@ package com.github.kristofa.brave;
 
 import org.assertj.core.data.Percentage;
 import org.junit.Test;
-import org.junit.rules.ExpectedException;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.data.Percentage.withPercentage;
 
 public class CountingSamplerTest extends SamplerTest {
@@ -15,12 +15,35 @@ public class CountingSamplerTest extends SamplerTest {
     return withPercentage(0);
   }
 
-
   @Test
-  public void sampleRateMinimumOnePercent() throws Exception {
+  public void sampleRateMinimumOneInTenThousand() throws Exception {
     thrown.expect(IllegalArgumentException.class);
-    newSampler(0.0001f);
+    newSampler(0.00001f);
+  }
+
+  @Test
+  public void percentRatesAreAccurateInUnitsOf100() throws Exception {
+    assertPassesPerCycle(0.05f, 100, 5);
+  }
+
+  @Test
+  public void perMilleRatesAreAccurateInUnitsOf1000() throws Exception {
+    assertPassesPerCycle(0.005f, 1000, 5);
   }
 
+  @Test
+  public void perTenThousandRatesAreAccurateInUnitsOf10000() throws Exception {
+    assertPassesPerCycle(0.0005f, 10000, 5);
+  }
 
+  static void assertPassesPerCycle(float rate, int cycle, int expected) {
+    Sampler sampler = CountingSampler.create(rate);
+    for (int i = 0; i < 3; i++) {
+      int passed = 0;
+      for (int j = 0; j < cycle; j++) {
+        if (sampler.isSampled(0L)) passed++;
+      }
+      assertThat(passed).isEqualTo(expected);
+    }
+  }
 }
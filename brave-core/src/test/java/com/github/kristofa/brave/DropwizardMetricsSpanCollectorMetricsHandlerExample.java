@@ -2,10 +2,12 @@ package com.github.kristofa.brave;
 
 import com.codahale.metrics.MetricRegistry;
 
-class DropwizardMetricsSpanCollectorMetricsHandlerExample implements SpanCollectorMetricsHandler {
+class DropwizardMetricsSpanCollectorMetricsHandlerExample implements SpanLimitsMetricsHandler {
 
     static final String ACCEPTED_METER = "tracing.collector.scribe.span.accepted";
     static final String DROPPED_METER = "tracing.collector.scribe.span.dropped";
+    static final String TRUNCATED_METER = "tracing.collector.scribe.span.truncated";
+    static final String OVER_LIMIT_METER = "tracing.collector.scribe.span.over_limit";
 
     private final MetricRegistry registry;
 
@@ -23,4 +25,14 @@ class DropwizardMetricsSpanCollectorMetricsHandlerExample implements SpanCollect
         registry.meter(DROPPED_METER).mark(quantity);
     }
 
+    @Override
+    public void incrementTruncatedSpans(int quantity) {
+        registry.meter(TRUNCATED_METER).mark(quantity);
+    }
+
+    @Override
+    public void incrementOverLimitSpans(int quantity) {
+        registry.meter(OVER_LIMIT_METER).mark(quantity);
+    }
+
 }
@@ -1,9 +1,11 @@
 package com.github.kristofa.brave;
 
+import com.github.kristofa.brave.internal.Util;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class IdConversionTest {
 
@@ -83,4 +85,73 @@ public class IdConversionTest {
     assertThat(IdConversion.convertToLong("463ac35c9f6413ad48485a3953bb6124", 0))
         .isEqualTo(IdConversion.convertToLong("463ac35c9f6413ad"));
   }
+
+  @Test
+  public void toLowerHex_isFixedWidth() {
+    assertThat(IdConversion.toLowerHex(0L)).isEqualTo("0000000000000000");
+    assertThat(IdConversion.toLowerHex(-4667777584646200191L)).isEqualTo("bf38b90488a1e481");
+    assertThat(IdConversion.toLowerHex(1L, 2L))
+        .isEqualTo("00000000000000010000000000000002");
+  }
+
+  @Test
+  public void writeLowerHex_chars() {
+    char[] buffer = new char[18];
+    buffer[0] = '[';
+
+    assertThat(IdConversion.writeLowerHex(0x48485a3953bb6124L, buffer, 1)).isEqualTo(17);
+    buffer[17] = ']';
+
+    assertThat(new String(buffer)).isEqualTo("[48485a3953bb6124]");
+  }
+
+  @Test
+  public void writeLowerHex_bytes() {
+    byte[] buffer = new byte[16];
+
+    assertThat(IdConversion.writeLowerHex(Long.MIN_VALUE, buffer, 0)).isEqualTo(16);
+
+    assertThat(new String(buffer, Util.UTF_8)).isEqualTo("8000000000000000");
+  }
+
+  @Test
+  public void convertToLong_charSequenceRange() {
+    StringBuilder header = new StringBuilder("463ac35c9f6413ad48485a3953bb6124-1");
+
+    assertThat(IdConversion.convertToLong(header, 0, 16)).isEqualTo(0x463ac35c9f6413adL);
+    assertThat(IdConversion.convertToLong(header, 16, 32)).isEqualTo(0x48485a3953bb6124L);
+    assertThat(IdConversion.convertToLong(header, 33, 34)).isEqualTo(1L);
+  }
+
+  @Test
+  public void convertToLong_charSequenceRange_roundTrips() {
+    for (long id : new long[] {0L, 1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE}) {
+      assertThat(IdConversion.convertToLong(IdConversion.toLowerHex(id), 0, 16)).isEqualTo(id);
+    }
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void convertToLong_charSequenceRange_tooLong() {
+    IdConversion.convertToLong("463ac35c9f6413ad48485a3953bb6124", 0, 17);
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void convertToLong_charSequenceRange_empty() {
+    IdConversion.convertToLong("463ac35c9f6413ad", 3, 3);
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void convertToLong_charSequenceRange_outOfBounds() {
+    IdConversion.convertToLong("463ac35c9f6413ad", 8, 24);
+  }
+
+  @Test
+  public void convertToLong_charSequenceRange_invalidMessageIncludesRange() {
+    try {
+      IdConversion.convertToLong("abcdefgh", 4, 8);
+      fail();
+    } catch (NumberFormatException e) {
+      assertThat(e.getMessage()).startsWith("efgh should be");
+    }
+  }
 }
@@ -0,0 +1,114 @@
+package com.github.kristofa.brave;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IdGeneratorTest {
+
+  @Test
+  public void create_isRandom() {
+    IdGenerator generator = IdGenerator.create();
+
+    Set<Long> ids = new HashSet<>();
+    for (int i = 0; i < 10000; i++) {
+      ids.add(generator.nextId());
+    }
+
+    assertThat(ids).hasSize(10000).doesNotContain(0L);
+  }
+
+  @Test
+  public void create_threadsDontShareSequence() throws Exception {
+    IdGenerator generator = IdGenerator.create();
+    Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    int threads = 4, idsPerThread = 10000;
+    CountDownLatch start = new CountDownLatch(1);
+
+    ExecutorService exec = Executors.newFixedThreadPool(threads);
+    for (int i = 0; i < threads; i++) {
+      exec.execute(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        for (int j = 0; j < idsPerThread; j++) {
+          ids.add(generator.nextId());
+        }
+      });
+    }
+    start.countDown();
+    exec.shutdown();
+    assertThat(exec.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(ids).hasSize(threads * idsPerThread);
+  }
+
+  @Test
+  public void create_random_delegates() {
+    Random random = mock(Random.class);
+    when(random.nextLong()).thenReturn(1L, 0L);
+
+    IdGenerator generator = IdGenerator.create(random);
+
+    assertThat(generator.nextId()).isEqualTo(1L);
+    assertThat(generator.nextId()).isZero();
+  }
+
+  @Test
+  public void nextTraceIdHigh_defaultsToNextId() {
+    Random random = mock(Random.class);
+    when(random.nextLong()).thenReturn(1L);
+
+    assertThat(IdGenerator.create(random).nextTraceIdHigh()).isEqualTo(1L);
+  }
+
+  @Test
+  public void timePrefixed_topBitsAreEpochSeconds() {
+    Random random = mock(Random.class);
+    when(random.nextLong()).thenReturn(0xffffffff12345678L, 2L);
+    IdGenerator generator = IdGenerator.timePrefixed(IdGenerator.create(random));
+
+    long before = System.currentTimeMillis() / 1000;
+    long traceIdHigh = generator.nextTraceIdHigh();
+    long after = System.currentTimeMillis() / 1000;
+
+    assertThat(traceIdHigh >>> 32).isBetween(before, after);
+    assertThat(traceIdHigh & 0xffffffffL).isEqualTo(0x12345678L);
+    // other IDs are as random as the delegate
+    assertThat(generator.nextId()).isEqualTo(2L);
+  }
+
+  @Test
+  public void timePrefixed_128BitRootSpan() {
+    Brave brave = new Brave.Builder()
+        .traceId128Bit(true)
+        .idGenerator(IdGenerator.timePrefixed(IdGenerator.create()))
+        .build();
+
+    long before = System.currentTimeMillis() / 1000;
+    SpanId spanId = brave.localTracer().startNewSpan("test", "test");
+    long after = System.currentTimeMillis() / 1000;
+
+    assertThat(spanId.traceIdHigh >>> 32).isBetween(before, after);
+  }
+
+  @Test
+  public void mix64_zeroIsFixedPoint() {
+    // mix64 is a bijection, so zero is the only input which mixes to zero. nextId skips it.
+    assertThat(IdGenerator.ThreadLocalIdGenerator.mix64(0L)).isZero();
+    assertThat(IdGenerator.ThreadLocalIdGenerator.mix64(1L)).isNotZero();
+  }
+}
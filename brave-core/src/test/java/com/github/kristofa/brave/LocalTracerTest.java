@@ -106,6 +106,16 @@ public class LocalTracerTest {
         assertNull(started.startTick);
     }
 
+    /** An anchored clock is already based on nanotime, so no tick is recorded. */
+    @Test
+    public void startNewSpan_anchoredClockDoesntRecordTick() {
+        localTracer = LocalTracer.builder(localTracer).clock(AnchoredClock.create()).build();
+
+        localTracer.startNewSpan(COMPONENT_NAME, OPERATION_NAME);
+
+        assertNull(state.getCurrentLocalSpan().startTick);
+    }
+
     @Test
     public void startSpan_unsampled() {
         localTracer = LocalTracer
@@ -141,14 +151,32 @@ public class LocalTracerTest {
         assertEquals(500L, finished.getDuration().longValue());
     }
 
+    /**
+     * When no tick was recorded, as is the case with an {@link AnchoredClock}, the clock is read
+     * again to calculate duration.
+     */
+    @Test
+    public void finishSpan_noTickUsesClock() {
+        Span finished = new Span().setName("foo").setTimestamp(500L); // set in start span
+        state.setCurrentLocalSpan(finished);
+
+        PowerMockito.when(System.currentTimeMillis()).thenReturn(1L);
+
+        localTracer.finishSpan();
+
+        verify(mockReporter).report(finished.toZipkin());
+        verifyNoMoreInteractions(mockReporter);
+
+        assertEquals(500L, finished.getDuration().longValue());
+    }
+
     /** Duration of less than one microsecond is confusing to plot and could coerce to null. */
     @Test
     public void finishSpan_lessThanMicrosRoundUp() {
         Span finished = new Span().setName("foo").setTimestamp(1000L); // set in start span
-        finished.startTick = 500L; // set in start span
         state.setCurrentLocalSpan(finished);
 
-        PowerMockito.when(System.nanoTime()).thenReturn(1000L);
+        PowerMockito.when(System.currentTimeMillis()).thenReturn(1L);
 
         localTracer.finishSpan();
 
@@ -159,13 +187,13 @@ public class LocalTracerTest {
     }
 
     /**
-     * When a span is started with a timestamp, nanos aren't known, so duration calculation falls back to system time.
+     * When a span is started with a timestamp, duration is relative to the user-supplied timestamp.
      * <p>
      * <p/>Ex.
      * <pre>
-     * localTracer.startSpan(component, operation, startTime); // no tick was recorded
+     * localTracer.startSpan(component, operation, startTime); // the clock wasn't read
      * ...
-     * localTracer.finishSpan(); // can't know which nanos startTime was associated with!
+     * localTracer.finishSpan(); // duration is the clock minus startTime
      * </pre>
      */
     @Test
@@ -184,11 +212,11 @@ public class LocalTracerTest {
     }
 
     /**
-     * When a local span completes with a user supplied duration, startTick is ignored.
+     * When a local span completes with a user supplied duration, the clock is ignored.
      * <p>
      * <p/>Ex.
      * <pre>
-     * localTracer.startSpan(component, operation); // startTick was recorded, but ignored
+     * localTracer.startSpan(component, operation); // clock was read, but ignored at finish
      * ...
      * localTracer.finishSpan(duration); // user calculated duration out-of-band, ex with a stop watch.
      * </pre>
@@ -196,7 +224,6 @@ public class LocalTracerTest {
     @Test
     public void finishSpan_userSuppliedDuration() {
         Span finished = new Span().setName("foo").setTimestamp(1000L); // set in start span
-        finished.startTick = 500L; // set in start span
         state.setCurrentLocalSpan(finished);
 
         localTracer.finishSpan(500L);
@@ -208,13 +235,13 @@ public class LocalTracerTest {
     }
 
     /**
-     * When a span starts and finishes with user-supplied timestamp and duration, nanotime is used
+     * When a span starts and finishes with user-supplied timestamp and duration, the clock isn't read
      * <p>
      * <p/>Ex.
      * <pre>
-     * localTracer.startSpan(component, operation, startTime); // startTick was recorded
+     * localTracer.startSpan(component, operation, startTime); // the clock wasn't read
      * ...
-     * localTracer.finishSpan(duration); // nanoTime - startTick = duration
+     * localTracer.finishSpan(duration); // user calculated duration out-of-band
      * </pre>
      */
     @Test
@@ -302,6 +329,40 @@ public class LocalTracerTest {
         assertNull(state.getCurrentLocalSpan());
     }
 
+    @Test
+    public void startSpan_unsampled_leavesCurrentLocalSpan() {
+        state = new InheritableServerClientAndLocalSpanState(Endpoint.create("test-service", 127 << 24 | 1));
+        localTracer = LocalTracer
+                .builder(localTracer)
+                .spanAndEndpoint(SpanAndEndpoint.LocalSpanAndEndpoint.create(state))
+                .build();
+
+        SpanId span1 = localTracer.startNewSpan(COMPONENT_NAME, OPERATION_NAME);
+        localTracer = LocalTracer.builder(localTracer).traceSampler(Sampler.NEVER_SAMPLE).build();
+
+        assertNull(localTracer.startNewSpan(COMPONENT_NAME, OPERATION_NAME));
+        assertEquals(span1.spanId, state.getCurrentLocalSpan().getId());
+
+        localTracer.finishSpan();
+        assertNull(state.getCurrentLocalSpan());
+    }
+
+    @Test
+    public void startSpan_nested_childOfSampledSpanIsSampled() {
+        state = new InheritableServerClientAndLocalSpanState(Endpoint.create("test-service", 127 << 24 | 1));
+        localTracer = LocalTracer
+                .builder(localTracer)
+                .spanAndEndpoint(SpanAndEndpoint.LocalSpanAndEndpoint.create(state))
+                .allowNestedLocalSpans(true)
+                .build();
+
+        SpanId span1 = localTracer.startNewSpan(COMPONENT_NAME, OPERATION_NAME);
+        localTracer = LocalTracer.builder(localTracer).traceSampler(Sampler.NEVER_SAMPLE).build();
+
+        SpanId span2 = localTracer.startNewSpan(COMPONENT_NAME, OPERATION_NAME);
+        assertEquals(span1.spanId, span2.parentId);
+    }
+
     @Test
     public void startNewSpan_whenParentHas128bitTraceId() {
         ServerSpan parentSpan = ServerSpan.create(
@@ -0,0 +1,115 @@
+package com.github.kristofa.brave;
+
+import com.github.kristofa.brave.RateLimitingSampler.TokenBucket;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static com.github.kristofa.brave.RateLimitingSampler.TokenBucket.NANOS_PER_SECOND;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitingSamplerTest {
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void zeroMeansDropAllTraces() {
+    Sampler sampler = RateLimitingSampler.create(0);
+
+    assertThat(sampler).isSameAs(Sampler.NEVER_SAMPLE);
+    assertThat(new Random().longs(1000).filter(sampler::isSampled).findAny()).isEmpty();
+  }
+
+  @Test
+  public void tracesPerSecondCantBeNegative() {
+    thrown.expect(IllegalArgumentException.class);
+
+    RateLimitingSampler.create(-1);
+  }
+
+  @Test
+  public void debugTracesPerSecondCantBeNegative() {
+    thrown.expect(IllegalArgumentException.class);
+
+    RateLimitingSampler.create(1, -1);
+  }
+
+  @Test
+  public void keepsBurstOfTracesPerSecond() {
+    Sampler sampler = RateLimitingSampler.create(10);
+
+    // parallel to ensure there aren't any unsynchronized race conditions
+    assertThat(new Random().longs(100000).parallel().filter(sampler::isSampled).count())
+        .isBetween(10L, 15L); // over 10 only when this test spans tenths of a second
+  }
+
+  @Test
+  public void tokenBucket_full() {
+    TokenBucket bucket = new TokenBucket(10);
+    long now = System.nanoTime();
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(bucket.tryAcquire(now)).isTrue();
+    }
+    assertThat(bucket.tryAcquire(now)).isFalse();
+  }
+
+  @Test
+  public void tokenBucket_refillsAtRate() {
+    TokenBucket bucket = new TokenBucket(10);
+    long now = System.nanoTime();
+    while (bucket.tryAcquire(now)) ;
+
+    // one token is added each tenth of a second
+    assertThat(bucket.tryAcquire(now + NANOS_PER_SECOND / 20)).isFalse();
+    assertThat(bucket.tryAcquire(now + NANOS_PER_SECOND / 10)).isTrue();
+    assertThat(bucket.tryAcquire(now + NANOS_PER_SECOND / 10)).isFalse();
+  }
+
+  @Test
+  public void tokenBucket_doesntAccumulateOverASecond() {
+    TokenBucket bucket = new TokenBucket(10);
+    long later = System.nanoTime() + 60 * NANOS_PER_SECOND;
+
+    int acquired = 0;
+    while (bucket.tryAcquire(later)) acquired++;
+
+    assertThat(acquired).isEqualTo(10);
+  }
+
+  @Test
+  public void tokenBucket_handlesNegativeNanoTime() {
+    TokenBucket bucket = new TokenBucket(1);
+    bucket.emptyAt.set(Long.MAX_VALUE - 10);
+
+    // nanoTime overflowed since the bucket was last used
+    assertThat(bucket.tryAcquire(Long.MIN_VALUE + NANOS_PER_SECOND)).isTrue();
+    assertThat(bucket.tryAcquire(Long.MIN_VALUE + NANOS_PER_SECOND)).isFalse();
+  }
+
+  @Test
+  public void debugIsUnlimitedByDefault() {
+    Sampler sampler = RateLimitingSampler.create(1);
+
+    assertThat(new Random().longs(1000).allMatch(sampler::allowsDebug)).isTrue();
+  }
+
+  @Test
+  public void debugLimitedSeparately() {
+    Sampler sampler = RateLimitingSampler.create(0, 2);
+
+    assertThat(sampler.isSampled(1L)).isFalse();
+    assertThat(sampler.allowsDebug(1L)).isTrue();
+    assertThat(sampler.allowsDebug(1L)).isTrue();
+    assertThat(sampler.allowsDebug(1L)).isFalse();
+  }
+
+  @Test
+  public void debugLimitZeroMeansNoDebug() {
+    Sampler sampler = RateLimitingSampler.create(1, 0);
+
+    assertThat(sampler.allowsDebug(1L)).isFalse();
+    assertThat(sampler.isSampled(1L)).isTrue();
+  }
+}
@@ -0,0 +1,118 @@
+package com.github.kristofa.brave;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RouteSamplerTest {
+  Sampler health = Sampler.NEVER_SAMPLE;
+  Sampler checkout = Sampler.ALWAYS_SAMPLE;
+  Sampler api = CountingSampler.create(0.5f);
+  Sampler apiPost = CountingSampler.create(0.2f);
+  Sampler grpc = CountingSampler.create(0.3f);
+  Sampler defaultSampler = CountingSampler.create(0.1f);
+
+  RouteSampler sampler = RouteSampler.builder()
+      .addRule("GET", "/health", health)
+      .addRule("POST", "/checkout", checkout)
+      .addRule(null, "/api/", api)
+      .addRule("POST", "/api/", apiPost)
+      .addRule(null, "helloworld.Greeter/", grpc)
+      .build(defaultSampler);
+
+  @Test
+  public void noRuleMatches() {
+    assertThat(sampler.samplerFor("GET", "/")).isSameAs(defaultSampler);
+    assertThat(sampler.samplerFor("GET", "/heal")).isSameAs(defaultSampler);
+    assertThat(sampler.samplerFor(null, null)).isSameAs(defaultSampler);
+  }
+
+  @Test
+  public void prefixMatches() {
+    assertThat(sampler.samplerFor("GET", "/health")).isSameAs(health);
+    assertThat(sampler.samplerFor("GET", "/healthz")).isSameAs(health);
+    assertThat(sampler.samplerFor(null, "helloworld.Greeter/SayHello")).isSameAs(grpc);
+  }
+
+  @Test
+  public void methodMustMatch() {
+    assertThat(sampler.samplerFor("HEAD", "/health")).isSameAs(defaultSampler);
+    assertThat(sampler.samplerFor(null, "/health")).isSameAs(defaultSampler);
+    assertThat(sampler.samplerFor("POST", "/checkout/cart")).isSameAs(checkout);
+  }
+
+  @Test
+  public void methodWinsOverAnyMethod() {
+    assertThat(sampler.samplerFor("GET", "/api/users")).isSameAs(api);
+    assertThat(sampler.samplerFor("POST", "/api/users")).isSameAs(apiPost);
+  }
+
+  @Test
+  public void longestPrefixWins() {
+    RouteSampler sampler = RouteSampler.builder()
+        .addRule("GET", "/", api)
+        .addRule(null, "/static/", health)
+        .build(defaultSampler);
+
+    assertThat(sampler.samplerFor("GET", "/index.html")).isSameAs(api);
+    assertThat(sampler.samplerFor("GET", "/static/logo.png")).isSameAs(health);
+  }
+
+  @Test
+  public void emptyPrefixMatchesAll() {
+    RouteSampler sampler = RouteSampler.builder()
+        .addRule("OPTIONS", "", health)
+        .build(defaultSampler);
+
+    assertThat(sampler.samplerFor("OPTIONS", "/api")).isSameAs(health);
+    assertThat(sampler.samplerFor("GET", "/api")).isSameAs(defaultSampler);
+  }
+
+  @Test
+  public void laterRuleReplaces() {
+    RouteSampler sampler = RouteSampler.builder()
+        .addRule("GET", "/health", checkout)
+        .addRule("GET", "/health", health)
+        .build(defaultSampler);
+
+    assertThat(sampler.samplerFor("GET", "/health")).isSameAs(health);
+  }
+
+  @Test
+  public void isSampled_usesRequest() {
+    assertThat(sampler.isSampled(1L, request("GET", "/health"))).isFalse();
+    assertThat(sampler.isSampled(1L, request("POST", "/checkout"))).isTrue();
+  }
+
+  @Test
+  public void isSampled_withoutRequestUsesDefault() {
+    RouteSampler sampler = RouteSampler.builder()
+        .addRule(null, "", Sampler.NEVER_SAMPLE)
+        .build(Sampler.ALWAYS_SAMPLE);
+
+    assertThat(sampler.isSampled(1L)).isTrue();
+  }
+
+  @Test
+  public void ratesPerRule() {
+    RouteSampler sampler = RouteSampler.builder()
+        .addRule("GET", "/health", 0.0f)
+        .addRule(null, "/checkout", 1.0f)
+        .build(Sampler.NEVER_SAMPLE);
+
+    assertThat(sampler.samplerFor("GET", "/health")).isSameAs(Sampler.NEVER_SAMPLE);
+    assertThat(sampler.samplerFor("GET", "/checkout")).isSameAs(Sampler.ALWAYS_SAMPLE);
+  }
+
+  static SamplingRequest request(final String method, final String path) {
+    return new SamplingRequest() {
+      @Override public String method() {
+        return method;
+      }
+
+      @Override public String path() {
+        return path;
+      }
+    };
+  }
+}
@@ -10,7 +10,10 @@ import zipkin.reporter.Reporter;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 public class ServerRequestInterceptorTest {
 
@@ -30,6 +33,7 @@ public class ServerRequestInterceptorTest {
         .traceSampler(Sampler.ALWAYS_SAMPLE)
         .clock(AnnotationSubmitter.DefaultClock.INSTANCE)
         .traceId128Bit(false)
+        .spanLimits(SpanLimits.DEFAULT)
         .build();
     ServerRequestInterceptor interceptor = new ServerRequestInterceptor(serverTracer);
     ServerRequestAdapter adapter = mock(ServerRequestAdapter.class);
@@ -96,7 +100,6 @@ public class ServerRequestInterceptorTest {
         // don't log timestamp when span is client-originated
         Span span = state.getCurrentServerSpan().getSpan();
         assertThat(span.getTimestamp()).isNull();
-        assertThat(span.startTick).isNull();
     }
 
     @Test
@@ -113,7 +116,6 @@ public class ServerRequestInterceptorTest {
         // We originated the trace, so we should set the timestamp
         Span span = state.getCurrentServerSpan().getSpan();
         assertThat(span.getTimestamp()).isNotNull();
-        assertThat(span.startTick).isNotNull();
     }
 
     @Test
@@ -132,4 +134,96 @@ public class ServerRequestInterceptorTest {
         assertThat(serverTracer.spanAndEndpoint().state().getCurrentServerSpan())
             .isEqualTo(ServerSpan.NOT_SAMPLED);
     }
+
+    @Test
+    public void handleNoState_notSampled_doesntReadAdapter() {
+        serverTracer = new AutoValue_ServerTracer.Builder(serverTracer)
+            .traceSampler(Sampler.NEVER_SAMPLE)
+            .build();
+        interceptor = new ServerRequestInterceptor(serverTracer);
+        when(adapter.getTraceData()).thenReturn(TraceData.EMPTY);
+
+        interceptor.handle(adapter);
+
+        assertThat(state.getCurrentServerSpan())
+            .isEqualTo(ServerSpan.NOT_SAMPLED);
+        verify(adapter, never()).getSpanName();
+        verify(adapter, never()).requestAnnotations();
+    }
+
+    @Test
+    public void handle_debug_bypassesSampler() {
+        serverTracer = new AutoValue_ServerTracer.Builder(serverTracer)
+            .traceSampler(RateLimitingSampler.create(0, 1))
+            .build();
+        interceptor = new ServerRequestInterceptor(serverTracer);
+        SpanId spanId = SpanId.builder().traceId(TRACE_ID).spanId(SPAN_ID).debug(true).build();
+        when(adapter.getTraceData()).thenReturn(TraceData.create(spanId));
+        when(adapter.getSpanName()).thenReturn(SPAN_NAME);
+        when(adapter.requestAnnotations()).thenReturn(Collections.EMPTY_LIST);
+
+        interceptor.handle(adapter);
+
+        assertThat(state.getCurrentServerSpan().getSample())
+            .isTrue();
+        assertThat(state.getCurrentServerSpan().getSpan().isDebug())
+            .isTrue();
+    }
+
+    @Test
+    public void handle_debug_overSamplerLimit_isntDebug() {
+        serverTracer = new AutoValue_ServerTracer.Builder(serverTracer)
+            .traceSampler(RateLimitingSampler.create(0, 0))
+            .build();
+        interceptor = new ServerRequestInterceptor(serverTracer);
+        SpanId spanId = SpanId.builder().traceId(TRACE_ID).spanId(SPAN_ID).debug(true).build();
+        when(adapter.getTraceData()).thenReturn(TraceData.create(spanId));
+
+        interceptor.handle(adapter);
+
+        // the sampled flag was unset, so the sampler decided
+        assertThat(state.getCurrentServerSpan())
+            .isEqualTo(ServerSpan.NOT_SAMPLED);
+    }
+
+    @Test
+    public void handleNoState_samplesByRoute() {
+        serverTracer = new AutoValue_ServerTracer.Builder(serverTracer)
+            .traceSampler(RouteSampler.builder()
+                .addRule("GET", "/health", 0.0f)
+                .build(Sampler.ALWAYS_SAMPLE))
+            .build();
+        interceptor = new ServerRequestInterceptor(serverTracer);
+        ServerRequestAdapter adapter = mock(ServerRequestAdapter.class,
+            withSettings().extraInterfaces(SamplingRequest.class));
+        when(adapter.getTraceData()).thenReturn(TraceData.EMPTY);
+        when(((SamplingRequest) adapter).method()).thenReturn("GET");
+        when(((SamplingRequest) adapter).path()).thenReturn("/health");
+
+        interceptor.handle(adapter);
+
+        assertThat(state.getCurrentServerSpan())
+            .isEqualTo(ServerSpan.NOT_SAMPLED);
+        verify(adapter, never()).getSpanName();
+    }
+
+    @Test
+    public void handleUnsampledIds_samplesByRoute() {
+        serverTracer = new AutoValue_ServerTracer.Builder(serverTracer)
+            .traceSampler(RouteSampler.builder()
+                .addRule(null, "helloworld.Greeter/", 0.0f)
+                .build(Sampler.ALWAYS_SAMPLE))
+            .build();
+        interceptor = new ServerRequestInterceptor(serverTracer);
+        ServerRequestAdapter adapter = mock(ServerRequestAdapter.class,
+            withSettings().extraInterfaces(SamplingRequest.class));
+        SpanId spanId = SpanId.builder().traceId(TRACE_ID).spanId(SPAN_ID).parentId(null).build();
+        when(adapter.getTraceData()).thenReturn(TraceData.create(spanId));
+        when(((SamplingRequest) adapter).path()).thenReturn("helloworld.Greeter/SayHello");
+
+        interceptor.handle(adapter);
+
+        assertThat(state.getCurrentServerSpan())
+            .isEqualTo(ServerSpan.NOT_SAMPLED);
+    }
 }
@@ -1,6 +1,8 @@
 package com.github.kristofa.brave;
 
 
+import com.github.kristofa.brave.SpanAndEndpoint.ServerSpanAndEndpoint;
+import com.twitter.zipkin.gen.Endpoint;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
@@ -18,10 +20,14 @@ public class ServerResponseInterceptorTest {
     private ServerResponseInterceptor interceptor;
     private ServerTracer serverTracer;
     private ServerResponseAdapter adapter;
+    private ServerSpanState state =
+        new InheritableServerClientAndLocalSpanState(Endpoint.create("service", 127 << 24 | 1));
 
     @Before
     public void setup() {
+        state.setCurrentServerSpan(ServerSpan.create(SpanId.builder().spanId(1L).build(), "get"));
         serverTracer = mock(ServerTracer.class);
+        when(serverTracer.spanAndEndpoint()).thenReturn(ServerSpanAndEndpoint.create(state));
         interceptor = new ServerResponseInterceptor(serverTracer);
         adapter = mock(ServerResponseAdapter.class);
     }
@@ -32,6 +38,7 @@ public class ServerResponseInterceptorTest {
         when(adapter.responseAnnotations()).thenReturn(Collections.EMPTY_LIST);
         interceptor.handle(adapter);
         InOrder inOrder = inOrder(serverTracer, adapter);
+        inOrder.verify(serverTracer).spanAndEndpoint();
         inOrder.verify(adapter).responseAnnotations();
         inOrder.verify(serverTracer).setServerSend();
         inOrder.verify(serverTracer).clearCurrentSpan();
@@ -44,6 +51,7 @@ public class ServerResponseInterceptorTest {
         when(adapter.responseAnnotations()).thenReturn(Arrays.asList(ANNOTATION1, ANNOTATION2));
         interceptor.handle(adapter);
         InOrder inOrder = inOrder(serverTracer, adapter);
+        inOrder.verify(serverTracer).spanAndEndpoint();
         inOrder.verify(adapter).responseAnnotations();
         inOrder.verify(serverTracer).submitBinaryAnnotation(ANNOTATION1.getKey(), ANNOTATION1.getValue());
         inOrder.verify(serverTracer).submitBinaryAnnotation(ANNOTATION2.getKey(), ANNOTATION2.getValue());
@@ -51,4 +59,29 @@ public class ServerResponseInterceptorTest {
         inOrder.verify(serverTracer).clearCurrentSpan();
         verifyNoMoreInteractions(serverTracer);
     }
+
+    @Test
+    public void testHandleTagSource() {
+        adapter = mock(ServerResponseAdapter.class, withSettings().extraInterfaces(TagSource.class));
+        interceptor.handle(adapter);
+        InOrder inOrder = inOrder(serverTracer, adapter);
+        inOrder.verify(serverTracer).submitBinaryAnnotations((TagSource) adapter);
+        inOrder.verify(serverTracer).setServerSend();
+        inOrder.verify(serverTracer).clearCurrentSpan();
+        verify(adapter, never()).responseAnnotations();
+        verifyNoMoreInteractions(serverTracer);
+    }
+
+    @Test
+    public void testHandleNotSampled_doesntReadAnnotations() {
+        state.setCurrentServerSpan(ServerSpan.NOT_SAMPLED);
+
+        interceptor.handle(adapter);
+        InOrder inOrder = inOrder(serverTracer, adapter);
+        inOrder.verify(serverTracer).spanAndEndpoint();
+        inOrder.verify(serverTracer).setServerSend();
+        inOrder.verify(serverTracer).clearCurrentSpan();
+        verify(adapter, never()).responseAnnotations();
+        verifyNoMoreInteractions(serverTracer);
+    }
 }
@@ -271,14 +271,12 @@ public class ServerTracerTest {
     }
 
     @Test
-    public void setServerSend_usesPreciseDuration() {
-        Span finished = new Span().setName("foo").setTimestamp(1000L); // set in start span
-        finished.startTick = 500000L; // set in start span
+    public void setServerSend_usesClockForDuration() {
+        Span finished = new Span().setName("foo")
+            .setTimestamp(CURRENT_TIME_MICROSECONDS - 500L); // set in start span
         when(mockServerSpan.getSpan()).thenReturn(finished);
         when(mockServerSpanState.getCurrentServerSpan()).thenReturn(mockServerSpan);
 
-        PowerMockito.when(System.nanoTime()).thenReturn(1000000L);
-
         serverTracer.setServerSend();
 
         verify(mockSpanCollector).collect(finished);
@@ -290,13 +288,11 @@ public class ServerTracerTest {
     /** Duration of less than one microsecond is confusing to plot and could coerce to null. */
     @Test
     public void setServerSend_lessThanMicrosRoundUp() {
-        Span finished = new Span().setName("foo").setTimestamp(1000L); // set in start span
-        finished.startTick = 500L; // set in start span
+        Span finished = new Span().setName("foo")
+            .setTimestamp(CURRENT_TIME_MICROSECONDS); // set in start span
         when(mockServerSpan.getSpan()).thenReturn(finished);
         when(mockServerSpanState.getCurrentServerSpan()).thenReturn(mockServerSpan);
 
-        PowerMockito.when(System.nanoTime()).thenReturn(1000L);
-
         serverTracer.setServerSend();
 
         verify(mockSpanCollector).collect(finished);
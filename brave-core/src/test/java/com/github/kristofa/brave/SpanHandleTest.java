@@ -0,0 +1,213 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Test;
+import zipkin.Constants;
+import zipkin.Span;
+import zipkin.TraceKeys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class SpanHandleTest {
+  List<Span> spans = Collections.synchronizedList(new ArrayList<Span>());
+  AtomicLong clock = new AtomicLong();
+  Brave brave = newBrave(Sampler.ALWAYS_SAMPLE);
+
+  Brave newBrave(Sampler sampler) {
+    return new Brave.Builder("service")
+        .reporter(spans::add)
+        .traceSampler(sampler)
+        .clock(() -> clock.addAndGet(1000L))
+        .build();
+  }
+
+  @After
+  public void clearState() {
+    brave.localSpanThreadBinder().setCurrentSpan(null);
+    brave.clientSpanThreadBinder().setCurrentSpan(null);
+  }
+
+  @Test
+  public void client_finishesOnAnotherThread() throws Exception {
+    SpanHandle span = brave.clientTracer().newSpan("get");
+    span.tag(TraceKeys.HTTP_URL, "/foo").start();
+
+    Thread thread = new Thread(() -> span.tag(TraceKeys.HTTP_STATUS_CODE, 500).finish());
+    thread.start();
+    thread.join();
+
+    assertThat(spans).hasSize(1);
+    Span reported = spans.get(0);
+    assertThat(reported.id).isEqualTo(span.spanId().spanId);
+    assertThat(reported.timestamp).isEqualTo(1000L);
+    assertThat(reported.duration).isEqualTo(1000L);
+    assertThat(reported.annotations).extracting(a -> a.value, a -> a.timestamp).containsExactly(
+        tuple(Constants.CLIENT_SEND, 1000L),
+        tuple(Constants.CLIENT_RECV, 2000L)
+    );
+    assertThat(reported.binaryAnnotations).extracting(b -> b.key)
+        .containsExactly(TraceKeys.HTTP_STATUS_CODE, TraceKeys.HTTP_URL);
+  }
+
+  @Test
+  public void client_notBoundToThread() {
+    brave.clientTracer().newSpan("get").start();
+
+    assertThat(brave.clientSpanThreadBinder().getCurrentClientSpan()).isNull();
+  }
+
+  @Test
+  public void client_parentIsCurrentLocalSpan() {
+    SpanId local = brave.localTracer().startNewSpan("codec", "encode");
+
+    SpanId client = brave.clientTracer().newSpan("get").spanId();
+
+    assertThat(client.traceId).isEqualTo(local.traceId);
+    assertThat(client.parentId).isEqualTo(local.spanId);
+  }
+
+  @Test
+  public void client_remoteEndpoint() {
+    Endpoint backend = Endpoint.builder().serviceName("backend").ipv4(127 << 24 | 1).build();
+    brave.clientTracer().newSpan("get")
+        .remoteEndpoint(backend)
+        .start()
+        .finish();
+
+    assertThat(spans.get(0).binaryAnnotations).extracting(b -> b.key, b -> b.endpoint.serviceName)
+        .containsExactly(tuple(Constants.SERVER_ADDR, "backend"));
+  }
+
+  @Test
+  public void finish_reportsOnce() {
+    SpanHandle span = brave.clientTracer().newSpan("get").start();
+
+    span.finish();
+    span.finish();
+
+    assertThat(spans).hasSize(1);
+  }
+
+  @Test
+  public void notSampled_isNoop() {
+    brave = newBrave(Sampler.NEVER_SAMPLE);
+    SpanHandle span = brave.clientTracer().newSpan("get");
+
+    span.tag("foo", "bar").annotate("baz").start().bind().finish();
+
+    assertThat(span.isNoop()).isTrue();
+    assertThat(span.spanId()).isNull();
+    assertThat(brave.clientSpanThreadBinder().getCurrentClientSpan()).isNull();
+    assertThat(spans).isEmpty();
+  }
+
+  @Test
+  public void bind_isCurrentUntilFinished() {
+    SpanHandle span = brave.clientTracer().newSpan("get").start().bind();
+
+    assertThat(brave.clientSpanThreadBinder().getCurrentClientSpan().getId())
+        .isEqualTo(span.spanId().spanId);
+
+    span.finish();
+
+    assertThat(brave.clientSpanThreadBinder().getCurrentClientSpan()).isNull();
+  }
+
+  @Test
+  public void local_bind_parentsNestedSpans() {
+    SpanHandle parent = brave.localTracer().newSpan("codec", "encode").start().bind();
+
+    SpanId child = brave.clientTracer().newSpan("get").spanId();
+
+    assertThat(child.parentId).isEqualTo(parent.spanId().spanId);
+    parent.finish();
+    assertThat(brave.localSpanThreadBinder().getCurrentLocalSpan()).isNull();
+  }
+
+  @Test
+  public void local_recordsComponentAndDuration() {
+    brave.localTracer().newSpan("codec", "encode").annotate("flushed").start().finish();
+
+    Span reported = spans.get(0);
+    assertThat(reported.name).isEqualTo("encode");
+    assertThat(reported.timestamp).isEqualTo(2000L);
+    assertThat(reported.duration).isEqualTo(1000L);
+    assertThat(reported.annotations).extracting(a -> a.value).containsExactly("flushed");
+    assertThat(reported.binaryAnnotations).extracting(b -> b.key)
+        .containsExactly(Constants.LOCAL_COMPONENT);
+  }
+
+  @Test
+  public void interceptors() {
+    ClientRequestAdapter request = mock(ClientRequestAdapter.class);
+    when(request.getSpanName()).thenReturn("get");
+    when(request.requestAnnotations())
+        .thenReturn(Collections.singletonList(KeyValueAnnotation.create(TraceKeys.HTTP_URL, "/")));
+    ClientResponseAdapter response = mock(ClientResponseAdapter.class);
+    when(response.responseAnnotations()).thenReturn(Collections.emptyList());
+
+    SpanHandle span = brave.clientRequestInterceptor().startSpan(request);
+    brave.clientResponseInterceptor().handle(response, span);
+
+    assertThat(brave.clientSpanThreadBinder().getCurrentClientSpan()).isNull();
+    assertThat(spans).hasSize(1);
+    assertThat(spans.get(0).annotations).extracting(a -> a.value)
+        .containsExactly(Constants.CLIENT_SEND, Constants.CLIENT_RECV);
+    assertThat(spans.get(0).binaryAnnotations).extracting(b -> b.key)
+        .containsExactly(TraceKeys.HTTP_URL);
+  }
+
+  @Test
+  public void interceptors_samplesByRoute() {
+    brave = newBrave(new Sampler() {
+      @Override public boolean isSampled(long traceId) {
+        return true;
+      }
+
+      @Override public boolean isSampled(long traceId, SamplingRequest request) {
+        return !request.path().equals("/health");
+      }
+    });
+    ClientRequestAdapter request =
+        mock(ClientRequestAdapter.class, withSettings().extraInterfaces(SamplingRequest.class));
+    when(request.getSpanName()).thenReturn("get");
+    when(((SamplingRequest) request).path()).thenReturn("/health");
+
+    assertThat(brave.clientRequestInterceptor().startSpan(request).isNoop()).isTrue();
+    verify(request).addSpanIdToRequest(null);
+  }
+
+  @Test
+  public void interceptors_tagSource() {
+    ClientRequestAdapter request =
+        mock(ClientRequestAdapter.class, withSettings().extraInterfaces(TagSource.class));
+    when(request.getSpanName()).thenReturn("get");
+    doAnswer(invocation -> {
+      TagSource.Consumer consumer = (TagSource.Consumer) invocation.getArguments()[0];
+      consumer.accept(TraceKeys.HTTP_URL, "/");
+      consumer.accept(TraceKeys.HTTP_METHOD, "GET");
+      return null;
+    }).when((TagSource) request).forEachTag(any(TagSource.Consumer.class));
+
+    SpanHandle span = brave.clientRequestInterceptor().startSpan(request);
+    span.finish();
+
+    verify(request, never()).requestAnnotations();
+    assertThat(spans.get(0).binaryAnnotations).extracting(b -> b.key, b -> b.value)
+        .containsExactly(tuple(TraceKeys.HTTP_METHOD, "GET".getBytes()),
+            tuple(TraceKeys.HTTP_URL, "/".getBytes()));
+  }
+}
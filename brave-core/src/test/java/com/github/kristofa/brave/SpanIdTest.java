@@ -3,11 +3,16 @@ package com.github.kristofa.brave;
 import com.twitter.finagle.tracing.TraceId;
 import com.twitter.finagle.tracing.TraceId$;
 import com.twitter.zipkin.gen.Span;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 
 public class SpanIdTest {
   @Rule
@@ -92,6 +97,113 @@ public class SpanIdTest {
     SpanId.fromBytes("not-a-trace".getBytes());
   }
 
+  @Test public void writeTo_matchesBytes() {
+    SpanId id = SpanId.builder().traceIdHigh(4L).traceId(1L).parentId(2L).spanId(3L)
+        .sampled(true).build();
+    ByteBuffer buffer = ByteBuffer.allocate(id.sizeInBytes() + 2);
+    buffer.position(2);
+
+    id.writeTo(buffer);
+
+    assertThat(buffer.position()).isEqualTo(42);
+    assertThat(Arrays.copyOfRange(buffer.array(), 2, 42)).isEqualTo(id.bytes());
+    assertThat(SpanId.readFrom(buffer, 2))
+        .isEqualToComparingFieldByField(id);
+  }
+
+  @Test public void writeTo_bigEndianRegardlessOfOrder() {
+    SpanId id = SpanId.builder().traceId(1L).parentId(2L).spanId(3L).build();
+    ByteBuffer buffer = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+
+    id.writeTo(buffer);
+
+    assertThat(buffer.array()).isEqualTo(id.bytes());
+    assertThat(SpanId.readFrom(buffer, 0))
+        .isEqualToComparingFieldByField(id);
+  }
+
+  @Test public void writeTo_overflow() {
+    SpanId id = SpanId.builder().spanId(1L).build();
+    ByteBuffer buffer = ByteBuffer.allocate(31);
+
+    try {
+      id.writeTo(buffer);
+      failBecauseExceptionWasNotThrown(BufferOverflowException.class);
+    } catch (BufferOverflowException e) {
+    }
+    assertThat(buffer.position()).isZero();
+  }
+
+  @Test public void readFromFail() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("length 31 != 32 or 40");
+
+    SpanId.readFrom(ByteBuffer.allocate(33), 2);
+  }
+
+  @Test public void compact_rootSpan() {
+    SpanId id = SpanId.builder().spanId(333L).sampled(true).build();
+
+    assertThat(id.compactSizeInBytes()).isEqualTo(9);
+    assertThat(compactRoundTrip(id))
+        .isEqualToComparingFieldByField(id);
+  }
+
+  @Test public void compact_rootSpan_whenTraceIdsArentSpanIds() {
+    SpanId id = SpanId.builder().traceId(555L).parentId(null).spanId(333L).build();
+
+    assertThat(id.compactSizeInBytes()).isEqualTo(17);
+    assertThat(compactRoundTrip(id))
+        .isEqualToComparingFieldByField(id);
+  }
+
+  @Test public void compact_childSpan() {
+    SpanId id = SpanId.builder().traceId(1L).parentId(1L).spanId(2L).debug(true).build();
+
+    assertThat(id.compactSizeInBytes()).isEqualTo(17);
+    assertThat(compactRoundTrip(id))
+        .isEqualToComparingFieldByField(id);
+  }
+
+  @Test public void compact_allIds() {
+    SpanId id = SpanId.builder().traceIdHigh(4L).traceId(1L).parentId(2L).spanId(3L)
+        .sampled(false).build();
+
+    assertThat(id.compactSizeInBytes()).isEqualTo(33);
+    assertThat(compactRoundTrip(id))
+        .isEqualToComparingFieldByField(id);
+  }
+
+  @Test public void compact_consecutive() {
+    SpanId first = SpanId.builder().spanId(1L).build();
+    SpanId second = SpanId.builder().traceId(1L).parentId(1L).spanId(2L).build();
+    ByteBuffer buffer = ByteBuffer.allocate(first.compactSizeInBytes()
+        + second.compactSizeInBytes());
+
+    first.writeCompactTo(buffer);
+    second.writeCompactTo(buffer);
+    assertThat(buffer.hasRemaining()).isFalse();
+
+    SpanId read = SpanId.readCompactFrom(buffer, 0);
+    assertThat(read).isEqualToComparingFieldByField(first);
+    assertThat(SpanId.readCompactFrom(buffer, read.compactSizeInBytes()))
+        .isEqualToComparingFieldByField(second);
+  }
+
+  @Test public void readCompactFromFail() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("invalid header ff");
+
+    SpanId.readCompactFrom(ByteBuffer.wrap(new byte[] {-1, 0, 0, 0, 0, 0, 0, 0, 0}), 0);
+  }
+
+  static SpanId compactRoundTrip(SpanId id) {
+    ByteBuffer buffer = ByteBuffer.allocate(id.compactSizeInBytes());
+    id.writeCompactTo(buffer);
+    assertThat(buffer.hasRemaining()).isFalse();
+    return SpanId.readCompactFrom(buffer, 0);
+  }
+
   @Test public void sampledTrueWhenDebug() {
     SpanId id = SpanId.builder().spanId(1L).debug(true).build();
 
@@ -206,6 +318,27 @@ public class SpanIdTest {
         .isEqualTo("00000000000000010000000000000002");
   }
 
+  @Test
+  public void idStrings_areFixedWidthAndCached() {
+    SpanId id = SpanId.builder().traceId(1L).parentId(2L).spanId(3L).build();
+
+    assertThat(id.spanIdString())
+        .isEqualTo("0000000000000003")
+        .isSameAs(id.spanIdString());
+    assertThat(id.parentIdString())
+        .isEqualTo("0000000000000002")
+        .isSameAs(id.parentIdString());
+    assertThat(id.traceIdString())
+        .isSameAs(id.traceIdString());
+  }
+
+  @Test
+  public void parentIdString_nullWhenRoot() {
+    SpanId id = SpanId.builder().traceId(1L).parentId(null).spanId(3L).build();
+
+    assertThat(id.parentIdString()).isNull();
+  }
+
   @Test
   public void serializeRoundTrip_128() {
     SpanId id = SpanId.builder().traceIdHigh(1).traceId(2).spanId(3).parentId(2L).build();
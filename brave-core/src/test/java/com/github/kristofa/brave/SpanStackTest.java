@@ -0,0 +1,65 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Span;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanStackTest {
+  SpanStack stack = new SpanStack();
+
+  @Test
+  public void emptyStack() {
+    assertThat(stack.peek()).isNull();
+    assertThat(stack.pop()).isNull();
+    assertThat(stack.size()).isZero();
+  }
+
+  @Test
+  public void popRestoresParent() {
+    Span parent = span(1L);
+    Span child = span(2L);
+    stack.push(parent);
+    stack.push(child);
+
+    assertThat(stack.peek()).isSameAs(child);
+    assertThat(stack.pop()).isSameAs(child);
+    assertThat(stack.peek()).isSameAs(parent);
+  }
+
+  @Test
+  public void growsPastInitialCapacity() {
+    int depth = SpanStack.INITIAL_CAPACITY * 2 + 1;
+    for (long i = 1; i <= depth; i++) stack.push(span(i));
+
+    assertThat(stack.size()).isEqualTo(depth);
+    for (long i = depth; i >= 1; i--) assertThat(stack.pop().getId()).isEqualTo(i);
+    assertThat(stack.peek()).isNull();
+  }
+
+  @Test
+  public void setNullPops() {
+    stack.set(span(1L));
+    stack.set(null);
+
+    assertThat(stack.peek()).isNull();
+  }
+
+  @Test
+  public void copyIsIndependent() {
+    Span parent = span(1L);
+    stack.push(parent);
+
+    SpanStack copy = stack.copy();
+    copy.push(span(2L));
+    stack.pop();
+
+    assertThat(stack.peek()).isNull();
+    assertThat(copy.pop().getId()).isEqualTo(2L);
+    assertThat(copy.peek()).isSameAs(parent);
+  }
+
+  static Span span(long id) {
+    return Span.fromSpanId(SpanId.builder().traceId(1L).spanId(id).build());
+  }
+}
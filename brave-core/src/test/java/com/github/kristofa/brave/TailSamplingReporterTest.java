@@ -0,0 +1,191 @@
+package com.github.kristofa.brave;
+
+import com.twitter.zipkin.gen.Endpoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import zipkin.Constants;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TailSamplingReporterTest {
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  List<zipkin.Span> spans = new ArrayList<>();
+  long timestamp = 1000L; // microseconds
+  TailSamplingReporter tail = TailSamplingReporter.builder(spans::add)
+      .latencyThreshold(1, TimeUnit.SECONDS)
+      .window(30, TimeUnit.SECONDS)
+      .maxSpans(32) // 2 per stripe
+      .build();
+  Brave brave = brave(tail);
+
+  @Test
+  public void discardsFastTraces() {
+    tracedRequest(100L, false);
+
+    assertThat(spans).isEmpty();
+    assertThat(tail.tracesDiscarded()).isEqualTo(1);
+    assertThat(tail.spansBuffered()).isZero();
+  }
+
+  @Test
+  public void reportsSlowTraces() {
+    tracedRequest(TimeUnit.SECONDS.toMicros(1), false);
+
+    assertThat(spans).extracting(s -> s.name).containsExactly("child", "get");
+    assertThat(tail.tracesReported()).isEqualTo(1);
+    assertThat(tail.spansBuffered()).isZero();
+  }
+
+  @Test
+  public void reportsFailedTraces() {
+    tracedRequest(100L, true);
+
+    assertThat(spans).extracting(s -> s.name).containsExactly("child", "get");
+    assertThat(tail.tracesReported()).isEqualTo(1);
+  }
+
+  @Test
+  public void reportsHeadSampledTracesWithoutBuffering() {
+    tail = TailSamplingReporter.builder(spans::add).headSampler(Sampler.ALWAYS_SAMPLE).build();
+    brave = brave(tail);
+
+    brave.localTracer().startNewSpan("tail", "get");
+    brave.localTracer().finishSpan();
+
+    assertThat(spans).hasSize(1);
+    assertThat(tail.tracesReported()).isZero();
+  }
+
+  @Test
+  public void reportsPropagatedTracesWithoutBuffering() {
+    SpanId id = SpanId.builder().traceId(1L).parentId(1L).spanId(2L).sampled(true).build();
+
+    tail.report(span(id, 100L), 0L);
+
+    assertThat(spans).hasSize(1);
+  }
+
+  @Test
+  public void spansAfterTheLocalRootFollowTheDecision() {
+    tail.begin(1L, 0L);
+    tail.report(span(SpanId.builder().traceId(1L).spanId(1L).build(), 100L), 0L);
+
+    tail.report(span(SpanId.builder().traceId(1L).parentId(1L).spanId(2L).build(), 100L), 0L);
+
+    assertThat(spans).isEmpty();
+    assertThat(tail.tracesDiscarded()).isEqualTo(1);
+  }
+
+  @Test
+  public void evictsOldestWhenFull() {
+    // trace IDs 16 and 32 share a stripe
+    tail.begin(16L, 0L);
+    tail.report(span(SpanId.builder().traceId(16L).parentId(16L).spanId(1L).build(), 1L), 0L);
+    tail.report(span(SpanId.builder().traceId(16L).parentId(16L).spanId(2L).build(), 1L), 0L);
+    tail.begin(32L, 1L);
+    tail.report(span(SpanId.builder().traceId(32L).parentId(32L).spanId(1L).build(), 1L), 1L);
+
+    assertThat(tail.tracesEvicted()).isEqualTo(1);
+    assertThat(tail.spansEvicted()).isEqualTo(2);
+    assertThat(tail.spansBuffered()).isEqualTo(1);
+
+    // even if slow, the rest of an evicted trace is discarded
+    long slow = TimeUnit.SECONDS.toMicros(2);
+    tail.report(span(SpanId.builder().traceId(16L).spanId(16L).build(), slow), 1L);
+    assertThat(spans).isEmpty();
+  }
+
+  @Test
+  public void reportsTracesStillBufferingAfterWindow() {
+    tail.begin(1L, 0L);
+    tail.report(span(SpanId.builder().traceId(1L).parentId(1L).spanId(2L).build(), 1L), 0L);
+
+    tail.begin(17L, TimeUnit.SECONDS.toNanos(30)); // same stripe as trace ID 1
+
+    assertThat(spans).extracting(s -> s.id).containsExactly(2L);
+    assertThat(tail.tracesReported()).isEqualTo(1);
+    assertThat(tail.spansBuffered()).isZero();
+
+    // the rest of the trace is reported, too
+    tail.report(span(SpanId.builder().traceId(1L).spanId(1L).build(), 1L),
+        TimeUnit.SECONDS.toNanos(31));
+    assertThat(spans).extracting(s -> s.id).containsExactly(2L, 1L);
+  }
+
+  @Test
+  public void propagatesHeadDecision() {
+    brave.localTracer().startNewSpan("tail", "get", timestamp);
+
+    SpanId spanId = brave.clientTracer().startNewSpan("call");
+
+    assertThat(spanId.sampled()).isFalse();
+    assertThat(ClientRequestInterceptor.propagated(spanId)).isNull();
+  }
+
+  @Test
+  public void propagatesHeadSampledTraces() {
+    tail = TailSamplingReporter.builder(spans::add).headSampler(Sampler.ALWAYS_SAMPLE).build();
+    brave = brave(tail);
+    brave.localTracer().startNewSpan("tail", "get", timestamp);
+
+    SpanId spanId = brave.clientTracer().startNewSpan("call");
+
+    assertThat(spanId.sampled()).isNull();
+    assertThat(ClientRequestInterceptor.propagated(spanId)).isSameAs(spanId);
+  }
+
+  @Test
+  public void windowCantBeLessThanLatencyThreshold() {
+    thrown.expect(IllegalArgumentException.class);
+
+    TailSamplingReporter.builder(spans::add)
+        .latencyThreshold(2, TimeUnit.SECONDS)
+        .window(1, TimeUnit.SECONDS)
+        .build();
+  }
+
+  @Test
+  public void maxSpansCantBeLessThanStripes() {
+    thrown.expect(IllegalArgumentException.class);
+
+    TailSamplingReporter.builder(spans::add).maxSpans(TailSamplingReporter.STRIPES - 1);
+  }
+
+  /**
+   * Simulates a request with a local span inside of it. Spans start at explicit timestamps, so
+   * that their durations are read from the clock, as opposed to {@link System#nanoTime()}.
+   */
+  void tracedRequest(long duration, boolean error) {
+    brave.localTracer().startNewSpan("tail", "get", timestamp);
+    brave.localTracer().startNewSpan("tail", "child", timestamp);
+    if (error) brave.localTracer().submitBinaryAnnotation(Constants.ERROR, "timeout");
+    timestamp += duration;
+    brave.localTracer().finishSpan();
+    brave.localTracer().finishSpan();
+  }
+
+  Brave brave(TailSamplingReporter tail) {
+    Endpoint endpoint = Endpoint.create("tail", 127 << 24 | 1);
+    return new Brave.Builder(new InheritableServerClientAndLocalSpanState(endpoint))
+        .traceSampler(tail.sampler())
+        .reporter(tail)
+        .clock(() -> timestamp)
+        .build();
+  }
+
+  static zipkin.Span span(SpanId id, long duration) {
+    return zipkin.Span.builder()
+        .traceId(id.traceId)
+        .parentId(id.nullableParentId())
+        .id(id.spanId)
+        .name("span")
+        .timestamp(1000L)
+        .duration(duration).build();
+  }
+}
@@ -1,6 +1,7 @@
 package com.github.kristofa.brave;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
@@ -9,6 +10,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.github.kristofa.brave.ThreadLocalServerClientAndLocalSpanState.CurrentSpans;
 import com.twitter.zipkin.gen.Span;
 
 public class ThreadLocalServerClientAndLocalSpanStateTest {
@@ -31,6 +33,7 @@ public class ThreadLocalServerClientAndLocalSpanStateTest {
     public void tearDown() {
         serverAndClientSpanState.setCurrentClientSpan(null);
         serverAndClientSpanState.setCurrentServerSpan(null);
+        serverAndClientSpanState.setCurrentLocalSpan(null);
     }
 
     @Test
@@ -41,6 +44,14 @@ public class ThreadLocalServerClientAndLocalSpanStateTest {
         assertNull("Should not have been modified.", serverAndClientSpanState.getCurrentClientSpan());
     }
 
+    @Test
+    public void testClearCurrentServerSpan() {
+        serverAndClientSpanState.setCurrentServerSpan(mockServerSpan);
+        serverAndClientSpanState.setCurrentServerSpan(null);
+        assertEquals(ServerSpan.EMPTY, serverAndClientSpanState.getCurrentServerSpan());
+        assertNull(serverAndClientSpanState.sample());
+    }
+
     @Test
     public void testGetAndSetCurrentClientSpan() {
         assertNull(serverAndClientSpanState.getCurrentClientSpan());
@@ -50,4 +61,115 @@ public class ThreadLocalServerClientAndLocalSpanStateTest {
             serverAndClientSpanState.getCurrentServerSpan());
     }
 
+    @Test
+    public void testNestedLocalSpansRestoreParent() {
+        Span parent = mock(Span.class);
+        serverAndClientSpanState.setCurrentLocalSpan(parent);
+        serverAndClientSpanState.setCurrentLocalSpan(mockSpan);
+        assertSame(mockSpan, serverAndClientSpanState.getCurrentLocalSpan());
+
+        serverAndClientSpanState.setCurrentLocalSpan(null);
+        assertSame(parent, serverAndClientSpanState.getCurrentLocalSpan());
+
+        serverAndClientSpanState.setCurrentLocalSpan(null);
+        assertNull(serverAndClientSpanState.getCurrentLocalSpan());
+    }
+
+    @Test
+    public void setCurrentServerSpan_clearsLocalSpans() {
+        serverAndClientSpanState.setCurrentLocalSpan(mockSpan);
+        serverAndClientSpanState.setCurrentLocalSpan(mockSpan);
+
+        serverAndClientSpanState.setCurrentServerSpan(mockServerSpan);
+        assertNull(serverAndClientSpanState.getCurrentLocalSpan());
+
+        serverAndClientSpanState.setCurrentLocalSpan(mockSpan);
+        serverAndClientSpanState.setCurrentServerSpan(null);
+        assertNull(serverAndClientSpanState.getCurrentLocalSpan());
+    }
+
+    @Test
+    public void currentSpans_holdsAllSpansOfThread() {
+        serverAndClientSpanState.setCurrentServerSpan(mockServerSpan);
+        serverAndClientSpanState.setCurrentLocalSpan(mockSpan);
+
+        Object[] current =
+            ThreadLocalServerClientAndLocalSpanState.currentSpans(serverAndClientSpanState);
+        assertSame(mockServerSpan, CurrentSpans.serverSpan(current));
+        assertSame(mockSpan, CurrentSpans.localSpan(current));
+        assertNull(CurrentSpans.clientSpan(current));
+
+        CurrentSpans.setClientSpan(current, mockSpan);
+        assertSame(mockSpan, serverAndClientSpanState.getCurrentClientSpan());
+    }
+
+    @Test
+    public void currentSpans_perThread() throws InterruptedException {
+        final Object[][] otherThread = new Object[1][];
+        Thread thread = new Thread(() -> {
+            serverAndClientSpanState.setCurrentLocalSpan(mockSpan);
+            otherThread[0] =
+                ThreadLocalServerClientAndLocalSpanState.currentSpans(serverAndClientSpanState);
+        });
+        thread.start();
+        thread.join();
+        serverAndClientSpanState.setCurrentLocalSpan(mockSpan);
+
+        assertNotSame(otherThread[0],
+            ThreadLocalServerClientAndLocalSpanState.currentSpans(serverAndClientSpanState));
+    }
+
+    @Test
+    public void currentSpans_reusedByTheNextRequest() {
+        Object[] current =
+            ThreadLocalServerClientAndLocalSpanState.currentSpans(serverAndClientSpanState);
+
+        serverAndClientSpanState.setCurrentServerSpan(ServerSpan.NOT_SAMPLED);
+        serverAndClientSpanState.setCurrentServerSpan(null);
+        serverAndClientSpanState.setCurrentServerSpan(mockServerSpan);
+
+        assertSame(current,
+            ThreadLocalServerClientAndLocalSpanState.currentSpans(serverAndClientSpanState));
+    }
+
+    /** Otherwise, an idle pooled thread keeps this class loader reachable after a redeploy. */
+    @Test
+    public void currentSpans_holdsNoBraveTypesOnceSpansAreCleared() {
+        serverAndClientSpanState.setCurrentServerSpan(mockServerSpan);
+        serverAndClientSpanState.setCurrentClientSpan(mockSpan);
+        serverAndClientSpanState.setCurrentLocalSpan(mockSpan);
+
+        serverAndClientSpanState.setCurrentLocalSpan(null);
+        serverAndClientSpanState.setCurrentClientSpan(null);
+        serverAndClientSpanState.setCurrentServerSpan(ServerSpan.EMPTY);
+
+        Object[] current =
+            ThreadLocalServerClientAndLocalSpanState.currentSpans(serverAndClientSpanState);
+        assertEquals(Object[].class, current.getClass());
+        for (Object slot : current) {
+            assertNull(slot);
+        }
+    }
+
+    @Test
+    public void localSpans_growBeyondInitialCapacity() {
+        int depth = CurrentSpans.INITIAL_LOCAL_CAPACITY * 2 + 1;
+        Span[] spans = new Span[depth];
+        for (int i = 0; i < depth; i++) {
+            spans[i] = mock(Span.class);
+            serverAndClientSpanState.setCurrentLocalSpan(spans[i]);
+        }
+
+        for (int i = depth - 1; i >= 0; i--) {
+            assertSame(spans[i], serverAndClientSpanState.getCurrentLocalSpan());
+            serverAndClientSpanState.setCurrentLocalSpan(null);
+        }
+        assertNull(serverAndClientSpanState.getCurrentLocalSpan());
+    }
+
+    @Test
+    public void currentSpans_nullForOtherStates() {
+        assertNull(ThreadLocalServerClientAndLocalSpanState.currentSpans(
+            mock(ServerClientAndLocalSpanState.class)));
+    }
 }
@@ -0,0 +1,91 @@
+package com.github.kristofa.brave;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import zipkin.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Guards what UnsampledServerBenchmarks measures with the gc profiler: an unsampled server round
+ * trip shouldn't allocate, so tracing costs next to nothing for most requests.
+ */
+public class UnsampledServerAllocationTest {
+  /** Same as UnsampledServerBenchmarks: allows for measurement noise, but not an object. */
+  static final double MAX_BYTES_PER_OP = 8;
+  static final int ITERATIONS = 100_000;
+
+  Brave brave = new Brave.Builder("test")
+      .reporter(Reporter.NOOP)
+      .traceSampler(Sampler.NEVER_SAMPLE)
+      .build();
+  ServerRequestInterceptor requestInterceptor = brave.serverRequestInterceptor();
+  ServerResponseInterceptor responseInterceptor = brave.serverResponseInterceptor();
+  ServerResponseAdapter response = new ServerResponseAdapter() {
+    @Override public Collection<KeyValueAnnotation> responseAnnotations() {
+      return Collections.emptyList();
+    }
+  };
+
+  com.sun.management.ThreadMXBean threads;
+
+  @Before
+  public void threadAllocationIsMeasurable() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+    this.threads = (com.sun.management.ThreadMXBean) threads;
+    assumeTrue(this.threads.isThreadAllocatedMemorySupported()
+        && this.threads.isThreadAllocatedMemoryEnabled());
+  }
+
+  @Test
+  public void uninstrumentedCaller() {
+    assertThat(bytesPerRoundTrip(new FakeRequest(TraceData.EMPTY)))
+        .isLessThanOrEqualTo(MAX_BYTES_PER_OP);
+  }
+
+  @Test
+  public void notSampledCaller() {
+    assertThat(bytesPerRoundTrip(new FakeRequest(TraceData.builder().sample(false).build())))
+        .isLessThanOrEqualTo(MAX_BYTES_PER_OP);
+  }
+
+  double bytesPerRoundTrip(ServerRequestAdapter request) {
+    for (int i = 0; i < ITERATIONS; i++) roundTrip(request); // warm up
+
+    long threadId = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < ITERATIONS; i++) roundTrip(request);
+    long after = threads.getThreadAllocatedBytes(threadId);
+    return (after - before) / (double) ITERATIONS;
+  }
+
+  void roundTrip(ServerRequestAdapter request) {
+    requestInterceptor.handle(request);
+    responseInterceptor.handle(response);
+  }
+
+  static final class FakeRequest implements ServerRequestAdapter {
+    final TraceData traceData;
+
+    FakeRequest(TraceData traceData) {
+      this.traceData = traceData;
+    }
+
+    @Override public TraceData getTraceData() {
+      return traceData;
+    }
+
+    @Override public String getSpanName() {
+      return "get";
+    }
+
+    @Override public Collection<KeyValueAnnotation> requestAnnotations() {
+      return Collections.emptyList();
+    }
+  }
+}
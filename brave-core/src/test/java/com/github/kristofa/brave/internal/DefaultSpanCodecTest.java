@@ -1,12 +1,18 @@
 package com.github.kristofa.brave.internal;
 
 import com.twitter.zipkin.gen.Annotation;
+import com.twitter.zipkin.gen.AnnotationType;
 import com.twitter.zipkin.gen.BinaryAnnotation;
 import com.twitter.zipkin.gen.Endpoint;
 import com.twitter.zipkin.gen.Span;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.junit.Test;
+import zipkin.Codec;
 import zipkin.Constants;
 
+import static com.github.kristofa.brave.internal.Util.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 
 public class DefaultSpanCodecTest {
@@ -56,4 +62,100 @@ public class DefaultSpanCodecTest {
     byte[] encoded = DefaultSpanCodec.JSON.writeSpan(span);
     assertEquals(span, DefaultSpanCodec.JSON.readSpan(encoded));
   }
+
+  /** Annotations are in the order zipkin sorts them, so that the bytes can be compared. */
+  Span allTypes = new Span()
+      .setTrace_id_high(3L)
+      .setTrace_id(-692101025335252320L)
+      .setName("get \"quoted\" \\ \n\u2028\u0001 \u00e9\ud83d\ude00")
+      .setId(1L)
+      .setParent_id(-2L)
+      .setTimestamp(1444438900939000L)
+      .setDuration(376000L)
+      .setDebug(true)
+      .addToAnnotations(Annotation.create(1444438900939000L, Constants.SERVER_RECV, web))
+      .addToAnnotations(Annotation.create(1444438900939001L, "\t\u00e9", null))
+      .addToBinary_annotations(BinaryAnnotation.create("bool", new byte[] {0},
+          AnnotationType.BOOL, null))
+      .addToBinary_annotations(BinaryAnnotation.create("bytes", new byte[] {1, 2, 3, 4},
+          AnnotationType.BYTES, web))
+      .addToBinary_annotations(BinaryAnnotation.address(Constants.CLIENT_ADDR, browser))
+      .addToBinary_annotations(BinaryAnnotation.create("double",
+          ByteBuffer.allocate(8).putDouble(1.0E20).array(), AnnotationType.DOUBLE, null))
+      .addToBinary_annotations(BinaryAnnotation.create("i16",
+          ByteBuffer.allocate(2).putShort((short) -3).array(), AnnotationType.I16, null))
+      .addToBinary_annotations(BinaryAnnotation.create("i32",
+          ByteBuffer.allocate(4).putInt(Integer.MIN_VALUE).array(), AnnotationType.I32, null))
+      .addToBinary_annotations(BinaryAnnotation.create("i64",
+          ByteBuffer.allocate(8).putLong(Long.MAX_VALUE).array(), AnnotationType.I64, null))
+      .addToBinary_annotations(BinaryAnnotation.create("string", "\"\u2029\u00e9/",
+          Endpoint.builder().serviceName("ipv6").port((short) 8080).ipv6(ipv6("::1")).build()))
+      // encoded while writing, including the replacement of a malformed surrogate
+      .addToBinary_annotations("string.deferred", "\"\u2029\u00e9\ud83d\ude00\ud800/", web)
+      // primitives, encoded while writing
+      .addToBinary_annotations("typed.bool", 1L, AnnotationType.BOOL, web)
+      .addToBinary_annotations("typed.double", -1.5E-3, null)
+      .addToBinary_annotations("typed.i16", -3L, AnnotationType.I16, null)
+      .addToBinary_annotations("typed.i32", Integer.MIN_VALUE, AnnotationType.I32, null)
+      .addToBinary_annotations("typed.i64", Long.MAX_VALUE, AnnotationType.I64, web);
+
+  @Test
+  public void writeSpan_json_matchesZipkin() {
+    assertThat(new String(DefaultSpanCodec.JSON.writeSpan(allTypes), UTF_8))
+        .isEqualTo(zipkinJson(Codec.JSON.writeSpan(allTypes.toZipkin())));
+  }
+
+  @Test
+  public void writeSpan_thrift_matchesZipkin() {
+    assertThat(DefaultSpanCodec.THRIFT.writeSpan(allTypes))
+        .containsExactly(Codec.THRIFT.writeSpan(allTypes.toZipkin()));
+  }
+
+  @Test
+  public void writeSpans_json_matchesZipkin() {
+    assertThat(new String(DefaultSpanCodec.JSON.writeSpans(Arrays.asList(span, allTypes)), UTF_8))
+        .isEqualTo(zipkinJson(
+            Codec.JSON.writeSpans(Arrays.asList(span.toZipkin(), allTypes.toZipkin()))));
+  }
+
+  @Test
+  public void writeSpans_thrift_matchesZipkin() {
+    assertThat(DefaultSpanCodec.THRIFT.writeSpans(Arrays.asList(span, allTypes)))
+        .containsExactly(
+            Codec.THRIFT.writeSpans(Arrays.asList(span.toZipkin(), allTypes.toZipkin())));
+  }
+
+  @Test
+  public void writeSpan_json_ipv6Compression() {
+    for (String address : Arrays.asList(
+        "::", "::1", "1::", "2001:db8::1:0:0:1", "1:0:3:4:5:6:7:8", "1:2:3:4:5:6:7:8")) {
+      Span span = new Span().setTrace_id(1L).setId(1L).setName("").addToAnnotations(
+          Annotation.create(1L, "foo", Endpoint.builder().serviceName("a").ipv6(ipv6(address))
+              .build()));
+
+      assertThat(new String(DefaultSpanCodec.JSON.writeSpan(span), UTF_8))
+          .isEqualTo(new String(Codec.JSON.writeSpan(span.toZipkin()), UTF_8));
+    }
+  }
+
+  @Test
+  public void writeSpan_emptySpan() {
+    Span empty = new Span().setTrace_id(1L).setId(1L).setName("x");
+
+    assertThat(new String(DefaultSpanCodec.JSON.writeSpan(empty), UTF_8))
+        .isEqualTo(new String(Codec.JSON.writeSpan(empty.toZipkin()), UTF_8));
+    assertThat(DefaultSpanCodec.THRIFT.writeSpan(empty))
+        .containsExactly(Codec.THRIFT.writeSpan(empty.toZipkin()));
+  }
+
+  /** Zipkin overestimates the size of some unicode, leaving trailing zeros in its output. */
+  static String zipkinJson(byte[] json) {
+    int length = json.length;
+    while (length > 0 && json[length - 1] == 0) length--;
+    return new String(json, 0, length, UTF_8);
+  }
+
+  static byte[] ipv6(String address) {
+    return sun.net.util.IPAddressUtil.textToNumericFormatV6(address);
+  }
 }
@@ -0,0 +1,359 @@
+package com.github.kristofa.brave.internal;
+
+import com.github.kristofa.brave.SpanLimits;
+import com.twitter.zipkin.gen.AnnotationType;
+import com.twitter.zipkin.gen.Endpoint;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanRecordTest {
+  static final Endpoint ENDPOINT = Endpoint.create("service", 127 << 24 | 1);
+
+  @Test
+  public void addAnnotation_growsArrays() {
+    SpanRecord record = SpanRecord.create();
+    for (int i = 0; i < SpanRecord.BLOCK_SIZE * 3; i++) {
+      record.addAnnotation(i, "value" + i, ENDPOINT);
+    }
+
+    assertThat(record.annotationCount()).isEqualTo(SpanRecord.BLOCK_SIZE * 3);
+    assertThat(record.annotationValue(SpanRecord.BLOCK_SIZE * 2 + 1))
+        .isEqualTo("value" + (SpanRecord.BLOCK_SIZE * 2 + 1));
+    assertThat(record.annotationTimestamp(5)).isEqualTo(5L);
+    assertThat(record.annotationValue(5)).isEqualTo("value5");
+    assertThat(record.annotationHost(5)).isSameAs(ENDPOINT);
+  }
+
+  @Test
+  public void addBinaryAnnotation_growsArrays() {
+    SpanRecord record = SpanRecord.create();
+    for (int i = 0; i < SpanRecord.BLOCK_SIZE * 3; i++) {
+      record.addBinaryAnnotation("key" + i, new byte[] {(byte) i}, AnnotationType.BYTES, null);
+    }
+
+    assertThat(record.binaryAnnotationCount()).isEqualTo(SpanRecord.BLOCK_SIZE * 3);
+    assertThat(record.binaryAnnotationKey(5)).isEqualTo("key5");
+    assertThat(record.binaryAnnotationValue(5)).containsExactly((byte) 5);
+    assertThat(record.binaryAnnotationType(5)).isEqualTo(AnnotationType.BYTES);
+    assertThat(record.binaryAnnotationHost(5)).isNull();
+  }
+
+  @Test
+  public void addBinaryAnnotation_string_encodesOnRead() {
+    SpanRecord record = SpanRecord.create();
+    record.addBinaryAnnotation("key", "\u00e9", ENDPOINT);
+
+    assertThat(record.binaryAnnotationString(0)).isEqualTo("\u00e9");
+    assertThat(record.binaryAnnotationValue(0)).containsExactly((byte) 0xc3, (byte) 0xa9);
+    assertThat(record.binaryAnnotationType(0)).isEqualTo(AnnotationType.STRING);
+    assertThat(record.head.tagValues[0]).isNull(); // not cached
+  }
+
+  @Test
+  public void addBinaryAnnotation_bytes_noString() {
+    SpanRecord record = SpanRecord.create();
+    record.addBinaryAnnotation("key", new byte[] {'a'}, AnnotationType.STRING, ENDPOINT);
+
+    assertThat(record.binaryAnnotationString(0)).isNull();
+    assertThat(record.binaryAnnotationValue(0)).containsExactly((byte) 'a');
+  }
+
+  @Test
+  public void addBinaryAnnotation_number_encodesOnRead() {
+    SpanRecord record = SpanRecord.create();
+    record.addBinaryAnnotation("i16", -2L, AnnotationType.I16, ENDPOINT);
+
+    assertThat(record.isBinaryAnnotationNumber(0)).isTrue();
+    assertThat(record.binaryAnnotationNumber(0)).isEqualTo(-2L);
+    assertThat(record.binaryAnnotationString(0)).isNull();
+    assertThat(record.binaryAnnotationValue(0)).containsExactly((byte) 0xff, (byte) 0xfe);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void addBinaryAnnotation_number_notPrimitive() {
+    SpanRecord.create().addBinaryAnnotation("key", 1L, AnnotationType.STRING, ENDPOINT);
+  }
+
+  @Test
+  public void clearBinaryAnnotations_sizeOfNumbers() {
+    SpanRecord record = SpanRecord.acquire(SpanLimits.builder().maxSpanBytes(20).build());
+    record.addBinaryAnnotation("i64", 1L, AnnotationType.I64, ENDPOINT);
+    assertThat(record.sizeInBytes).isEqualTo(11);
+
+    record.clearBinaryAnnotations();
+
+    assertThat(record.sizeInBytes).isZero();
+  }
+
+  @Test
+  public void limits_maxAnnotations() {
+    SpanRecord record = SpanRecord.acquire(SpanLimits.builder().maxAnnotations(1).build());
+
+    assertThat(record.addAnnotation(1L, "foo", ENDPOINT)).isTrue();
+    assertThat(record.isTruncated()).isFalse();
+    assertThat(record.addAnnotation(2L, "bar", ENDPOINT)).isFalse();
+
+    assertThat(record.annotationCount()).isEqualTo(1);
+    assertThat(record.isTruncated()).isTrue();
+    assertThat(record.isOverLimit()).isFalse();
+  }
+
+  @Test
+  public void limits_maxBinaryAnnotations() {
+    SpanRecord record = SpanRecord.acquire(SpanLimits.builder().maxBinaryAnnotations(0).build());
+
+    assertThat(record.addBinaryAnnotation("key", "value", ENDPOINT)).isFalse();
+
+    assertThat(record.binaryAnnotationCount()).isZero();
+    assertThat(record.isTruncated()).isTrue();
+  }
+
+  @Test
+  public void limits_maxTagValueBytes_string() {
+    SpanRecord record = SpanRecord.acquire(SpanLimits.builder().maxTagValueBytes(6).build());
+
+    record.addBinaryAnnotation("short", "\u00e9\u00e9", ENDPOINT); // 4 bytes
+    assertThat(record.isTruncated()).isFalse();
+    record.addBinaryAnnotation("long", "a\u00e9\ud83d\ude00", ENDPOINT); // 7 bytes
+
+    assertThat(record.binaryAnnotationString(0)).isEqualTo("\u00e9\u00e9");
+    // doesn't split the surrogate pair
+    assertThat(record.binaryAnnotationString(1)).isEqualTo("a\u00e9");
+    assertThat(record.isTruncated()).isTrue();
+  }
+
+  @Test
+  public void limits_maxTagValueBytes_bytes() {
+    SpanRecord record = SpanRecord.acquire(SpanLimits.builder().maxTagValueBytes(2).build());
+
+    record.addBinaryAnnotation("bytes", new byte[] {1, 2, 3}, AnnotationType.BYTES, null);
+    // doesn't split the encoding of é
+    record.addBinaryAnnotation("utf8", "a\u00e9".getBytes(Util.UTF_8), AnnotationType.STRING,
+        null);
+    // numbers aren't truncated
+    record.addBinaryAnnotation("i32", new byte[4], AnnotationType.I32, null);
+
+    assertThat(record.binaryAnnotationValue(0)).containsExactly((byte) 1, (byte) 2);
+    assertThat(record.binaryAnnotationValue(1)).containsExactly((byte) 'a');
+    assertThat(record.binaryAnnotationValue(2)).hasSize(4);
+    assertThat(record.isTruncated()).isTrue();
+  }
+
+  @Test
+  public void limits_maxSpanBytes() {
+    SpanRecord record = SpanRecord.acquire(SpanLimits.builder().maxSpanBytes(20).build());
+
+    assertThat(record.addAnnotation(1L, "foo", ENDPOINT)).isTrue(); // 11 bytes
+    assertThat(record.addBinaryAnnotation("key", "value", ENDPOINT)).isTrue(); // 8 bytes
+    assertThat(record.addAnnotation(2L, "bar", ENDPOINT)).isFalse();
+
+    assertThat(record.isOverLimit()).isTrue();
+    assertThat(record.isTruncated()).isFalse();
+    assertThat(record.sizeInBytes).isEqualTo(19);
+  }
+
+  @Test
+  public void limits_maxSpanBytes_clearFreesSpace() {
+    SpanRecord record = SpanRecord.acquire(SpanLimits.builder().maxSpanBytes(20).build());
+    record.addAnnotation(1L, "foo", ENDPOINT);
+    record.addBinaryAnnotation("key", new byte[] {1}, AnnotationType.BOOL, ENDPOINT);
+
+    record.clearAnnotations();
+    record.clearBinaryAnnotations();
+
+    assertThat(record.sizeInBytes).isZero();
+  }
+
+  @Test
+  public void release_resetsLimits() {
+    SpanRecord record = SpanRecord.acquire(SpanLimits.builder().maxAnnotations(0).build());
+    record.addAnnotation(1L, "foo", ENDPOINT);
+
+    record.release();
+
+    assertThat(record.limits).isSameAs(SpanLimits.DEFAULT);
+    assertThat(record.isTruncated()).isFalse();
+    assertThat(record.sizeInBytes).isZero();
+  }
+
+  @Test
+  public void release_clears() {
+    SpanRecord record = SpanRecord.create();
+    record.addAnnotation(1L, "foo", ENDPOINT);
+    record.addBinaryAnnotation("key", new byte[] {1}, AnnotationType.BOOL, ENDPOINT);
+
+    record.release();
+
+    assertThat(record.annotationCount()).isZero();
+    assertThat(record.binaryAnnotationCount()).isZero();
+    assertThat(record.head.annotationValues).containsOnly((String) null);
+    assertThat(record.head.tagHosts).containsOnly((Endpoint) null);
+  }
+
+  @Test
+  public void clearBinaryAnnotations_clearsStrings() {
+    SpanRecord record = SpanRecord.create();
+    record.addBinaryAnnotation("key", "value", ENDPOINT);
+
+    record.clearBinaryAnnotations();
+
+    assertThat(record.head.tagStrings).containsOnly((String) null);
+  }
+
+  @Test
+  public void release_startsNewGeneration() {
+    SpanRecord record = SpanRecord.create();
+    int generation = record.generation();
+    record.close(generation);
+
+    record.release();
+
+    assertThat(record.generation()).isEqualTo(generation + 1);
+    assertThat(record.isClosed()).isFalse();
+    // a writer which raced with the previous borrower can't write into this one
+    assertThat(record.addAnnotation(generation, 1L, "foo", ENDPOINT)).isFalse();
+    assertThat(record.addAnnotation(generation + 1, 1L, "foo", ENDPOINT)).isTrue();
+  }
+
+  @Test
+  public void close_dropsLaterAdds() {
+    SpanRecord record = SpanRecord.create();
+    record.addAnnotation(1L, "foo", ENDPOINT);
+
+    assertThat(record.close(record.generation())).isTrue();
+
+    assertThat(record.addAnnotation(2L, "bar", ENDPOINT)).isFalse();
+    assertThat(record.addBinaryAnnotation("key", new byte[] {1}, AnnotationType.BOOL, null))
+        .isFalse();
+    assertThat(record.annotationCount()).isEqualTo(1);
+    assertThat(record.binaryAnnotationCount()).isZero();
+  }
+
+  @Test
+  public void close_onlyOnce() {
+    SpanRecord record = SpanRecord.create();
+
+    assertThat(record.close(record.generation())).isTrue();
+    assertThat(record.close(record.generation())).isFalse();
+  }
+
+  @Test
+  public void stalledWriter_doesntBlockOthers() {
+    SpanRecord record = SpanRecord.create();
+    int stalled = record.claimAnnotation(record.generation()); // claims, but never writes
+
+    assertThat(record.addAnnotation(2L, "bar", ENDPOINT)).isTrue();
+    assertThat(record.close(record.generation())).isTrue();
+
+    // later slots publish once the stalled one is written
+    assertThat(record.annotationCount()).isZero();
+    record.blockForWrite(stalled).annotationValues[stalled] = "foo";
+    record.head.markWritten(stalled);
+    record.publish(record.generation(), 0);
+    assertThat(record.annotationCount()).isEqualTo(2);
+    assertThat(record.annotationValue(1)).isEqualTo("bar");
+  }
+
+  @Test
+  public void release_dropsRecordWithStalledWriter() {
+    SpanRecord record = SpanRecord.acquire();
+    record.claimTag(record.generation()); // claims, but never writes
+    record.release();
+
+    assertThat(SpanRecord.acquire()).isNotSameAs(record);
+  }
+
+  @Test
+  public void concurrentAdds_allPublished() throws Exception {
+    final SpanRecord record = SpanRecord.create();
+    final int threadCount = 4, addsPerThread = 1000;
+    Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      final int offset = t * addsPerThread;
+      threads[t] = new Thread() {
+        @Override public void run() {
+          for (int i = offset; i < offset + addsPerThread; i++) {
+            record.addAnnotation(i, "value", ENDPOINT);
+            record.addBinaryAnnotation("key", new byte[] {1}, AnnotationType.BOOL, null);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) thread.join();
+
+    assertThat(record.close(record.generation())).isTrue();
+    assertThat(record.annotationCount()).isEqualTo(threadCount * addsPerThread);
+    assertThat(record.binaryAnnotationCount()).isEqualTo(threadCount * addsPerThread);
+    Set<Long> timestamps = new LinkedHashSet<Long>();
+    for (int i = 0; i < record.annotationCount(); i++) {
+      timestamps.add(record.annotationTimestamp(i));
+    }
+    assertThat(timestamps).hasSize(threadCount * addsPerThread);
+  }
+
+  @Test
+  public void acquire_reusesReleased() {
+    SpanRecord record = SpanRecord.acquire();
+    record.addAnnotation(1L, "foo", ENDPOINT);
+    record.release();
+
+    assertThat(SpanRecord.acquire()).isSameAs(record);
+  }
+
+  @Test
+  public void create_isntPooled() {
+    SpanRecord record = SpanRecord.create();
+    record.release();
+
+    assertThat(record.isPooled()).isFalse();
+    assertThat(SpanRecord.acquire()).isNotSameAs(record);
+  }
+
+  @Test
+  public void release_dropsOverflowBlocks() {
+    SpanRecord record = SpanRecord.acquire();
+    for (int i = 0; i <= SpanRecord.BLOCK_SIZE; i++) {
+      record.addAnnotation(i, "foo", ENDPOINT);
+    }
+    record.release();
+
+    assertThat(record.head.next).isNull();
+    assertThat(SpanRecord.acquire()).isSameAs(record);
+  }
+
+  @Test
+  public void release_onAnotherThreadReturnsToOwner() throws Exception {
+    // use a new thread so that the pool starts empty
+    final AtomicReference<SpanRecord> acquired = new AtomicReference<SpanRecord>();
+    final AtomicReference<SpanRecord> acquiredByReleaser = new AtomicReference<SpanRecord>();
+    final AtomicReference<SpanRecord> reacquired = new AtomicReference<SpanRecord>();
+    Thread owner = new Thread() {
+      @Override public void run() {
+        acquired.set(SpanRecord.acquire());
+        Thread releaser = new Thread() {
+          @Override public void run() {
+            acquired.get().release();
+            acquiredByReleaser.set(SpanRecord.acquire());
+          }
+        };
+        releaser.start();
+        try {
+          releaser.join();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        reacquired.set(SpanRecord.acquire());
+      }
+    };
+    owner.start();
+    owner.join();
+
+    assertThat(acquiredByReleaser.get()).isNotSameAs(acquired.get());
+    assertThat(reacquired.get()).isSameAs(acquired.get());
+  }
+}
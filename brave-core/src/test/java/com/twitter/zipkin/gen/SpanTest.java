@@ -1,8 +1,11 @@
 package com.twitter.zipkin.gen;
 
+import com.github.kristofa.brave.SpanId;
 import org.junit.Test;
 import zipkin.Constants;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 import static org.junit.Assert.assertEquals;
 
 public class SpanTest {
@@ -29,4 +32,86 @@ public class SpanTest {
     Span span = new Span();
     span.startTick = System.nanoTime();
   }
+
+  @Test
+  public void recycle_noopWhenNotPooled() {
+    Span span = new Span().setName("get");
+    span.addToAnnotations(1L, Constants.SERVER_RECV, null);
+
+    span.recycle();
+
+    assertThat(span.getAnnotations())
+        .containsExactly(Annotation.create(1L, Constants.SERVER_RECV, null));
+  }
+
+  @Test
+  public void recycle_ignoresLaterAnnotations() {
+    Span span = Span.pooledFromSpanId(SpanId.builder().spanId(1L).build());
+    span.addToAnnotations(1L, Constants.SERVER_RECV, null);
+
+    span.recycle();
+    span.addToAnnotations(2L, Constants.SERVER_SEND, null);
+
+    assertThat(span.getAnnotations()).isEmpty();
+  }
+
+  @Test
+  public void optionalFieldsReadNullWhenUnset() {
+    Span span = new Span().setTimestamp(1L).setDuration(2L).setParent_id(3L);
+
+    span.setTimestamp(null).setDuration(null).setParent_id(null);
+
+    assertThat(span.getTimestamp()).isNull();
+    assertThat(span.getDuration()).isNull();
+    assertThat(span.getParent_id()).isNull();
+  }
+
+  @Test
+  public void finish_ignoresLaterAnnotations() {
+    Span span = new Span().setName("get");
+    span.addToAnnotations(1L, Constants.SERVER_RECV, null);
+
+    assertThat(span.finish()).isTrue();
+    span.addToAnnotations(2L, Constants.SERVER_SEND, null);
+
+    assertThat(span.getAnnotations())
+        .containsExactly(Annotation.create(1L, Constants.SERVER_RECV, null));
+  }
+
+  @Test
+  public void finish_onlyOnce() {
+    Span span = Span.pooledFromSpanId(SpanId.builder().spanId(1L).build());
+
+    assertThat(span.finish()).isTrue();
+    assertThat(span.finish()).isFalse();
+    span.recycle();
+    assertThat(span.finish()).isFalse();
+  }
+
+  @Test
+  public void getAnnotations_isReadOnly() {
+    Span span = new Span().setName("get");
+    span.addToAnnotations(1L, Constants.SERVER_RECV, null);
+
+    try {
+      span.getAnnotations().add(Annotation.create(2L, Constants.SERVER_SEND, null));
+      failBecauseExceptionWasNotThrown(UnsupportedOperationException.class);
+    } catch (UnsupportedOperationException expected) {
+    }
+    assertThat(span.getAnnotations()).extracting(a -> a.value)
+        .containsExactly(Constants.SERVER_RECV);
+  }
+
+  @Test
+  public void getBinary_annotations_isReadOnly() {
+    Span span = new Span().setName("get");
+    span.addToBinary_annotations("foo", "bar", null);
+
+    try {
+      span.getBinary_annotations().clear();
+      failBecauseExceptionWasNotThrown(UnsupportedOperationException.class);
+    } catch (UnsupportedOperationException expected) {
+    }
+    assertThat(span.getBinary_annotations()).extracting(b -> b.key).containsExactly("foo");
+  }
 }
@@ -0,0 +1,82 @@
+package com.github.kristofa.brave.forkjoin;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.BraveCallable;
+import com.github.kristofa.brave.BraveRunnable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * {@link ForkJoinPool} that runs tasks in the same Span/Trace context as the thread that submitted
+ * them. Use this in place of a {@link ForkJoinPool} you would otherwise create.
+ * <p/>
+ * Subtasks forked inside the pool aren't submitted through it, so wrap them with {@link
+ * BraveForkJoinTask} if they should be in the same context.
+ *
+ * @see BraveForkJoinTask
+ */
+public class BraveForkJoinPool extends ForkJoinPool {
+
+    private final Brave brave;
+
+    /** Creates a pool with parallelism equal to the number of available processors. */
+    public BraveForkJoinPool(Brave brave) {
+        this(brave, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BraveForkJoinPool(Brave brave, int parallelism) {
+        super(parallelism);
+        this.brave = checkNotNull(brave, "brave");
+    }
+
+    @Override
+    public <T> T invoke(ForkJoinTask<T> task) {
+        return super.invoke(BraveForkJoinTask.wrap(task, brave));
+    }
+
+    @Override
+    public void execute(ForkJoinTask<?> task) {
+        super.execute(BraveForkJoinTask.wrap(task, brave));
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        super.execute(BraveRunnable.wrap(task, brave));
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(ForkJoinTask<T> task) {
+        return super.submit(BraveForkJoinTask.wrap(task, brave));
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(Callable<T> task) {
+        return super.submit(BraveCallable.wrap(task, brave));
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+        return super.submit(BraveRunnable.wrap(task, brave), result);
+    }
+
+    @Override
+    public ForkJoinTask<?> submit(Runnable task) {
+        return super.submit(BraveRunnable.wrap(task, brave));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) {
+        List<Callable<T>> wrapped = new ArrayList<Callable<T>>(tasks.size());
+        for (Callable<T> task : tasks) {
+            wrapped.add(BraveCallable.wrap(task, brave));
+        }
+        return super.invokeAll(wrapped);
+    }
+}
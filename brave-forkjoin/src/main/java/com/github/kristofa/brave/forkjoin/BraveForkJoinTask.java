@@ -0,0 +1,68 @@
+package com.github.kristofa.brave.forkjoin;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.BraveRunnable;
+import java.util.concurrent.ForkJoinTask;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * {@link ForkJoinTask} that invokes another in the same Span/Trace context as the thread which
+ * wrapped it, then restores the context of the worker thread.
+ * <p/>
+ * Subtasks which a task {@link ForkJoinTask#fork() forks} may be stolen by other workers, so wrap
+ * them too if they should be in the same context.
+ *
+ * @see BraveForkJoinPool
+ */
+public final class BraveForkJoinTask<T> extends ForkJoinTask<T> {
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * Returns a task bound to the current spans. This is so even if no span is in scope, so that
+     * the task doesn't see spans left on the worker which runs it.
+     */
+    public static <T> ForkJoinTask<T> wrap(ForkJoinTask<T> task, Brave brave) {
+        Invocation<T> invocation = new Invocation<T>(checkNotNull(task, "task"));
+        return new BraveForkJoinTask<T>(invocation, BraveRunnable.wrap(invocation, brave));
+    }
+
+    private final transient Invocation<T> invocation;
+    private final transient Runnable bound;
+
+    BraveForkJoinTask(Invocation<T> invocation, Runnable bound) {
+        this.invocation = invocation;
+        this.bound = bound;
+    }
+
+    @Override
+    public T getRawResult() {
+        return invocation.result;
+    }
+
+    @Override
+    protected void setRawResult(T value) {
+        invocation.result = value;
+    }
+
+    @Override
+    protected boolean exec() {
+        bound.run();
+        return true;
+    }
+
+    /** Invokes the task and keeps its result, so that it can be bound as a runnable. */
+    static final class Invocation<T> implements Runnable {
+        final ForkJoinTask<T> task;
+        T result;
+
+        Invocation(ForkJoinTask<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            result = task.invoke();
+        }
+    }
+}
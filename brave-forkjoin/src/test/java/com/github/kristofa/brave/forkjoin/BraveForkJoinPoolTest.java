@@ -0,0 +1,99 @@
+package com.github.kristofa.brave.forkjoin;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.Sampler;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import zipkin.reporter.Reporter;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BraveForkJoinPoolTest {
+  Brave brave = new Brave.Builder(Endpoint.create("test", 127 << 24 | 1))
+      .reporter(Reporter.NOOP)
+      .traceSampler(Sampler.ALWAYS_SAMPLE).build();
+  ForkJoinPool pool = new BraveForkJoinPool(brave, 2);
+
+  @After
+  public void close() throws InterruptedException {
+    pool.shutdownNow();
+    pool.awaitTermination(1, TimeUnit.SECONDS);
+    brave.localTracer().finishSpan();
+  }
+
+  @Test
+  public void submit_callable() throws Exception {
+    Span parent = createLocalSpan();
+
+    assertThat(pool.submit(this::currentLocalSpan).get()).isEqualTo(parent);
+  }
+
+  @Test
+  public void invoke_forkJoinTask() {
+    Span parent = createLocalSpan();
+
+    assertThat(pool.invoke(new CurrentLocalSpan())).isEqualTo(parent);
+  }
+
+  @Test
+  public void submit_forkJoinTask_completesOriginal() throws Exception {
+    Span parent = createLocalSpan();
+    CurrentLocalSpan task = new CurrentLocalSpan();
+
+    pool.submit(task);
+
+    assertThat(task.get()).isEqualTo(parent);
+  }
+
+  @Test
+  public void invokeAll() throws Exception {
+    Span parent = createLocalSpan();
+
+    assertThat(pool.invokeAll(asList(this::currentLocalSpan, this::currentLocalSpan)))
+        .extracting(ForkJoinTask.class::cast)
+        .extracting(ForkJoinTask::join)
+        .containsExactly(parent, parent);
+  }
+
+  @Test
+  public void wrap_hidesSpanOfWorkerWhenNoSpanIsInScope() {
+    ForkJoinTask<Span> task = BraveForkJoinTask.wrap(new CurrentLocalSpan(), brave);
+    Span previous = createLocalSpan();
+
+    assertThat(task.invoke()).isNull();
+    assertThat(currentLocalSpan()).isSameAs(previous);
+  }
+
+  @Test
+  public void wrap_restoresSpanOfWorker() {
+    Span previous = currentLocalSpan();
+    Span parent = createLocalSpan();
+    ForkJoinTask<Span> task = BraveForkJoinTask.wrap(new CurrentLocalSpan(), brave);
+    brave.localTracer().finishSpan();
+
+    assertThat(task.invoke()).isEqualTo(parent);
+    assertThat(currentLocalSpan()).isSameAs(previous);
+  }
+
+  Span createLocalSpan() {
+    brave.localTracer().startNewSpan(getClass().getSimpleName(), "test");
+    return currentLocalSpan();
+  }
+
+  Span currentLocalSpan() {
+    return brave.localSpanThreadBinder().getCurrentLocalSpan();
+  }
+
+  class CurrentLocalSpan extends RecursiveTask<Span> {
+    @Override protected Span compute() {
+      return currentLocalSpan();
+    }
+  }
+}
@@ -5,14 +5,12 @@ import com.github.kristofa.brave.ClientRequestAdapter;
 import com.github.kristofa.brave.ClientRequestInterceptor;
 import com.github.kristofa.brave.ClientResponseAdapter;
 import com.github.kristofa.brave.ClientResponseInterceptor;
-import com.github.kristofa.brave.ClientSpanThreadBinder;
-import com.github.kristofa.brave.IdConversion;
 import com.github.kristofa.brave.KeyValueAnnotation;
+import com.github.kristofa.brave.SpanHandle;
 import com.github.kristofa.brave.SpanId;
 import com.github.kristofa.brave.internal.Nullable;
 import com.github.kristofa.brave.internal.Util;
 import com.twitter.zipkin.gen.Endpoint;
-import com.twitter.zipkin.gen.Span;
 import io.grpc.CallOptions;
 import io.grpc.Channel;
 import io.grpc.ClientCall;
@@ -55,12 +53,10 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
 
     private final ClientRequestInterceptor clientRequestInterceptor;
     private final ClientResponseInterceptor clientResponseInterceptor;
-    private final ClientSpanThreadBinder clientSpanThreadBinder;
 
     BraveGrpcClientInterceptor(Builder b) { // intentionally hidden
         this.clientRequestInterceptor = b.brave.clientRequestInterceptor();
         this.clientResponseInterceptor = b.brave.clientResponseInterceptor();
-        this.clientSpanThreadBinder = b.brave.clientSpanThreadBinder();
     }
 
     /**
@@ -70,7 +66,6 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
     public BraveGrpcClientInterceptor(Brave brave) {
         this.clientRequestInterceptor = checkNotNull(brave.clientRequestInterceptor());
         this.clientResponseInterceptor = checkNotNull(brave.clientResponseInterceptor());
-        this.clientSpanThreadBinder = checkNotNull(brave.clientSpanThreadBinder());
     }
 
     @Override
@@ -80,18 +75,14 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
 
             @Override
             public void start(Listener<RespT> responseListener, Metadata headers) {
-                clientRequestInterceptor.handle(new GrpcClientRequestAdapter<>(method, headers));
-                final Span currentClientSpan = clientSpanThreadBinder.getCurrentClientSpan();
+                // the span is passed to the callback, as it completes on a different thread
+                final SpanHandle span =
+                    clientRequestInterceptor.startSpan(new GrpcClientRequestAdapter<>(method, headers));
                 super.start(new SimpleForwardingClientCallListener<RespT>(responseListener) {
                     @Override
                     public void onClose(Status status, Metadata trailers) {
-                        try {
-                            clientSpanThreadBinder.setCurrentSpan(currentClientSpan);
-                            clientResponseInterceptor.handle(new GrpcClientResponseAdapter(status));
-                            super.onClose(status, trailers);
-                        } finally {
-                            clientSpanThreadBinder.setCurrentSpan(null);
-                        }
+                        clientResponseInterceptor.handle(new GrpcClientResponseAdapter(status), span);
+                        super.onClose(status, trailers);
                    }
                 }, headers);
             }
@@ -121,9 +112,10 @@ public final class BraveGrpcClientInterceptor implements ClientInterceptor {
             } else {
                 headers.put(BravePropagationKeys.Sampled, "1");
                 headers.put(BravePropagationKeys.TraceId, spanId.traceIdString());
-                headers.put(BravePropagationKeys.SpanId, IdConversion.convertToString(spanId.spanId));
-                if (spanId.nullableParentId() != null) {
-                    headers.put(BravePropagationKeys.ParentSpanId, IdConversion.convertToString(spanId.parentId));
+                headers.put(BravePropagationKeys.SpanId, spanId.spanIdString());
+                String parentId = spanId.parentIdString();
+                if (parentId != null) {
+                    headers.put(BravePropagationKeys.ParentSpanId, parentId);
                 }
             }
         }
@@ -6,6 +6,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.KeyValueAnnotation;
+import com.github.kristofa.brave.SamplingRequest;
 import com.github.kristofa.brave.ServerRequestAdapter;
 import com.github.kristofa.brave.ServerRequestInterceptor;
 import com.github.kristofa.brave.ServerResponseAdapter;
@@ -88,7 +89,8 @@ public final class BraveGrpcServerInterceptor implements ServerInterceptor {
         }, requestHeaders);
     }
 
-    static final class GrpcServerRequestAdapter<ReqT, RespT> implements ServerRequestAdapter {
+    static final class GrpcServerRequestAdapter<ReqT, RespT>
+        implements ServerRequestAdapter, SamplingRequest {
 
         private final ServerCall<ReqT, RespT> call;
         private final MethodDescriptor<ReqT, RespT> method;
@@ -129,6 +131,17 @@ public final class BraveGrpcServerInterceptor implements ServerInterceptor {
             return method.getFullMethodName().toLowerCase();
         }
 
+        /** gRPC has no http method, so sampling rules match on the full method name. */
+        @Override
+        public String method() {
+            return null;
+        }
+
+        @Override
+        public String path() {
+            return method.getFullMethodName();
+        }
+
         @Override
         public Collection<KeyValueAnnotation> requestAnnotations() {
             SocketAddress socketAddress = call.attributes().get(ServerCall.REMOTE_ADDR_KEY);
@@ -162,9 +175,10 @@ public final class BraveGrpcServerInterceptor implements ServerInterceptor {
     }
 
     static SpanId getSpanId(String traceId, String spanId, String parentSpanId, Boolean sampled) {
+        boolean traceId128Bit = traceId.length() == 32;
         return SpanId.builder()
-            .traceIdHigh(traceId.length() == 32 ? convertToLong(traceId, 0) : 0)
-            .traceId(convertToLong(traceId))
+            .traceIdHigh(traceId128Bit ? convertToLong(traceId, 0, 16) : 0)
+            .traceId(traceId128Bit ? convertToLong(traceId, 16, 32) : convertToLong(traceId))
             .spanId(convertToLong(spanId))
             .sampled(sampled)
             .parentId(parentSpanId == null ? null : convertToLong(parentSpanId)).build();
@@ -37,7 +37,7 @@ public class GrpcClientRequestAdapterTest {
     assertThat(metadata.get(BravePropagationKeys.TraceId))
         .isEqualTo("00000000000004d2");
     assertThat(metadata.get(BravePropagationKeys.SpanId))
-        .isEqualTo("4d2");
+        .isEqualTo("00000000000004d2");
   }
 
   @Test
@@ -52,9 +52,9 @@ public class GrpcClientRequestAdapterTest {
     assertThat(metadata.get(BravePropagationKeys.TraceId))
         .isEqualTo("00000000000004d2");
     assertThat(metadata.get(BravePropagationKeys.ParentSpanId))
-        .isEqualTo("4d2");
+        .isEqualTo("00000000000004d2");
     assertThat(metadata.get(BravePropagationKeys.SpanId))
-        .isEqualTo("162e");
+        .isEqualTo("000000000000162e");
   }
 
   @Test
@@ -69,6 +69,6 @@ public class GrpcClientRequestAdapterTest {
     assertThat(metadata.get(BravePropagationKeys.TraceId))
         .isEqualTo("00000000000000010000000000000002");
     assertThat(metadata.get(BravePropagationKeys.SpanId))
-        .isEqualTo("2");
+        .isEqualTo("0000000000000002");
   }
 }
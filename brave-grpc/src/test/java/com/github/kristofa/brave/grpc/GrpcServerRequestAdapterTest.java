@@ -30,6 +30,7 @@ public class GrpcServerRequestAdapterTest {
   public void initMocks() {
     ServerCall serverCall = mock(ServerCall.class);
     MethodDescriptor method = mock(MethodDescriptor.class);
+    when(method.getFullMethodName()).thenReturn("helloworld.Greeter/SayHello");
     when(serverCall.getMethodDescriptor()).thenReturn(method);
 
     adapter = new GrpcServerRequestAdapter(serverCall, metadata);
@@ -172,4 +173,10 @@ public class GrpcServerRequestAdapterTest {
     assertEquals(IdConversion.convertToLong(SPAN_ID), spanId.spanId);
     assertNull(spanId.nullableParentId());
   }
+
+  @Test
+  public void samplingRequest() {
+    assertNull(adapter.method());
+    assertEquals("helloworld.Greeter/SayHello", adapter.path());
+  }
 }
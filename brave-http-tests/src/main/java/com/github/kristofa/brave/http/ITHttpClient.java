@@ -90,7 +90,7 @@ public abstract class ITHttpClient<C> {
     assertThat(request.getHeader("x-b3-traceId"))
         .isEqualTo(Util.toLowerHex(parent.getSpan().getTrace_id()));
     assertThat(request.getHeader("x-b3-parentspanid"))
-        .isEqualTo(IdConversion.convertToString(parent.getSpan().getId()));
+        .isEqualTo(IdConversion.toLowerHex(parent.getSpan().getId()));
   }
 
   @Test
@@ -108,7 +108,7 @@ public abstract class ITHttpClient<C> {
     assertThat(request.getHeader("x-b3-traceId"))
         .isEqualTo(parent.traceIdString());
     assertThat(request.getHeader("x-b3-parentspanid"))
-        .isEqualTo(IdConversion.convertToString(parent.spanId));
+        .isEqualTo(parent.spanIdString());
   }
 
   /**
@@ -137,7 +137,7 @@ public abstract class ITHttpClient<C> {
         assertThat(request.getHeader("x-b3-traceId"))
             .isEqualTo(parent.traceIdString());
         assertThat(request.getHeader("x-b3-parentspanid"))
-            .isEqualTo(IdConversion.convertToString(parent.spanId));
+            .isEqualTo(parent.spanIdString());
       }
     } finally {
       brave.localTracer().finishSpan();
@@ -167,7 +167,7 @@ public abstract class ITHttpClient<C> {
         assertThat(request.getHeader("x-b3-traceId"))
             .isEqualTo(Util.toLowerHex(parent.getSpan().getTrace_id()));
         assertThat(request.getHeader("x-b3-parentspanid"))
-            .isEqualTo(IdConversion.convertToString(parent.getSpan().getId()));
+            .isEqualTo(IdConversion.toLowerHex(parent.getSpan().getId()));
       }
     } finally {
       brave.serverTracer().clearCurrentSpan();
@@ -1,9 +1,9 @@
 package com.github.kristofa.brave.http;
 
 import com.github.kristofa.brave.ClientRequestAdapter;
-import com.github.kristofa.brave.IdConversion;
 import com.github.kristofa.brave.KeyValueAnnotation;
 import com.github.kristofa.brave.SpanId;
+import com.github.kristofa.brave.TagSource;
 import com.github.kristofa.brave.internal.Nullable;
 import com.twitter.zipkin.gen.Endpoint;
 import zipkin.TraceKeys;
@@ -11,7 +11,7 @@ import zipkin.TraceKeys;
 import java.util.Collection;
 import java.util.Collections;
 
-public class HttpClientRequestAdapter implements ClientRequestAdapter {
+public class HttpClientRequestAdapter implements ClientRequestAdapter, TagSource {
 
     private final HttpClientRequest request;
     private final SpanNameProvider spanNameProvider;
@@ -33,19 +33,36 @@ public class HttpClientRequestAdapter implements ClientRequestAdapter {
         } else {
             request.addHeader(BraveHttpHeaders.Sampled.getName(), "1");
             request.addHeader(BraveHttpHeaders.TraceId.getName(), spanId.traceIdString());
-            request.addHeader(BraveHttpHeaders.SpanId.getName(), IdConversion.convertToString(spanId.spanId));
-            if (spanId.nullableParentId() != null) {
-                request.addHeader(BraveHttpHeaders.ParentSpanId.getName(), IdConversion.convertToString(spanId.parentId));
+            request.addHeader(BraveHttpHeaders.SpanId.getName(), spanId.spanIdString());
+            String parentId = spanId.parentIdString();
+            if (parentId != null) {
+                request.addHeader(BraveHttpHeaders.ParentSpanId.getName(), parentId);
             }
         }
     }
 
+    /**
+     * Interceptors call {@link #forEachTag(Consumer)} instead, which reads tags from this method
+     * when it could be overridden by a subclass.
+     */
     @Override
     public Collection<KeyValueAnnotation> requestAnnotations() {
         return Collections.singleton(KeyValueAnnotation.create(
                 TraceKeys.HTTP_URL, request.getUri().toString()));
     }
 
+    @Override
+    public void forEachTag(Consumer consumer) {
+        // a subclass may add tags to requestAnnotations(), so use it unless this is the exact class
+        if (getClass() != HttpClientRequestAdapter.class) {
+            for (KeyValueAnnotation tag : requestAnnotations()) {
+                consumer.accept(tag.getKey(), tag.getValue());
+            }
+            return;
+        }
+        consumer.accept(TraceKeys.HTTP_URL, request.getUri().toString());
+    }
+
     @Override
     public Endpoint serverAddress() {
         return null;
@@ -2,13 +2,16 @@ package com.github.kristofa.brave.http;
 
 import com.github.kristofa.brave.ClientResponseAdapter;
 import com.github.kristofa.brave.KeyValueAnnotation;
+import com.github.kristofa.brave.TagSource;
 import zipkin.TraceKeys;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 
-public class HttpClientResponseAdapter implements ClientResponseAdapter {
+import static com.github.kristofa.brave.internal.Util.decimalString;
+
+public class HttpClientResponseAdapter implements ClientResponseAdapter, TagSource {
 
     private final HttpResponse response;
 
@@ -16,15 +19,35 @@ public class HttpClientResponseAdapter implements ClientResponseAdapter {
         this.response = response;
     }
 
+    /**
+     * Interceptors call {@link #forEachTag(Consumer)} instead, which reads tags from this method
+     * when it could be overridden by a subclass.
+     */
     @Override
     public Collection<KeyValueAnnotation> responseAnnotations() {
         int httpStatus = response.getHttpStatusCode();
 
         if ((httpStatus < 200) || (httpStatus > 299)) {
             return Collections.singleton(KeyValueAnnotation.create(
-                    TraceKeys.HTTP_STATUS_CODE, String.valueOf(httpStatus)));
+                    TraceKeys.HTTP_STATUS_CODE, decimalString(httpStatus)));
         }
         return Collections.emptyList();
     }
 
+    /** Tags the status code, unless the response was successful. */
+    @Override
+    public void forEachTag(Consumer consumer) {
+        // a subclass may add tags to responseAnnotations(), so use it unless this is the exact class
+        if (getClass() != HttpClientResponseAdapter.class) {
+            for (KeyValueAnnotation tag : responseAnnotations()) {
+                consumer.accept(tag.getKey(), tag.getValue());
+            }
+            return;
+        }
+        int httpStatus = response.getHttpStatusCode();
+        if ((httpStatus < 200) || (httpStatus > 299)) {
+            consumer.accept(TraceKeys.HTTP_STATUS_CODE, decimalString(httpStatus));
+        }
+    }
+
 }
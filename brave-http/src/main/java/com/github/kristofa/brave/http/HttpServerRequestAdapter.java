@@ -1,8 +1,10 @@
 package com.github.kristofa.brave.http;
 
 import com.github.kristofa.brave.KeyValueAnnotation;
+import com.github.kristofa.brave.SamplingRequest;
 import com.github.kristofa.brave.ServerRequestAdapter;
 import com.github.kristofa.brave.SpanId;
+import com.github.kristofa.brave.TagSource;
 import com.github.kristofa.brave.TraceData;
 import java.util.Collection;
 import java.util.Collections;
@@ -10,7 +12,8 @@ import zipkin.TraceKeys;
 
 import static com.github.kristofa.brave.IdConversion.convertToLong;
 
-public class HttpServerRequestAdapter implements ServerRequestAdapter {
+public class HttpServerRequestAdapter
+    implements ServerRequestAdapter, TagSource, SamplingRequest {
     private final HttpServerRequest request;
     private final SpanNameProvider spanNameProvider;
 
@@ -22,24 +25,25 @@ public class HttpServerRequestAdapter implements ServerRequestAdapter {
     @Override
     public TraceData getTraceData() {
         String sampled = request.getHttpHeaderValue(BraveHttpHeaders.Sampled.getName());
-        String parentSpanId = request.getHttpHeaderValue(BraveHttpHeaders.ParentSpanId.getName());
-        String traceId = request.getHttpHeaderValue(BraveHttpHeaders.TraceId.getName());
-        String spanId = request.getHttpHeaderValue(BraveHttpHeaders.SpanId.getName());
 
         // Official sampled value is 1, though some old instrumentation send true
         Boolean parsedSampled = sampled != null
             ? sampled.equals("1") || sampled.equalsIgnoreCase("true")
             : null;
 
+        // The caller didn't sample, so there's no need to read or parse the IDs.
+        if (Boolean.FALSE.equals(parsedSampled)) return TraceData.NOT_SAMPLED;
+
+        String parentSpanId = request.getHttpHeaderValue(BraveHttpHeaders.ParentSpanId.getName());
+        String traceId = request.getHttpHeaderValue(BraveHttpHeaders.TraceId.getName());
+        String spanId = request.getHttpHeaderValue(BraveHttpHeaders.SpanId.getName());
+
         if (traceId != null && spanId != null) {
             return TraceData.create(getSpanId(traceId, spanId, parentSpanId, parsedSampled));
-        } else if (parsedSampled == null) {
-            return TraceData.EMPTY;
-        } else if (parsedSampled.booleanValue()) {
-            // Invalid: The caller requests the trace to be sampled, but didn't pass IDs
-            return TraceData.EMPTY;
         } else {
-            return TraceData.NOT_SAMPLED;
+            // When sampled is true, the caller requests the trace to be sampled, but didn't pass
+            // IDs. This is invalid, so treated like an uninstrumented caller.
+            return TraceData.EMPTY;
         }
     }
 
@@ -48,6 +52,20 @@ public class HttpServerRequestAdapter implements ServerRequestAdapter {
         return spanNameProvider.spanName(request);
     }
 
+    @Override
+    public String method() {
+        return request.getHttpMethod();
+    }
+
+    @Override
+    public String path() {
+        return request.getUri().getPath();
+    }
+
+    /**
+     * Interceptors call {@link #forEachTag(Consumer)} instead, which reads tags from this method
+     * when it could be overridden by a subclass.
+     */
     @Override
     public Collection<KeyValueAnnotation> requestAnnotations() {
         KeyValueAnnotation uriAnnotation = KeyValueAnnotation.create(
@@ -55,10 +73,23 @@ public class HttpServerRequestAdapter implements ServerRequestAdapter {
         return Collections.singleton(uriAnnotation);
     }
 
+    @Override
+    public void forEachTag(Consumer consumer) {
+        // a subclass may add tags to requestAnnotations(), so use it unless this is the exact class
+        if (getClass() != HttpServerRequestAdapter.class) {
+            for (KeyValueAnnotation tag : requestAnnotations()) {
+                consumer.accept(tag.getKey(), tag.getValue());
+            }
+            return;
+        }
+        consumer.accept(TraceKeys.HTTP_URL, request.getUri().toString());
+    }
+
     static SpanId getSpanId(String traceId, String spanId, String parentSpanId, Boolean sampled) {
+        boolean traceId128Bit = traceId.length() == 32;
         return SpanId.builder()
-            .traceIdHigh(traceId.length() == 32 ? convertToLong(traceId, 0) : 0)
-            .traceId(convertToLong(traceId))
+            .traceIdHigh(traceId128Bit ? convertToLong(traceId, 0, 16) : 0)
+            .traceId(traceId128Bit ? convertToLong(traceId, 16, 32) : convertToLong(traceId))
             .spanId(convertToLong(spanId))
             .sampled(sampled)
             .parentId(parentSpanId == null ? null : convertToLong(parentSpanId)).build();
@@ -4,9 +4,12 @@ import java.util.Collection;
 import java.util.Collections;
 import com.github.kristofa.brave.KeyValueAnnotation;
 import com.github.kristofa.brave.ServerResponseAdapter;
+import com.github.kristofa.brave.TagSource;
 import zipkin.TraceKeys;
 
-public class HttpServerResponseAdapter implements ServerResponseAdapter {
+import static com.github.kristofa.brave.internal.Util.decimalString;
+
+public class HttpServerResponseAdapter implements ServerResponseAdapter, TagSource {
 
     private final HttpResponse response;
 
@@ -15,9 +18,25 @@ public class HttpServerResponseAdapter implements ServerResponseAdapter {
         this.response = response;
     }
 
+    /**
+     * Interceptors call {@link #forEachTag(Consumer)} instead, which reads tags from this method
+     * when it could be overridden by a subclass.
+     */
     @Override
     public Collection<KeyValueAnnotation> responseAnnotations() {
         return Collections.singleton(KeyValueAnnotation.create(
-                TraceKeys.HTTP_STATUS_CODE, String.valueOf(response.getHttpStatusCode())));
+                TraceKeys.HTTP_STATUS_CODE, decimalString(response.getHttpStatusCode())));
+    }
+
+    @Override
+    public void forEachTag(Consumer consumer) {
+        // a subclass may add tags to responseAnnotations(), so use it unless this is the exact class
+        if (getClass() != HttpServerResponseAdapter.class) {
+            for (KeyValueAnnotation tag : responseAnnotations()) {
+                consumer.accept(tag.getKey(), tag.getValue());
+            }
+            return;
+        }
+        consumer.accept(TraceKeys.HTTP_STATUS_CODE, decimalString(response.getHttpStatusCode()));
     }
 }
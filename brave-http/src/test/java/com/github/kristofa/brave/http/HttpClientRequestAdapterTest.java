@@ -2,12 +2,15 @@ package com.github.kristofa.brave.http;
 
 import com.github.kristofa.brave.KeyValueAnnotation;
 import com.github.kristofa.brave.SpanId;
+import com.github.kristofa.brave.TagSource;
 import org.junit.Before;
 import org.junit.Test;
 import zipkin.TraceKeys;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
@@ -55,8 +58,8 @@ public class HttpClientRequestAdapterTest {
         clientRequestAdapter.addSpanIdToRequest(id);
         verify(request).addHeader(BraveHttpHeaders.Sampled.getName(), "1");
         verify(request).addHeader(BraveHttpHeaders.TraceId.getName(), "0000000000000001");
-        verify(request).addHeader(BraveHttpHeaders.SpanId.getName(), String.valueOf(SPAN_ID));
-        verify(request).addHeader(BraveHttpHeaders.ParentSpanId.getName(), String.valueOf(PARENT_SPAN_ID));
+        verify(request).addHeader(BraveHttpHeaders.SpanId.getName(), "0000000000000002");
+        verify(request).addHeader(BraveHttpHeaders.ParentSpanId.getName(), "0000000000000003");
         verifyNoMoreInteractions(request, spanNameProvider);
     }
 
@@ -66,7 +69,7 @@ public class HttpClientRequestAdapterTest {
         clientRequestAdapter.addSpanIdToRequest(id);
         verify(request).addHeader(BraveHttpHeaders.Sampled.getName(), "1");
         verify(request).addHeader(BraveHttpHeaders.TraceId.getName(), "0000000000000001");
-        verify(request).addHeader(BraveHttpHeaders.SpanId.getName(), String.valueOf(SPAN_ID));
+        verify(request).addHeader(BraveHttpHeaders.SpanId.getName(), "0000000000000002");
         verifyNoMoreInteractions(request, spanNameProvider);
     }
 
@@ -88,7 +91,33 @@ public class HttpClientRequestAdapterTest {
         clientRequestAdapter.addSpanIdToRequest(id);
         verify(request).addHeader(BraveHttpHeaders.Sampled.getName(), "1");
         verify(request).addHeader(BraveHttpHeaders.TraceId.getName(), "00000000000000010000000000000001");
-        verify(request).addHeader(BraveHttpHeaders.SpanId.getName(), String.valueOf(SPAN_ID));
+        verify(request).addHeader(BraveHttpHeaders.SpanId.getName(), "0000000000000002");
         verifyNoMoreInteractions(request, spanNameProvider);
     }
+
+    @Test
+    public void forEachTag() {
+        when(request.getUri()).thenReturn(URI.create(TEST_URI));
+        TagSource.Consumer consumer = mock(TagSource.Consumer.class);
+        clientRequestAdapter.forEachTag(consumer);
+        verify(consumer).accept(TraceKeys.HTTP_URL, TEST_URI);
+        verifyNoMoreInteractions(consumer);
+    }
+
+    @Test
+    public void forEachTag_readsOverriddenAnnotations() {
+        when(request.getUri()).thenReturn(URI.create(TEST_URI));
+        clientRequestAdapter = new HttpClientRequestAdapter(request, spanNameProvider) {
+            @Override public Collection<KeyValueAnnotation> requestAnnotations() {
+                List<KeyValueAnnotation> result = new ArrayList<>(super.requestAnnotations());
+                result.add(KeyValueAnnotation.create("http.host", "localhost"));
+                return result;
+            }
+        };
+        TagSource.Consumer consumer = mock(TagSource.Consumer.class);
+        clientRequestAdapter.forEachTag(consumer);
+        verify(consumer).accept(TraceKeys.HTTP_URL, TEST_URI);
+        verify(consumer).accept("http.host", "localhost");
+        verifyNoMoreInteractions(consumer);
+    }
 }
@@ -2,11 +2,13 @@ package com.github.kristofa.brave.http;
 
 
 import com.github.kristofa.brave.KeyValueAnnotation;
+import com.github.kristofa.brave.TagSource;
 import org.junit.Before;
 import org.junit.Test;
 import zipkin.TraceKeys;
 
 import java.util.Collection;
+import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -40,4 +42,35 @@ public class HttpClientResponseAdapterTest {
         assertEquals(TraceKeys.HTTP_STATUS_CODE, a.getKey());
         assertEquals("500", a.getValue());
     }
+
+    @Test
+    public void forEachTag_successResponse() {
+        when(response.getHttpStatusCode()).thenReturn(200);
+        TagSource.Consumer consumer = mock(TagSource.Consumer.class);
+        adapter.forEachTag(consumer);
+        verifyNoMoreInteractions(consumer);
+    }
+
+    @Test
+    public void forEachTag_nonSuccessResponse() {
+        when(response.getHttpStatusCode()).thenReturn(500);
+        TagSource.Consumer consumer = mock(TagSource.Consumer.class);
+        adapter.forEachTag(consumer);
+        verify(consumer).accept(TraceKeys.HTTP_STATUS_CODE, "500");
+        verifyNoMoreInteractions(consumer);
+    }
+
+    @Test
+    public void forEachTag_readsOverriddenAnnotations() {
+        when(response.getHttpStatusCode()).thenReturn(200);
+        adapter = new HttpClientResponseAdapter(response) {
+            @Override public Collection<KeyValueAnnotation> responseAnnotations() {
+                return Collections.singleton(KeyValueAnnotation.create("http.status_code", "200"));
+            }
+        };
+        TagSource.Consumer consumer = mock(TagSource.Consumer.class);
+        adapter.forEachTag(consumer);
+        verify(consumer).accept(TraceKeys.HTTP_STATUS_CODE, "200");
+        verifyNoMoreInteractions(consumer);
+    }
 }
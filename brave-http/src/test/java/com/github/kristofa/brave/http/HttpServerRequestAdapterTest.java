@@ -2,11 +2,14 @@ package com.github.kristofa.brave.http;
 
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import com.github.kristofa.brave.IdConversion;
 import com.github.kristofa.brave.KeyValueAnnotation;
 import com.github.kristofa.brave.SpanId;
+import com.github.kristofa.brave.TagSource;
 import com.github.kristofa.brave.TraceData;
 import org.junit.Before;
 import org.junit.Test;
@@ -15,6 +18,8 @@ import zipkin.TraceKeys;
 import static junit.framework.Assert.assertNull;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 public class HttpServerRequestAdapterTest {
@@ -179,4 +184,39 @@ public class HttpServerRequestAdapterTest {
         assertEquals(IdConversion.convertToLong(SPAN_ID), spanId.spanId);
         assertNull(spanId.nullableParentId());
     }
+
+    @Test
+    public void forEachTag() throws Exception {
+        when(serverRequest.getUri()).thenReturn(new URI("http://youruri.com/a/b?myquery=you"));
+        TagSource.Consumer consumer = mock(TagSource.Consumer.class);
+        adapter.forEachTag(consumer);
+        verify(consumer).accept(TraceKeys.HTTP_URL, "http://youruri.com/a/b?myquery=you");
+        verifyNoMoreInteractions(consumer);
+    }
+
+    @Test
+    public void forEachTag_readsOverriddenAnnotations() throws Exception {
+        when(serverRequest.getUri()).thenReturn(new URI("http://youruri.com/a/b?myquery=you"));
+        adapter = new HttpServerRequestAdapter(serverRequest, spanNameProvider) {
+            @Override public Collection<KeyValueAnnotation> requestAnnotations() {
+                List<KeyValueAnnotation> result = new ArrayList<>(super.requestAnnotations());
+                result.add(KeyValueAnnotation.create("http.host", "youruri.com"));
+                return result;
+            }
+        };
+        TagSource.Consumer consumer = mock(TagSource.Consumer.class);
+        adapter.forEachTag(consumer);
+        verify(consumer).accept(TraceKeys.HTTP_URL, "http://youruri.com/a/b?myquery=you");
+        verify(consumer).accept("http.host", "youruri.com");
+        verifyNoMoreInteractions(consumer);
+    }
+
+    @Test
+    public void samplingRequest() throws Exception {
+        when(serverRequest.getHttpMethod()).thenReturn("GET");
+        when(serverRequest.getUri()).thenReturn(new URI("http://localhost/health?verbose=true"));
+
+        assertEquals("GET", adapter.method());
+        assertEquals("/health", adapter.path());
+    }
 }
@@ -2,11 +2,14 @@ package com.github.kristofa.brave.http;
 
 
 import com.github.kristofa.brave.KeyValueAnnotation;
+import com.github.kristofa.brave.TagSource;
 import org.junit.Before;
 import org.junit.Test;
 import zipkin.TraceKeys;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
@@ -32,4 +35,30 @@ public class HttpServerResponseAdapterTest {
         assertEquals(TraceKeys.HTTP_STATUS_CODE, a.getKey());
         assertEquals("500", a.getValue());
     }
+
+    @Test
+    public void forEachTag() {
+        when(response.getHttpStatusCode()).thenReturn(500);
+        TagSource.Consumer consumer = mock(TagSource.Consumer.class);
+        adapter.forEachTag(consumer);
+        verify(consumer).accept(TraceKeys.HTTP_STATUS_CODE, "500");
+        verifyNoMoreInteractions(consumer);
+    }
+
+    @Test
+    public void forEachTag_readsOverriddenAnnotations() {
+        when(response.getHttpStatusCode()).thenReturn(500);
+        adapter = new HttpServerResponseAdapter(response) {
+            @Override public Collection<KeyValueAnnotation> responseAnnotations() {
+                List<KeyValueAnnotation> result = new ArrayList<>(super.responseAnnotations());
+                result.add(KeyValueAnnotation.create("error", "oops"));
+                return result;
+            }
+        };
+        TagSource.Consumer consumer = mock(TagSource.Consumer.class);
+        adapter.forEachTag(consumer);
+        verify(consumer).accept(TraceKeys.HTTP_STATUS_CODE, "500");
+        verify(consumer).accept("error", "oops");
+        verifyNoMoreInteractions(consumer);
+    }
 }
@@ -20,7 +20,6 @@ import okhttp3.Response;
 import zipkin.Constants;
 import zipkin.TraceKeys;
 
-import static com.github.kristofa.brave.IdConversion.convertToString;
 import static com.github.kristofa.brave.http.BraveHttpHeaders.Sampled;
 import static com.github.kristofa.brave.internal.Util.checkNotNull;
 
@@ -145,11 +144,14 @@ public final class BraveTracingInterceptor implements Interceptor {
 
   static Request.Builder addTraceHeaders(Request request, SpanId spanId) {
     Request.Builder tracedRequest = request.newBuilder();
+    if (Boolean.FALSE.equals(spanId.sampled())) { // only recorded locally
+      return tracedRequest.header(BraveHttpHeaders.Sampled.getName(), "0");
+    }
     tracedRequest.header(BraveHttpHeaders.TraceId.getName(), spanId.traceIdString());
-    tracedRequest.header(BraveHttpHeaders.SpanId.getName(), convertToString(spanId.spanId));
-    if (spanId.nullableParentId() != null) {
-      tracedRequest.header(BraveHttpHeaders.ParentSpanId.getName(),
-          convertToString(spanId.parentId));
+    tracedRequest.header(BraveHttpHeaders.SpanId.getName(), spanId.spanIdString());
+    String parentId = spanId.parentIdString();
+    if (parentId != null) {
+      tracedRequest.header(BraveHttpHeaders.ParentSpanId.getName(), parentId);
     }
     tracedRequest.header(BraveHttpHeaders.Sampled.getName(), "1");
     return tracedRequest;
@@ -7,6 +7,8 @@ import okhttp3.Request;
 import okhttp3.Response;
 import zipkin.TraceKeys;
 
+import static com.github.kristofa.brave.internal.Util.decimalString;
+
 /**
  * Extend this type to change metadata recorded in spans representing http operations.
  *
@@ -45,7 +47,7 @@ public class OkHttpParser {
     if (response.isSuccessful()) return Collections.EMPTY_LIST;
 
     return Collections.singletonList(
-        KeyValueAnnotation.create(TraceKeys.HTTP_STATUS_CODE, String.valueOf(code))
+        KeyValueAnnotation.create(TraceKeys.HTTP_STATUS_CODE, decimalString(code))
     );
   }
 }
@@ -4,7 +4,9 @@ import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ClientRequestInterceptor;
 import com.github.kristofa.brave.ClientResponseInterceptor;
 import com.github.kristofa.brave.ClientTracer;
+import com.github.kristofa.brave.IdConversion;
 import com.github.kristofa.brave.SpanId;
+import com.github.kristofa.brave.TagSource;
 import com.github.kristofa.brave.http.BraveHttpHeaders;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -17,12 +19,16 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import zipkin.TraceKeys;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
@@ -44,6 +50,7 @@ public class BraveOkHttpRequestResponseInterceptorTest {
   @Mock(answer = Answers.RETURNS_SMART_NULLS)
   private ClientTracer clientTracer;
 
+  private ArgumentCaptor<TagSource> tags = ArgumentCaptor.forClass(TagSource.class);
   private SpanId spanId;
   private OkHttpClient client;
 
@@ -80,16 +87,19 @@ public class BraveOkHttpRequestResponseInterceptorTest {
 
     InOrder inOrder = inOrder(clientTracer);
     inOrder.verify(clientTracer).startNewSpan(HTTP_METHOD_GET);
-    inOrder.verify(clientTracer).submitBinaryAnnotation(TraceKeys.HTTP_URL, url);
+    inOrder.verify(clientTracer).submitBinaryAnnotations(tags.capture());
     inOrder.verify(clientTracer).setClientSent();
+    inOrder.verify(clientTracer).submitBinaryAnnotations(tags.capture());
     inOrder.verify(clientTracer).setClientReceived();
     verifyNoMoreInteractions(clientTracer);
+    assertTags(tags.getAllValues().get(0), TraceKeys.HTTP_URL, url);
+    assertTags(tags.getAllValues().get(1));
 
     RecordedRequest serverRequest = server.takeRequest();
     assertEquals(HTTP_METHOD_GET, serverRequest.getMethod());
     assertEquals("1", serverRequest.getHeader(BraveHttpHeaders.Sampled.getName()));
     assertEquals(TRACE_ID_STRING, serverRequest.getHeader(BraveHttpHeaders.TraceId.getName()));
-    assertEquals(Long.toString(SPAN_ID, 16), serverRequest.getHeader(BraveHttpHeaders.SpanId.getName()));
+    assertEquals(IdConversion.toLowerHex(SPAN_ID), serverRequest.getHeader(BraveHttpHeaders.SpanId.getName()));
   }
 
   @Test
@@ -112,17 +122,19 @@ public class BraveOkHttpRequestResponseInterceptorTest {
 
     InOrder inOrder = inOrder(clientTracer);
     inOrder.verify(clientTracer).startNewSpan(HTTP_METHOD_GET);
-    inOrder.verify(clientTracer).submitBinaryAnnotation(TraceKeys.HTTP_URL, url);
+    inOrder.verify(clientTracer).submitBinaryAnnotations(tags.capture());
     inOrder.verify(clientTracer).setClientSent();
-    inOrder.verify(clientTracer).submitBinaryAnnotation(TraceKeys.HTTP_STATUS_CODE, "400");
+    inOrder.verify(clientTracer).submitBinaryAnnotations(tags.capture());
     inOrder.verify(clientTracer).setClientReceived();
     verifyNoMoreInteractions(clientTracer);
+    assertTags(tags.getAllValues().get(0), TraceKeys.HTTP_URL, url);
+    assertTags(tags.getAllValues().get(1), TraceKeys.HTTP_STATUS_CODE, "400");
 
     RecordedRequest serverRequest = server.takeRequest();
     assertEquals(HTTP_METHOD_GET, serverRequest.getMethod());
     assertEquals("1", serverRequest.getHeader(BraveHttpHeaders.Sampled.getName()));
     assertEquals(TRACE_ID_STRING, serverRequest.getHeader(BraveHttpHeaders.TraceId.getName()));
-    assertEquals(Long.toString(SPAN_ID, 16), serverRequest.getHeader(BraveHttpHeaders.SpanId.getName()));
+    assertEquals(IdConversion.toLowerHex(SPAN_ID), serverRequest.getHeader(BraveHttpHeaders.SpanId.getName()));
   }
 
   @Test
@@ -144,8 +156,10 @@ public class BraveOkHttpRequestResponseInterceptorTest {
 
     InOrder inOrder = inOrder(clientTracer);
     inOrder.verify(clientTracer).startNewSpan(HTTP_METHOD_GET);
+    inOrder.verify(clientTracer).submitBinaryAnnotations(tags.capture());
     inOrder.verify(clientTracer).setClientReceived();
     verifyNoMoreInteractions(clientTracer);
+    assertTags(tags.getValue());
 
     RecordedRequest serverRequest = server.takeRequest();
     assertEquals(HTTP_METHOD_GET, serverRequest.getMethod());
@@ -171,16 +185,27 @@ public class BraveOkHttpRequestResponseInterceptorTest {
 
     InOrder inOrder = inOrder(clientTracer);
     inOrder.verify(clientTracer).startNewSpan(HTTP_METHOD_GET);
-    inOrder.verify(clientTracer).submitBinaryAnnotation(TraceKeys.HTTP_URL, url);
+    inOrder.verify(clientTracer).submitBinaryAnnotations(tags.capture());
     inOrder.verify(clientTracer).setClientSent();
+    inOrder.verify(clientTracer).submitBinaryAnnotations(tags.capture());
     inOrder.verify(clientTracer).setClientReceived();
     verifyNoMoreInteractions(clientTracer);
+    assertTags(tags.getAllValues().get(0), TraceKeys.HTTP_URL, url);
+    assertTags(tags.getAllValues().get(1));
 
     RecordedRequest serverRequest = server.takeRequest();
     assertEquals(HTTP_METHOD_GET, serverRequest.getMethod());
     assertEquals("1", serverRequest.getHeader(BraveHttpHeaders.Sampled.getName()));
     assertEquals(TRACE_ID_STRING, serverRequest.getHeader(BraveHttpHeaders.TraceId.getName()));
-    assertEquals(Long.toString(SPAN_ID, 16), serverRequest.getHeader(BraveHttpHeaders.SpanId.getName()));
+    assertEquals(IdConversion.toLowerHex(SPAN_ID), serverRequest.getHeader(BraveHttpHeaders.SpanId.getName()));
   }
 
-}
\ No newline at end of file
+  static void assertTags(TagSource tags, String... keyValues) {
+    List<String> actual = new ArrayList<>();
+    tags.forEachTag((key, value) -> {
+      actual.add(key);
+      actual.add(value);
+    });
+    assertEquals(Arrays.asList(keyValues), actual);
+  }
+}
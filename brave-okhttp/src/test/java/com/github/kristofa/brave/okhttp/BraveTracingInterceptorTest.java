@@ -60,6 +60,9 @@ public class BraveTracingInterceptorTest {
   Endpoint sa = local.toBuilder().serviceName("").port(server.getPort()).build();
   InMemoryStorage storage = new InMemoryStorage();
 
+  // Each call to nanoTime or the clock increases the fake clock by 1 millisecond
+  AtomicLong clock = new AtomicLong();
+
   OkHttpClient client;
   BraveTracingInterceptor interceptor;
 
@@ -81,10 +84,6 @@ public class BraveTracingInterceptorTest {
   @Before
   public void setup() throws Exception {
     PowerMockito.mockStatic(System.class);
-    // Each call to nanoTime or currentTimeMillis increases the fake clock by 1 millisecond
-    final AtomicLong clock = new AtomicLong();
-    PowerMockito.when(System.currentTimeMillis())
-        .then(i -> clock.addAndGet(1000000L) / 1000000L);
     PowerMockito.when(System.nanoTime())
         .then(i -> clock.addAndGet(1000000L));
 
@@ -245,6 +244,18 @@ public class BraveTracingInterceptorTest {
         .isEqualTo("00000000000000010000000000000002");
   }
 
+  @Test
+  public void addTraceHeaders_unsampled() {
+    com.github.kristofa.brave.SpanId id = com.github.kristofa.brave.SpanId.builder()
+        .traceId(2).spanId(3).parentId(2L).sampled(false).build();
+
+    Request original = new Request.Builder().url("http://localhost").build();
+
+    Request traced = addTraceHeaders(original, id).build();
+    assertThat(traced.header(Sampled.getName())).isEqualTo("0");
+    assertThat(traced.header(TraceId.getName())).isNull();
+  }
+
   BraveTracingInterceptor.Builder interceptorBuilder(Sampler sampler) {
     com.twitter.zipkin.gen.Endpoint localEndpoint = com.twitter.zipkin.gen.Endpoint.builder()
         .ipv4(local.ipv4)
@@ -255,6 +266,7 @@ public class BraveTracingInterceptorTest {
     Brave brave = new Brave.Builder(new InheritableServerClientAndLocalSpanState(localEndpoint))
         .reporter(s -> storage.spanConsumer().accept(asList(s)))
         .traceSampler(sampler)
+        .clock(() -> clock.addAndGet(1000000L) / 1000L)
         .build();
     return BraveTracingInterceptor.builder(brave);
   }
@@ -1,8 +1,16 @@
 package com.github.kristofa.brave.sampler;
 
+import com.github.kristofa.brave.RateLimitingSampler;
 import com.github.kristofa.brave.Sampler;
+import com.github.kristofa.brave.SamplingRequest;
+import com.github.kristofa.brave.internal.Nullable;
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -17,30 +25,146 @@ import org.apache.zookeeper.WatchedEvent;
 import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.data.Stat;
 
+import static com.github.kristofa.brave.internal.Util.UTF_8;
 import static com.github.kristofa.brave.internal.Util.checkNotBlank;
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static com.github.kristofa.brave.internal.Util.equal;
 import static java.lang.String.format;
 
 public final class ZooKeeperSampler extends Sampler implements Watcher, Closeable {
 
+  /** Creates the sampler to delegate to from the contents of the znode. */
+  public interface SamplerFactory {
+    Sampler create(String value);
+  }
+
+  /** Reads the znode as a sample rate, like 0.25, and passes it to {@link Sampler#create(float)}. */
+  public static final SamplerFactory SAMPLE_RATE = new SamplerFactory() {
+    @Override public Sampler create(String value) {
+      return Sampler.create(Float.valueOf(value));
+    }
+
+    @Override public String toString() {
+      return "SampleRate";
+    }
+  };
+
+  /**
+   * Reads the znode as a count of traces per second, like 100, and passes it to {@link
+   * RateLimitingSampler#create(int)}.
+   */
+  public static final SamplerFactory TRACES_PER_SECOND = new SamplerFactory() {
+    @Override public Sampler create(String value) {
+      return RateLimitingSampler.create(Integer.parseInt(value.trim()));
+    }
+
+    @Override public String toString() {
+      return "TracesPerSecond";
+    }
+  };
+
+  /**
+   * Builds a sampler which doesn't wait for ZooKeeper. Until the znode is read, it uses the value
+   * last read from it, or a default.
+   *
+   * <p>Ex.
+   * <pre>{@code
+   * sampler = new ZooKeeperSampler.Builder("zookeeper:2181", "/brave/samplerate")
+   *     .defaultValue("0.01")
+   *     .lastKnownValueFile(new File("/var/lib/myapp/samplerate"))
+   *     .build();
+   * }</pre>
+   */
+  public static final class Builder {
+    final String connectionString;
+    final String sampleRateZNode;
+    SamplerFactory samplerFactory = SAMPLE_RATE;
+    String defaultValue;
+    File lastKnownValueFile;
+
+    /**
+     * @param connectionString ZooKeeper connection string. Should not be <code>null</code> or
+     * empty.
+     * @param sampleRateZNode The znode that contains sample rate. Should not be <code>null</code>
+     * or empty.
+     */
+    public Builder(String connectionString, String sampleRateZNode) {
+      this.connectionString = checkNotBlank(connectionString, "Null or blank connectionString");
+      this.sampleRateZNode = checkNotBlank(sampleRateZNode, "Null or blank sampleRateZNode");
+    }
+
+    /** Creates a sampler from the znode's contents each time they change. Defaults to {@link #SAMPLE_RATE}. */
+    public Builder samplerFactory(SamplerFactory samplerFactory) {
+      this.samplerFactory = checkNotNull(samplerFactory, "samplerFactory");
+      return this;
+    }
+
+    /**
+     * The value to sample with until the znode is read, if there's no last known value. It is read
+     * by the sampler factory, so it must be in the same format as the znode. When unset, nothing
+     * is sampled until the znode is read.
+     */
+    public Builder defaultValue(String defaultValue) {
+      this.defaultValue = checkNotNull(defaultValue, "defaultValue");
+      return this;
+    }
+
+    /**
+     * A file which holds the last value read from the znode, so that the next start samples the
+     * same as before, even if ZooKeeper is unavailable. It is rewritten each time the znode changes,
+     * and deleted when the znode is.
+     */
+    public Builder lastKnownValueFile(File lastKnownValueFile) {
+      this.lastKnownValueFile = checkNotNull(lastKnownValueFile, "lastKnownValueFile");
+      return this;
+    }
+
+    /**
+     * Returns a sampler which is usable immediately. The connection to ZooKeeper is established in
+     * the background, and retried until it succeeds or the sampler is closed.
+     *
+     * @throws IllegalArgumentException if the default value can't be read by the sampler factory.
+     */
+    public ZooKeeperSampler build() {
+      return new ZooKeeperSampler(this);
+    }
+  }
+
   private final static Logger LOGGER = Logger.getLogger(ZooKeeperSampler.class.getName());
-  private final static float DEFAULT_SAMPLE_RATE = 0.0f;
 
   private final CuratorFramework zkCurator;
   private final CountDownLatch connectionEstablished = new CountDownLatch(1);
   private final String sampleRateZNode;
+  private final SamplerFactory samplerFactory;
+  @Nullable
+  private final Path lastKnownValueFile;
 
   private volatile Sampler delegate;
+  // the value the delegate was created from, guarded by this.
+  private String lastKnownValue;
 
   @Override
   public boolean isSampled(long traceId) {
     return delegate.isSampled(traceId);
   }
 
+  @Override
+  public boolean isSampled(long traceId, SamplingRequest request) {
+    return delegate.isSampled(traceId, request);
+  }
+
+  @Override
+  public boolean allowsDebug(long traceId) {
+    return delegate.allowsDebug(traceId);
+  }
+
   /**
    * Creates a new instance. If the initial connection with ZooKeeper can't be established within 2
    * seconds an unchecked exception will be thrown as this will probably indicate wrong
    * configuration.
    *
+   * <p>Use {@link Builder} for a sampler which doesn't block startup.
+   *
    * @param connectionString ZooKeeper connection string. Should not be <code>null</code> or empty.
    * @param sampleRateZNode The znode that contains sample rate. Should not be <code>null</code> or
    * empty.
@@ -49,21 +173,37 @@ public final class ZooKeeperSampler extends Sampler implements Watcher, Closeabl
    */
   public ZooKeeperSampler(final String connectionString, final String sampleRateZNode)
       throws InterruptedException {
-    checkNotBlank(connectionString, "Null or blank connectionString");
-    this.sampleRateZNode = checkNotBlank(sampleRateZNode, "Null or blank sampleRateZNode");
+    this(connectionString, sampleRateZNode, SAMPLE_RATE);
+  }
 
-    final RetryPolicy retryPolicy = new ExponentialBackoffRetry(1000, 3);
-    zkCurator = CuratorFrameworkFactory.newClient(connectionString, retryPolicy);
-    final ConnectionStateListener initialConnectionState = new InitialConnectionStateListener();
-    zkCurator.getConnectionStateListenable().addListener(initialConnectionState);
-    zkCurator.start();
+  /**
+   * Like {@link #ZooKeeperSampler(String, String)}, except the sampler is created from the znode
+   * by the given factory, such as {@link #TRACES_PER_SECOND}. When the znode is absent, nothing is
+   * sampled.
+   *
+   * @param samplerFactory creates a sampler from the znode's contents each time they change.
+   */
+  public ZooKeeperSampler(final String connectionString, final String sampleRateZNode,
+      final SamplerFactory samplerFactory) throws InterruptedException {
+    this(new Builder(connectionString, sampleRateZNode).samplerFactory(samplerFactory));
 
     if (connectionEstablished.await(2, TimeUnit.SECONDS) == false) {
       zkCurator.close();
       throw new IllegalStateException("Connection with ZooKeeper failed.");
     }
-    zkCurator.getConnectionStateListenable().removeListener(initialConnectionState);
-    delegate = Sampler.create(getSampleRate());
+  }
+
+  ZooKeeperSampler(Builder builder) {
+    this.sampleRateZNode = builder.sampleRateZNode;
+    this.samplerFactory = builder.samplerFactory;
+    this.lastKnownValueFile =
+        builder.lastKnownValueFile != null ? builder.lastKnownValueFile.toPath() : null;
+    this.delegate = initialSampler(builder.defaultValue);
+
+    final RetryPolicy retryPolicy = new ExponentialBackoffRetry(1000, 3);
+    zkCurator = CuratorFrameworkFactory.newClient(builder.connectionString, retryPolicy);
+    zkCurator.getConnectionStateListenable().addListener(new RefreshingConnectionStateListener());
+    zkCurator.start();
   }
 
   @Override
@@ -75,9 +215,8 @@ public final class ZooKeeperSampler extends Sampler implements Watcher, Closeabl
       final String path = event.getPath();
 
       if (sampleRateZNode.equals(path)) {
-        float newRate = getSampleRate();
-        delegate = Sampler.create(newRate);
-        LOGGER.info(format("SampleRate znode [%s] changed. New value: %s", sampleRateZNode, newRate));
+        refresh();
+        LOGGER.info(format("SampleRate znode [%s] changed. New sampler: %s", sampleRateZNode, delegate));
       }
     }
   }
@@ -99,32 +238,107 @@ public final class ZooKeeperSampler extends Sampler implements Watcher, Closeabl
     return zkCurator;
   }
 
-  private float getSampleRate() {
-    final byte[] data = getData(sampleRateZNode);
-    if (data == null) {
-      return DEFAULT_SAMPLE_RATE;
+  /** Uses the last known value when present and readable, falling back to the default value. */
+  private Sampler initialSampler(@Nullable String defaultValue) {
+    if (lastKnownValueFile != null) {
+      String value = readLastKnownValue();
+      if (value != null) {
+        try {
+          Sampler result = samplerFactory.create(value);
+          lastKnownValue = value;
+          return result;
+        } catch (RuntimeException e) {
+          LOGGER.log(Level.WARNING, format("Ignoring last known value [%s] in %s.", value,
+              lastKnownValueFile), e);
+        }
+      }
+    }
+    if (defaultValue == null) return Sampler.NEVER_SAMPLE;
+    try {
+      return samplerFactory.create(defaultValue);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException(
+          format("%s can't read default value [%s]", samplerFactory, defaultValue), e);
     }
-    return Float.valueOf(new String(data));
   }
 
-  private byte[] getData(final String znode) {
+  /**
+   * Reads the znode, re-registering the watch, and swaps the delegate. Failures leave the current
+   * delegate as is.
+   */
+  synchronized void refresh() {
+    final String value;
     try {
-      final Stat stat = zkCurator.checkExists().usingWatcher(this).forPath(znode);
-      if (stat != null) {
-        return zkCurator.getData().usingWatcher(this).forPath(znode);
-      }
+      final byte[] data = getData(sampleRateZNode);
+      value = data != null ? new String(data, UTF_8) : null;
     } catch (final Exception e) {
       LOGGER.log(Level.WARNING, "Zookeeper exception.", e);
+      return;
+    }
+
+    if (value == null) {
+      delegate = Sampler.NEVER_SAMPLE;
+    } else {
+      try {
+        delegate = samplerFactory.create(value);
+      } catch (RuntimeException e) {
+        LOGGER.log(Level.WARNING, format("Ignoring invalid value [%s] in znode [%s].", value,
+            sampleRateZNode), e);
+        return;
+      }
+    }
+
+    if (lastKnownValueFile != null && !equal(value, lastKnownValue)) {
+      writeLastKnownValue(value);
+    }
+    lastKnownValue = value;
+  }
+
+  @Nullable
+  private byte[] getData(final String znode) throws Exception {
+    final Stat stat = zkCurator.checkExists().usingWatcher(this).forPath(znode);
+    if (stat != null) {
+      return zkCurator.getData().usingWatcher(this).forPath(znode);
     }
     return null;
   }
 
-  private class InitialConnectionStateListener implements ConnectionStateListener {
+  @Nullable
+  private String readLastKnownValue() {
+    try {
+      return new String(Files.readAllBytes(lastKnownValueFile), UTF_8);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, format("Couldn't read %s.", lastKnownValueFile), e);
+      return null;
+    }
+  }
+
+  /** Replaces the file atomically, so that a crash doesn't leave a partial value. */
+  private void writeLastKnownValue(@Nullable String value) {
+    try {
+      if (value == null) {
+        Files.deleteIfExists(lastKnownValueFile);
+        return;
+      }
+      Path temp = lastKnownValueFile.resolveSibling(lastKnownValueFile.getFileName() + ".tmp");
+      Files.write(temp, value.getBytes(UTF_8));
+      Files.move(temp, lastKnownValueFile, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, format("Couldn't write %s.", lastKnownValueFile), e);
+    }
+  }
+
+  /** Reads the znode on each (re)connect, as watches don't survive an expired session. */
+  private class RefreshingConnectionStateListener implements ConnectionStateListener {
 
     @Override
     public void stateChanged(final CuratorFramework client, final ConnectionState newState) {
       if (ConnectionState.CONNECTED.equals(newState) || ConnectionState.RECONNECTED.equals(newState)) {
         LOGGER.info("Connected with ZooKeeper.");
+        refresh();
         connectionEstablished.countDown();
       }
     }
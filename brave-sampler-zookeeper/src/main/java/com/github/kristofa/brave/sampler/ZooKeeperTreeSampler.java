@@ -0,0 +1,284 @@
+package com.github.kristofa.brave.sampler;
+
+import com.github.kristofa.brave.RouteSampler;
+import com.github.kristofa.brave.Sampler;
+import com.github.kristofa.brave.SamplingRequest;
+import com.github.kristofa.brave.internal.Nullable;
+import java.io.Closeable;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.framework.recipes.cache.TreeCacheListener;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+
+import static com.github.kristofa.brave.internal.Util.UTF_8;
+import static com.github.kristofa.brave.internal.Util.checkNotBlank;
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+import static com.github.kristofa.brave.internal.Util.equal;
+import static java.lang.String.format;
+
+/**
+ * This sampler reads sample rates from a tree of znodes, so that rates for each service, and for
+ * routes within them, can be managed centrally. For example:
+ *
+ * <pre>
+ * /brave/sampling                          0.01 (all services)
+ * /brave/sampling/checkout                 0.1  (the service "checkout")
+ * /brave/sampling/checkout/%2Fhealth       0.0  (paths starting with "/health")
+ * /brave/sampling/checkout/POST%20%2Fcart  1.0  (POST requests to paths starting with "/cart")
+ * </pre>
+ *
+ * <p>Route znode names are url-encoded, as znode names can't include slashes. Once decoded, a name
+ * is a path prefix, optionally preceded by an http method and a space. For gRPC, the path is the
+ * full method name, like "helloworld.Greeter/SayHello". Routes are matched like {@link
+ * RouteSampler}, and only apply to adapters which implement {@link SamplingRequest}. A request
+ * which matches no route uses the rate of its service, falling back to the rate of all services.
+ *
+ * <h3>Implementation</h3>
+ *
+ * <p>The tree is cached by a Curator {@link TreeCache}. Each time the base, service or route
+ * znodes change, a {@link RouteSampler} is compiled from the cache and swapped in. Sampling only
+ * reads the current one, so it never blocks on ZooKeeper or locks. Rates whose value didn't change
+ * keep their sampler, so that, for example, a rate limit isn't reset by an unrelated change.
+ */
+public final class ZooKeeperTreeSampler extends Sampler implements Closeable {
+
+  /**
+   * Builds a sampler which doesn't wait for ZooKeeper. Until the tree is read, it uses the default
+   * value.
+   *
+   * <p>Ex.
+   * <pre>{@code
+   * sampler = new ZooKeeperTreeSampler.Builder("zookeeper:2181", "checkout")
+   *     .defaultValue("0.01")
+   *     .build();
+   * }</pre>
+   */
+  public static final class Builder {
+    final String connectionString;
+    final String serviceName;
+    String basePath = "/brave/sampling";
+    ZooKeeperSampler.SamplerFactory samplerFactory = ZooKeeperSampler.SAMPLE_RATE;
+    String defaultValue;
+
+    /**
+     * @param connectionString ZooKeeper connection string. Should not be <code>null</code> or
+     * empty.
+     * @param serviceName The name of the znode under the base path holding rates for this service.
+     */
+    public Builder(String connectionString, String serviceName) {
+      this.connectionString = checkNotBlank(connectionString, "Null or blank connectionString");
+      this.serviceName = checkNotBlank(serviceName, "Null or blank serviceName");
+    }
+
+    /** The znode which holds the rate of all services, and a child for each. Defaults to "/brave/sampling". */
+    public Builder basePath(String basePath) {
+      this.basePath = checkNotBlank(basePath, "Null or blank basePath");
+      return this;
+    }
+
+    /**
+     * Creates a sampler from a znode's contents each time they change. Defaults to {@link
+     * ZooKeeperSampler#SAMPLE_RATE}.
+     */
+    public Builder samplerFactory(ZooKeeperSampler.SamplerFactory samplerFactory) {
+      this.samplerFactory = checkNotNull(samplerFactory, "samplerFactory");
+      return this;
+    }
+
+    /**
+     * The value to sample with when neither the service nor the base path have a rate, including
+     * before the tree is read. It is read by the sampler factory, so it must be in the same format
+     * as the znodes. When unset, nothing is sampled in this case.
+     */
+    public Builder defaultValue(String defaultValue) {
+      this.defaultValue = checkNotNull(defaultValue, "defaultValue");
+      return this;
+    }
+
+    /**
+     * Returns a sampler which is usable immediately. The connection to ZooKeeper is established in
+     * the background, and retried until it succeeds or the sampler is closed.
+     *
+     * @throws IllegalArgumentException if the default value can't be read by the sampler factory.
+     */
+    public ZooKeeperTreeSampler build() {
+      return new ZooKeeperTreeSampler(this);
+    }
+  }
+
+  private final static Logger LOGGER = Logger.getLogger(ZooKeeperTreeSampler.class.getName());
+
+  private final CuratorFramework zkCurator;
+  private final TreeCache cache;
+  private final String basePath;
+  private final String servicePath;
+  private final ZooKeeperSampler.SamplerFactory samplerFactory;
+  private final Sampler defaultSampler;
+
+  private volatile RouteSampler delegate;
+  // the rates the delegate was compiled from, by znode path, guarded by this.
+  private Map<String, Rate> rates = new HashMap<String, Rate>();
+
+  ZooKeeperTreeSampler(Builder builder) {
+    this.basePath = builder.basePath;
+    this.servicePath = builder.basePath + "/" + builder.serviceName;
+    this.samplerFactory = builder.samplerFactory;
+    this.defaultSampler = defaultSampler(builder.defaultValue);
+    this.delegate = RouteSampler.builder().build(defaultSampler);
+
+    zkCurator = CuratorFrameworkFactory.newClient(builder.connectionString,
+        new ExponentialBackoffRetry(1000, 3));
+    // the base is depth 0, services depth 1 and their routes depth 2
+    cache = TreeCache.newBuilder(zkCurator, basePath).setCacheData(true).setMaxDepth(2).build();
+    cache.getListenable().addListener(new RebuildingTreeCacheListener());
+    zkCurator.start();
+    try {
+      cache.start();
+    } catch (Exception e) {
+      zkCurator.close();
+      throw new IllegalStateException("Couldn't start the cache of " + basePath, e);
+    }
+  }
+
+  @Override
+  public boolean isSampled(long traceId) {
+    return delegate.isSampled(traceId);
+  }
+
+  @Override
+  public boolean isSampled(long traceId, SamplingRequest request) {
+    return delegate.isSampled(traceId, request);
+  }
+
+  @Override
+  public boolean allowsDebug(long traceId) {
+    return delegate.allowsDebug(traceId);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() {
+    cache.close();
+    zkCurator.close();
+  }
+
+  /**
+   * Gets ZooKeeper Curator instance.
+   *
+   * @return ZooKeeper Curator.
+   */
+  CuratorFramework getZkCurator() {
+    return zkCurator;
+  }
+
+  private Sampler defaultSampler(@Nullable String defaultValue) {
+    if (defaultValue == null) return Sampler.NEVER_SAMPLE;
+    try {
+      return samplerFactory.create(defaultValue);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException(
+          format("%s can't read default value [%s]", samplerFactory, defaultValue), e);
+    }
+  }
+
+  /** Compiles the cached tree into a route sampler, and swaps it in. */
+  synchronized void rebuild() {
+    Map<String, Rate> next = new HashMap<String, Rate>();
+    Sampler serviceSampler = sampler(cache.getCurrentData(servicePath), next);
+    if (serviceSampler == null) serviceSampler = sampler(cache.getCurrentData(basePath), next);
+    if (serviceSampler == null) serviceSampler = defaultSampler;
+
+    RouteSampler.Builder builder = RouteSampler.builder();
+    Map<String, ChildData> routes = cache.getCurrentChildren(servicePath);
+    if (routes != null) {
+      for (Map.Entry<String, ChildData> route : routes.entrySet()) {
+        Sampler sampler = sampler(route.getValue(), next);
+        if (sampler == null) continue;
+        String decoded;
+        try {
+          decoded = URLDecoder.decode(route.getKey(), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+          throw new AssertionError(e);
+        } catch (IllegalArgumentException e) {
+          LOGGER.log(Level.WARNING, format("Ignoring invalid route [%s].", route.getKey()), e);
+          continue;
+        }
+        int space = decoded.indexOf(' ');
+        if (space == -1) {
+          builder.addRule(null, decoded, sampler);
+        } else {
+          builder.addRule(decoded.substring(0, space), decoded.substring(space + 1), sampler);
+        }
+      }
+    }
+    delegate = builder.build(serviceSampler);
+    rates = next;
+  }
+
+  /**
+   * Returns the sampler for the znode, or null if it is absent or has no valid rate. The sampler
+   * is reused when the znode's value didn't change since the last rebuild.
+   */
+  @Nullable
+  private Sampler sampler(@Nullable ChildData data, Map<String, Rate> next) {
+    if (data == null || data.getData() == null || data.getData().length == 0) return null;
+    String value = new String(data.getData(), UTF_8).trim();
+    Rate rate = rates.get(data.getPath());
+    if (rate == null || !equal(rate.value, value)) {
+      try {
+        rate = new Rate(value, samplerFactory.create(value));
+      } catch (RuntimeException e) {
+        LOGGER.log(Level.WARNING, format("Ignoring invalid value [%s] in znode [%s].", value,
+            data.getPath()), e);
+        return null;
+      }
+    }
+    next.put(data.getPath(), rate);
+    return rate.sampler;
+  }
+
+  static final class Rate {
+    final String value;
+    final Sampler sampler;
+
+    Rate(String value, Sampler sampler) {
+      this.value = value;
+      this.sampler = sampler;
+    }
+  }
+
+  private class RebuildingTreeCacheListener implements TreeCacheListener {
+
+    @Override
+    public void childEvent(final CuratorFramework client, final TreeCacheEvent event) {
+      switch (event.getType()) {
+        case NODE_ADDED:
+        case NODE_UPDATED:
+        case NODE_REMOVED:
+          String path = event.getData().getPath();
+          if (!path.equals(basePath) && !path.equals(servicePath)
+              && !path.startsWith(servicePath + "/")) {
+            return; // another service changed
+          }
+          break;
+        case INITIALIZED:
+          break;
+        default:
+          return;
+      }
+      rebuild();
+      LOGGER.fine(format("Sampling tree [%s] changed. New sampler: %s", servicePath, delegate));
+    }
+  }
+}
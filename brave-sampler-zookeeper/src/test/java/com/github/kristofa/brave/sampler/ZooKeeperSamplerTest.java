@@ -1,17 +1,31 @@
 package com.github.kristofa.brave.sampler;
 
+import com.github.kristofa.brave.RateLimitingSampler;
+import com.github.kristofa.brave.Sampler;
+import com.github.kristofa.brave.SamplingRequest;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Random;
+import java.util.function.BooleanSupplier;
 import java.util.stream.LongStream;
 import org.apache.curator.test.TestingServer;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.data.Percentage.withPercentage;
 
 public class ZooKeeperSamplerTest {
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   /**
    * Zipkin trace ids are random 64bit numbers. This creates a relatively large input to avoid
    * flaking out due to PRNG nuance.
@@ -68,9 +82,142 @@ public class ZooKeeperSamplerTest {
         .containsExactly(traceIds);
   }
 
+  @Test
+  public void tracesPerSecond() throws Exception {
+    sampler.close();
+    sampler = new ZooKeeperSampler(zooKeeperTestServer.getConnectString(), SAMPLE_RATE_NODE,
+        ZooKeeperSampler.TRACES_PER_SECOND);
+    setValue("100");
+
+    assertThat(LongStream.of(traceIds).filter(sampler::isSampled).count())
+        .isBetween(100L, 150L); // over 100 only when this test spans hundredths of a second
+  }
+
+  @Test
+  public void delegatesDebug() throws Exception {
+    sampler.close();
+    sampler = new ZooKeeperSampler(zooKeeperTestServer.getConnectString(), SAMPLE_RATE_NODE,
+        value -> RateLimitingSampler.create(Integer.parseInt(value), 0));
+    setValue("100");
+
+    assertThat(sampler.allowsDebug(1L)).isFalse();
+  }
+
+  @Test
+  public void delegatesSamplingRequest() throws Exception {
+    sampler.close();
+    sampler = new ZooKeeperSampler(zooKeeperTestServer.getConnectString(), SAMPLE_RATE_NODE,
+        value -> new Sampler() {
+          @Override public boolean isSampled(long traceId) {
+            return false;
+          }
+
+          @Override public boolean isSampled(long traceId, SamplingRequest request) {
+            return request.path().startsWith(value);
+          }
+        });
+    setValue("/api");
+
+    assertThat(sampler.isSampled(1L)).isFalse();
+    assertThat(sampler.isSampled(1L, ZooKeeperTreeSamplerTest.request("GET", "/api/users")))
+        .isTrue();
+  }
+
+  @Test
+  public void builder_startsWithDefaultWhileZooKeeperIsDown() throws Exception {
+    zooKeeperTestServer.stop();
+    replaceSampler(builder().defaultValue("1.0"));
+
+    assertThat(sampler.isSampled(1L)).isTrue();
+  }
+
+  @Test
+  public void builder_dropsUntilZNodeIsReadWithoutDefault() throws Exception {
+    zooKeeperTestServer.stop();
+    replaceSampler(builder());
+
+    assertThat(sampler.isSampled(1L)).isFalse();
+  }
+
+  @Test
+  public void builder_startsWithLastKnownValue() throws Exception {
+    File lastKnownValue = folder.newFile();
+    Files.write(lastKnownValue.toPath(), "1.0".getBytes("UTF-8"));
+    zooKeeperTestServer.stop();
+    replaceSampler(builder().defaultValue("0.0").lastKnownValueFile(lastKnownValue));
+
+    assertThat(sampler.isSampled(1L)).isTrue();
+  }
+
+  @Test
+  public void builder_ignoresInvalidLastKnownValue() throws Exception {
+    File lastKnownValue = folder.newFile();
+    Files.write(lastKnownValue.toPath(), "one".getBytes("UTF-8"));
+    zooKeeperTestServer.stop();
+    replaceSampler(builder().defaultValue("1.0").lastKnownValueFile(lastKnownValue));
+
+    assertThat(sampler.isSampled(1L)).isTrue();
+  }
+
+  @Test
+  public void builder_invalidDefaultValue() throws Exception {
+    thrown.expect(IllegalArgumentException.class);
+
+    builder().defaultValue("one").build();
+  }
+
+  @Test
+  public void builder_swapsToZNodeOnceConnected() throws Exception {
+    File lastKnownValue = new File(folder.getRoot(), "samplerate");
+    zooKeeperTestServer.stop();
+    replaceSampler(builder().defaultValue("0.0").lastKnownValueFile(lastKnownValue));
+    assertThat(sampler.isSampled(1L)).isFalse();
+
+    zooKeeperTestServer.restart();
+    setRate(1.0f);
+
+    await(() -> sampler.isSampled(1L));
+    assertThat(Files.readAllBytes(lastKnownValue.toPath())).isEqualTo("1.0".getBytes("UTF-8"));
+  }
+
+  @Test
+  public void builder_rewritesLastKnownValueWhenZNodeChanges() throws Exception {
+    File lastKnownValue = new File(folder.getRoot(), "samplerate");
+    replaceSampler(builder().lastKnownValueFile(lastKnownValue));
+    setRate(1.0f);
+    await(() -> sampler.isSampled(1L));
+
+    sampler.getZkCurator().setData().forPath(SAMPLE_RATE_NODE, "0.0".getBytes("UTF-8"));
+    await(() -> !sampler.isSampled(1L));
+    assertThat(Files.readAllBytes(lastKnownValue.toPath())).isEqualTo("0.0".getBytes("UTF-8"));
+
+    sampler.getZkCurator().delete().forPath(SAMPLE_RATE_NODE);
+    await(() -> !lastKnownValue.exists());
+  }
+
+  private ZooKeeperSampler.Builder builder() {
+    return new ZooKeeperSampler.Builder(zooKeeperTestServer.getConnectString(), SAMPLE_RATE_NODE);
+  }
+
+  private void replaceSampler(ZooKeeperSampler.Builder builder) {
+    sampler.close();
+    sampler = builder.build();
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 1000 && !condition.getAsBoolean(); i++) {
+      Thread.sleep(10);
+    }
+    assertThat(condition.getAsBoolean()).isTrue();
+  }
+
   private void setRate(float rate) throws Exception {
+    setValue(String.valueOf(rate));
+  }
+
+  private void setValue(String value) throws Exception {
     sampler.getZkCurator().create().creatingParentsIfNeeded()
-        .forPath(SAMPLE_RATE_NODE, String.valueOf(rate).getBytes());
+        .forPath(SAMPLE_RATE_NODE, value.getBytes());
     Thread.sleep(100);
   }
 }
@@ -0,0 +1,169 @@
+package com.github.kristofa.brave.sampler;
+
+import com.github.kristofa.brave.RateLimitingSampler;
+import com.github.kristofa.brave.SamplingRequest;
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ZooKeeperTreeSamplerTest {
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private final static String BASE = "/brave/sampling";
+
+  private TestingServer zooKeeperTestServer;
+  private ZooKeeperTreeSampler sampler;
+
+  @Before
+  public void setup() throws Exception {
+    zooKeeperTestServer = new TestingServer();
+    sampler = builder().build();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    sampler.close();
+    zooKeeperTestServer.close();
+  }
+
+  @Test
+  public void dropsWhenTreeIsAbsent() throws Exception {
+    assertThat(sampler.isSampled(1L)).isFalse();
+    assertThat(sampler.isSampled(1L, request("GET", "/api"))).isFalse();
+  }
+
+  @Test
+  public void startsWithDefaultWhileZooKeeperIsDown() throws Exception {
+    zooKeeperTestServer.stop();
+    replaceSampler(builder().defaultValue("1.0"));
+
+    assertThat(sampler.isSampled(1L)).isTrue();
+  }
+
+  @Test
+  public void invalidDefaultValue() throws Exception {
+    thrown.expect(IllegalArgumentException.class);
+
+    builder().defaultValue("one").build();
+  }
+
+  @Test
+  public void baseRateAppliesToAllServices() throws Exception {
+    setValue(BASE, "1.0");
+
+    await(() -> sampler.isSampled(1L));
+    assertThat(sampler.isSampled(1L, request("GET", "/api"))).isTrue();
+  }
+
+  @Test
+  public void serviceRateOverridesBase() throws Exception {
+    setValue(BASE, "1.0");
+    setValue(BASE + "/checkout", "0.0");
+    setValue(BASE + "/inventory", "1.0");
+
+    await(() -> !sampler.isSampled(1L));
+    Thread.sleep(100); // the other service shouldn't apply
+    assertThat(sampler.isSampled(1L)).isFalse();
+  }
+
+  @Test
+  public void routeRatesOverrideService() throws Exception {
+    setValue(BASE + "/checkout", "0.0");
+    setValue(BASE + "/checkout/POST%20%2Fcart", "1.0");
+    setValue(BASE + "/checkout/helloworld.Greeter%2F", "1.0");
+
+    await(() -> sampler.isSampled(1L, request("POST", "/cart/items")));
+    await(() -> sampler.isSampled(1L, request(null, "helloworld.Greeter/SayHello")));
+    assertThat(sampler.isSampled(1L, request("GET", "/cart"))).isFalse();
+    assertThat(sampler.isSampled(1L)).isFalse();
+  }
+
+  @Test
+  public void ignoresInvalidValues() throws Exception {
+    setValue(BASE, "1.0");
+    setValue(BASE + "/checkout", "one");
+
+    await(() -> sampler.isSampled(1L));
+  }
+
+  @Test
+  public void updatesWhenTreeChanges() throws Exception {
+    setValue(BASE + "/checkout/%2Fhealth", "1.0");
+    await(() -> sampler.isSampled(1L, request("GET", "/health")));
+
+    sampler.getZkCurator().setData().forPath(BASE + "/checkout/%2Fhealth", "0.0".getBytes("UTF-8"));
+    await(() -> !sampler.isSampled(1L, request("GET", "/health")));
+
+    setValue(BASE, "1.0");
+    sampler.getZkCurator().delete().forPath(BASE + "/checkout/%2Fhealth");
+    await(() -> sampler.isSampled(1L, request("GET", "/health")));
+  }
+
+  @Test
+  public void unchangedRatesKeepTheirSampler() throws Exception {
+    replaceSampler(builder().samplerFactory(ZooKeeperSampler.TRACES_PER_SECOND));
+    setValue(BASE + "/checkout", "1");
+    await(() -> sampler.isSampled(1L));
+    assertThat(sampler.isSampled(1L)).isFalse(); // the limit of 1 was used
+
+    setValue(BASE + "/checkout/%2Fapi", "100");
+    await(() -> sampler.isSampled(1L, request("GET", "/api")));
+
+    assertThat(sampler.isSampled(1L)).isFalse(); // the service's limiter wasn't replaced
+  }
+
+  @Test
+  public void delegatesDebug() throws Exception {
+    replaceSampler(builder().samplerFactory(
+        value -> RateLimitingSampler.create(Integer.parseInt(value), 0)));
+    setValue(BASE + "/checkout", "100");
+
+    await(() -> !sampler.allowsDebug(1L));
+  }
+
+  private ZooKeeperTreeSampler.Builder builder() {
+    return new ZooKeeperTreeSampler.Builder(zooKeeperTestServer.getConnectString(), "checkout");
+  }
+
+  private void replaceSampler(ZooKeeperTreeSampler.Builder builder) {
+    sampler.close();
+    sampler = builder.build();
+  }
+
+  private void setValue(String path, String value) throws Exception {
+    if (sampler.getZkCurator().checkExists().forPath(path) == null) {
+      sampler.getZkCurator().create().creatingParentsIfNeeded()
+          .forPath(path, value.getBytes("UTF-8"));
+    } else {
+      sampler.getZkCurator().setData().forPath(path, value.getBytes("UTF-8"));
+    }
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 1000; i++) {
+      if (condition.getAsBoolean()) return;
+      Thread.sleep(10);
+    }
+    throw new AssertionError("condition wasn't met within 10 seconds");
+  }
+
+  static SamplingRequest request(final String method, final String path) {
+    return new SamplingRequest() {
+      @Override public String method() {
+        return method;
+      }
+
+      @Override public String path() {
+        return path;
+      }
+    };
+  }
+}
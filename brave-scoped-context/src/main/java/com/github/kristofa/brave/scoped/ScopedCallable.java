@@ -0,0 +1,52 @@
+package com.github.kristofa.brave.scoped;
+
+import java.util.concurrent.Callable;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * {@link Callable} that calls another in the {@link SpanContext} which was current when it was
+ * wrapped, then restores the context of the thread that called it.
+ *
+ * <p>Is used by {@link ScopedExecutorService}.
+ *
+ * @see ScopedExecutorService
+ */
+public final class ScopedCallable<T> implements Callable<T> {
+
+  /**
+   * Returns a callable bound to the current context. This is so even if there are no spans in scope,
+   * so that the callable doesn't see spans left on the thread which calls it.
+   */
+  public static <T> Callable<T> wrap(Callable<T> callable) {
+    return wrap(callable, ScopedServerClientAndLocalSpanState.currentContext());
+  }
+
+  static <T> Callable<T> wrap(Callable<T> callable, SpanContext context) {
+    checkNotNull(callable, "callable");
+    return new ScopedCallable<T>(callable, context);
+  }
+
+  private final Callable<T> delegate;
+  private final SpanContext context;
+
+  ScopedCallable(Callable<T> delegate, SpanContext context) {
+    this.delegate = delegate;
+    this.context = context;
+  }
+
+  @Override
+  public T call() throws Exception {
+    SpanContext previous = ScopedServerClientAndLocalSpanState.swap(context);
+    try {
+      return delegate.call();
+    } finally {
+      ScopedServerClientAndLocalSpanState.swap(previous);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ScopedCallable{delegate=" + delegate + ", context=" + context + "}";
+  }
+}
@@ -0,0 +1,129 @@
+package com.github.kristofa.brave.scoped;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * {@link ExecutorService} that wraps around an existing {@link ExecutorService} and runs tasks in
+ * the {@link SpanContext} of the thread that submitted them.
+ *
+ * <p>Use this with {@link ScopedServerClientAndLocalSpanState}. The context is captured with one
+ * reference read. Tasks submitted while no span is in scope are bound to the empty context, so
+ * that they don't see spans left on the executor thread.
+ *
+ * <p>It also implements {@link Closeable}, calling {@link #shutdown()}, so the executor service is
+ * shut down properly when for example using Spring.
+ *
+ * @see ScopedCallable
+ * @see ScopedRunnable
+ */
+public class ScopedExecutorService implements ExecutorService, Closeable {
+
+  public static ScopedExecutorService wrap(ExecutorService wrappedExecutor) {
+    return new ScopedExecutorService(wrappedExecutor);
+  }
+
+  private final ExecutorService wrappedExecutor;
+
+  ScopedExecutorService(ExecutorService wrappedExecutor) { // intentionally hidden
+    this.wrappedExecutor = checkNotNull(wrappedExecutor, "wrappedExecutor");
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    wrappedExecutor.execute(ScopedRunnable.wrap(command));
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return wrappedExecutor.awaitTermination(timeout, unit);
+  }
+
+  @Override
+  public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks)
+      throws InterruptedException {
+    return wrappedExecutor.invokeAll(wrap(tasks));
+  }
+
+  @Override
+  public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout,
+      TimeUnit unit) throws InterruptedException {
+    return wrappedExecutor.invokeAll(wrap(tasks), timeout, unit);
+  }
+
+  @Override
+  public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+      throws InterruptedException, ExecutionException {
+    return wrappedExecutor.invokeAny(wrap(tasks));
+  }
+
+  @Override
+  public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    return wrappedExecutor.invokeAny(wrap(tasks), timeout, unit);
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return wrappedExecutor.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return wrappedExecutor.isTerminated();
+  }
+
+  @Override
+  public void shutdown() {
+    wrappedExecutor.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    return wrappedExecutor.shutdownNow();
+  }
+
+  @Override
+  public <T> Future<T> submit(Callable<T> task) {
+    return wrappedExecutor.submit(ScopedCallable.wrap(task));
+  }
+
+  @Override
+  public Future<?> submit(Runnable task) {
+    return wrappedExecutor.submit(ScopedRunnable.wrap(task));
+  }
+
+  @Override
+  public <T> Future<T> submit(Runnable task, T result) {
+    return wrappedExecutor.submit(ScopedRunnable.wrap(task), result);
+  }
+
+  /**
+   * Convenience for try-with-resources, or frameworks such as Spring that automatically process
+   * this.
+   */
+  @Override
+  public void close() {
+    shutdown();
+  }
+
+  /** Binds each task to the current context. */
+  static <T> Collection<? extends Callable<T>> wrap(Collection<? extends Callable<T>> tasks) {
+    SpanContext context = ScopedServerClientAndLocalSpanState.currentContext();
+    List<Callable<T>> result = new ArrayList<Callable<T>>(tasks.size());
+    for (Callable<T> task : tasks) {
+      result.add(ScopedCallable.wrap(task, context));
+    }
+    return result;
+  }
+}
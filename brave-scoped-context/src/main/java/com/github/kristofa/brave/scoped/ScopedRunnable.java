@@ -0,0 +1,50 @@
+package com.github.kristofa.brave.scoped;
+
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * {@link Runnable} that runs another in the {@link SpanContext} which was current when it was
+ * wrapped, then restores the context of the thread that ran it.
+ *
+ * <p>Is used by {@link ScopedExecutorService}.
+ *
+ * @see ScopedExecutorService
+ */
+public final class ScopedRunnable implements Runnable {
+
+  /**
+   * Returns a runnable bound to the current context. This is so even if there are no spans in scope,
+   * so that the runnable doesn't see spans left on the thread which runs it.
+   */
+  public static Runnable wrap(Runnable runnable) {
+    return wrap(runnable, ScopedServerClientAndLocalSpanState.currentContext());
+  }
+
+  static Runnable wrap(Runnable runnable, SpanContext context) {
+    checkNotNull(runnable, "runnable");
+    return new ScopedRunnable(runnable, context);
+  }
+
+  private final Runnable delegate;
+  private final SpanContext context;
+
+  ScopedRunnable(Runnable delegate, SpanContext context) {
+    this.delegate = delegate;
+    this.context = context;
+  }
+
+  @Override
+  public void run() {
+    SpanContext previous = ScopedServerClientAndLocalSpanState.swap(context);
+    try {
+      delegate.run();
+    } finally {
+      ScopedServerClientAndLocalSpanState.swap(previous);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ScopedRunnable{delegate=" + delegate + ", context=" + context + "}";
+  }
+}
@@ -0,0 +1,128 @@
+package com.github.kristofa.brave.scoped;
+
+import com.github.kristofa.brave.ServerClientAndLocalSpanState;
+import com.github.kristofa.brave.ServerSpan;
+import com.github.kristofa.brave.internal.Nullable;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+
+import static com.github.kristofa.brave.internal.Util.checkNotBlank;
+import static com.github.kristofa.brave.internal.Util.checkNotNull;
+
+/**
+ * {@link ServerClientAndLocalSpanState} implementation which binds an immutable {@link
+ * SpanContext} to the current thread, suited to applications that run requests on many
+ * short-lived threads, such as virtual threads.
+ *
+ * <p>A thread holds one reference, and only while spans are in scope: the entry is removed when
+ * the last span is cleared. Nothing is inherited by child threads. Instead, capture the {@link
+ * #currentContext() current context} and {@link #bind(SpanContext) bind} it where the work
+ * continues. As contexts are immutable, this costs one reference read and two writes, regardless
+ * of how many spans are in scope. {@link ScopedExecutorService} does this for each task.
+ *
+ * <p>Local spans are kept on a stack, so use {@link
+ * com.github.kristofa.brave.Brave.Builder#allowNestedLocalSpans(boolean)} to make nested local
+ * spans children of the current one.
+ */
+public final class ScopedServerClientAndLocalSpanState implements ServerClientAndLocalSpanState {
+
+  /** Null when no span is in scope, so that idle threads don't hold an entry. */
+  private final static ThreadLocal<SpanContext> currentContext = new ThreadLocal<SpanContext>();
+
+  /** Returns the spans in scope on this thread. */
+  public static SpanContext currentContext() {
+    SpanContext context = currentContext.get();
+    return context != null ? context : SpanContext.EMPTY;
+  }
+
+  /**
+   * Binds the context to this thread, until the returned scope is closed. Ex.
+   * <pre>{@code
+   * // on the thread which started the work
+   * SpanContext context = ScopedServerClientAndLocalSpanState.currentContext();
+   * // on the thread which continues it
+   * try (SpanScope scope = ScopedServerClientAndLocalSpanState.bind(context)) {
+   *   ...
+   * }
+   * }</pre>
+   */
+  public static SpanScope bind(SpanContext context) {
+    return new SpanScope(swap(checkNotNull(context, "context")));
+  }
+
+  /** Binds the context to this thread, returning the one it replaced. */
+  static SpanContext swap(SpanContext context) {
+    SpanContext previous = currentContext.get();
+    if (context.isEmpty()) {
+      if (previous != null) currentContext.remove();
+    } else {
+      currentContext.set(context);
+    }
+    return previous != null ? previous : SpanContext.EMPTY;
+  }
+
+  private final Endpoint endpoint;
+
+  /**
+   * @param endpoint Endpoint of the local service being traced.
+   */
+  public ScopedServerClientAndLocalSpanState(Endpoint endpoint) {
+    checkNotNull(endpoint, "endpoint must be specified.");
+    checkNotBlank(endpoint.service_name, "Service name must be specified.");
+    this.endpoint = endpoint;
+  }
+
+  @Override
+  public ServerSpan getCurrentServerSpan() {
+    return currentContext().serverSpan();
+  }
+
+  @Override
+  public void setCurrentServerSpan(@Nullable ServerSpan span) {
+    swap(currentContext().withServerSpan(span));
+  }
+
+  @Override
+  public Endpoint endpoint() {
+    return endpoint;
+  }
+
+  @Override
+  public Span getCurrentClientSpan() {
+    return currentContext().clientSpan();
+  }
+
+  @Override
+  public void setCurrentClientSpan(@Nullable Span span) {
+    swap(currentContext().withClientSpan(span));
+  }
+
+  @Override
+  public Boolean sample() {
+    return getCurrentServerSpan().getSample();
+  }
+
+  @Override
+  public Span getCurrentLocalSpan() {
+    return currentContext().localSpan();
+  }
+
+  /**
+   * Sets the specified local span as the active span at the top of the
+   * stack, or if the specified span is null, the top of the stack is popped.
+   *
+   * @param span Local span.
+   */
+  @Override
+  public void setCurrentLocalSpan(@Nullable Span span) {
+    swap(currentContext().withLocalSpan(span));
+  }
+
+  @Override
+  public String toString() {
+    return "ScopedServerClientAndLocalSpanState{"
+        + "endpoint=" + endpoint + ", "
+        + "currentContext=" + currentContext()
+        + "}";
+  }
+}
@@ -0,0 +1,99 @@
+package com.github.kristofa.brave.scoped;
+
+import com.github.kristofa.brave.ServerSpan;
+import com.github.kristofa.brave.internal.Nullable;
+import com.twitter.zipkin.gen.Span;
+
+/**
+ * The spans in scope: a server span, a client span and a stack of local spans.
+ *
+ * <p>A context is immutable. Changing a span returns a new context, which shares the local spans
+ * of this one. This means a context can be captured by reference and bound to any number of
+ * threads, without copying or synchronization.
+ *
+ * @see ScopedServerClientAndLocalSpanState#currentContext()
+ * @see ScopedServerClientAndLocalSpanState#bind(SpanContext)
+ */
+public final class SpanContext {
+  /** A context with no spans in scope. */
+  public static final SpanContext EMPTY = new SpanContext(null, null, null);
+
+  @Nullable // null means ServerSpan.EMPTY
+  final ServerSpan serverSpan;
+  @Nullable final Span clientSpan;
+  @Nullable final LocalSpans localSpans;
+
+  SpanContext(@Nullable ServerSpan serverSpan, @Nullable Span clientSpan,
+      @Nullable LocalSpans localSpans) {
+    this.serverSpan = serverSpan;
+    this.clientSpan = clientSpan;
+    this.localSpans = localSpans;
+  }
+
+  /** Returns the server span, or {@link ServerSpan#EMPTY} if there is none. */
+  public ServerSpan serverSpan() {
+    return serverSpan != null ? serverSpan : ServerSpan.EMPTY;
+  }
+
+  @Nullable
+  public Span clientSpan() {
+    return clientSpan;
+  }
+
+  /** Returns the most recent local span. */
+  @Nullable
+  public Span localSpan() {
+    return localSpans != null ? localSpans.span : null;
+  }
+
+  /** True if there are no spans in scope. */
+  public boolean isEmpty() {
+    return serverSpan == null && clientSpan == null && localSpans == null;
+  }
+
+  SpanContext withServerSpan(@Nullable ServerSpan serverSpan) {
+    if (ServerSpan.EMPTY.equals(serverSpan)) serverSpan = null;
+    if (serverSpan == this.serverSpan) return this;
+    return create(serverSpan, clientSpan, localSpans);
+  }
+
+  SpanContext withClientSpan(@Nullable Span clientSpan) {
+    if (clientSpan == this.clientSpan) return this;
+    return create(serverSpan, clientSpan, localSpans);
+  }
+
+  /** Pushes the local span, or pops the current one if it is null. */
+  SpanContext withLocalSpan(@Nullable Span localSpan) {
+    if (localSpan != null) {
+      return create(serverSpan, clientSpan, new LocalSpans(localSpan, localSpans));
+    }
+    if (localSpans == null) return this;
+    return create(serverSpan, clientSpan, localSpans.parent);
+  }
+
+  static SpanContext create(@Nullable ServerSpan serverSpan, @Nullable Span clientSpan,
+      @Nullable LocalSpans localSpans) {
+    if (serverSpan == null && clientSpan == null && localSpans == null) return EMPTY;
+    return new SpanContext(serverSpan, clientSpan, localSpans);
+  }
+
+  @Override
+  public String toString() {
+    return "SpanContext{"
+        + "serverSpan=" + serverSpan() + ", "
+        + "clientSpan=" + clientSpan + ", "
+        + "localSpan=" + localSpan()
+        + "}";
+  }
+
+  /** A node in the stack of local spans. Nodes are never modified, so contexts can share them. */
+  static final class LocalSpans {
+    final Span span;
+    @Nullable final LocalSpans parent;
+
+    LocalSpans(Span span, @Nullable LocalSpans parent) {
+      this.span = span;
+      this.parent = parent;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.github.kristofa.brave.scoped;
+
+import java.io.Closeable;
+
+/**
+ * Returned by {@link ScopedServerClientAndLocalSpanState#bind(SpanContext)}. Closing it binds the
+ * context that was in scope before, so scopes must be closed on the thread that opened them, in
+ * reverse order.
+ */
+public final class SpanScope implements Closeable {
+  private final SpanContext previous;
+  private boolean closed;
+
+  SpanScope(SpanContext previous) {
+    this.previous = previous;
+  }
+
+  /** Restores the previous context. Subsequent calls have no effect. */
+  @Override
+  public void close() {
+    if (closed) return;
+    closed = true;
+    ScopedServerClientAndLocalSpanState.swap(previous);
+  }
+}
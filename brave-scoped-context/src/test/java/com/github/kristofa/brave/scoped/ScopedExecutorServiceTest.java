@@ -0,0 +1,82 @@
+package com.github.kristofa.brave.scoped;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.Sampler;
+import com.twitter.zipkin.gen.Endpoint;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Test;
+import zipkin.reporter.Reporter;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ScopedExecutorServiceTest {
+  // Ensures one at-a-time, but also on a different thread
+  ExecutorService wrappedExecutor = Executors.newSingleThreadExecutor();
+  ScopedExecutorService executor = ScopedExecutorService.wrap(wrappedExecutor);
+  Brave brave = new Brave.Builder(
+      new ScopedServerClientAndLocalSpanState(Endpoint.create("service", 127 << 24 | 1)))
+      .allowNestedLocalSpans(true)
+      .reporter(Reporter.NOOP)
+      .traceSampler(Sampler.ALWAYS_SAMPLE).build();
+  Callable<SpanContext> currentContext = ScopedServerClientAndLocalSpanState::currentContext;
+
+  @After
+  public void close() {
+    executor.shutdownNow();
+    ScopedServerClientAndLocalSpanState.swap(SpanContext.EMPTY);
+  }
+
+  @Test
+  public void submit_usesContextAtSubmission() throws Exception {
+    brave.serverTracer().setStateUnknown("get");
+    brave.localTracer().startNewSpan("scoped", "parent");
+    SpanContext context = ScopedServerClientAndLocalSpanState.currentContext();
+
+    Future<SpanContext> future = executor.submit(currentContext);
+    brave.localTracer().finishSpan(); // changing the context after the fact!
+
+    assertThat(future.get()).isSameAs(context);
+  }
+
+  @Test
+  public void submit_restoresContextOfExecutorThread() throws Exception {
+    brave.serverTracer().setStateUnknown("get");
+    executor.submit(currentContext).get();
+    brave.serverTracer().clearCurrentSpan();
+
+    assertThat(executor.submit(currentContext).get()).isSameAs(SpanContext.EMPTY);
+  }
+
+  @Test
+  public void bindsEmptyContextWhenNoSpanIsInScope() throws Exception {
+    Callable<SpanContext> callable = ScopedCallable.wrap(currentContext);
+    List<Callable<SpanContext>> tasks = asList(currentContext, currentContext);
+    Collection<? extends Callable<SpanContext>> wrapped = ScopedExecutorService.wrap(tasks);
+
+    brave.serverTracer().setStateUnknown("get"); // as if left on the thread by another task
+    SpanContext leftover = ScopedServerClientAndLocalSpanState.currentContext();
+
+    assertThat(callable.call()).isSameAs(SpanContext.EMPTY);
+    for (Callable<SpanContext> task : wrapped) {
+      assertThat(task.call()).isSameAs(SpanContext.EMPTY);
+    }
+    assertThat(ScopedServerClientAndLocalSpanState.currentContext()).isSameAs(leftover);
+  }
+
+  @Test
+  public void invokeAll_usesContextAtSubmission() throws Exception {
+    brave.serverTracer().setStateUnknown("get");
+    SpanContext context = ScopedServerClientAndLocalSpanState.currentContext();
+
+    for (Future<SpanContext> future : executor.invokeAll(asList(currentContext, currentContext))) {
+      assertThat(future.get()).isSameAs(context);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.github.kristofa.brave.scoped;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.Sampler;
+import com.github.kristofa.brave.ServerSpan;
+import com.github.kristofa.brave.SpanId;
+import com.twitter.zipkin.gen.Endpoint;
+import com.twitter.zipkin.gen.Span;
+import org.junit.After;
+import org.junit.Test;
+import zipkin.reporter.Reporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ScopedServerClientAndLocalSpanStateTest {
+  ScopedServerClientAndLocalSpanState state =
+      new ScopedServerClientAndLocalSpanState(Endpoint.create("service", 127 << 24 | 1));
+  Brave brave = new Brave.Builder(state)
+      .allowNestedLocalSpans(true)
+      .reporter(Reporter.NOOP)
+      .traceSampler(Sampler.ALWAYS_SAMPLE).build();
+
+  @After
+  public void clear() {
+    ScopedServerClientAndLocalSpanState.swap(SpanContext.EMPTY);
+  }
+
+  @Test
+  public void emptyByDefault() {
+    assertThat(state.getCurrentServerSpan()).isEqualTo(ServerSpan.EMPTY);
+    assertThat(state.getCurrentClientSpan()).isNull();
+    assertThat(state.getCurrentLocalSpan()).isNull();
+    assertThat(state.sample()).isNull();
+    assertThat(ScopedServerClientAndLocalSpanState.currentContext())
+        .isSameAs(SpanContext.EMPTY);
+  }
+
+  @Test
+  public void clearingAllSpansEmptiesTheContext() {
+    state.setCurrentServerSpan(mock(ServerSpan.class));
+    state.setCurrentClientSpan(mock(Span.class));
+    state.setCurrentLocalSpan(mock(Span.class));
+
+    state.setCurrentServerSpan(null);
+    state.setCurrentClientSpan(null);
+    state.setCurrentLocalSpan(null);
+
+    assertThat(ScopedServerClientAndLocalSpanState.currentContext())
+        .isSameAs(SpanContext.EMPTY);
+  }
+
+  @Test
+  public void nestedLocalSpansRestoreParent() {
+    brave.serverTracer().setStateUnknown("get");
+    SpanId parent = brave.localTracer().startNewSpan("scoped", "parent");
+    SpanId child = brave.localTracer().startNewSpan("scoped", "child");
+
+    assertThat(child.nullableParentId()).isEqualTo(parent.spanId);
+
+    brave.localTracer().finishSpan();
+    assertThat(state.getCurrentLocalSpan().getId()).isEqualTo(parent.spanId);
+    brave.localTracer().finishSpan();
+    assertThat(state.getCurrentLocalSpan()).isNull();
+  }
+
+  @Test
+  public void contextIsImmutable() {
+    brave.serverTracer().setStateUnknown("get");
+    SpanContext context = ScopedServerClientAndLocalSpanState.currentContext();
+
+    brave.localTracer().startNewSpan("scoped", "child");
+
+    assertThat(context.localSpan()).isNull();
+    assertThat(ScopedServerClientAndLocalSpanState.currentContext().localSpan()).isNotNull();
+  }
+
+  @Test
+  public void bindRestoresPreviousContextOnClose() {
+    brave.serverTracer().setStateUnknown("get");
+    SpanContext context = ScopedServerClientAndLocalSpanState.currentContext();
+    brave.serverTracer().clearCurrentSpan();
+
+    try (SpanScope scope = ScopedServerClientAndLocalSpanState.bind(context)) {
+      assertThat(state.getCurrentServerSpan()).isSameAs(context.serverSpan());
+    }
+
+    assertThat(ScopedServerClientAndLocalSpanState.currentContext())
+        .isSameAs(SpanContext.EMPTY);
+  }
+
+  @Test
+  public void notInheritedByChildThreads() throws InterruptedException {
+    brave.serverTracer().setStateUnknown("get");
+
+    SpanContext[] childContext = new SpanContext[1];
+    Thread thread =
+        new Thread(() -> childContext[0] = ScopedServerClientAndLocalSpanState.currentContext());
+    thread.start();
+    thread.join();
+
+    assertThat(childContext[0]).isSameAs(SpanContext.EMPTY);
+  }
+}
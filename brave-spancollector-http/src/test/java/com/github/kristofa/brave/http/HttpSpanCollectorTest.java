@@ -1,6 +1,9 @@
 package com.github.kristofa.brave.http;
 
 import com.github.kristofa.brave.SpanCollectorMetricsHandler;
+import com.github.kristofa.brave.SpanId;
+import com.github.kristofa.brave.SpanLimits;
+import com.github.kristofa.brave.SpanLimitsMetricsHandler;
 import com.twitter.zipkin.gen.Annotation;
 import com.twitter.zipkin.gen.Span;
 import java.util.Arrays;
@@ -46,6 +49,30 @@ public class HttpSpanCollectorTest {
     assertThat(metrics.droppedSpans.get()).isZero();
   }
 
+  @Test
+  public void collectIncrementsTruncatedAndOverLimitMetrics() throws Exception {
+    LimitsMetricsHandler metrics = new LimitsMetricsHandler();
+    collector.close();
+    collector = new HttpSpanCollector(zipkinRule.httpUrl(), config, metrics);
+
+    collector.collect(truncatedSpan());
+    collector.collect(overLimitSpan());
+    collector.collect(span(3L, "foo"));
+
+    assertThat(metrics.acceptedSpans.get()).isEqualTo(3);
+    assertThat(metrics.truncatedSpans.get()).isEqualTo(1);
+    assertThat(metrics.overLimitSpans.get()).isEqualTo(1);
+  }
+
+  /** Handlers which don't implement {@link SpanLimitsMetricsHandler} aren't told about limits. */
+  @Test
+  public void collectAcceptsLimitedSpansWithPlainMetrics() throws Exception {
+    collector.collect(truncatedSpan());
+    collector.collect(overLimitSpan());
+
+    assertThat(metrics.acceptedSpans.get()).isEqualTo(2);
+  }
+
   @Test
   public void dropsWhenQueueIsFull() throws Exception {
     for (int i = 0; i < 1001; i++)
@@ -142,6 +169,36 @@ public class HttpSpanCollectorTest {
     }
   }
 
+  static class LimitsMetricsHandler extends TestMetricsHandler
+      implements SpanLimitsMetricsHandler {
+
+    final AtomicInteger truncatedSpans = new AtomicInteger();
+    final AtomicInteger overLimitSpans = new AtomicInteger();
+
+    @Override
+    public void incrementTruncatedSpans(int quantity) {
+      truncatedSpans.addAndGet(quantity);
+    }
+
+    @Override
+    public void incrementOverLimitSpans(int quantity) {
+      overLimitSpans.addAndGet(quantity);
+    }
+  }
+
+  static final SpanLimits LIMITS = SpanLimits.builder().maxAnnotations(1).maxSpanBytes(100).build();
+
+  static Span truncatedSpan() {
+    return Span.pooledFromSpanId(SpanId.builder().spanId(1L).build(), LIMITS)
+        .addToAnnotations(1L, "foo", null)
+        .addToAnnotations(2L, "bar", null);
+  }
+
+  static Span overLimitSpan() {
+    return Span.pooledFromSpanId(SpanId.builder().spanId(2L).build(), LIMITS)
+        .addToBinary_annotations("sql.query", new String(new char[200]), null);
+  }
+
   static Span span(long traceId, String spanName) {
     return new Span().setTrace_id(traceId).setId(traceId).setName(spanName);
   }
@@ -78,6 +78,7 @@ public final class LocalSpanCollector extends FlushingSpanCollector {
     List<zipkin.Span> zipkinSpans = new ArrayList<zipkin.Span>(drained.size());
     for (Span input : drained) {
       zipkinSpans.add(input.toZipkin());
+      input.recycle();
     }
     // This dereferences a lazy, which might throw an exception if the storage system is down.
     AsyncSpanConsumer asyncSpanConsumer = storageComponent.asyncSpanConsumer();
@@ -15,6 +15,8 @@ import java.util.logging.Logger;
 
 import com.github.kristofa.brave.SpanCollectorMetricsHandler;
 import com.github.kristofa.brave.SpanCollector;
+import com.github.kristofa.brave.SpanLimitsMetricsHandler;
+import com.github.kristofa.brave.internal.SpanRecord;
 
 import org.apache.thrift.TException;
 
@@ -114,6 +116,12 @@ public class ScribeSpanCollector implements SpanCollector, Closeable {
     public void collect(final Span span) {
 
         metricsHandler.incrementAcceptedSpans(1);
+        final SpanRecord record = span.record();
+        if (record != null && metricsHandler instanceof SpanLimitsMetricsHandler) {
+            final SpanLimitsMetricsHandler limitsMetrics = (SpanLimitsMetricsHandler) metricsHandler;
+            if (record.isTruncated()) limitsMetrics.incrementTruncatedSpans(1);
+            if (record.isOverLimit()) limitsMetrics.incrementOverLimitSpans(1);
+        }
         final long start = System.currentTimeMillis();
 
         if (!defaultAnnotations.isEmpty()) {
@@ -139,6 +139,7 @@ class SpanProcessingThread implements Callable<Integer> {
 
     private LogEntry create(final Span span) throws TException {
         final String spanAsString = Base64.encode(SpanCodec.THRIFT.writeSpan(span));
+        span.recycle();
         return new LogEntry("zipkin", spanAsString);
     }
 }
@@ -5,9 +5,11 @@ import com.github.kristofa.brave.ClientRequestInterceptor;
 import com.github.kristofa.brave.ClientResponseInterceptor;
 import com.github.kristofa.brave.ClientTracer;
 import com.github.kristofa.brave.SpanId;
+import com.github.kristofa.brave.TagSource;
 import com.github.kristofa.brave.http.SpanNameProvider;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -24,8 +26,12 @@ import zipkin.TraceKeys;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.inOrder;
@@ -37,6 +43,7 @@ public class BraveClientHttpRequestInterceptorTest {
     @Autowired ClientTracer clientTracer;
     @Autowired SpanNameProvider spanNameProvider;
     @Autowired BraveClientHttpRequestInterceptor subject;
+    ArgumentCaptor<TagSource> tags = ArgumentCaptor.forClass(TagSource.class);
 
     @Test(expected = IOException.class)
     public void interceptShouldLetExceptionOccurringDuringExecuteBlowUp() throws Exception {
@@ -60,10 +67,11 @@ public class BraveClientHttpRequestInterceptorTest {
             final InOrder order = inOrder(clientTracer, execution);
 
             order.verify(clientTracer).startNewSpan(spanName);
-            order.verify(clientTracer).submitBinaryAnnotation(TraceKeys.HTTP_URL, url);
+            order.verify(clientTracer).submitBinaryAnnotations(tags.capture());
             order.verify(clientTracer).setClientSent();
             order.verify(execution).execute(request, body);
             order.verify(clientTracer).setClientReceived();
+            assertTags(tags.getValue(), TraceKeys.HTTP_URL, url);
         }
     }
 
@@ -90,10 +98,11 @@ public class BraveClientHttpRequestInterceptorTest {
         final InOrder order = inOrder(clientTracer, execution);
 
         order.verify(clientTracer).startNewSpan(spanName);
-        order.verify(clientTracer).submitBinaryAnnotation(TraceKeys.HTTP_URL, url);
+        order.verify(clientTracer).submitBinaryAnnotations(tags.capture());
         order.verify(clientTracer).setClientSent();
         order.verify(execution).execute(request, body);
         order.verify(clientTracer).setClientReceived();
+        assertTags(tags.getValue(), TraceKeys.HTTP_URL, url);
     }
 
     @Test
@@ -122,11 +131,22 @@ public class BraveClientHttpRequestInterceptorTest {
         final InOrder order = inOrder(clientTracer, execution);
 
         order.verify(clientTracer).startNewSpan(spanName);
-        order.verify(clientTracer).submitBinaryAnnotation(TraceKeys.HTTP_URL, url);
+        order.verify(clientTracer).submitBinaryAnnotations(tags.capture());
         order.verify(clientTracer).setClientSent();
         order.verify(execution).execute(request, body);
-        order.verify(clientTracer).submitBinaryAnnotation(TraceKeys.HTTP_STATUS_CODE, String.valueOf(status.value()));
+        order.verify(clientTracer).submitBinaryAnnotations(tags.capture());
         order.verify(clientTracer).setClientReceived();
+        assertTags(tags.getAllValues().get(0), TraceKeys.HTTP_URL, url);
+        assertTags(tags.getAllValues().get(1), TraceKeys.HTTP_STATUS_CODE, String.valueOf(status.value()));
+    }
+
+    static void assertTags(TagSource tags, String... keyValues) {
+        List<String> actual = new ArrayList<>();
+        tags.forEachTag((key, value) -> {
+            actual.add(key);
+            actual.add(value);
+        });
+        assertEquals(Arrays.asList(keyValues), actual);
     }
 
     @Configuration
@@ -3,6 +3,8 @@ package com.github.kristofa.brave.servlet;
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.ServerRequestInterceptor;
 import com.github.kristofa.brave.ServerResponseInterceptor;
+import com.github.kristofa.brave.ServerSpan;
+import com.github.kristofa.brave.ServerSpanThreadBinder;
 import com.github.kristofa.brave.http.DefaultSpanNameProvider;
 import com.github.kristofa.brave.http.HttpServerRequestAdapter;
 import com.github.kristofa.brave.http.HttpServerResponseAdapter;
@@ -62,14 +64,18 @@ public class BraveServletFilter implements Filter {
     private final SpanNameProvider spanNameProvider;
     @Nullable // while deprecated constructor is in use
     private final MaybeAddClientAddressFromRequest maybeAddClientAddressFromRequest;
+    @Nullable // while deprecated constructor is in use
+    private final ServerSpanThreadBinder serverThreadBinder;
 
     private FilterConfig filterConfig;
+    private String alreadyFilteredAttributeName;
 
     protected BraveServletFilter(Builder b) { // intentionally hidden
         this.requestInterceptor = b.brave.serverRequestInterceptor();
         this.responseInterceptor = b.brave.serverResponseInterceptor();
         this.spanNameProvider = b.spanNameProvider;
         this.maybeAddClientAddressFromRequest = MaybeAddClientAddressFromRequest.create(b.brave);
+        this.serverThreadBinder = b.brave.serverSpanThreadBinder();
     }
 
     /**
@@ -81,11 +87,13 @@ public class BraveServletFilter implements Filter {
         this.responseInterceptor = responseInterceptor;
         this.spanNameProvider = spanNameProvider;
         this.maybeAddClientAddressFromRequest = null;
+        this.serverThreadBinder = null;
     }
 
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
         this.filterConfig = filterConfig;
+        this.alreadyFilteredAttributeName = null;
     }
 
     @Override
@@ -99,13 +107,23 @@ public class BraveServletFilter implements Filter {
             filterChain.doFilter(request, response);
         } else {
             HttpServletRequest httpRequest = (HttpServletRequest) request;
-            final StatusExposingServletResponse statusExposingServletResponse = new StatusExposingServletResponse((HttpServletResponse) response);
             requestInterceptor.handle(new HttpServerRequestAdapter(new ServletHttpServerRequest(httpRequest), spanNameProvider));
 
+            if (!isSampled()) {
+                // Nothing will be recorded, so skip wrapping the response and reading its status.
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    serverThreadBinder.setCurrentSpan(null);
+                }
+                return;
+            }
+
             if (maybeAddClientAddressFromRequest != null) {
                 maybeAddClientAddressFromRequest.accept(httpRequest);
             }
 
+            final StatusExposingServletResponse statusExposingServletResponse = new StatusExposingServletResponse((HttpServletResponse) response);
             try {
                 filterChain.doFilter(request, statusExposingServletResponse);
             } finally {
@@ -115,12 +133,27 @@ public class BraveServletFilter implements Filter {
         }
     }
 
+    /** Returns false if the current request isn't traced. Always true with the deprecated constructor. */
+    private boolean isSampled() {
+        if (serverThreadBinder == null) return true;
+        ServerSpan serverSpan = serverThreadBinder.getCurrentServerSpan();
+        return serverSpan != null && serverSpan.getSpan() != null;
+    }
+
     @Override
     public void destroy() {
 
     }
 
     private String getAlreadyFilteredAttributeName() {
+        String result = alreadyFilteredAttributeName;
+        if (result == null) {
+            result = alreadyFilteredAttributeName = newAlreadyFilteredAttributeName();
+        }
+        return result;
+    }
+
+    private String newAlreadyFilteredAttributeName() {
         String name = getFilterName();
         if (name == null) {
             name = getClass().getName();
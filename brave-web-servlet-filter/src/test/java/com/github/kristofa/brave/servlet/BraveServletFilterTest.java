@@ -0,0 +1,79 @@
+package com.github.kristofa.brave.servlet;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.Sampler;
+import com.github.kristofa.brave.ServerSpan;
+import com.github.kristofa.brave.http.BraveHttpHeaders;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BraveServletFilterTest {
+  @Rule
+  public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+  @Mock
+  HttpServletRequest request;
+  @Mock
+  HttpServletResponse response;
+  @Mock
+  FilterChain filterChain;
+
+  Brave brave = new Brave.Builder("servlet").traceSampler(Sampler.NEVER_SAMPLE).build();
+  BraveServletFilter filter = BraveServletFilter.create(brave);
+
+  @After
+  public void clearState() {
+    brave.serverSpanThreadBinder().setCurrentSpan(null);
+  }
+
+  @Test
+  public void unsampledRequest_isntWrapped() throws Exception {
+    filter.doFilter(request, response, filterChain);
+
+    ArgumentCaptor<ServletResponse> passed = ArgumentCaptor.forClass(ServletResponse.class);
+    verify(filterChain).doFilter(any(HttpServletRequest.class), passed.capture());
+    assertThat(passed.getValue()).isSameAs(response);
+  }
+
+  @Test
+  public void unsampledRequest_unbindsServerSpan() throws Exception {
+    when(request.getHeader(BraveHttpHeaders.Sampled.getName())).thenReturn("0");
+
+    filter.doFilter(request, response, filterChain);
+
+    assertThat(brave.serverSpanThreadBinder().getCurrentServerSpan())
+        .isEqualTo(ServerSpan.EMPTY);
+  }
+
+  @Test
+  public void unsampledRequest_unbindsServerSpanWhenChainThrows() throws Exception {
+    IllegalStateException error = new IllegalStateException();
+    doThrow(error).when(filterChain).doFilter(request, response);
+
+    try {
+      filter.doFilter(request, response, filterChain);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).isSameAs(error);
+    }
+
+    assertThat(brave.serverSpanThreadBinder().getCurrentServerSpan())
+        .isEqualTo(ServerSpan.EMPTY);
+  }
+}